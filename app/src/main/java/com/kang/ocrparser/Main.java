@@ -1,21 +1,101 @@
 package com.kang.ocrparser;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.kang.ocrparser.io.SampleJsonLoader;
+import com.kang.ocrparser.aggregate.TicketAggregator;
+import com.kang.ocrparser.archive.TicketArchiveReader;
+import com.kang.ocrparser.archive.TicketFilter;
+import com.kang.ocrparser.batch.BatchRunner;
+import com.kang.ocrparser.batch.NdjsonPipeline;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.layout.WordLayout;
 import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.ParseBudget;
+import com.kang.ocrparser.parser.TemplateRegistry;
 import com.kang.ocrparser.parser.WeighingParser;
+import com.kang.ocrparser.server.DaemonClient;
+import com.kang.ocrparser.server.FolderWatcher;
+import com.kang.ocrparser.server.ParseDaemon;
+import com.kang.ocrparser.server.ParseServer;
+import com.kang.ocrparser.shard.ShardCoordinator;
+import com.kang.ocrparser.shard.ShardWorker;
+import com.kang.ocrparser.tare.TareIndex;
 
 public class Main {
 
+    private static final int DEFAULT_CACHE_ENTRIES = 10_000;
+
     public static void main(String[] args) throws Exception {
+        // --metrics: ParseMetrics가 로딩되기 전에 켜야 한다 (ENABLED가 static final)
+        if (args != null && List.of(args).contains("--metrics")) {
+            System.setProperty(ParseMetrics.PROPERTY, "true");
+        }
+        // --max-steps N: 티켓당 작업량 상한 (ParseBudget.DEFAULT_MAX_STEPS도 static final, 0 이하 = 무제한)
+        // --templates path: 추가 양식 정의 (시작할 때 한 번 읽고 검증 - 잘못된 파일이면 파싱마다 실패하지 않고 바로 종료)
+        String templates = null;
+        for (int i = 0; args != null && i + 1 < args.length; i++) {
+            if ("--max-steps".equals(args[i])) {
+                System.setProperty(ParseBudget.PROPERTY, String.valueOf(Long.parseLong(args[i + 1])));
+            } else if ("--templates".equals(args[i])) {
+                templates = args[i + 1];
+                System.setProperty(TemplateRegistry.PROPERTY, templates);
+            }
+        }
+        if (templates != null) loadTemplates(templates);
+
+        if (args != null && args.length > 0 && "--batch".equals(args[0])) {
+            runBatch(args);
+            return;
+        }
+        if (args != null && args.length > 0 && "--pipeline".equals(args[0])) {
+            runPipeline(args);
+            return;
+        }
+        if (args != null && args.length > 0 && "--coordinate".equals(args[0])) {
+            runCoordinator(args);
+            return;
+        }
+        if (args != null && args.length > 0 && "--shard-worker".equals(args[0])) {
+            runShardWorker(args);
+            return;
+        }
+        if (args != null && args.length > 0 && "--scan".equals(args[0])) {
+            runScan(args);
+            return;
+        }
+        if (args != null && args.length > 0 && "--serve".equals(args[0])) {
+            runServer(args);
+            return;
+        }
+
+        if (args != null && args.length > 0 && "--watch".equals(args[0])) {
+            runWatch(args);
+            return;
+        }
+        if (args != null && args.length > 0 && "--daemon".equals(args[0])) {
+            runDaemon(args);
+            return;
+        }
+        if (args != null && args.length > 0 && "--client".equals(args[0])) {
+            runClient(args);
+            return;
+        }
+
+        runSingle(args);
+    }
+
+    // 단건 모드: <input> <output> [--layout | --all]
+    private static void runSingle(String[] args) throws Exception {
         if (args == null || args.length < 2) {
-            System.out.println("Usage:");
-            System.out.println("  ./gradlew :app:run --args=\"<input.(txt|json)> <output.json>\"");
+            printUsage();
             System.exit(1);
         }
 
@@ -31,24 +111,35 @@ public class Main {
             System.err.println("[ERROR] Input file not found: " + in.toAbsolutePath());
             System.exit(2);
         }
+        // 응답 여러 개가 든 압축 묶음(.zip, .jsonl.gz)은 파이프라인으로 (.json.gz 하나는 여기서 그대로 읽는다)
+        if (NdjsonPipeline.holdsManyResponses(in)) {
+            System.err.println("[ERROR] " + in.getFileName() + " holds many responses: use --pipeline <input> <output.ndjson>");
+            System.exit(1);
+        }
 
-        // 1) 파일 읽기
-        String raw = Files.readString(in, StandardCharsets.UTF_8);
-
-        // 2) JSON이면 OCR text만 추출, 아니면 그대로 사용
-        String ocrText = inputPath.toLowerCase().endsWith(".json")
-                ? SampleJsonLoader.extractOcrText(raw)
-                : raw;
+        // --all: 여러 장 / 여러 티켓 문서 → 페이지 경계와 반복되는 머리말/라벨로 나눠 전부 파싱
+        if (List.of(args).contains("--all")) {
+            List<String> pages = OcrTextReader.readPages(in);
+            List<ParsedTicket> tickets = WeighingParser.parseAll(pages);
+            System.out.println("[INFO] Parsing completed (pages=" + pages.size() + ", tickets=" + tickets.size() + ")");
 
-        // 3) OCR 전처리 (입력 안정성 확보)
-        // (1) BOM 제거
-        ocrText = ocrText.replace("\uFEFF", "");
+            Path out = Path.of(outputPath);
+            BatchRunner.writeAll(out, tickets);
+            System.out.println("Saved: " + out.toAbsolutePath());
+            return;
+        }
 
-        // (2) 제로폭 문자 제거 (OCR / JSON에서 간혹 섞임)
-        ocrText = ocrText.replaceAll("[\\u200B-\\u200D\\u2060]", "");
+        // 1) 파일 읽기
+        // 2) JSON이면 스트리밍으로 OCR text만 추출(파일 전체를 String으로 읽지 않음), 아니면 그대로 사용
+        // 3) OCR 전처리 (BOM / 제로폭 문자 / 줄바꿈 통일)
+        String ocrText = OcrTextReader.read(in);
 
-        // (3) 줄바꿈 통일 (Windows / Unix 차이 제거)
-        ocrText = ocrText.replace("\r\n", "\n").replace("\r", "\n");
+        // --layout: JSON의 단어 좌표(pages[*].words)도 읽어서 중량 라벨-값을 좌표로 짝짓는다
+        WordLayout layout = null;
+        if (List.of(args).contains("--layout") && OcrTextReader.isJson(in)) {
+            layout = WordLayout.load(in);
+            System.out.println("[INFO] Layout words loaded (count=" + layout.size() + ")");
+        }
 
         System.out.println("[INFO] OCR text extracted (length=" + ocrText.length() + ")");
         System.out.println("[RAW_HEAD] " +
@@ -58,29 +149,564 @@ public class Main {
         );
 
         // 4) 파싱
+        TareIndex tares = openTareIndex(args, 2);
         ParsedTicket ticket;
         try {
-            ticket = WeighingParser.parse(ocrText);
+            ticket = WeighingParser.parse(ocrText, layout);
             System.out.println("[INFO] Parsing completed");
         } catch (Exception e) {
             // 어떤 예외가 와도 결과는 만들어서 내보내기
             System.err.println("[WARN] Parsing failed, returning empty result: "
                     + e.getClass().getSimpleName());
             ticket = new ParsedTicket();
+        } finally {
+            closeTareIndex(tares);
         }
 
-        // 5) 출력 디렉토리 자동 생성
+        // 5) JSON 출력 (출력 디렉토리 자동 생성, .tka면 아카이브에 한 행 추가)
         Path out = Path.of(outputPath);
-        Path parent = out.getParent();
-        if (parent != null && !Files.exists(parent)) {
-            Files.createDirectories(parent);
+        BatchRunner.writeOne(out, ticket);
+        System.out.println("Saved: " + out.toAbsolutePath());
+    }
+
+    /*
+     * 배치 모드: --batch <inputDir|glob> <outputDir|output.ndjson|archive.tka> [--threads N] [--layout] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--aggregate out.csv] [--tare-index path] [--metrics]
+     * JVM 한 번으로 여러 파일을 병렬 처리한다. 파일 단위 실패는 리포트로 남기고 계속 진행.
+     */
+    private static void runBatch(String[] args) throws Exception {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(1);
         }
 
-        // 6) JSON 출력
-        ObjectMapper om = new ObjectMapper()
-                .enable(SerializationFeature.INDENT_OUTPUT);
+        int threads = 0;
+        Path aggregateOut = null;
+        for (int i = 3; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--aggregate".equals(args[i]) && i + 1 < args.length) {
+                aggregateOut = Path.of(args[++i]);
+            }
+        }
 
-        Files.writeString(out, om.writeValueAsString(ticket), StandardCharsets.UTF_8);
-        System.out.println("Saved: " + out.toAbsolutePath());
+        List<Path> inputs = BatchRunner.resolveInputs(args[1]);
+        Path output = Path.of(args[2]);
+        boolean layout = List.of(args).contains("--layout");
+        ParseCache cache = openCache(args, 3);
+        if (layout && cache != null) {
+            // 캐시는 텍스트 모드 결과만 담는다
+            System.err.println("[WARN]   --layout ignores --cache/--cache-file");
+            cache.close();
+            cache = null;
+        }
+        TicketAggregator aggregator = aggregateOut != null ? new TicketAggregator() : null;
+        BatchRunner runner = new BatchRunner(threads, cache, layout, aggregator);
+        TareIndex tares = openTareIndex(args, 3);
+
+        System.out.println("[START] OCR Weighing Ticket Parser (batch)");
+        System.out.println("[INPUT]  " + args[1] + " (files=" + inputs.size() + ")");
+        System.out.println("[OUTPUT] " + output);
+        System.out.println("[INFO]   threads = " + runner.threads() + (layout ? " (layout mode)" : ""));
+        if (ParseMetrics.ENABLED) ParseMetrics.registerMBeans();
+
+        BatchRunner.Summary summary;
+        try {
+            summary = runner.run(inputs, output);
+        } finally {
+            if (cache != null) cache.close();
+            closeTareIndex(tares);
+        }
+
+        System.out.println("[INFO]   processed=" + summary.total
+                + " ok=" + summary.succeeded
+                + " failed=" + summary.failures.size()
+                + " elapsed=" + summary.elapsedMillis + "ms");
+        if (!summary.failures.isEmpty()) {
+            Path report = BatchRunner.failureReportPath(output,
+                    BatchRunner.isNdjsonOutput(output) || BatchRunner.isArchiveOutput(output));
+            System.err.println("[WARN]   failures written to " + report.toAbsolutePath());
+        }
+        if (cache != null) {
+            System.out.println("[INFO]   cache " + cache.stats());
+        }
+        if (!layout && TemplateRegistry.active().size() > 0) {
+            System.out.println("[INFO]   templates " + TemplateRegistry.active().stats());
+        }
+        writeAggregate(aggregator, aggregateOut);
+        if (ParseMetrics.ENABLED) {
+            System.out.println("[METRICS]");
+            System.out.println(ParseMetrics.summary());
+        }
+    }
+
+    /*
+     * 파이프라인 모드: --pipeline <input.(ndjson|jsonl)[.gz]|input.zip|input.json.gz> <output.ndjson> [--threads N] [--queue N] [--checkpoint path] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--aggregate out.csv] [--tare-index path] [--metrics]
+     * 한 줄에 제공사 JSON 하나인 큰 파일을 스트리밍으로 처리한다 (입력 순서대로 출력).
+     * .gz/.zip은 임시 파일 없이 풀면서 처리한다 (.zip은 항목 이름이 source).
+     * 중간에 죽으면 같은 명령으로 다시 돌려서 체크포인트(기본 <output>.checkpoint)부터 이어 간다.
+     */
+    private static void runPipeline(String[] args) throws Exception {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(1);
+        }
+
+        int threads = 0;
+        int queue = 0;
+        Path output = Path.of(args[2]);
+        Path checkpoint = NdjsonPipeline.defaultCheckpoint(output);
+        Path aggregateOut = null;
+        for (int i = 3; i + 1 < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--queue" -> queue = Integer.parseInt(args[++i]);
+                case "--checkpoint" -> checkpoint = Path.of(args[++i]);
+                case "--aggregate" -> aggregateOut = Path.of(args[++i]);
+                default -> { }
+            }
+        }
+
+        Path input = Path.of(args[1]);
+        if (!Files.isRegularFile(input)) {
+            System.err.println("[ERROR] Input file not found: " + input.toAbsolutePath());
+            System.exit(2);
+        }
+
+        ParseCache cache = openCache(args, 3);
+        TicketAggregator aggregator = aggregateOut != null ? new TicketAggregator() : null;
+        NdjsonPipeline pipeline = new NdjsonPipeline(threads, queue, cache, aggregator);
+        TareIndex tares = openTareIndex(args, 3);
+
+        System.out.println("[START] OCR Weighing Ticket Parser (pipeline)");
+        System.out.println("[INPUT]  " + input);
+        System.out.println("[OUTPUT] " + output);
+        System.out.println("[INFO]   workers = " + pipeline.workers() + ", queue = " + pipeline.queueDepth());
+        if (ParseMetrics.ENABLED) ParseMetrics.registerMBeans();
+
+        NdjsonPipeline.Result result;
+        try {
+            result = pipeline.run(input, output, checkpoint);
+        } finally {
+            if (cache != null) cache.close();
+            closeTareIndex(tares);
+        }
+
+        if (result.resumedFromOffset > 0) {
+            System.out.println("[INFO]   resumed from byte " + result.resumedFromOffset);
+        }
+        System.out.println("[INFO]   lines=" + result.lines
+                + " failed=" + result.failed
+                + " bytes=" + result.bytesRead
+                + " elapsed=" + result.elapsedMillis + "ms");
+        if (result.failed > 0) {
+            System.err.println("[WARN]   failures written to "
+                    + BatchRunner.failureReportPath(output, true).toAbsolutePath());
+        }
+        if (cache != null) {
+            System.out.println("[INFO]   cache " + cache.stats());
+        }
+        if (TemplateRegistry.active().size() > 0) {
+            System.out.println("[INFO]   templates " + TemplateRegistry.active().stats());
+        }
+        writeAggregate(aggregator, aggregateOut);
+        if (ParseMetrics.ENABLED) {
+            System.out.println("[METRICS]");
+            System.out.println(ParseMetrics.summary());
+        }
+    }
+
+    private static void loadTemplates(String file) {
+        Path path = Path.of(file);
+        if (!Files.isRegularFile(path)) {
+            System.err.println("[ERROR] Templates file not found: " + path.toAbsolutePath());
+            System.exit(2);
+        }
+        try {
+            TemplateRegistry.install(TemplateRegistry.withBuiltIns(TemplateRegistry.load(path)));
+        } catch (IOException e) {
+            System.err.println("[ERROR] Invalid templates file " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /*
+     * --tare-index <path>: 차량별 공차중량 이력 파일 (없으면 만든다, 한 번에 한 프로세스만).
+     * 파싱하면서 검증된 공차중량을 쌓고, 라벨 없는 공차중량을 고를 때 먼저 참고한다.
+     */
+    private static TareIndex openTareIndex(String[] args, int from) throws Exception {
+        for (int i = from; i + 1 < args.length; i++) {
+            if ("--tare-index".equals(args[i])) {
+                TareIndex index = TareIndex.open(Path.of(args[i + 1]));
+                TareIndex.install(index);
+                return index;
+            }
+        }
+        return null;
+    }
+
+    private static void closeTareIndex(TareIndex index) throws Exception {
+        if (index == null) return;
+        System.out.println("[INFO]   tare index " + index.stats() + " (" + index.file().toAbsolutePath() + ")");
+        index.close();
+    }
+
+    // --aggregate: 차량×날짜별 집계를 CSV로 (차량번호나 날짜가 없는 티켓은 skipped로만 센다)
+    private static void writeAggregate(TicketAggregator aggregator, Path out) throws Exception {
+        if (aggregator == null) return;
+        aggregator.writeCsv(out);
+        System.out.println("[INFO]   aggregate " + aggregator.stats() + ", written to " + out.toAbsolutePath());
+    }
+
+    /*
+     * 샤드 코디네이터: --coordinate <inputDir|glob> <output.ndjson> [--work-dir dir] [--shards N] [--workers N] [--threads N] [--lease-seconds N] [--max-steps N] [--templates path] [--tare-index path]
+     * 입력을 샤드로 나눠 작업 디렉토리(기본 <output>.shards)에 쓰고, 워커 JVM을 N개 띄우고, 자신도 워커로 돈 뒤
+     * 샤드 결과를 하나의 NDJSON으로 합친다. 같은 명령을 다시 돌리면 끝난 샤드는 건너뛰고 이어 간다.
+     * --tare-index: 코디네이터는 그 파일을, 띄운 워커 n은 <path>.worker-n을 쓴다 (색인은 한 프로세스만 열 수 있다)
+     */
+    private static void runCoordinator(String[] args) throws Exception {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(1);
+        }
+
+        Path output = Path.of(args[2]);
+        if (!BatchRunner.isNdjsonOutput(output)) {
+            System.err.println("[ERROR] --coordinate writes NDJSON: output must end in .ndjson or .jsonl");
+            System.exit(1);
+        }
+        Path workDir = ShardCoordinator.defaultWorkDir(output);
+        int shards = 0;
+        int workers = 0;
+        int threads = 0;
+        long leaseMillis = ShardCoordinator.DEFAULT_LEASE_MILLIS;
+        List<String> forward = new ArrayList<>();
+        for (int i = 3; i + 1 < args.length; i++) {
+            switch (args[i]) {
+                case "--work-dir" -> workDir = Path.of(args[++i]);
+                case "--shards" -> shards = Integer.parseInt(args[++i]);
+                case "--workers" -> workers = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--lease-seconds" -> leaseMillis = Long.parseLong(args[++i]) * 1000;
+                case "--max-steps", "--templates", "--tare-index" -> {
+                    forward.add(args[i]);
+                    forward.add(args[++i]);
+                }
+                default -> { }
+            }
+        }
+
+        ShardCoordinator coordinator = new ShardCoordinator(workDir, shards, workers, threads, leaseMillis, forward);
+        System.out.println("[START] OCR Weighing Ticket Parser (coordinator)");
+        System.out.println("[INPUT]  " + args[1]);
+        System.out.println("[OUTPUT] " + output);
+        System.out.println("[INFO]   work dir = " + workDir.toAbsolutePath() + ", local workers = " + workers);
+
+        TareIndex tares = openTareIndex(args, 3);
+        ShardCoordinator.Summary summary;
+        try {
+            summary = coordinator.run(args[1], output);
+        } finally {
+            closeTareIndex(tares);
+        }
+
+        if (summary.resumed) {
+            System.out.println("[INFO]   resumed from existing plan");
+        }
+        System.out.println("[INFO]   files=" + summary.files
+                + " shards=" + summary.shards
+                + " reclaimed=" + summary.reclaimed
+                + " lines=" + summary.lines
+                + " failed=" + summary.failures
+                + " elapsed=" + summary.elapsedMillis + "ms");
+        if (summary.failures > 0) {
+            System.err.println("[WARN]   failures written to "
+                    + BatchRunner.failureReportPath(output, true).toAbsolutePath());
+        }
+    }
+
+    /*
+     * 샤드 워커: --shard-worker <workDir> [--threads N] [--max-steps N] [--templates path] [--tare-index path]
+     * 공유 작업 디렉토리에서 샤드를 lease로 잡아 처리한다. 샤드가 모두 끝나면 종료.
+     */
+    private static void runShardWorker(String[] args) throws Exception {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(1);
+        }
+
+        int threads = 0;
+        for (int i = 2; i + 1 < args.length; i++) {
+            if ("--threads".equals(args[i])) threads = Integer.parseInt(args[++i]);
+        }
+
+        ShardWorker worker = new ShardWorker(Path.of(args[1]), threads);
+        System.out.println("[START] OCR Weighing Ticket Parser (shard worker " + worker.owner() + ")");
+        TareIndex tares = openTareIndex(args, 2);
+        try {
+            worker.run();
+        } finally {
+            closeTareIndex(tares);
+        }
+        System.out.println("[INFO]   shards=" + worker.processed() + " reclaimed=" + worker.reclaimed());
+    }
+
+    /*
+     * 아카이브 조회: --scan <archive.tka> [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--vehicle V] [--count]
+     * 조건에 맞는 티켓을 NDJSON으로 stdout에 쓴다 (--count면 개수만). 날짜 범위는 양 끝 포함.
+     */
+    private static void runScan(String[] args) throws Exception {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(1);
+        }
+
+        TicketFilter filter = TicketFilter.all();
+        boolean countOnly = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from" -> filter = filter.from(LocalDate.parse(args[++i]));
+                case "--to" -> filter = filter.to(LocalDate.parse(args[++i]));
+                case "--vehicle" -> filter = filter.vehicle(args[++i]);
+                case "--count" -> countOnly = true;
+                default -> { }
+            }
+        }
+
+        Path archive = Path.of(args[1]);
+        if (!Files.isRegularFile(archive)) {
+            System.err.println("[ERROR] Archive not found: " + archive.toAbsolutePath());
+            System.exit(2);
+        }
+
+        try (TicketArchiveReader reader = TicketArchiveReader.open(archive)) {
+            System.err.println("[INFO]   rows=" + reader.rowCount() + " rowGroups=" + reader.rowGroups()
+                    + " scanned=" + reader.rowGroupsToScan(filter));
+            if (countOnly) {
+                System.out.println(reader.count(filter));
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (ParsedTicket t : reader.find(filter)) {
+                sb.append(TicketJson.write(TicketJson.COMPACT, t)).append('\n');
+            }
+            System.out.print(sb);
+            System.out.flush();
+        }
+    }
+
+    /*
+     * 서버 모드: --serve [--port N] [--concurrency N] [--queue N] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--metrics]
+     * JVM을 띄워 둔 채 HTTP로 파싱 요청을 받는다 (POST /parse, POST /parse/batch)
+     */
+    private static void runServer(String[] args) throws Exception {
+        int port = 8080;
+        int concurrency = 0;
+        int queue = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (i + 1 >= args.length) break;
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--queue" -> queue = Integer.parseInt(args[++i]);
+                case "--cache", "--cache-file", "--max-steps", "--templates" -> i++;
+                default -> { }
+            }
+        }
+
+        ParseCache cache = openCache(args, 1);
+        if (ParseMetrics.ENABLED) ParseMetrics.registerMBeans();
+        ParseServer server = new ParseServer(port, concurrency, queue, cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            if (cache != null) {
+                System.out.println("[INFO]   cache " + cache.stats());
+                try {
+                    cache.close();
+                } catch (Exception ignore) {
+                    // 종료 중이므로 무시
+                }
+            }
+        }));
+        server.start();
+
+        System.out.println("[START] OCR Weighing Ticket Parser (server)");
+        System.out.println("[INFO]   listening on port " + server.port()
+                + " (concurrency=" + server.concurrency() + ", queue=" + server.queueDepth() + ")");
+    }
+
+    /*
+     * 상주 데몬: --daemon [--socket path] [--concurrency N] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--metrics]
+     * 유닉스 도메인 소켓(기본 <tmpdir>/ocrparser-<user>.sock)으로 --client 요청을 받아 JVM/JIT를 데워 둔 채 처리한다.
+     */
+    private static void runDaemon(String[] args) throws Exception {
+        Path socket = DaemonClient.defaultSocket();
+        int concurrency = 0;
+        for (int i = 1; i + 1 < args.length; i++) {
+            switch (args[i]) {
+                case "--socket" -> socket = Path.of(args[++i]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--cache", "--cache-file", "--max-steps", "--templates" -> i++;
+                default -> { }
+            }
+        }
+
+        ParseCache cache = openCache(args, 1);
+        if (ParseMetrics.ENABLED) ParseMetrics.registerMBeans();
+        ParseDaemon daemon = new ParseDaemon(socket, concurrency, cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            daemon.stop();
+            if (cache != null) {
+                System.out.println("[INFO]   cache " + cache.stats());
+                try {
+                    cache.close();
+                } catch (Exception ignore) {
+                    // 종료 중이므로 무시
+                }
+            }
+        }));
+        daemon.start();
+
+        System.out.println("[START] OCR Weighing Ticket Parser (daemon)");
+        System.out.println("[INFO]   listening on " + daemon.socket() + " (concurrency=" + daemon.concurrency() + ")");
+    }
+
+    /*
+     * 감시 폴더: --watch <inbox> <outputDir|output.ndjson> [--done dir] [--failed dir] [--threads N] [--queue N] [--settle-ms N] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--tare-index path] [--metrics]
+     * inbox에 들어오는 .json/.txt를 다 쓰일 때까지(--settle-ms 동안 크기/수정 시각이 그대로) 기다렸다가 바로 파싱하고
+     * 입력을 done/(실패는 failed/)로 옮긴다. 시작할 때 inbox에 밀려 있던 파일부터 처리한다. Ctrl+C로 멈춘다.
+     */
+    private static void runWatch(String[] args) throws Exception {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(1);
+        }
+
+        Path inbox = Path.of(args[1]);
+        Path output = Path.of(args[2]);
+        Path done = null;
+        Path failed = null;
+        int threads = 0;
+        int queue = 0;
+        long settleMillis = FolderWatcher.DEFAULT_SETTLE_MILLIS;
+        for (int i = 3; i + 1 < args.length; i++) {
+            switch (args[i]) {
+                case "--done" -> done = Path.of(args[++i]);
+                case "--failed" -> failed = Path.of(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--queue" -> queue = Integer.parseInt(args[++i]);
+                case "--settle-ms" -> settleMillis = Long.parseLong(args[++i]);
+                default -> { }
+            }
+        }
+
+        ParseCache cache = openCache(args, 3);
+        TareIndex tares = openTareIndex(args, 3);
+        if (ParseMetrics.ENABLED) ParseMetrics.registerMBeans();
+        FolderWatcher watcher = new FolderWatcher(inbox, output, done, failed, threads, queue, settleMillis, cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                watcher.stop();
+                System.out.println("[INFO]   " + watcher.stats());
+                if (cache != null) {
+                    System.out.println("[INFO]   cache " + cache.stats());
+                    cache.close();
+                }
+                closeTareIndex(tares);
+            } catch (Exception ignore) {
+                // 종료 중이므로 무시
+            }
+            if (ParseMetrics.ENABLED) {
+                System.out.println("[METRICS]");
+                System.out.println(ParseMetrics.summary());
+            }
+        }));
+        watcher.start();
+
+        System.out.println("[START] OCR Weighing Ticket Parser (watch)");
+        System.out.println("[INPUT]  " + inbox.toAbsolutePath() + " (done=" + watcher.done() + ", failed=" + watcher.failed() + ")");
+        System.out.println("[OUTPUT] " + output);
+        System.out.println("[INFO]   workers = " + watcher.threads() + ", in flight = " + watcher.capacity()
+                + ", settle = " + watcher.settleMillis() + "ms");
+    }
+
+    /*
+     * 클라이언트: --client <input> <output> [--layout] [--socket path]
+     * 데몬이 떠 있으면 경로만 넘기고 끝나고, 없거나 바쁘면 이 프로세스에서 단건 모드로 파싱한다.
+     * 보낸 뒤 응답이 없으면(끊김, 10초 초과) .json은 직접 다시 파싱하고 .tka는 중복 추가를 피해 오류(1)로 끝낸다.
+     * (데몬 경로에서는 파서/Jackson 클래스를 아예 로딩하지 않는다)
+     */
+    private static void runClient(String[] args) throws Exception {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(1);
+        }
+
+        Path socket = DaemonClient.defaultSocket();
+        boolean layout = false;
+        for (int i = 3; i < args.length; i++) {
+            if ("--socket".equals(args[i]) && i + 1 < args.length) socket = Path.of(args[++i]);
+            else if ("--layout".equals(args[i])) layout = true;
+        }
+
+        Path in = Path.of(args[1]);
+        Path out = Path.of(args[2]);
+        DaemonClient.Reply reply = DaemonClient.forward(socket, in, out, layout);
+        // 데몬이 받지 않았거나, 응답은 없지만 다시 써도 같은 결과인 출력(.json)이면 직접 파싱한다
+        if (reply == null || (reply.status == DaemonClient.NO_REPLY && !DaemonClient.appends(out))) {
+            runSingle(layout ? new String[] {args[1], args[2], "--layout"} : new String[] {args[1], args[2]});
+            return;
+        }
+        switch (reply.status) {
+            case DaemonClient.OK -> System.out.println("Saved: " + reply.message);
+            case DaemonClient.NOT_FOUND -> {
+                System.err.println("[ERROR] Input file not found: " + reply.message);
+                System.exit(2);
+            }
+            case DaemonClient.NO_REPLY -> {
+                // 데몬이 이미 추가했을 수 있으므로 다시 추가하지 않는다
+                System.err.println("[ERROR] " + reply.message + "; not retrying, " + out + " may already contain this ticket");
+                System.exit(1);
+            }
+            default -> {
+                System.err.println("[ERROR] " + reply.message);
+                System.exit(1);
+            }
+        }
+    }
+
+    /*
+     * --metrics: 단계별 지연시간(p50/p99/max)을 배치 끝에 출력하고 JMX(com.kang.ocrparser:*)로 노출,
+     * JFR 녹화 중이면 com.kang.ocrparser.Stage 이벤트도 남긴다. (-Docrparser.metrics=true와 같음)
+     *
+     * --cache N (메모리 LRU 항목 수) / --cache-file <path> (추가 전용 디스크 저장, 재시작 후에도 유지)
+     * 둘 다 없으면 캐시를 쓰지 않는다.
+     *
+     * --max-steps N: 티켓 하나의 작업량 상한. 넘기면 그때까지 찾은 값만 "partial": true로 출력한다.
+     *
+     * --templates <path>: 기본 양식(templates.json) 외에 추가할 양식 정의. 같은 이름이면 기본 양식을 대신한다.
+     */
+    private static ParseCache openCache(String[] args, int from) throws Exception {
+        int entries = 0;
+        Path file = null;
+        for (int i = from; i + 1 < args.length; i++) {
+            if ("--cache".equals(args[i])) entries = Integer.parseInt(args[++i]);
+            else if ("--cache-file".equals(args[i])) file = Path.of(args[++i]);
+        }
+        if (entries <= 0 && file == null) return null;
+        return new ParseCache(entries > 0 ? entries : DEFAULT_CACHE_ENTRIES, file);
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage:");
+        System.out.println("  ./gradlew :app:run --args=\"<input.(txt|json)[.gz]> <output.(json|tka)> [--layout | --all] [--templates path] [--tare-index path]\"");
+        System.out.println("  ./gradlew :app:run --args=\"--batch <inputDir|glob> <outputDir|output.ndjson|archive.tka> [--threads N] [--layout] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--aggregate out.csv] [--tare-index path] [--metrics]\"");
+        System.out.println("  ./gradlew :app:run --args=\"--pipeline <input.(ndjson|jsonl)[.gz]|input.zip|input.json.gz> <output.ndjson> [--threads N] [--queue N] [--checkpoint path] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--aggregate out.csv] [--tare-index path] [--metrics]\"");
+        System.out.println("  ./gradlew :app:run --args=\"--coordinate <inputDir|glob> <output.ndjson> [--work-dir dir] [--shards N] [--workers N] [--threads N] [--lease-seconds N] [--max-steps N] [--templates path] [--tare-index path]\"");
+        System.out.println("  build/install/app/bin/app --shard-worker <workDir> [--threads N] [--max-steps N] [--templates path] [--tare-index path]");
+        System.out.println("  ./gradlew :app:run --args=\"--scan <archive.tka> [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--vehicle V] [--count]\"");
+        System.out.println("  ./gradlew :app:run --args=\"--watch <inbox> <outputDir|output.ndjson> [--done dir] [--failed dir] [--threads N] [--queue N] [--settle-ms N] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--tare-index path] [--metrics]\"");
+        System.out.println("  ./gradlew :app:run --args=\"--daemon [--socket path] [--concurrency N] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--metrics]\"");
+        System.out.println("  build/install/app/bin/app --client <input.(txt|json)> <output.(json|tka)> [--layout] [--socket path]");
+        System.out.println("  ./gradlew :app:run --args=\"--serve [--port N] [--concurrency N] [--queue N] [--cache N] [--cache-file path] [--max-steps N] [--templates path] [--metrics]\"");
     }
 }
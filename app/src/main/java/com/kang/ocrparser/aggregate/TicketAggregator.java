@@ -0,0 +1,410 @@
+package com.kang.ocrparser.aggregate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kang.ocrparser.model.ParsedTicket;
+
+/*
+ * 차량별 / 날짜별 누적 집계: 티켓 수, 실중량 합계, 공차중량 최소/최대.
+ * 배치/파이프라인 워커가 티켓을 하나 만들 때마다 add()로 넣는다.
+ *
+ * - 키는 기본형만 쓴다: 차량번호 → int id (처음 볼 때 한 번 등록), 날짜 → epoch day.
+ *   둘을 이은 long 하나를 열린 주소법 테이블(병렬 배열)에 넣으므로 항목마다 객체/박싱이 없다
+ * - 차량번호 해시로 고른 stripe 하나만 잠근다. 같은 차량의 id와 날짜별 항목이 모두 같은 stripe에 있어서
+ *   티켓당 잠금 한 번, 다른 차량을 처리하는 워커끼리는 거의 부딪치지 않는다
+ * - 차량×날짜 항목 수가 maxEntries에 닿으면 새 키는 버리고 dropped로 센다 (메모리 상한)
+ * - 차량번호나 날짜(yyyy-MM-dd로 시작)가 없는 티켓은 skipped로만 센다
+ *
+ * snapshot()과 질의는 stripe를 하나씩 잠그고 복사한다 (stripe 안에서는 일관, stripe 사이는 시점이 조금 다를 수 있음).
+ */
+public final class TicketAggregator {
+
+    public static final int DEFAULT_MAX_ENTRIES = 4_000_000;
+
+    private static final int STRIPE_BITS = 6;
+    // 차량 id가 int 하나에 들어가는 한도 (차량 수 <= 항목 수)
+    private static final int MAX_ENTRIES = 1 << (Integer.SIZE - 1 - STRIPE_BITS);
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    // 차량×날짜 하나의 집계 (질의/스냅샷 결과, 불변)
+    public static final class DailyTotal {
+        public final String vehicle;
+        public final LocalDate day;
+        public final int tickets;
+        public final int netTickets;     // 실중량이 있던 티켓 수 (netKg는 이 티켓들의 합)
+        public final long netKg;
+        public final Integer minTareKg;  // 공차중량이 있던 티켓이 없으면 null
+        public final Integer maxTareKg;
+
+        DailyTotal(String vehicle, LocalDate day, int tickets, int netTickets, long netKg,
+                Integer minTareKg, Integer maxTareKg) {
+            this.vehicle = vehicle;
+            this.day = day;
+            this.tickets = tickets;
+            this.netTickets = netTickets;
+            this.netKg = netKg;
+            this.minTareKg = minTareKg;
+            this.maxTareKg = maxTareKg;
+        }
+    }
+
+    private static final Comparator<DailyTotal> ORDER =
+            Comparator.<DailyTotal, String>comparing(t -> t.vehicle).thenComparing(t -> t.day);
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+    private final int maxEntries;
+    private final AtomicInteger entries = new AtomicInteger();
+    private final AtomicInteger vehicles = new AtomicInteger();
+    private final LongAdder tickets = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public TicketAggregator() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public TicketAggregator(int maxEntries) {
+        if (maxEntries <= 0 || maxEntries > MAX_ENTRIES) {
+            throw new IllegalArgumentException("maxEntries must be 1.." + MAX_ENTRIES + ": " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe();
+    }
+
+    public void add(ParsedTicket ticket) {
+        if (ticket == null) return;
+        String vehicle = ticket.getVehicleNumber();
+        int day = epochDay(ticket.getWeighingDate());
+        if (vehicle == null || vehicle.isEmpty() || day == NO_DAY) {
+            skipped.increment();
+            return;
+        }
+        Integer net = ticket.getNetWeightKg();
+        Integer tare = ticket.getTareWeightKg();
+
+        int h = hash(vehicle);
+        int s = h >>> (Integer.SIZE - STRIPE_BITS);
+        Stripe stripe = stripes[s];
+        synchronized (stripe) {
+            int vslot = stripe.findVehicle(vehicle, h);
+            int local = vslot < 0 ? -1 : stripe.vehicleIds[vslot];
+            int slot = local < 0 ? -1 : stripe.findEntry(key(local, s, day));
+            if (slot < 0 || stripe.tickets[slot] == 0) {
+                // 새 항목: 자리를 먼저 잡고, 차량도 그때서야 등록 (상한을 넘긴 입력이 차량 표만 키우지 않게)
+                if (entries.getAndIncrement() >= maxEntries) {
+                    entries.decrementAndGet();
+                    dropped.increment();
+                    return;
+                }
+                if (local < 0) {
+                    local = stripe.addVehicle(vehicle, h);
+                    vehicles.incrementAndGet();
+                }
+                slot = stripe.insertEntry(key(local, s, day));
+            }
+            stripe.tickets[slot]++;
+            if (net != null) {
+                stripe.netTickets[slot]++;
+                stripe.netKg[slot] += net;
+            }
+            if (tare != null) {
+                if (tare < stripe.minTare[slot]) stripe.minTare[slot] = tare;
+                if (tare > stripe.maxTare[slot]) stripe.maxTare[slot] = tare;
+            }
+        }
+        tickets.increment();
+    }
+
+    // 차량 하나, 날짜 하나 (없으면 null)
+    public DailyTotal get(String vehicle, LocalDate day) {
+        if (vehicle == null || day == null) return null;
+        int h = hash(vehicle);
+        int s = h >>> (Integer.SIZE - STRIPE_BITS);
+        Stripe stripe = stripes[s];
+        synchronized (stripe) {
+            int vslot = stripe.findVehicle(vehicle, h);
+            if (vslot < 0) return null;
+            int slot = stripe.findEntry(key(stripe.vehicleIds[vslot], s, (int) day.toEpochDay()));
+            return slot < 0 || stripe.tickets[slot] == 0 ? null : stripe.total(slot);
+        }
+    }
+
+    // 차량 하나의 날짜별 집계 (날짜 순)
+    public List<DailyTotal> vehicle(String vehicle) {
+        List<DailyTotal> out = new ArrayList<>();
+        if (vehicle == null) return out;
+        int h = hash(vehicle);
+        Stripe stripe = stripes[h >>> (Integer.SIZE - STRIPE_BITS)];
+        synchronized (stripe) {
+            int vslot = stripe.findVehicle(vehicle, h);
+            if (vslot < 0) return out;
+            int local = stripe.vehicleIds[vslot];
+            for (int i = 0; i < stripe.keys.length; i++) {
+                if (stripe.tickets[i] != 0 && localOf(stripe.keys[i]) == local) out.add(stripe.total(i));
+            }
+        }
+        out.sort(ORDER);
+        return out;
+    }
+
+    // 하루의 차량별 집계 (차량번호 순)
+    public List<DailyTotal> day(LocalDate day) {
+        List<DailyTotal> out = new ArrayList<>();
+        if (day == null) return out;
+        int d = (int) day.toEpochDay();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.keys.length; i++) {
+                    if (stripe.tickets[i] != 0 && (int) stripe.keys[i] == d) out.add(stripe.total(i));
+                }
+            }
+        }
+        out.sort(ORDER);
+        return out;
+    }
+
+    // 전체 복사본 (차량번호, 날짜 순)
+    public List<DailyTotal> snapshot() {
+        List<DailyTotal> out = new ArrayList<>(entries.get());
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.keys.length; i++) {
+                    if (stripe.tickets[i] != 0) out.add(stripe.total(i));
+                }
+            }
+        }
+        out.sort(ORDER);
+        return out;
+    }
+
+    /*
+     * 스냅샷을 CSV로 쓴다: vehicle,day,tickets,netTickets,netKg,minTareKg,maxTareKg
+     * 엑셀에서 한글 차량번호가 깨지지 않게 UTF-8 BOM을 붙인다. 공차중량이 없으면 빈 칸.
+     */
+    public int writeCsv(Path out) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        List<DailyTotal> rows = snapshot();
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write('\uFEFF');
+            w.write("vehicle,day,tickets,netTickets,netKg,minTareKg,maxTareKg\n");
+            StringBuilder sb = new StringBuilder(64);
+            for (DailyTotal t : rows) {
+                sb.setLength(0);
+                csvField(sb, t.vehicle);
+                sb.append(',').append(t.day)
+                        .append(',').append(t.tickets)
+                        .append(',').append(t.netTickets)
+                        .append(',').append(t.netKg)
+                        .append(',').append(t.minTareKg == null ? "" : t.minTareKg)
+                        .append(',').append(t.maxTareKg == null ? "" : t.maxTareKg)
+                        .append('\n');
+                w.append(sb);
+            }
+        }
+        return rows.size();
+    }
+
+    public int entries() {
+        return entries.get();
+    }
+
+    public int vehicles() {
+        return vehicles.get();
+    }
+
+    public long tickets() {
+        return tickets.sum();
+    }
+
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public String stats() {
+        return "vehicles=" + vehicles() + " entries=" + entries() + " tickets=" + tickets()
+                + " skipped=" + skipped() + " dropped=" + dropped();
+    }
+
+    /*
+     * stripe 하나: 차량 표와 (차량, 날짜) 표 두 개의 열린 주소법 테이블 (선형 탐사, 3/4 차면 두 배).
+     * 차량 id = (stripe 안 번호 << STRIPE_BITS) | stripe 번호 → 전체에서 유일하다.
+     */
+    private static final class Stripe {
+        String[] vehicleKeys = new String[16];
+        int[] vehicleIds = new int[16];   // stripe 안 번호
+        String[] names = new String[8];   // stripe 안 번호 → 차량번호
+        int vehicleCount;
+
+        long[] keys = new long[16];       // (차량 id << 32) | epoch day, tickets[i] == 0이면 빈 칸
+        int[] tickets = new int[16];
+        int[] netTickets = new int[16];
+        long[] netKg = new long[16];
+        int[] minTare = new int[16];
+        int[] maxTare = new int[16];
+        int size;
+
+        int findVehicle(String vehicle, int h) {
+            int mask = vehicleKeys.length - 1;
+            for (int i = h & mask; ; i = (i + 1) & mask) {
+                String k = vehicleKeys[i];
+                if (k == null) return -1;
+                if (k.equals(vehicle)) return i;
+            }
+        }
+
+        int addVehicle(String vehicle, int h) {
+            if ((vehicleCount + 1) * 4 > vehicleKeys.length * 3) growVehicles();
+            int local = vehicleCount++;
+            if (local == names.length) names = Arrays.copyOf(names, local * 2);
+            names[local] = vehicle;
+            int mask = vehicleKeys.length - 1;
+            int i = h & mask;
+            while (vehicleKeys[i] != null) i = (i + 1) & mask;
+            vehicleKeys[i] = vehicle;
+            vehicleIds[i] = local;
+            return local;
+        }
+
+        private void growVehicles() {
+            String[] oldKeys = vehicleKeys;
+            int[] oldIds = vehicleIds;
+            vehicleKeys = new String[oldKeys.length * 2];
+            vehicleIds = new int[oldKeys.length * 2];
+            int mask = vehicleKeys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == null) continue;
+                int i = hash(oldKeys[j]) & mask;
+                while (vehicleKeys[i] != null) i = (i + 1) & mask;
+                vehicleKeys[i] = oldKeys[j];
+                vehicleIds[i] = oldIds[j];
+            }
+        }
+
+        // 키가 있는 칸, 없으면 넣을 빈 칸 (tickets == 0)
+        int findEntry(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key) & mask; ; i = (i + 1) & mask) {
+                if (tickets[i] == 0 || keys[i] == key) return i;
+            }
+        }
+
+        int insertEntry(long key) {
+            if ((size + 1) * 4 > keys.length * 3) growEntries();
+            int i = findEntry(key);
+            keys[i] = key;
+            minTare[i] = Integer.MAX_VALUE;
+            maxTare[i] = Integer.MIN_VALUE;
+            size++;
+            return i;
+        }
+
+        private void growEntries() {
+            long[] oldKeys = keys;
+            int[] oldTickets = tickets;
+            int[] oldNetTickets = netTickets;
+            long[] oldNet = netKg;
+            int[] oldMin = minTare;
+            int[] oldMax = maxTare;
+            int cap = oldKeys.length * 2;
+            keys = new long[cap];
+            tickets = new int[cap];
+            netTickets = new int[cap];
+            netKg = new long[cap];
+            minTare = new int[cap];
+            maxTare = new int[cap];
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldTickets[j] == 0) continue;
+                int i = findEntry(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                tickets[i] = oldTickets[j];
+                netTickets[i] = oldNetTickets[j];
+                netKg[i] = oldNet[j];
+                minTare[i] = oldMin[j];
+                maxTare[i] = oldMax[j];
+            }
+        }
+
+        DailyTotal total(int i) {
+            return new DailyTotal(names[localOf(keys[i])], LocalDate.ofEpochDay((int) keys[i]),
+                    tickets[i], netTickets[i], netKg[i],
+                    minTare[i] == Integer.MAX_VALUE ? null : minTare[i],
+                    maxTare[i] == Integer.MIN_VALUE ? null : maxTare[i]);
+        }
+    }
+
+    private static long key(int local, int stripe, int day) {
+        return ((long) ((local << STRIPE_BITS) | stripe) << 32) | (day & 0xffffffffL);
+    }
+
+    private static int localOf(long key) {
+        return (int) (key >>> 32) >>> STRIPE_BITS;
+    }
+
+    private static int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    // 위쪽 비트는 stripe 선택, 아래쪽 비트는 stripe 안 차량 표 위치에 쓰므로 한 번 섞는다
+    private static int hash(String s) {
+        int h = s.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /*
+     * "yyyy-MM-dd..." → epoch day (문자열/객체를 만들지 않음). 형식이 아니거나 없는 날짜면 NO_DAY.
+     * 시각이 붙어 있어도 날짜 부분만 본다.
+     */
+    static int epochDay(String s) {
+        if (s == null || s.length() < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return NO_DAY;
+        int y = digits(s, 0, 4);
+        int m = digits(s, 5, 7);
+        int d = digits(s, 8, 10);
+        if (y < 0 || m < 1 || m > 12 || d < 1 || d > monthLength(y, m)) return NO_DAY;
+        // days from civil (3월 시작 연도로 바꿔서 윤일을 해 끝에 둔다)
+        int yy = m <= 2 ? y - 1 : y;
+        int era = yy / 400;
+        int yoe = yy - era * 400;
+        int doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int digits(String s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static int monthLength(int y, int m) {
+        if (m == 2) return (y % 4 == 0 && (y % 100 != 0 || y % 400 == 0)) ? 29 : 28;
+        return m == 4 || m == 6 || m == 9 || m == 11 ? 30 : 31;
+    }
+
+    private static void csvField(StringBuilder sb, String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,107 @@
+package com.kang.ocrparser.archive;
+
+import java.nio.ByteBuffer;
+
+import com.kang.ocrparser.model.PackedDate;
+
+/*
+ * 티켓 아카이브(.tka) 바이트 배치. 모든 값은 little-endian.
+ *
+ *   파일 헤더 (8)      int magic "TKAR", int version
+ *   행 그룹 * N        (추가 전용 - 새 그룹은 항상 파일 끝에 붙는다)
+ *
+ * 행 그룹:
+ *   0  int  magic "TGRP"
+ *   4  int  length         그룹 전체 바이트 수 (이 헤더 포함, 끝의 crc 포함)
+ *   8  int  rows
+ *   12 long minDate, 20 long maxDate      epoch 초 (날짜가 있는 행 기준, 없으면 MAX/MIN)
+ *   28 int  minGross, maxGross, minTare, maxTare, minNet, maxNet   (값이 없으면 MAX/MIN)
+ *   52 int  dictCount, 56 int dictBytes
+ *   60 사전: dictCount × (int len + UTF-8)     차량번호 + 해석 못 한 날짜 문자열
+ *      비트맵 4개 × ceil(rows/8): gross 있음, tare 있음, net 있음, partial
+ *      byte[rows]  날짜 종류 (DATE_*)
+ *      long[rows]  날짜 (epoch 초, DATE_RAW면 사전 번호)
+ *      int[rows]   차량번호 사전 번호 (-1 = null)
+ *      int[rows]   gross, tare, net (없으면 0)
+ *      int         crc32 (length 필드 다음부터 crc 앞까지)
+ *
+ * 사전은 그룹마다 따로 둔다 → 그룹 하나만 읽어도 해석되고, 사전에 없는 차량번호면 그룹을 통째로 건너뛴다.
+ */
+final class ArchiveFormat {
+
+    static final int FILE_MAGIC = 0x52414B54;   // "TKAR"
+    static final int VERSION = 1;
+    static final int FILE_HEADER = 8;
+
+    static final int GROUP_MAGIC = 0x50524754;  // "TGRP"
+    static final int GROUP_HEADER = 60;
+
+    static final int OFF_LENGTH = 4;
+    static final int OFF_ROWS = 8;
+    static final int OFF_MIN_DATE = 12;
+    static final int OFF_MAX_DATE = 20;
+    static final int OFF_WEIGHT_STATS = 28;
+    static final int OFF_DICT_COUNT = 52;
+    static final int OFF_DICT_BYTES = 56;
+
+    // 비트맵 순서
+    static final int BIT_GROSS = 0;
+    static final int BIT_TARE = 1;
+    static final int BIT_NET = 2;
+    static final int BIT_PARTIAL = 3;
+    static final int BITMAPS = 4;
+
+    // 날짜 종류: 원래 문자열을 그대로 되살릴 수 있는 형식만 epoch로, 나머지는 사전에 원문 보관
+    static final byte DATE_NULL = 0;
+    static final byte DATE_DAY = 1;      // yyyy-MM-dd
+    static final byte DATE_MINUTE = 2;   // yyyy-MM-dd HH:mm
+    static final byte DATE_SECOND = 3;   // yyyy-MM-dd HH:mm:ss
+    static final byte DATE_RAW = 4;
+
+    private ArchiveFormat() {
+    }
+
+    static int bitmapBytes(int rows) {
+        return (rows + 7) >>> 3;
+    }
+
+    static int bitmapAt(int dictBytes, int rows, int bitmap) {
+        return GROUP_HEADER + dictBytes + bitmap * bitmapBytes(rows);
+    }
+
+    static int kindsAt(int dictBytes, int rows) {
+        return bitmapAt(dictBytes, rows, BITMAPS);
+    }
+
+    static int datesAt(int dictBytes, int rows) {
+        return kindsAt(dictBytes, rows) + rows;
+    }
+
+    static int vehiclesAt(int dictBytes, int rows) {
+        return datesAt(dictBytes, rows) + 8 * rows;
+    }
+
+    // column: 0 gross, 1 tare, 2 net
+    static int weightsAt(int dictBytes, int rows, int column) {
+        return vehiclesAt(dictBytes, rows) + 4 * rows * (1 + column);
+    }
+
+    static int groupLength(int dictBytes, int rows) {
+        return weightsAt(dictBytes, rows, 3) + 4;
+    }
+
+    static boolean bit(ByteBuffer group, int bitmapOffset, int row) {
+        return (group.get(bitmapOffset + (row >>> 3)) & (1 << (row & 7))) != 0;
+    }
+
+    // PackedDate 값 → 날짜 종류 (종류 번호는 PackedDate.DAY/MINUTE/SECOND와 같다)
+    static byte dateKind(long packed) {
+        if (packed == PackedDate.NULL) return DATE_NULL;
+        if (packed == PackedDate.RAW) return DATE_RAW;
+        return (byte) PackedDate.kind(packed);
+    }
+
+    static String formatDate(byte kind, long epochSeconds) {
+        return PackedDate.format(PackedDate.of(kind, epochSeconds));
+    }
+}
@@ -0,0 +1,206 @@
+package com.kang.ocrparser.archive;
+
+import static com.kang.ocrparser.archive.ArchiveFormat.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.kang.ocrparser.model.ParsedTicket;
+
+/*
+ * 티켓 아카이브(.tka)를 메모리 매핑해서 읽는다.
+ *
+ * - open()은 그룹 헤더(행 수, 날짜 min/max)만 훑어 색인을 만든다
+ * - 스캔은 그룹 단위로: 날짜 범위가 겹치지 않거나 사전에 찾는 차량번호가 없으면 그룹을 건너뛴다
+ * - 남은 그룹도 기본형 열(날짜, 차량번호 번호)만 보고 거르고, 맞는 행만 ParsedTicket으로 만든다
+ * - 쓰다 끊긴 마지막 그룹은 무시 (다음 writer가 열 때 잘라낸다)
+ */
+public class TicketArchiveReader implements Closeable {
+
+    private final FileChannel channel;
+    private final List<Group> groups = new ArrayList<>();
+    private final long rowCount;
+
+    private static final class Group {
+        final ByteBuffer buf;
+        final int rows;
+        final long minDate, maxDate;
+        final int dictCount, dictBytes;
+
+        Group(ByteBuffer buf) {
+            this.buf = buf;
+            this.rows = buf.getInt(OFF_ROWS);
+            this.minDate = buf.getLong(OFF_MIN_DATE);
+            this.maxDate = buf.getLong(OFF_MAX_DATE);
+            this.dictCount = buf.getInt(OFF_DICT_COUNT);
+            this.dictBytes = buf.getInt(OFF_DICT_BYTES);
+        }
+    }
+
+    private TicketArchiveReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (size < FILE_HEADER || header.getInt(0) != FILE_MAGIC) {
+            throw new IOException("not a ticket archive");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("unsupported ticket archive version " + header.getInt(4));
+        }
+
+        long rows = 0;
+        long at = FILE_HEADER;
+        ByteBuffer groupHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (at + GROUP_HEADER <= size) {
+            groupHeader.clear();
+            channel.read(groupHeader, at);
+            int length = groupHeader.getInt(OFF_LENGTH);
+            if (groupHeader.getInt(0) != GROUP_MAGIC || length < GROUP_HEADER || at + length > size) break;
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, at, length);
+            Group g = new Group(mapped.order(ByteOrder.LITTLE_ENDIAN));
+            if (at + length == size && g.buf.getInt(length - 4) != TicketArchiveWriter.crc(g.buf, length)) break;
+
+            groups.add(g);
+            rows += g.rows;
+            at += length;
+        }
+        this.rowCount = rows;
+    }
+
+    public static TicketArchiveReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TicketArchiveReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    public int rowGroups() {
+        return groups.size();
+    }
+
+    // 필터 조건상 실제로 열어 봐야 하는 그룹 수 (나머지는 헤더/사전만 보고 건너뜀)
+    public int rowGroupsToScan(TicketFilter filter) {
+        int n = 0;
+        for (Group g : groups) {
+            if (g.rows > 0 && filter.overlaps(g.minDate, g.maxDate) && vehicleId(g, filter) != MISSING) n++;
+        }
+        return n;
+    }
+
+    public long count(TicketFilter filter) {
+        long n = 0;
+        for (Group g : groups) {
+            int vehicle = vehicleId(g, filter);
+            if (g.rows == 0 || vehicle == MISSING || !filter.overlaps(g.minDate, g.maxDate)) continue;
+            for (int r = 0; r < g.rows; r++) {
+                if (matches(g, r, vehicle, filter)) n++;
+            }
+        }
+        return n;
+    }
+
+    public List<ParsedTicket> find(TicketFilter filter) {
+        List<ParsedTicket> out = new ArrayList<>();
+        for (Group g : groups) {
+            int vehicle = vehicleId(g, filter);
+            if (g.rows == 0 || vehicle == MISSING || !filter.overlaps(g.minDate, g.maxDate)) continue;
+            String[] dict = null;
+            for (int r = 0; r < g.rows; r++) {
+                if (!matches(g, r, vehicle, filter)) continue;
+                if (dict == null) dict = dictionary(g);
+                out.add(ticket(g, r, dict));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static final int ANY = -2;
+    private static final int MISSING = -3;
+
+    // 필터 차량번호의 이 그룹 사전 번호. 조건이 없으면 ANY, 사전에 없으면 MISSING
+    private static int vehicleId(Group g, TicketFilter filter) {
+        if (filter.vehicle == null) return ANY;
+        byte[] want = filter.vehicle.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = g.buf;
+        int at = GROUP_HEADER;
+        for (int i = 0; i < g.dictCount; i++) {
+            int len = b.getInt(at);
+            if (len == want.length && sameBytes(b, at + 4, want)) return i;
+            at += 4 + len;
+        }
+        return MISSING;
+    }
+
+    private static boolean sameBytes(ByteBuffer b, int at, byte[] want) {
+        for (int i = 0; i < want.length; i++) {
+            if (b.get(at + i) != want[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(Group g, int r, int vehicle, TicketFilter filter) {
+        if (vehicle != ANY && g.buf.getInt(vehiclesAt(g.dictBytes, g.rows) + 4 * r) != vehicle) return false;
+        if (!filter.hasDateRange()) return true;
+        byte kind = g.buf.get(kindsAt(g.dictBytes, g.rows) + r);
+        if (kind == DATE_NULL || kind == DATE_RAW) return false;
+        return filter.inRange(g.buf.getLong(datesAt(g.dictBytes, g.rows) + 8 * r));
+    }
+
+    private static String[] dictionary(Group g) {
+        String[] dict = new String[g.dictCount];
+        ByteBuffer b = g.buf;
+        int at = GROUP_HEADER;
+        for (int i = 0; i < dict.length; i++) {
+            int len = b.getInt(at);
+            byte[] bytes = new byte[len];
+            b.get(at + 4, bytes);
+            dict[i] = new String(bytes, StandardCharsets.UTF_8);
+            at += 4 + len;
+        }
+        return dict;
+    }
+
+    private static ParsedTicket ticket(Group g, int r, String[] dict) {
+        ByteBuffer b = g.buf;
+        int d = g.dictBytes, n = g.rows;
+        ParsedTicket t = new ParsedTicket();
+
+        byte kind = b.get(kindsAt(d, n) + r);
+        long date = b.getLong(datesAt(d, n) + 8 * r);
+        if (kind == DATE_RAW) t.setWeighingDate(dict[(int) date]);
+        else if (kind != DATE_NULL) t.setWeighingDate(formatDate(kind, date));
+
+        int vehicle = b.getInt(vehiclesAt(d, n) + 4 * r);
+        if (vehicle >= 0) t.setVehicleNumber(dict[vehicle]);
+
+        if (bit(b, bitmapAt(d, n, BIT_GROSS), r)) t.setGrossWeightKg(b.getInt(weightsAt(d, n, 0) + 4 * r));
+        if (bit(b, bitmapAt(d, n, BIT_TARE), r)) t.setTareWeightKg(b.getInt(weightsAt(d, n, 1) + 4 * r));
+        if (bit(b, bitmapAt(d, n, BIT_NET), r)) t.setNetWeightKg(b.getInt(weightsAt(d, n, 2) + 4 * r));
+        t.setPartial(bit(b, bitmapAt(d, n, BIT_PARTIAL), r));
+        return t;
+    }
+}
@@ -0,0 +1,271 @@
+package com.kang.ocrparser.archive;
+
+import static com.kang.ocrparser.archive.ArchiveFormat.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+
+import com.kang.ocrparser.model.PackedDate;
+import com.kang.ocrparser.model.ParsedTicket;
+
+/*
+ * ParsedTicket을 열 단위 아카이브(.tka)에 추가한다 (형식은 ArchiveFormat).
+ *
+ * - rowGroupSize개가 모이면 행 그룹 하나를 파일 끝에 쓴다. 마지막 그룹은 close() 때 남은 행만큼.
+ * - 이미 있는 파일이면 뒤에 이어서 쓴다. 쓰다 끊긴 마지막 그룹(길이/crc 불일치)은 잘라내고 시작.
+ * - append()는 배치 워커들이 같이 부르므로 synchronized
+ * - 같은 파일의 writer는 열어서 닫을 때까지 하나만: 프로세스 안에서는 경로별 세마포어, 프로세스끼리는
+ *   FileLock으로 기다린다 (데몬 워커 여럿, 데몬과 대체 경로 클라이언트가 같은 .tka에 쓰는 경우).
+ *   잠근 뒤에 끝을 찾으므로 다른 writer가 쓰는 중인 그룹을 끊긴 그룹으로 보고 잘라내지 않는다
+ */
+public class TicketArchiveWriter implements Closeable {
+
+    public static final int DEFAULT_ROW_GROUP = 4096;
+
+    // 경로별 writer 자리 (FileLock은 같은 JVM 안에서 겹쳐 잡으면 예외라 먼저 여기서 줄 세운다)
+    private static final ConcurrentHashMap<Path, Semaphore> OPEN = new ConcurrentHashMap<>();
+
+    private final FileChannel channel;
+    private final Semaphore slot;
+    private final FileLock lock;
+    private final int rowGroupSize;
+
+    // 현재 그룹 (기본형 열)
+    private int rows;
+    private final byte[] dateKinds;
+    private final long[] dates;
+    private final int[] vehicles;
+    private final int[][] weights;          // [gross, tare, net][row]
+    private final boolean[][] present;      // [gross, tare, net, partial][row]
+
+    private final Map<String, Integer> dictIds = new HashMap<>();
+    private final List<String> dict = new ArrayList<>();
+
+    private long groupsWritten;
+
+    public TicketArchiveWriter(Path file) throws IOException {
+        this(file, DEFAULT_ROW_GROUP);
+    }
+
+    public TicketArchiveWriter(Path file, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) throw new IllegalArgumentException("rowGroupSize must be positive");
+        this.rowGroupSize = rowGroupSize;
+        this.dateKinds = new byte[rowGroupSize];
+        this.dates = new long[rowGroupSize];
+        this.vehicles = new int[rowGroupSize];
+        this.weights = new int[3][rowGroupSize];
+        this.present = new boolean[BITMAPS][rowGroupSize];
+
+        this.slot = OPEN.computeIfAbsent(file.toAbsolutePath().normalize(), k -> new Semaphore(1));
+        slot.acquireUninterruptibly();
+        FileChannel ch = null;
+        FileLock l = null;
+        try {
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            l = ch.lock();
+            this.channel = ch;
+            this.lock = l;
+            openForAppend();
+        } catch (IOException | RuntimeException e) {
+            if (ch != null) ch.close(); // lock도 같이 풀린다
+            slot.release();
+            throw e;
+        }
+    }
+
+    public synchronized void append(ParsedTicket t) throws IOException {
+        int r = rows;
+
+        String date = t.getWeighingDate();
+        long packed = PackedDate.pack(date);
+        byte kind = dateKind(packed);
+        dateKinds[r] = kind;
+        dates[r] = kind == DATE_NULL ? 0 : kind == DATE_RAW ? idOf(date) : PackedDate.epochSeconds(packed);
+
+        vehicles[r] = t.getVehicleNumber() == null ? -1 : idOf(t.getVehicleNumber());
+
+        set(BIT_GROSS, r, t.getGrossWeightKg());
+        set(BIT_TARE, r, t.getTareWeightKg());
+        set(BIT_NET, r, t.getNetWeightKg());
+        present[BIT_PARTIAL][r] = t.isPartial();
+
+        if (++rows == rowGroupSize) writeGroup();
+    }
+
+    // 지금까지 쓴 행 그룹 수 (close 전에는 아직 안 쓴 마지막 그룹 제외)
+    public synchronized long groupsWritten() {
+        return groupsWritten;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            if (rows > 0) writeGroup();
+        } finally {
+            try {
+                lock.release();
+                channel.close();
+            } finally {
+                slot.release();
+            }
+        }
+    }
+
+    private void set(int column, int row, Integer value) {
+        present[column][row] = value != null;
+        weights[column][row] = value == null ? 0 : value;
+    }
+
+    private int idOf(String s) {
+        Integer id = dictIds.get(s);
+        if (id != null) return id;
+        int next = dict.size();
+        dict.add(s);
+        dictIds.put(s, next);
+        return next;
+    }
+
+    private void writeGroup() throws IOException {
+        int n = rows;
+
+        byte[][] dictBytes = new byte[dict.size()][];
+        int dictLength = 0;
+        for (int i = 0; i < dictBytes.length; i++) {
+            dictBytes[i] = dict.get(i).getBytes(StandardCharsets.UTF_8);
+            dictLength += 4 + dictBytes[i].length;
+        }
+
+        int length = groupLength(dictLength, n);
+        ByteBuffer b = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        long minDate = Long.MAX_VALUE, maxDate = Long.MIN_VALUE;
+        for (int r = 0; r < n; r++) {
+            if (dateKinds[r] == DATE_NULL || dateKinds[r] == DATE_RAW) continue;
+            minDate = Math.min(minDate, dates[r]);
+            maxDate = Math.max(maxDate, dates[r]);
+        }
+
+        b.putInt(0, GROUP_MAGIC);
+        b.putInt(OFF_LENGTH, length);
+        b.putInt(OFF_ROWS, n);
+        b.putLong(OFF_MIN_DATE, minDate);
+        b.putLong(OFF_MAX_DATE, maxDate);
+        for (int c = 0; c < 3; c++) {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int r = 0; r < n; r++) {
+                if (!present[c][r]) continue;
+                min = Math.min(min, weights[c][r]);
+                max = Math.max(max, weights[c][r]);
+            }
+            b.putInt(OFF_WEIGHT_STATS + 8 * c, min);
+            b.putInt(OFF_WEIGHT_STATS + 8 * c + 4, max);
+        }
+        b.putInt(OFF_DICT_COUNT, dictBytes.length);
+        b.putInt(OFF_DICT_BYTES, dictLength);
+
+        b.position(GROUP_HEADER);
+        for (byte[] s : dictBytes) {
+            b.putInt(s.length);
+            b.put(s);
+        }
+
+        for (int m = 0; m < BITMAPS; m++) {
+            int at = bitmapAt(dictLength, n, m);
+            for (int r = 0; r < n; r++) {
+                if (present[m][r]) b.put(at + (r >>> 3), (byte) (b.get(at + (r >>> 3)) | (1 << (r & 7))));
+            }
+        }
+
+        int kinds = kindsAt(dictLength, n);
+        int dateCol = datesAt(dictLength, n);
+        int vehicleCol = vehiclesAt(dictLength, n);
+        for (int r = 0; r < n; r++) {
+            b.put(kinds + r, dateKinds[r]);
+            b.putLong(dateCol + 8 * r, dates[r]);
+            b.putInt(vehicleCol + 4 * r, vehicles[r]);
+        }
+        for (int c = 0; c < 3; c++) {
+            int col = weightsAt(dictLength, n, c);
+            for (int r = 0; r < n; r++) b.putInt(col + 4 * r, weights[c][r]);
+        }
+
+        b.putInt(length - 4, crc(b, length));
+
+        b.clear();
+        while (b.hasRemaining()) channel.write(b);
+
+        groupsWritten++;
+        rows = 0;
+        dict.clear();
+        dictIds.clear();
+        for (boolean[] p : present) Arrays.fill(p, false);
+    }
+
+    // crc32(length 필드 다음 ~ crc 앞)
+    static int crc(ByteBuffer group, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(group.duplicate().position(OFF_ROWS).limit(length - 4));
+        return (int) crc.getValue();
+    }
+
+    /*
+     * 새 파일이면 헤더를 쓰고, 있던 파일이면 그룹 길이를 따라가며 끝을 찾는다.
+     * 마지막 그룹이 끊겼거나 crc가 맞지 않으면 그 앞에서 자른다.
+     */
+    private void openForAppend() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(FILE_MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.position(FILE_HEADER);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (size < FILE_HEADER || header.getInt(0) != FILE_MAGIC) {
+            throw new IOException("not a ticket archive");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("unsupported ticket archive version " + header.getInt(4));
+        }
+
+        long end = FILE_HEADER;
+        ByteBuffer groupHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (end + 8 <= size) {
+            groupHeader.clear();
+            channel.read(groupHeader, end);
+            int length = groupHeader.getInt(OFF_LENGTH);
+            if (groupHeader.getInt(0) != GROUP_MAGIC || length < GROUP_HEADER || end + length > size) break;
+            if (end + length == size && !validLastGroup(end, length)) break;
+            end += length;
+        }
+        channel.truncate(end);
+        channel.position(end);
+    }
+
+    private boolean validLastGroup(long offset, int length) throws IOException {
+        ByteBuffer g = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (g.hasRemaining()) {
+            if (channel.read(g, offset + g.position()) < 0) return false;
+        }
+        return g.getInt(length - 4) == crc(g, length);
+    }
+}
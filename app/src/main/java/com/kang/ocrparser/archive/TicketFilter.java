@@ -0,0 +1,55 @@
+package com.kang.ocrparser.archive;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/*
+ * 아카이브 스캔 조건. 불변 - from/to/vehicle은 새 필터를 돌려준다.
+ *
+ * - 날짜 범위는 양 끝 포함 (to 날짜의 23:59:59까지)
+ * - 날짜 범위가 있으면 날짜가 없거나 해석 못 한 행(DATE_RAW)은 제외
+ * - vehicle은 정확히 같은 문자열만
+ */
+public final class TicketFilter {
+
+    private static final TicketFilter ALL = new TicketFilter(Long.MIN_VALUE, Long.MAX_VALUE, null);
+
+    final long fromEpoch;   // 포함
+    final long toEpoch;     // 제외
+    final String vehicle;
+
+    private TicketFilter(long fromEpoch, long toEpoch, String vehicle) {
+        this.fromEpoch = fromEpoch;
+        this.toEpoch = toEpoch;
+        this.vehicle = vehicle;
+    }
+
+    public static TicketFilter all() {
+        return ALL;
+    }
+
+    public TicketFilter from(LocalDate day) {
+        return new TicketFilter(day.atStartOfDay().toEpochSecond(ZoneOffset.UTC), toEpoch, vehicle);
+    }
+
+    public TicketFilter to(LocalDate day) {
+        return new TicketFilter(fromEpoch, day.plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC), vehicle);
+    }
+
+    public TicketFilter vehicle(String vehicleNumber) {
+        return new TicketFilter(fromEpoch, toEpoch, vehicleNumber);
+    }
+
+    boolean hasDateRange() {
+        return fromEpoch != Long.MIN_VALUE || toEpoch != Long.MAX_VALUE;
+    }
+
+    // 그룹의 [minDate, maxDate]가 범위와 겹치는지 (날짜 있는 행이 없으면 MAX/MIN이라 겹치지 않음)
+    boolean overlaps(long minDate, long maxDate) {
+        return !hasDateRange() || (minDate < toEpoch && maxDate >= fromEpoch);
+    }
+
+    boolean inRange(long epoch) {
+        return epoch >= fromEpoch && epoch < toEpoch;
+    }
+}
@@ -0,0 +1,31 @@
+package com.kang.ocrparser.batch;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.kang.ocrparser.model.ParsedTicket;
+
+/*
+ * NDJSON 한 줄: 입력 출처 + ParsedTicket 필드(평탄화)
+ * 예) {"source":"samples/sample_01.json","weighingDate":"2026-02-02",...}
+ */
+@JsonPropertyOrder({ "source" })
+public class BatchRecord {
+
+    private final String source;
+
+    @JsonUnwrapped
+    private final ParsedTicket ticket;
+
+    public BatchRecord(String source, ParsedTicket ticket) {
+        this.source = source;
+        this.ticket = ticket;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public ParsedTicket getTicket() {
+        return ticket;
+    }
+}
@@ -0,0 +1,355 @@
+package com.kang.ocrparser.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.kang.ocrparser.aggregate.TicketAggregator;
+import com.kang.ocrparser.archive.TicketArchiveWriter;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.layout.WordLayout;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+
+/*
+ * 디렉토리/glob 단위 배치 실행기.
+ * - JVM 한 번 띄워서 여러 파일을 work-stealing 풀(ForkJoinPool)로 병렬 파싱
+ * - 출력: 입력마다 JSON 파일 하나(디렉토리) 또는 NDJSON 파일 하나(.ndjson/.jsonl)
+ *   또는 열 단위 아카이브(.tka, 기존 파일이면 뒤에 추가)
+ * - 파일 단위 실패는 System.exit 대신 실패 리포트에 기록하고 나머지는 계속 진행
+ *
+ * 워커 간 공유 상태는 불변 객체(컴파일된 Pattern, ObjectWriter)뿐이라 풀 크기를 늘려도
+ * 파일당 비용이 일정하게 유지된다. NDJSON은 워커가 직렬화까지 끝낸 한 줄만 짧게 잠그고 쓴다.
+ * ParseCache를 주면 내용이 같은 입력은 다시 파싱하지 않는다.
+ * TicketAggregator를 주면 워커가 결과를 만들자마자 차량/날짜별 집계에 더한다.
+ */
+public class BatchRunner {
+
+    private final int threads;
+    private final ParseCache cache;
+    private final boolean layout;
+    private final TicketAggregator aggregator;
+
+    public BatchRunner(int threads) {
+        this(threads, null, false);
+    }
+
+    public BatchRunner(int threads, ParseCache cache, boolean layout) {
+        this(threads, cache, layout, null);
+    }
+
+    // cache: null이면 캐시 없이 매번 파싱
+    // layout: JSON 입력의 단어 좌표로 중량을 짝짓는 레이아웃 모드 (캐시는 쓰지 않음)
+    // aggregator: null이면 집계하지 않음
+    public BatchRunner(int threads, ParseCache cache, boolean layout, TicketAggregator aggregator) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.cache = layout ? null : cache;
+        this.layout = layout;
+        this.aggregator = aggregator;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public static class Failure {
+        public final Path input;
+        public final String reason;
+
+        Failure(Path input, String reason) {
+            this.input = input;
+            this.reason = reason;
+        }
+    }
+
+    public static class Summary {
+        public final int total;
+        public final int succeeded;
+        public final List<Failure> failures;
+        public final long elapsedMillis;
+
+        Summary(int total, int succeeded, List<Failure> failures, long elapsedMillis) {
+            this.total = total;
+            this.succeeded = succeeded;
+            this.failures = failures;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    /*
+     * 입력 인자를 파일 목록으로 푼다.
+     * - 디렉토리: 하위의 .json/.txt 전부 (.json.gz/.txt.gz 포함)
+     * - 일반 파일: 그 파일 하나
+     * - 그 외: glob으로 간주 (예: "samples/*.json", "in/**.json")
+     */
+    public static List<Path> resolveInputs(String dirOrGlob) throws IOException {
+        Path asPath = tryPath(dirOrGlob);
+        if (asPath != null && Files.isDirectory(asPath)) {
+            try (Stream<Path> s = Files.walk(asPath)) {
+                return s.filter(Files::isRegularFile)
+                        .filter(BatchRunner::isSupportedInput)
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        if (asPath != null && Files.isRegularFile(asPath)) {
+            return List.of(asPath);
+        }
+
+        // glob: 메타문자 앞까지를 기준 디렉토리로 잡고 그 아래만 탐색
+        String glob = dirOrGlob.replace('\\', '/');
+        int meta = indexOfGlobMeta(glob);
+        int slash = meta < 0 ? glob.lastIndexOf('/') : glob.lastIndexOf('/', meta);
+        Path base = slash < 0 ? Path.of(".") : Path.of(glob.substring(0, slash + 1));
+        String pattern = slash < 0 ? glob : glob.substring(slash + 1);
+        if (!Files.isDirectory(base)) return List.of();
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        try (Stream<Path> s = Files.walk(base)) {
+            return s.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(base.relativize(p)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /*
+     * output이 .ndjson/.jsonl이면 한 파일로 합쳐서, .tka면 아카이브에 추가하고, 아니면 디렉토리에 입력별 JSON으로 쓴다.
+     * 실패 리포트는 출력 옆(<output>.failures.txt 또는 <outDir>/failures.txt)에 남긴다.
+     * 입력 하나는 succeeded 또는 failures 중 한 곳에만 들어간다 (succeeded + failures = total).
+     */
+    public Summary run(List<Path> inputs, Path output) throws IOException, InterruptedException {
+        long t0 = System.nanoTime();
+
+        boolean ndjson = isNdjsonOutput(output);
+        boolean archive = isArchiveOutput(output);
+        Path outDir = ndjson || archive ? output.toAbsolutePath().getParent() : output;
+        if (outDir != null) Files.createDirectories(outDir);
+
+        List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger ok = new AtomicInteger();
+        // 디렉토리 출력: 결과 이름(a/x.json, b/x.json, x.txt → x.out.json)이 겹치면 먼저 온 입력만 쓰고 나머지는 실패로
+        Map<String, Path> claimed = new HashMap<>();
+
+        BufferedWriter ndjsonOut = ndjson
+                ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                : null;
+        TicketArchiveWriter archiveOut = archive ? new TicketArchiveWriter(output) : null;
+
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(inputs.size());
+            for (Path in : inputs) {
+                String name = ndjson || archive ? null : outputName(in);
+                if (name != null) {
+                    Path first = claimed.putIfAbsent(name.toLowerCase(Locale.ROOT), in);
+                    if (first != null) {
+                        failures.add(new Failure(in, "output name " + name + " already used by " + first));
+                        continue;
+                    }
+                }
+                futures.add(pool.submit(() -> {
+                    // 입력 하나는 성공 또는 실패 한 번으로만 센다 (파싱 실패 후 쓰기도 실패하면 사유를 합친다)
+                    List<Failure> mine = new ArrayList<>(1);
+                    try {
+                        ParsedTicket ticket = parseFile(in, cache, layout, mine);
+                        if (aggregator != null) aggregator.add(ticket);
+                        if (ndjson) {
+                            String line = TicketJson.write(TicketJson.COMPACT,
+                                    new BatchRecord(in.toString(), ticket));
+                            synchronized (ndjsonOut) {
+                                ndjsonOut.write(line);
+                                ndjsonOut.write('\n');
+                            }
+                        } else if (archive) {
+                            archiveOut.append(ticket);
+                        } else {
+                            Path out = outDir.resolve(name);
+                            Files.writeString(out, TicketJson.write(TicketJson.PRETTY, ticket),
+                                    StandardCharsets.UTF_8);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        mine.add(new Failure(in, describe(e)));
+                    }
+                    if (mine.isEmpty()) {
+                        ok.incrementAndGet();
+                    } else {
+                        failures.add(new Failure(in, mine.stream().map(f -> f.reason).collect(Collectors.joining("; "))));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    // 작업 안에서 모두 잡으므로 여기까지 오지 않음
+                }
+            }
+        } finally {
+            pool.shutdown();
+            if (ndjsonOut != null) ndjsonOut.close();
+            if (archiveOut != null) archiveOut.close();
+        }
+
+        List<Failure> sorted = new ArrayList<>(failures);
+        sorted.sort((a, b) -> a.input.compareTo(b.input));
+        writeFailureReport(failureReportPath(output, ndjson || archive), sorted);
+
+        long elapsed = (System.nanoTime() - t0) / 1_000_000;
+        return new Summary(inputs.size(), ok.get(), sorted, elapsed);
+    }
+
+    // 파일 하나 파싱 (상주 데몬용). 파싱 예외는 빈 결과, 읽기 실패는 IOException
+    public static ParsedTicket parseOne(Path in, ParseCache cache, boolean layout) throws IOException {
+        return parseFile(in, layout ? null : cache, layout, new ArrayList<>());
+    }
+
+    /*
+     * 단건 결과 쓰기: .tka면 아카이브에 한 행 추가, 아니면 들여쓰기 JSON.
+     * 출력 디렉토리가 없으면 만든다.
+     */
+    public static void writeOne(Path out, ParsedTicket ticket) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        if (isArchiveOutput(out)) {
+            try (TicketArchiveWriter archive = new TicketArchiveWriter(out)) {
+                archive.append(ticket);
+            }
+        } else {
+            Files.writeString(out, TicketJson.write(TicketJson.PRETTY, ticket), StandardCharsets.UTF_8);
+        }
+    }
+
+    // 여러 티켓 문서(--all): JSON 배열 하나로, .tka면 티켓마다 한 행
+    public static void writeAll(Path out, List<ParsedTicket> tickets) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        if (isArchiveOutput(out)) {
+            try (TicketArchiveWriter archive = new TicketArchiveWriter(out)) {
+                for (ParsedTicket t : tickets) archive.append(t);
+            }
+        } else {
+            Files.writeString(out, TicketJson.write(TicketJson.PRETTY, tickets), StandardCharsets.UTF_8);
+        }
+    }
+
+    // 단건 CLI와 같은 규칙: 파싱 예외가 나도 빈 결과를 만든다(실패 리포트에는 남김)
+    private static ParsedTicket parseFile(Path in, ParseCache cache, boolean layout, List<Failure> failures)
+            throws IOException {
+        if (cache != null) {
+            byte[] content = OcrTextReader.readBytes(in);
+            try {
+                return cache.parseBytes(content, OcrTextReader.isJson(in));
+            } catch (RuntimeException e) {
+                failures.add(new Failure(in, "parse: " + describe(e)));
+                return new ParsedTicket();
+            }
+        }
+
+        String ocrText = OcrTextReader.read(in);
+        WordLayout words = layout && OcrTextReader.isJson(in) ? WordLayout.load(in) : null;
+        try {
+            return WeighingParser.parse(ocrText, words);
+        } catch (Exception e) {
+            failures.add(new Failure(in, "parse: " + describe(e)));
+            return new ParsedTicket();
+        }
+    }
+
+    private static void writeFailureReport(Path report, List<Failure> failures) throws IOException {
+        if (failures.isEmpty()) {
+            Files.deleteIfExists(report);
+            return;
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            for (Failure f : failures) {
+                w.write(f.input.toString());
+                w.write('\t');
+                w.write(f.reason);
+                w.write('\n');
+            }
+        }
+    }
+
+    public static Path failureReportPath(Path output, boolean ndjson) {
+        if (ndjson) {
+            return output.resolveSibling(output.getFileName() + ".failures.txt");
+        }
+        return output.resolve("failures.txt");
+    }
+
+    public static boolean isNdjsonOutput(Path output) {
+        String name = output.getFileName() == null ? "" : output.getFileName().toString().toLowerCase();
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    public static boolean isArchiveOutput(Path output) {
+        String name = output.getFileName() == null ? "" : output.getFileName().toString().toLowerCase();
+        return name.endsWith(".tka");
+    }
+
+    // sample_01.json → sample_01.out.json (입력 디렉토리에 결과를 쓰더라도 덮어쓰지 않도록), sample_02.json.gz → sample_02.out.json
+    public static String outputName(Path in) {
+        String name = in.getFileName().toString();
+        if (OcrTextReader.isGzip(in)) name = name.substring(0, name.length() - 3);
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        return stem + ".out.json";
+    }
+
+    private static boolean isSupportedInput(Path p) {
+        String name = p.getFileName().toString().toLowerCase();
+        // 이전 배치 결과물은 입력에서 제외
+        if (name.endsWith(".out.json") || name.endsWith(".failures.txt") || name.equals("failures.txt")) {
+            return false;
+        }
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        return name.endsWith(".json") || name.endsWith(".txt");
+    }
+
+    public static String describe(Throwable e) {
+        Throwable cause = e instanceof UncheckedIOException && e.getCause() != null ? e.getCause() : e;
+        String msg = cause.getMessage();
+        return cause.getClass().getSimpleName() + (msg == null ? "" : ": " + msg.replace('\n', ' '));
+    }
+
+    private static int indexOfGlobMeta(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+        }
+        return -1;
+    }
+
+    private static Path tryPath(String s) {
+        try {
+            return Path.of(s);
+        } catch (java.nio.file.InvalidPathException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package com.kang.ocrparser.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kang.ocrparser.aggregate.TicketAggregator;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+
+/*
+ * 큰 NDJSON 파일(한 줄 = 제공사 응답 JSON 하나) 스트리밍 처리.
+ *
+ *   reader 스레드 ──(work 큐)──▶ 파싱 워커 N개 ──(done 큐)──▶ writer(호출 스레드)
+ *
+ * - reader: FileChannel로 1MB씩 읽어 '\n' 기준으로 자른다 (파일 전체를 메모리에 올리지 않음)
+ * - 워커: OcrTextReader.decode(SampleJsonLoader + 전처리) → WeighingParser.parse → NDJSON 한 줄 직렬화
+ * - writer: 입력 순서대로 다시 맞춰서 쓴다 (BatchRecord, source = 입력 줄 번호)
+ *
+ * 두 큐 모두 크기 제한이 있고, reader는 writer가 쓰지 않은 줄이 window개가 되면 멈춘다.
+ * → 워커 하나가 느린 줄을 잡고 있어도 순서 맞춤 버퍼가 커지지 않아서 파일 크기와 무관하게 메모리가 일정하다.
+ *
+ * 압축 입력도 임시 파일 없이 reader 스레드가 풀면서 넘긴다 (압축 풀기가 파싱과 겹친다):
+ * - .jsonl.gz / .ndjson.gz: GZIPInputStream을 풀면서 위와 같이 줄 단위 (source = 줄 번호)
+ * - .zip: 항목(.json/.txt) 하나가 응답 하나 (source = 항목 이름, 예 "2026-02-01/t_0001.json")
+ * - 그 밖의 .gz (.json.gz 등): 파일 전체가 응답 하나 (source = .gz를 뗀 파일 이름)
+ *
+ * 체크포인트: writer가 일정 줄/시간마다 출력을 디스크에 내린 뒤 (입력 바이트 오프셋, 줄 번호, 출력 크기)를
+ * <output>.checkpoint에 원자적으로 쓴다. 같은 입력으로 다시 돌리면 출력을 체크포인트 크기로 자르고
+ * 그 오프셋부터 이어서 처리한다. 정상 종료하면 체크포인트를 지운다.
+ * 압축 입력은 되감을 수 없어서 처음부터 풀되, 체크포인트까지는 파싱하지 않고 버린다
+ * (.gz 줄 입력은 푼 바이트 오프셋, .zip은 항목 순번 기준).
+ * 푼 오프셋은 파일 크기와 비교할 수 없으므로 압축 입력은 압축 파일의 크기와 수정 시각이 체크포인트와 같을 때만 이어 간다.
+ *
+ * .zip 항목 이름은 UTF-8 플래그(EFS)가 있으면 UTF-8, 없으면 CP949로 읽는다 (국내 Windows 압축 도구 기본값).
+ */
+public class NdjsonPipeline {
+
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    // 한 줄 최대 크기 (서버 /parse 본문 상한과 같음). 넘으면 빈 결과 + 실패로 기록
+    private static final int MAX_LINE_BYTES = 8 * 1024 * 1024;
+
+    private static final int CHECKPOINT_EVERY_LINES = 10_000;
+    private static final long CHECKPOINT_EVERY_NANOS = 2_000_000_000L;
+
+    // UTF-8 플래그 없는 .zip 항목 이름
+    private static final Charset ZIP_NAMES = Charset.forName("Cp949");
+
+    // 워커 종료 표시 (work 큐: reader → 워커, done 큐: 워커 → writer)
+    private static final Line END = new Line(-1, -1, null, -1, null);
+
+    private static final String ZIP_JUNK = "__macosx/";
+
+    private final int workers;
+    private final int queueDepth;
+    private final ParseCache cache;
+    private final TicketAggregator aggregator;
+
+    public NdjsonPipeline(int workers, int queueDepth, ParseCache cache) {
+        this(workers, queueDepth, cache, null);
+    }
+
+    // cache: null이면 캐시 없이 매번 파싱
+    // aggregator: null이면 집계하지 않음 (이어서 돌릴 때는 이번 실행에서 처리한 줄만 집계된다)
+    public NdjsonPipeline(int workers, int queueDepth, ParseCache cache, TicketAggregator aggregator) {
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.queueDepth = queueDepth > 0 ? queueDepth : this.workers * 64;
+        this.cache = cache;
+        this.aggregator = aggregator;
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public int queueDepth() {
+        return queueDepth;
+    }
+
+    public static Path defaultCheckpoint(Path output) {
+        return output.resolveSibling(output.getFileName() + ".checkpoint");
+    }
+
+    public static class Result {
+        public final long lines;            // 이번 실행에서 쓴 결과 줄 수
+        public final long failed;
+        public final long resumedFromOffset; // 0이면 처음부터
+        public final long bytesRead;
+        public final long elapsedMillis;
+
+        Result(long lines, long failed, long resumedFromOffset, long bytesRead, long elapsedMillis) {
+            this.lines = lines;
+            this.failed = failed;
+            this.resumedFromOffset = resumedFromOffset;
+            this.bytesRead = bytesRead;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    // 입력 한 줄 (reader가 만들고, 워커가 결과를 채워서 writer로 넘김)
+    private static final class Line {
+        final long seq;        // 이번 실행 안에서의 순번 (순서 맞춤용)
+        final long lineNo;     // 입력 파일의 1부터 시작하는 줄 번호 (.zip은 항목 순번)
+        final long endOffset;  // 이 줄('\n' 포함) 다음 바이트의 파일 오프셋 (.gz는 푼 내용 기준)
+        final String name;     // .zip 항목 / .json.gz 파일 이름 (null이면 source = 줄 번호)
+        final boolean json;
+        byte[] bytes;
+        String failure;
+        byte[] out;
+
+        Line(long seq, long lineNo, byte[] bytes, long endOffset, String failure) {
+            this(seq, lineNo, null, true, bytes, endOffset, failure);
+        }
+
+        Line(long seq, long lineNo, String name, boolean json, byte[] bytes, long endOffset, String failure) {
+            this.seq = seq;
+            this.lineNo = lineNo;
+            this.name = name;
+            this.json = json;
+            this.bytes = bytes;
+            this.endOffset = endOffset;
+            this.failure = failure;
+        }
+
+        String source() {
+            return name != null ? name : String.valueOf(lineNo);
+        }
+    }
+
+    // checkpoint: null이면 체크포인트 없이 처음부터 끝까지
+    public Result run(Path input, Path output, Path checkpoint) throws IOException, InterruptedException {
+        long t0 = System.nanoTime();
+
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path failuresPath = BatchRunner.failureReportPath(output, true);
+        Result result;
+        boolean noFailures;
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileChannel fail = FileChannel.open(failuresPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+            long inputSize = in.size();
+            long inputModified = Files.getLastModifiedTime(input).toMillis();
+            Checkpoint resume = Checkpoint.read(checkpoint, input, inputSize, inputModified, out.size(), fail.size());
+            Checkpoint state = resume != null ? resume
+                    : new Checkpoint(input.toAbsolutePath().toString(), inputSize, inputModified);
+
+            // 체크포인트 이후에 쓴(내려가지 않았을 수 있는) 부분은 버리고 다시 만든다
+            out.truncate(state.outputBytes);
+            fail.truncate(state.failureBytes);
+            out.position(state.outputBytes);
+            fail.position(state.failureBytes);
+
+            long startOffset = state.offset;
+            Stages stages = new Stages(input, in, state);
+            stages.start();
+
+            // 스트림을 닫으면 채널도 닫히므로 flush만 하고, 채널은 바깥 try가 닫는다
+            OutputStream o = new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16);
+            OutputStream f = new BufferedOutputStream(Channels.newOutputStream(fail), 1 << 12);
+
+            long written = 0;
+            long failed = 0;
+            try {
+                long sinceCheckpoint = 0;
+                long lastCheckpoint = System.nanoTime();
+                Line line;
+                while ((line = stages.next()) != null) {
+                    o.write(line.out);
+                    o.write('\n');
+                    state.outputBytes += line.out.length + 1;
+                    if (line.failure != null) {
+                        byte[] report = (line.source() + "\t" + line.failure + "\n").getBytes(StandardCharsets.UTF_8);
+                        f.write(report);
+                        state.failureBytes += report.length;
+                        failed++;
+                    }
+                    state.offset = line.endOffset;
+                    state.lineNo = line.lineNo;
+                    written++;
+
+                    if (++sinceCheckpoint >= CHECKPOINT_EVERY_LINES
+                            || System.nanoTime() - lastCheckpoint >= CHECKPOINT_EVERY_NANOS) {
+                        sync(o, f, out, fail);
+                        state.write(checkpoint);
+                        sinceCheckpoint = 0;
+                        lastCheckpoint = System.nanoTime();
+                    }
+                }
+                sync(o, f, out, fail);
+            } catch (IOException | RuntimeException | InterruptedException e) {
+                stages.abort();
+                throw e;
+            }
+
+            try {
+                stages.join();
+            } catch (IOException e) {
+                // 읽기 오류: 여기까지 쓴 결과로 체크포인트를 남기고 실패 (다시 돌리면 이어서)
+                state.write(checkpoint);
+                throw e;
+            }
+
+            if (checkpoint != null) Files.deleteIfExists(checkpoint);
+            noFailures = state.failureBytes == 0;
+            result = new Result(written, failed, startOffset, state.offset - startOffset,
+                    (System.nanoTime() - t0) / 1_000_000);
+        }
+        // 채널을 닫은 뒤에 지운다
+        if (noFailures) Files.deleteIfExists(failuresPath);
+        return result;
+    }
+
+    // 출력과 실패 리포트를 디스크까지 내린다 (체크포인트는 그 뒤에 써야 출력보다 앞서지 않음)
+    private static void sync(OutputStream o, OutputStream f, FileChannel out, FileChannel fail) throws IOException {
+        o.flush();
+        f.flush();
+        out.force(false);
+        fail.force(false);
+    }
+
+    /*
+     * reader + 워커 스레드와 순서 맞춤. next()는 입력 순서대로 결과를 하나씩 돌려주고, 끝나면 null.
+     */
+    private final class Stages {
+        private final Path input;
+        private final FileChannel in;
+        private final Checkpoint from;
+
+        private final BlockingQueue<Line> work = new ArrayBlockingQueue<>(queueDepth);
+        private final BlockingQueue<Line> done = new ArrayBlockingQueue<>(queueDepth);
+
+        // reader가 writer보다 앞서갈 수 있는 줄 수 = 순서 맞춤 버퍼 크기
+        private final int window = queueDepth * 2 + workers;
+        private final Semaphore slots = new Semaphore(window);
+        private final Line[] pending = new Line[window];
+        private long nextSeq;
+        private int finished;
+
+        private final List<Thread> threads = new ArrayList<>();
+        private final AtomicReference<IOException> readError = new AtomicReference<>();
+        // 워커를 죽인 Error 등 (parse()가 잡지 않는 것). 있으면 next()가 멈추지 않고 던진다
+        private final AtomicReference<Throwable> workerError = new AtomicReference<>();
+
+        Stages(Path input, FileChannel in, Checkpoint from) {
+            this.input = input;
+            this.in = in;
+            this.from = from;
+        }
+
+        void start() {
+            Thread reader = new Thread(this::readAll, "ndjson-reader");
+            reader.setDaemon(true);
+            threads.add(reader);
+            for (int i = 0; i < workers; i++) {
+                Thread w = new Thread(this::work, "ndjson-worker-" + (i + 1));
+                w.setDaemon(true);
+                threads.add(w);
+            }
+            threads.forEach(Thread::start);
+        }
+
+        Line next() throws IOException, InterruptedException {
+            while (true) {
+                int slot = (int) (nextSeq % window);
+                Line ready = pending[slot];
+                if (ready != null) {
+                    pending[slot] = null;
+                    nextSeq++;
+                    slots.release();
+                    return ready;
+                }
+                if (finished == workers) return null;
+
+                Line line = done.take();
+                if (line == END) {
+                    finished++;
+                    // 죽은 워커가 들고 있던 줄은 오지 않으므로 기다리지 않는다
+                    Throwable e = workerError.get();
+                    if (e != null) throw new IOException("parse worker failed: " + e, e);
+                } else {
+                    pending[(int) (line.seq % window)] = line;
+                }
+            }
+        }
+
+        void join() throws IOException, InterruptedException {
+            for (Thread t : threads) t.join();
+            IOException e = readError.get();
+            if (e != null) throw e;
+        }
+
+        void abort() {
+            threads.forEach(Thread::interrupt);
+        }
+
+        private void readAll() {
+            try {
+                read();
+            } catch (IOException e) {
+                readError.set(e);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                for (int i = 0; i < workers; i++) work.put(END);
+            } catch (InterruptedException e) {
+                // 중단됨
+            }
+        }
+
+        private void read() throws IOException, InterruptedException {
+            if (isZip(input)) {
+                readZip();
+                return;
+            }
+            if (!OcrTextReader.isGzip(input)) {
+                in.position(from.offset);
+                readLines(in);
+                return;
+            }
+            try (InputStream gz = OcrTextReader.open(input)) {
+                if (!isLines(input)) {
+                    readWhole(gz);
+                    return;
+                }
+                // 체크포인트까지는 풀기만 하고 버린다
+                try {
+                    gz.skipNBytes(from.offset);
+                } catch (EOFException e) {
+                    throw new IOException("checkpoint does not match input: " + input
+                            + " decompresses to less than offset " + from.offset, e);
+                }
+                readLines(Channels.newChannel(gz));
+            }
+        }
+
+        private void readLines(ReadableByteChannel in) throws IOException, InterruptedException {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+            byte[] a = chunk.array();
+
+            byte[] buf = new byte[8192];
+            int len = 0;
+            boolean tooLong = false;
+
+            long pos = from.offset;      // chunk[0]의 파일 오프셋
+            long lineNo = from.lineNo;
+            long seq = 0;
+
+            int n;
+            while ((n = in.read(chunk.clear())) >= 0) {
+                int start = 0;
+                for (int i = 0; i < n; i++) {
+                    if (a[i] != '\n') continue;
+                    if (!tooLong && len + (i - start) > MAX_LINE_BYTES) tooLong = true;
+                    if (!tooLong) {
+                        buf = append(buf, len, a, start, i - start);
+                        len += i - start;
+                    }
+                    if (emit(buf, len, tooLong, ++lineNo, pos + i + 1, seq)) seq++;
+                    len = 0;
+                    tooLong = false;
+                    if (buf.length > CHUNK_BYTES) buf = new byte[8192];
+                    start = i + 1;
+                }
+                if (!tooLong && len + (n - start) > MAX_LINE_BYTES) tooLong = true;
+                if (!tooLong) {
+                    buf = append(buf, len, a, start, n - start);
+                    len += n - start;
+                }
+                pos += n;
+            }
+            // 마지막 줄에 '\n'이 없는 경우
+            if (len > 0 || tooLong) emit(buf, len, tooLong, ++lineNo, pos, seq);
+        }
+
+        // .zip: 항목마다 응답 하나. 디렉토리와 .json/.txt가 아닌 항목(__MACOSX/ 포함)은 건너뛰고 순번도 세지 않는다
+        private void readZip() throws IOException, InterruptedException {
+            try (ZipInputStream zip = new ZipInputStream(
+                    new BufferedInputStream(Files.newInputStream(input), 1 << 16), ZIP_NAMES)) {
+                long ordinal = 0;
+                long pos = from.offset;
+                long seq = 0;
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    String name = entry.getName();
+                    if (entry.isDirectory() || !isResponseEntry(name)) continue;
+                    // 체크포인트까지 처리한 항목은 읽지 않는다 (getNextEntry가 남은 내용을 건너뜀)
+                    if (++ordinal <= from.lineNo) continue;
+                    byte[] bytes = zip.readNBytes(MAX_LINE_BYTES + 1);
+                    long size = bytes.length;
+                    boolean tooLong = size > MAX_LINE_BYTES;
+                    if (tooLong) size += zip.transferTo(OutputStream.nullOutputStream());
+                    pos += size;
+                    slots.acquire();
+                    work.put(new Line(seq++, ordinal, name, name.toLowerCase().endsWith(".json"),
+                            tooLong ? null : bytes, pos, tooLong ? "entry too large" : null));
+                }
+            }
+        }
+
+        // .json.gz / .txt.gz: 파일 전체가 응답 하나 (비어 있어도 빈 결과 한 줄)
+        private void readWhole(InputStream gz) throws IOException, InterruptedException {
+            if (from.lineNo >= 1) return;
+            byte[] bytes = gz.readNBytes(MAX_LINE_BYTES + 1);
+            long size = bytes.length;
+            boolean tooLong = size > MAX_LINE_BYTES;
+            if (tooLong) size += gz.transferTo(OutputStream.nullOutputStream());
+            String name = input.getFileName().toString();
+            slots.acquire();
+            work.put(new Line(0, 1, name.substring(0, name.length() - 3), OcrTextReader.isJson(input),
+                    tooLong ? null : bytes, size, tooLong ? "input too large" : null));
+        }
+
+        // 빈 줄은 건너뛴다 (출력하지 않음). 큐에 넣었으면 true
+        private boolean emit(byte[] buf, int len, boolean tooLong, long lineNo, long endOffset, long seq)
+                throws InterruptedException {
+            if (!tooLong) {
+                if (len > 0 && buf[len - 1] == '\r') len--;
+                if (isBlank(buf, len)) return false;
+            }
+            byte[] bytes = tooLong ? null : Arrays.copyOf(buf, len);
+            slots.acquire();
+            work.put(new Line(seq, lineNo, bytes, endOffset, tooLong ? "line too long" : null));
+            return true;
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    Line line = work.take();
+                    if (line == END) break;
+                    parse(line);
+                    done.put(line);
+                }
+            } catch (InterruptedException e) {
+                return; // 중단됨: writer도 abort()로 빠져나간다
+            } catch (Throwable e) {
+                workerError.compareAndSet(null, e);
+            }
+            // 정상 종료든 Error든 writer에게 알린다 (안 그러면 next()가 끝없이 기다린다)
+            try {
+                done.put(END);
+            } catch (InterruptedException e) {
+                // 중단됨
+            }
+        }
+    }
+
+    // 단건/배치와 같은 규칙: 파싱 예외가 나도 빈 결과를 쓰고 실패로 남긴다
+    private void parse(Line line) {
+        ParsedTicket ticket;
+        if (line.bytes == null) {
+            ticket = new ParsedTicket();
+        } else {
+            try {
+                ticket = cache != null
+                        ? cache.parseBytes(line.bytes, line.json)
+                        : WeighingParser.parse(OcrTextReader.decode(line.bytes, line.json));
+            } catch (RuntimeException e) {
+                line.failure = "parse: " + BatchRunner.describe(e);
+                ticket = new ParsedTicket();
+            }
+        }
+        line.bytes = null;
+        if (aggregator != null) aggregator.add(ticket);
+        try {
+            line.out = TicketJson.writeBytes(TicketJson.COMPACT, new BatchRecord(line.source(), ticket));
+        } catch (IOException e) {
+            // ParsedTicket 직렬화는 실패하지 않지만, 워커가 죽으면 writer가 끝나지 않으므로 줄은 남긴다
+            line.failure = "output: " + BatchRunner.describe(e);
+            line.out = TicketJson.mapper().createObjectNode().put("source", line.source()).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // 파이프라인이 읽을 수 있는 압축 입력 (.zip, .gz)
+    public static boolean isCompressed(Path input) {
+        return isZip(input) || OcrTextReader.isGzip(input);
+    }
+
+    // 응답 여러 개가 든 압축 입력 (.zip, .jsonl.gz / .ndjson.gz). 단건 모드로는 읽을 수 없다
+    public static boolean holdsManyResponses(Path input) {
+        return isZip(input) || isLines(input);
+    }
+
+    private static boolean isZip(Path input) {
+        Path name = input.getFileName();
+        return name != null && name.toString().toLowerCase().endsWith(".zip");
+    }
+
+    // .jsonl.gz / .ndjson.gz: 줄 단위
+    private static boolean isLines(Path input) {
+        Path file = input.getFileName();
+        String name = file == null ? "" : file.toString().toLowerCase();
+        return name.endsWith(".jsonl.gz") || name.endsWith(".ndjson.gz");
+    }
+
+    private static boolean isResponseEntry(String name) {
+        String lower = name.toLowerCase();
+        return !lower.startsWith(ZIP_JUNK) && (lower.endsWith(".json") || lower.endsWith(".txt"));
+    }
+
+    private static byte[] append(byte[] buf, int len, byte[] src, int from, int count) {
+        if (count == 0) return buf;
+        if (len + count > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + count));
+        System.arraycopy(src, from, buf, len, count);
+        return buf;
+    }
+
+    private static boolean isBlank(byte[] buf, int len) {
+        for (int i = 0; i < len; i++) {
+            byte b = buf[i];
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    /*
+     * 체크포인트 파일: {"input":"<절대 경로>","inputBytes":N,"inputModified":N,"offset":N,"line":N,"outputBytes":N,"failureBytes":N}
+     * 입력 경로가 다르거나 파일 크기와 맞지 않으면(입력이 줄었거나 출력이 체크포인트보다 짧음) 무시하고 처음부터.
+     * 압축 입력은 오프셋이 푼 내용 기준이라, 압축 파일 크기(inputBytes)와 수정 시각(epoch ms)이 그대로일 때만 쓴다.
+     */
+    static final class Checkpoint {
+        final String input;
+        final long inputBytes;
+        final long inputModified;
+        long offset;
+        long lineNo;
+        long outputBytes;
+        long failureBytes;
+
+        Checkpoint(String input, long inputBytes, long inputModified) {
+            this.input = input;
+            this.inputBytes = inputBytes;
+            this.inputModified = inputModified;
+        }
+
+        static Checkpoint read(Path file, Path input, long inputSize, long inputModified, long outputSize, long failureSize) {
+            if (file == null || !Files.exists(file)) return null;
+            try {
+                JsonNode node = TicketJson.mapper().readTree(file.toFile());
+                Checkpoint c = new Checkpoint(input.toAbsolutePath().toString(), inputSize, inputModified);
+                if (!c.input.equals(node.path("input").asText(null))) return null;
+                if (isCompressed(input) && (node.path("inputBytes").asLong(-1) != inputSize
+                        || node.path("inputModified").asLong(-1) != inputModified)) return null;
+                c.offset = node.path("offset").asLong(-1);
+                c.lineNo = node.path("line").asLong(-1);
+                c.outputBytes = node.path("outputBytes").asLong(-1);
+                c.failureBytes = node.path("failureBytes").asLong(-1);
+                if (c.offset < 0 || c.lineNo < 0) return null;
+                if (!isCompressed(input) && c.offset > inputSize) return null;
+                if (c.outputBytes < 0 || c.outputBytes > outputSize) return null;
+                if (c.failureBytes < 0 || c.failureBytes > failureSize) return null;
+                return c;
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        // 임시 파일에 쓰고 이름을 바꿔서, 쓰다 죽어도 이전 체크포인트가 남는다
+        void write(Path file) throws IOException {
+            if (file == null) return;
+            ObjectNode node = TicketJson.mapper().createObjectNode();
+            node.put("input", input);
+            node.put("inputBytes", inputBytes);
+            node.put("inputModified", inputModified);
+            node.put("offset", offset);
+            node.put("line", lineNo);
+            node.put("outputBytes", outputBytes);
+            node.put("failureBytes", failureBytes);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, node.toString(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.kang.ocrparser.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/*
+ * 캐시 키용 64비트 해시 (MurmurHash64A 방식, 8바이트 단위로 섞음)
+ * - 암호학적 해시가 아니므로 캐시 키에는 길이를 같이 넣어 충돌 가능성을 더 줄인다
+ * - 문자열은 byte[]로 인코딩하지 않고 char 4개씩 묶어서 바로 해시한다
+ */
+public class ContentHash {
+
+    private static final long M = 0xc6a4a7935bd1e995L;
+    private static final int R = 47;
+
+    private static final VarHandle LONG_LE =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    public static long of(byte[] data, long seed) {
+        int len = data.length;
+        long h = seed ^ (len * M);
+
+        int blocks = len & ~7;
+        for (int i = 0; i < blocks; i += 8) {
+            h = mixBlock(h, (long) LONG_LE.get(data, i));
+        }
+
+        int rest = len & 7;
+        if (rest > 0) {
+            long k = 0;
+            for (int i = rest - 1; i >= 0; i--) {
+                k = (k << 8) | (data[blocks + i] & 0xFF);
+            }
+            h ^= k;
+            h *= M;
+        }
+        return finish(h);
+    }
+
+    public static long of(CharSequence text, long seed) {
+        int len = text.length();
+        long h = seed ^ (len * M);
+
+        int blocks = len & ~3;
+        for (int i = 0; i < blocks; i += 4) {
+            long k = text.charAt(i)
+                    | ((long) text.charAt(i + 1) << 16)
+                    | ((long) text.charAt(i + 2) << 32)
+                    | ((long) text.charAt(i + 3) << 48);
+            h = mixBlock(h, k);
+        }
+
+        int rest = len & 3;
+        if (rest > 0) {
+            long k = 0;
+            for (int i = rest - 1; i >= 0; i--) {
+                k = (k << 16) | text.charAt(blocks + i);
+            }
+            h ^= k;
+            h *= M;
+        }
+        return finish(h);
+    }
+
+    // 버전 문자열 등으로 시드를 만든다
+    public static long seed(String s) {
+        return of(s, 0x9E3779B97F4A7C15L);
+    }
+
+    private static long mixBlock(long h, long k) {
+        k *= M;
+        k ^= k >>> R;
+        k *= M;
+        h ^= k;
+        h *= M;
+        return h;
+    }
+
+    private static long finish(long h) {
+        h ^= h >>> R;
+        h *= M;
+        h ^= h >>> R;
+        return h;
+    }
+}
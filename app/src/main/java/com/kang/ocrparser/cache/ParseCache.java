@@ -0,0 +1,289 @@
+package com.kang.ocrparser.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.model.CompactTicket;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+import com.kang.ocrparser.tare.TareIndex;
+
+/*
+ * 내용 해시 기반 파싱 결과 캐시 (스캐너 재전송/중복 업로드로 같은 OCR 응답이 반복될 때)
+ *
+ * 키는 두 종류:
+ * - 원본 파일 바이트 해시: 적중하면 JSON 추출/전처리/파싱을 모두 건너뜀
+ * - 전처리된 OCR 텍스트 해시: 래핑 JSON은 달라도 텍스트가 같으면 적중
+ * 해시 시드에 파서 버전(+ 양식 정의)을 넣으므로 VERSION을 올리거나 양식을 바꾸면 예전 항목은 자연히 무효가 된다.
+ *
+ * - 항목 수 기준 LRU (LinkedHashMap access-order), 적중/미스/축출 카운터
+ * - store를 주면 추가 전용 NDJSON 파일에 결과를 한 줄씩 남기고, 다음 실행 때 다시 읽어 온다
+ *   (버전이 다르거나 깨진 줄은 무시). 파일 쓰기는 entries 잠금 밖에서 따로 잠그고 한다
+ * - 읽어 온 줄의 절반 넘게가 버릴 줄(다른 버전, 덮인 키, 상한 밖으로 밀린 항목)이면 남은 항목만으로 파일을 다시 쓴다
+ * - 항목은 불변 CompactTicket으로 들고 있고(항목당 50바이트 안팎), 꺼낼 때마다 새 ParsedTicket으로 돌려준다
+ * - 공차 이력(TareIndex)이 켜져 있으면 결과가 내용만으로 정해지지 않으므로 캐시를 거치지 않고 바로 파싱한다
+ *   (찾지도 넣지도 않고, 적중/미스로 세지도 않는다)
+ */
+public class ParseCache implements Closeable {
+
+    private static final ObjectMapper OM = TicketJson.mapper();
+
+    private static final char RAW = 'r';
+    private static final char RAW_JSON = 'j';
+    private static final char TEXT = 't';
+
+    private final int maxEntries;
+    private final String version;
+    private final long seed;
+
+    private final LinkedHashMap<Key, CompactTicket> entries;
+    private final BufferedWriter store;
+    private final Object storeLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ParseCache(int maxEntries, Path store) throws IOException {
+        this(maxEntries, store, WeighingParser.cacheVersion());
+    }
+
+    public ParseCache(int maxEntries, Path store, String parserVersion) throws IOException {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        this.maxEntries = maxEntries;
+        this.version = parserVersion;
+        this.seed = ContentHash.seed(parserVersion);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompactTicket> eldest) {
+                if (size() <= ParseCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+
+        if (store != null) {
+            Path parent = store.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            if (load(store) > 2L * entries.size()) compact(store);
+            this.store = Files.newBufferedWriter(store, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } else {
+            this.store = null;
+        }
+    }
+
+    /*
+     * 입력 파일 하나를 캐시를 거쳐 파싱한다 (OcrTextReader.read + WeighingParser.parse와 같은 결과)
+     * 읽기 실패는 IOException, 파싱 예외는 그대로 던진다(캐시에 넣지 않음).
+     */
+    public ParsedTicket parseFile(Path in) throws IOException {
+        return parseBytes(OcrTextReader.readBytes(in), OcrTextReader.isJson(in));
+    }
+
+    // json: 확장자/요청 형식상 JSON으로 다룰지 (같은 바이트라도 해석이 다를 수 있어 키를 나눈다)
+    public ParsedTicket parseBytes(byte[] content, boolean json) {
+        if (TareIndex.active() != null) return WeighingParser.parse(OcrTextReader.decode(content, json));
+        Key rawKey = new Key(json ? RAW_JSON : RAW, ContentHash.of(content, seed), content.length);
+        CompactTicket cached = find(rawKey);
+        if (cached != null) {
+            hits.increment();
+            return cached.toParsedTicket();
+        }
+
+        // 원본 키에서 못 찾으면 텍스트 키에서 찾는다: 적중/미스는 parseText가 한 번만 센다
+        ParsedTicket ticket = parseText(OcrTextReader.decode(content, json));
+        put(rawKey, ticket);
+        return ticket;
+    }
+
+    // ocrText: 전처리(OcrTextReader.preprocess)까지 끝난 텍스트
+    public ParsedTicket parseText(String ocrText) {
+        if (TareIndex.active() != null) return WeighingParser.parse(ocrText);
+        Key textKey = new Key(TEXT, ContentHash.of(ocrText, seed), ocrText.length());
+        ParsedTicket hit = lookup(textKey);
+        if (hit != null) return hit;
+
+        ParsedTicket ticket = WeighingParser.parse(ocrText);
+        put(textKey, ticket);
+        return ticket;
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (store != null) {
+            synchronized (storeLock) {
+                store.close();
+            }
+        }
+    }
+
+    public static class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final int size;
+
+        Stats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " evictions=" + evictions + " size=" + size;
+        }
+    }
+
+    private CompactTicket find(Key key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private ParsedTicket lookup(Key key) {
+        CompactTicket cached = find(key);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.toParsedTicket();
+    }
+
+    private void put(Key key, ParsedTicket ticket) {
+        // 작업량 상한에 걸린 결과는 상한 설정에 따라 달라지므로 넣지 않는다
+        if (ticket.isPartial()) return;
+        CompactTicket stored = CompactTicket.of(ticket);
+        String line = store != null ? toLine(key, ticket) : null;
+        synchronized (entries) {
+            entries.put(key, stored);
+        }
+        if (line == null) return;
+        // 조회/삽입하는 다른 스레드는 디스크 쓰기를 기다리지 않는다
+        synchronized (storeLock) {
+            try {
+                store.write(line);
+                store.write('\n');
+                store.flush();
+            } catch (IOException e) {
+                // 디스크 저장 실패(닫힌 뒤 포함)는 메모리 캐시 동작에 영향 주지 않음
+            }
+        }
+    }
+
+    /*
+     * 저장 파일 한 줄: {"v":"<parser version>","k":"<kind>:<hash hex>:<length>","t":{ticket}}
+     * 뒤에 나온 줄이 앞의 같은 키를 덮는다. 로드 중에도 LRU 상한은 그대로 적용되므로 메모리는 maxEntries까지만 쓴다.
+     * 반환값은 읽은 줄 수 (compact 여부 판단용)
+     */
+    private long load(Path store) throws IOException {
+        if (!Files.exists(store)) return 0;
+        long lines = 0;
+        try (BufferedReader r = Files.newBufferedReader(store, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank()) continue;
+                lines++;
+                try {
+                    JsonNode node = OM.readTree(line);
+                    if (!version.equals(node.path("v").asText(null))) continue;
+                    Key key = Key.parse(node.path("k").asText(""));
+                    JsonNode t = node.get("t");
+                    if (key == null || t == null || !t.isObject()) continue;
+                    entries.put(key, CompactTicket.of(OM.treeToValue(t, ParsedTicket.class)));
+                } catch (IOException | RuntimeException e) {
+                    // 마지막 줄이 쓰다 만 상태일 수 있음 → 건너뜀
+                }
+            }
+        }
+        // 로드 단계의 축출은 통계에서 뺀다
+        evictions.reset();
+        return lines;
+    }
+
+    // 남은 항목만 오래된 순서로 임시 파일에 쓰고 바꿔 끼운다 (다시 읽으면 LRU 순서도 같다)
+    private void compact(Path store) throws IOException {
+        Path tmp = store.resolveSibling(store.getFileName() + ".compact");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Key, CompactTicket> e : entries.entrySet()) {
+                w.write(toLine(e.getKey(), e.getValue().toParsedTicket()));
+                w.write('\n');
+            }
+        }
+        Files.move(tmp, store, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String toLine(Key key, ParsedTicket ticket) {
+        ObjectNode node = OM.createObjectNode();
+        node.put("v", version);
+        node.put("k", key.toString());
+        node.set("t", OM.valueToTree(ticket));
+        return node.toString();
+    }
+
+    // (종류, 64비트 해시, 길이)
+    private static final class Key {
+        final char kind;
+        final long hash;
+        final int length;
+
+        Key(char kind, long hash, int length) {
+            this.kind = kind;
+            this.hash = hash;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return kind == k.kind && hash == k.hash && length == k.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return kind + ":" + Long.toHexString(hash) + ":" + length;
+        }
+
+        static Key parse(String s) {
+            String[] parts = s.split(":");
+            if (parts.length != 3 || parts[0].length() != 1) return null;
+            try {
+                return new Key(parts[0].charAt(0), Long.parseUnsignedLong(parts[1], 16), Integer.parseInt(parts[2]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
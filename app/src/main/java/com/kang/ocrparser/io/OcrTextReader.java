@@ -0,0 +1,144 @@
+package com.kang.ocrparser.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.metrics.Stage;
+
+public class OcrTextReader {
+
+    /*
+     * 입력 파일 하나를 OCR 텍스트로 읽는다. (단건 CLI / 배치 공용)
+     * - .json이면 스트리밍으로 OCR text만 추출(파일 전체를 String으로 읽지 않음), 아니면 그대로 사용
+     * - .json.gz / .txt.gz는 메모리에서 압축을 풀어 decode()와 같은 규칙으로 (임시 파일 없음)
+     * - 읽은 뒤 preprocess()로 입력 안정성 확보
+     */
+    public static String read(Path in) throws IOException {
+        if (isGzip(in)) return decode(readBytes(in), isJson(in));
+        String ocrText = isJson(in)
+                ? SampleJsonLoader.extractOcrText(in)
+                : Files.readString(in, StandardCharsets.UTF_8);
+        return preprocess(ocrText);
+    }
+
+    /*
+     * 여러 장짜리 문서를 페이지별 OCR 텍스트로 읽는다 (WeighingParser.parseAll 입력).
+     * - .json: pages[*].text 하나가 한 페이지 (text / ocr.text / data.text만 있으면 한 페이지)
+     * - 한 페이지뿐이면 폼피드('\f', PDF 텍스트 추출기의 페이지 구분)로 다시 나눈다
+     */
+    public static List<String> readPages(Path in) throws IOException {
+        List<String> pages = isGzip(in)
+                ? SampleJsonLoader.extractPages(readBytes(in), isJson(in))
+                : isJson(in)
+                ? SampleJsonLoader.extractPages(in)
+                : List.of(Files.readString(in, StandardCharsets.UTF_8));
+        if (pages.size() == 1) pages = List.of(pages.get(0).split("\f", -1));
+
+        List<String> out = new ArrayList<>(pages.size());
+        for (String page : pages) out.add(preprocess(page));
+        return out;
+    }
+
+    /*
+     * 이미 읽어 둔 파일 내용(byte[])으로 read()와 같은 텍스트를 만든다.
+     * (캐시가 원본 바이트를 해시한 뒤 파일을 다시 읽지 않도록)
+     */
+    public static String decode(byte[] content, boolean json) {
+        String raw = new String(content, StandardCharsets.UTF_8);
+        // 앞의 BOM은 SampleJsonLoader가 JSON 판별에서 무시한다 (스트리밍 버전과 같게)
+        if (json) raw = SampleJsonLoader.extractOcrText(raw);
+        return preprocess(raw);
+    }
+
+    // 압축 파일은 .gz를 뗀 이름으로 본다 (sample.json.gz → JSON)
+    public static boolean isJson(Path in) {
+        Path name = in.getFileName();
+        if (name == null) return false;
+        String s = name.toString().toLowerCase();
+        if (s.endsWith(".gz")) s = s.substring(0, s.length() - 3);
+        return s.endsWith(".json");
+    }
+
+    public static boolean isGzip(Path in) {
+        Path name = in.getFileName();
+        return name != null && name.toString().toLowerCase().endsWith(".gz");
+    }
+
+    // 파일 내용 스트림 (.gz면 읽으면서 압축을 푼다). 닫는 것은 호출자
+    public static InputStream open(Path in) throws IOException {
+        InputStream s = Files.newInputStream(in);
+        if (!isGzip(in)) return s;
+        try {
+            return new GZIPInputStream(s, 1 << 16);
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+    }
+
+    // 파일 내용 전체 (.gz면 푼 내용). 캐시 키와 decode() 입력용
+    public static byte[] readBytes(Path in) throws IOException {
+        if (!isGzip(in)) return Files.readAllBytes(in);
+        try (InputStream s = open(in)) {
+            return s.readAllBytes();
+        }
+    }
+
+    /*
+     * OCR 전처리 (입력 안정성 확보) - 한 번의 스캔으로 처리
+     * (1) BOM 제거
+     * (2) 제로폭 문자 제거 (U+200B~U+200D, U+2060)
+     * (3) 줄바꿈 통일 (\r\n, \r → \n)
+     * 바꿀 게 없으면 입력 문자열을 그대로 돌려준다(복사 없음).
+     */
+    public static String preprocess(String ocrText) {
+        long t0 = ParseMetrics.start();
+        try {
+            return rewrite(ocrText);
+        } finally {
+            ParseMetrics.stop(Stage.PREPROCESS, t0);
+        }
+    }
+
+    private static String rewrite(String ocrText) {
+        if (ocrText == null) return "";
+
+        int n = ocrText.length();
+        int first = 0;
+        while (first < n && !needsRewrite(ocrText.charAt(first))) first++;
+        if (first == n) return ocrText;
+
+        StringBuilder sb = new StringBuilder(n);
+        sb.append(ocrText, 0, first);
+
+        // \r 직후 \n은 버린다. 사이에 끼어 있는 BOM/제로폭 문자는 어차피 지워지므로 무시
+        boolean afterCr = false;
+        for (int i = first; i < n; i++) {
+            char c = ocrText.charAt(i);
+            if (isInvisible(c)) continue;
+            if (c == '\r') {
+                sb.append('\n');
+                afterCr = true;
+                continue;
+            }
+            if (!(c == '\n' && afterCr)) sb.append(c);
+            afterCr = false;
+        }
+        return sb.toString();
+    }
+
+    private static boolean needsRewrite(char c) {
+        return c == '\r' || isInvisible(c);
+    }
+
+    private static boolean isInvisible(char c) {
+        return c == '\uFEFF' || (c >= '\u200B' && c <= '\u200D') || c == '\u2060';
+    }
+}
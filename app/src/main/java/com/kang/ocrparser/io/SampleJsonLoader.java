@@ -1,72 +1,296 @@
 package com.kang.ocrparser.io;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.metrics.Stage;
 
 public class SampleJsonLoader {
 
+    // ObjectMapper / JsonFactory는 설정 후 변경하지 않으면 스레드 안전 → 전역 공유
     private static final ObjectMapper OM = new ObjectMapper();
 
+    // JSON 여부 판단 시 앞부분을 들여다볼 최대 바이트 수
+    private static final int SNIFF_LIMIT = 8192;
+
     /*
      * sample JSON에서 OCR text를 최대한 안전하게 뽑는다.
      * - {"text": "..."} 형태면 text 사용
      * - 그 외 구조면 가능한 케이스(ocr.text/data.text/pages[*].text)까지 확인
      * - 그래도 못 찾으면 raw를 텍스트로 간주
+     *
+     * DOM(readTree)을 만들지 않고 토큰 스트리밍으로 필요한 text만 뽑는다.
+     * (pages[*].words[*].boundingBox 같은 좌표 데이터는 skipChildren()으로 건너뜀)
      */
     public static String extractOcrText(String rawJsonOrText) {
+        long t0 = ParseMetrics.start();
+        try {
+            return extractFromString(rawJsonOrText);
+        } finally {
+            ParseMetrics.stop(Stage.LOAD, t0);
+        }
+    }
+
+    private static String extractFromString(String rawJsonOrText) {
         if (rawJsonOrText == null) return "";
 
-        String s = rawJsonOrText.trim();
-        if (s.isEmpty()) return "";
+        // trim() 복사본을 만들지 않고 첫 유효 문자만 확인
+        int first = firstNonWhitespace(rawJsonOrText);
+        if (first < 0) return "";
+
+        // 맨 앞 BOM은 스트림 버전처럼 JSON 판별에서 무시 (Jackson은 문자열 입력의 BOM을 못 읽으므로 떼고 넘긴다)
+        boolean bom = rawJsonOrText.charAt(0) == '\uFEFF';
+        if (bom && first == 0) first = firstNonWhitespace(rawJsonOrText, 1);
+        if (first < 0) return rawJsonOrText;
 
         // JSON이 아닌 경우: 그대로 텍스트로 사용
-        if (!(s.startsWith("{") || s.startsWith("["))) {
+        char c = rawJsonOrText.charAt(first);
+        if (c != '{' && c != '[') {
             return rawJsonOrText;
         }
 
+        String json = bom ? rawJsonOrText.substring(1) : rawJsonOrText;
+        try (JsonParser p = OM.getFactory().createParser(json)) {
+            String text = readOcrText(p);
+            // 아무것도 못 찾으면 raw를 텍스트로 취급
+            return text != null ? text : rawJsonOrText;
+        } catch (Exception e) {
+            // 파싱 실패면 raw를 텍스트로 사용
+            return rawJsonOrText;
+        }
+    }
+
+    /*
+     * 파일을 통째로 String으로 읽지 않고 바로 스트리밍 파싱한다.
+     * JSON이 아니거나 text를 못 찾은 경우에만 파일 전체를 텍스트로 다시 읽는다(기존 동작과 동일).
+     */
+    public static String extractOcrText(Path path) throws IOException {
+        long t0 = ParseMetrics.start();
+        try (InputStream in = Files.newInputStream(path)) {
+            String text = extractFromStream(in);
+            if (text != null) return text;
+        } finally {
+            ParseMetrics.stop(Stage.LOAD, t0);
+        }
+        return Files.readString(path, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * InputStream 버전: JSON이 아니면 스트림 전체를 UTF-8 텍스트로 사용한다.
+     * 스트림은 되감을 수 없으므로, JSON인데 text를 못 찾거나 깨진 경우 빈 문자열을 반환한다.
+     * (스트림은 닫지 않는다 - 호출자 책임)
+     */
+    public static String extractOcrText(InputStream in) throws IOException {
+        if (in == null) return "";
+        long t0 = ParseMetrics.start();
         try {
-            JsonNode root = OM.readTree(s);
+            String text = extractFromStream(in);
+            return text != null ? text : "";
+        } finally {
+            ParseMetrics.stop(Stage.LOAD, t0);
+        }
+    }
 
-            // 1) 최우선: top-level "text"
-            JsonNode text = root.get("text");
-            if (text != null && text.isTextual()) {
-                return text.asText("");
-            }
+    /*
+     * 페이지별 OCR 텍스트 (여러 장이 스캔된 문서용, 순서 = pages 배열 순서).
+     * - pages[*].text가 쓰일 때만 여러 페이지. 빈 페이지도 ""로 남겨 페이지 번호를 보존한다
+     * - text / ocr.text / data.text 또는 JSON이 아닌 파일은 한 페이지 (폼피드 '\f' 분리는 호출자 몫)
+     */
+    public static List<String> extractPages(Path path) throws IOException {
+        long t0 = ParseMetrics.start();
+        try (InputStream in = Files.newInputStream(path)) {
+            List<String> pages = pagesFromStream(in);
+            if (pages != null) return pages;
+        } finally {
+            ParseMetrics.stop(Stage.LOAD, t0);
+        }
+        return List.of(Files.readString(path, StandardCharsets.UTF_8));
+    }
 
-            // 2) {"ocr": {"text": "..."}}, {"data": {"text": "..."}}
-            JsonNode ocr = root.get("ocr");
-            if (ocr != null && ocr.has("text") && ocr.get("text").isTextual()) {
-                return ocr.get("text").asText("");
-            }
-            JsonNode data = root.get("data");
-            if (data != null && data.has("text") && data.get("text").isTextual()) {
-                return data.get("text").asText("");
+    // 이미 읽어 둔 내용(압축을 푼 .json.gz 등)으로 extractPages(Path)와 같은 결과. json=false면 한 페이지
+    public static List<String> extractPages(byte[] content, boolean json) {
+        long t0 = ParseMetrics.start();
+        try {
+            List<String> pages = json ? pagesFromStream(new ByteArrayInputStream(content)) : null;
+            if (pages != null) return pages;
+        } catch (IOException e) {
+            // 메모리 스트림이라 읽기 오류는 없다
+        } finally {
+            ParseMetrics.stop(Stage.LOAD, t0);
+        }
+        return List.of(new String(content, StandardCharsets.UTF_8));
+    }
+
+    // null = JSON이 아니거나 text/pages를 못 찾음 (호출자가 내용 전체를 한 페이지로)
+    private static List<String> pagesFromStream(InputStream in) throws IOException {
+        BufferedInputStream bin = new BufferedInputStream(in, SNIFF_LIMIT);
+        int first = sniffFirstByte(bin);
+        if (first != '{' && first != '[') return null;
+        List<String> pages = new ArrayList<>();
+        try (JsonParser p = OM.getFactory().createParser(bin)) {
+            p.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            String text = readText(p, pages);
+            if (text != null) return List.of(text);
+            if (!pages.isEmpty()) return pages;
+        } catch (IOException e) {
+            // 깨진 JSON은 호출자가 내용 전체를 텍스트로
+        }
+        return null;
+    }
+
+    // null = JSON으로 보였지만 text를 못 찾음(또는 파싱 실패)
+    private static String extractFromStream(InputStream in) throws IOException {
+        BufferedInputStream bin = new BufferedInputStream(in, SNIFF_LIMIT);
+        int first = sniffFirstByte(bin);
+        if (first < 0) return "";
+
+        if (first != '{' && first != '[') {
+            return new String(bin.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        try (JsonParser p = OM.getFactory().createParser(bin)) {
+            // 호출자가 준 스트림은 호출자가 닫는다
+            p.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return readOcrText(p);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /*
+     * 루트 객체의 필드를 순서대로 훑으면서 후보 text를 모은다.
+     * 우선순위는 DOM 방식과 동일: text > ocr.text > data.text > pages[*].text (같은 키가 여러 번이면 마지막 값)
+     * - pages[*].text는 앞뒤 공백을 지우고 빈 페이지는 빼고 줄바꿈으로 잇는다
+     */
+    private static String readOcrText(JsonParser p) throws IOException {
+        List<String> pages = new ArrayList<>();
+        String text = readText(p, pages);
+        if (text != null) return text;
+
+        StringBuilder pagesText = new StringBuilder();
+        for (String t : pages) {
+            t = t.trim();
+            if (!t.isEmpty()) {
+                if (pagesText.length() > 0) pagesText.append("\n");
+                pagesText.append(t);
             }
+        }
+        return pagesText.length() > 0 ? pagesText.toString() : null;
+    }
 
-            // 3) pages[*].text (샘플 구조 대응)
-            JsonNode pages = root.get("pages");
-            if (pages != null && pages.isArray()) {
-                StringBuilder sb = new StringBuilder();
-                for (JsonNode page : pages) {
-                    if (page != null && page.has("text") && page.get("text").isTextual()) {
-                        String t = page.get("text").asText("").trim();
-                        if (!t.isEmpty()) {
-                            if (sb.length() > 0) sb.append("\n");
-                            sb.append(t);
-                        }
-                    }
+    /*
+     * text / ocr.text / data.text 중 우선순위가 가장 높은 값. 없으면 null이고 pages[*].text는 pages에 담는다.
+     * (text가 없는 페이지도 ""로 넣어서 페이지 번호가 밀리지 않게)
+     * - top-level text를 찾아도 루트 객체 끝까지 읽는다: 뒤가 깨진 JSON은 DOM 방식처럼 파싱 실패(→ raw)
+     */
+    private static String readText(JsonParser p, List<String> pages) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) return null;
+
+        String text = null;
+        String ocrText = null;
+        String dataText = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+
+            if ("text".equals(name)) {
+                // 1) 최우선: top-level "text"
+                text = value == JsonToken.VALUE_STRING ? p.getText() : null;
+                p.skipChildren();
+            } else if ("ocr".equals(name)) {
+                // 2) {"ocr": {"text": "..."}}
+                ocrText = readChildText(p);
+            } else if ("data".equals(name)) {
+                // 2) {"data": {"text": "..."}}
+                dataText = readChildText(p);
+            } else if ("pages".equals(name)) {
+                // 3) pages[*].text (샘플 구조 대응)
+                pages.clear();
+                if (value != JsonToken.START_ARRAY) {
+                    p.skipChildren();
+                    continue;
                 }
-                if (sb.length() > 0) {
-                    return sb.toString();
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    String t = readChildText(p);
+                    pages.add(t != null ? t : "");
                 }
+            } else {
+                // words / lines / metadata 등은 통째로 건너뜀
+                p.skipChildren();
             }
+        }
 
-            // 4) 아무것도 못 찾으면 raw를 텍스트로 취급
-            return rawJsonOrText;
+        if (text != null) return text;
+        if (ocrText != null) return ocrText;
+        return dataText;
+    }
 
-        } catch (Exception e) {
-            // 파싱 실패면 raw를 텍스트로 사용
-            return rawJsonOrText;
+    // 현재 토큰이 객체면 그 안의 "text" 문자열만 뽑고 나머지는 건너뜀
+    private static String readChildText(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+
+        String text = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("text".equals(name)) {
+                text = value == JsonToken.VALUE_STRING ? p.getText() : null;
+            }
+            p.skipChildren();
+        }
+        return text;
+    }
+
+    // String.trim()과 같은 기준(<= ' ')으로 첫 유효 문자 위치
+    private static int firstNonWhitespace(String s) {
+        return firstNonWhitespace(s, 0);
+    }
+
+    private static int firstNonWhitespace(String s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') return i;
+        }
+        return -1;
+    }
+
+    /*
+     * 맨 앞 UTF-8 BOM(EF BB BF)과 공백을 건너뛴 첫 바이트를 확인하고 스트림 위치는 되돌린다
+     * (BOM은 Jackson 바이트 파서가 알아서 건너뛴다. 중간에 낀 EF/BB/BF는 BOM이 아니라 텍스트)
+     */
+    private static int sniffFirstByte(BufferedInputStream in) throws IOException {
+        in.mark(SNIFF_LIMIT);
+        try {
+            byte[] head = new byte[3];
+            int n = in.readNBytes(head, 0, 3);
+            boolean bom = n == 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF;
+            if (!bom) {
+                for (int i = 0; i < n; i++) {
+                    if ((head[i] & 0xFF) > ' ') return head[i] & 0xFF;
+                }
+            }
+            for (int i = n; i < SNIFF_LIMIT; i++) {
+                int b = in.read();
+                if (b < 0) return -1;
+                if (b > ' ') return b;
+            }
+            return 0; // 공백만 너무 길면 텍스트로 취급
+        } finally {
+            in.reset();
         }
     }
 }
@@ -0,0 +1,46 @@
+package com.kang.ocrparser.io;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.metrics.Stage;
+
+/*
+ * ParsedTicket 출력용 Jackson writer 모음.
+ * ObjectWriter는 불변이라 여러 스레드에서 그대로 재사용한다(파일마다 ObjectMapper를 새로 만들지 않음).
+ */
+public class TicketJson {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    // 단건 출력 파일용 (기존 INDENT_OUTPUT과 동일)
+    public static final ObjectWriter PRETTY = OM.writer(SerializationFeature.INDENT_OUTPUT);
+
+    // NDJSON 한 줄용
+    public static final ObjectWriter COMPACT = OM.writer();
+
+    public static ObjectMapper mapper() {
+        return OM;
+    }
+
+    // 직렬화 + 단계 시간 기록 (Stage.OUTPUT)
+    public static String write(ObjectWriter writer, Object value) throws JsonProcessingException {
+        long t0 = ParseMetrics.start();
+        try {
+            return writer.writeValueAsString(value);
+        } finally {
+            ParseMetrics.stop(Stage.OUTPUT, t0);
+        }
+    }
+
+    public static byte[] writeBytes(ObjectWriter writer, Object value) throws JsonProcessingException {
+        long t0 = ParseMetrics.start();
+        try {
+            return writer.writeValueAsBytes(value);
+        } finally {
+            ParseMetrics.stop(Stage.OUTPUT, t0);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.kang.ocrparser.layout;
+
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.LabelMatches;
+import com.kang.ocrparser.parser.LabelScanner;
+
+/*
+ * 단어 좌표로 중량 라벨과 값을 짝짓는다 (레이아웃 모드).
+ *
+ * 1) LayoutIndex.lines()로 화면상 줄을 만들고, 줄 텍스트를 LabelScanner로 훑어 라벨 단어를 찾는다
+ *    (텍스트 모드와 같은 라벨 정의 - "총 중 량"처럼 글자마다 단어가 나뉜 것도 그대로 매칭)
+ * 2) 라벨 박스와 같은 높이, 오른쪽에 있는 단어들에서 값을 읽는다
+ *    - kg 단위가 있으면 그 바로 왼쪽 숫자 묶음 ("13 460 kg", "02 : 13 7 560 kg" → 7560)
+ *    - 없으면 시간/구두점을 건너뛴 첫 숫자 묶음
+ * 3) 오른쪽에 없으면 라벨 바로 아래 숫자 (표 형태 대응)
+ *
+ * 평탄화된 텍스트의 GAP 정규식과 달리 다른 줄의 숫자와 짝지어지지 않는다.
+ * 찾은 값만 ticket에 채우고, 나머지는 기존 텍스트 파이프라인이 채운다.
+ */
+public class LayoutExtractor {
+
+    // 이보다 신뢰도가 낮은 숫자 단어는 값으로 쓰지 않는다
+    private static final float MIN_CONFIDENCE = 0.3f;
+
+    private static final int MAX_KG = 300_000;
+
+    public static void extractWeights(WordLayout words, ParsedTicket ticket) {
+        if (words == null || words.size() == 0 || ticket == null) return;
+        extractWeights(new LayoutIndex(words), ticket);
+    }
+
+    public static void extractWeights(LayoutIndex index, ParsedTicket ticket) {
+        WordLayout words = index.words();
+        LabelMatches matches = new LabelMatches();
+
+        boolean gross = false, tare = false, net = false;
+        StringBuilder sb = new StringBuilder();
+
+        // 위 줄부터: 필드마다 처음 찾은 라벨만 사용 (텍스트 모드의 find()와 같은 기준)
+        for (int[] line : index.lines()) {
+            if (gross && tare && net) break;
+
+            int[] wordStart = new int[line.length];
+            sb.setLength(0);
+            for (int k = 0; k < line.length; k++) {
+                if (k > 0) sb.append(' ');
+                wordStart[k] = sb.length();
+                sb.append(words.text(line[k]));
+            }
+
+            LabelScanner.DEFAULT.scan(sb, matches);
+            if (!gross) gross = fill(index, line, wordStart, matches, LabelScanner.Field.GROSS, ticket);
+            if (!tare) tare = fill(index, line, wordStart, matches, LabelScanner.Field.TARE, ticket);
+            if (!net) net = fill(index, line, wordStart, matches, LabelScanner.Field.NET, ticket);
+        }
+    }
+
+    // 라벨이 이 줄에 있으면 값을 찾아 채운다. 라벨을 봤으면(값이 없어도) true
+    private static boolean fill(LayoutIndex index, int[] line, int[] wordStart, LabelMatches matches,
+                                LabelScanner.Field field, ParsedTicket ticket) {
+        int m = matches.first(field);
+        if (m < 0) return false;
+
+        WordLayout words = index.words();
+        int firstWord = wordAt(wordStart, matches.start(m));
+        int lastWord = wordAt(wordStart, matches.end(m) - 1);
+
+        int left = Integer.MAX_VALUE, right = Integer.MIN_VALUE;
+        long centerSum = 0;
+        for (int k = firstWord; k <= lastWord; k++) {
+            int w = line[k];
+            left = Math.min(left, words.x0(w));
+            right = Math.max(right, words.x1(w));
+            centerSum += words.centerY(w);
+        }
+        int page = words.page(line[firstWord]);
+        int cy = (int) (centerSum / (lastWord - firstWord + 1));
+        int half = index.lineHeight() / 2;
+
+        int value = valueRightOf(words, index.rowRightOf(page, right, cy - half, cy + half));
+        if (value < 0) {
+            int below = index.nearestNumberBelow(page, left, right + (right - left), cy + half,
+                    index.lineHeight() * 3);
+            if (below >= 0) value = numberAt(words, below);
+        }
+        if (value < 0) return true;
+
+        switch (field) {
+            case GROSS -> ticket.setGrossWeightKg(value);
+            case TARE -> ticket.setTareWeightKg(value);
+            case NET -> ticket.setNetWeightKg(value);
+            default -> { }
+        }
+        return true;
+    }
+
+    /*
+     * 라벨 오른쪽 단어들(x 순)에서 값 하나를 읽는다. 없으면 -1
+     */
+    static int valueRightOf(WordLayout words, int[] right) {
+        // 1) kg 단위 바로 왼쪽의 숫자 묶음
+        for (int k = 0; k < right.length; k++) {
+            byte kind = words.kind(right[k]);
+            if (kind == WordLayout.NUMBER_KG) return groupEndingAt(words, right, k);
+            if (kind == WordLayout.KG) return groupEndingAt(words, right, k - 1);
+        }
+
+        // 2) 단위가 없으면 시간/구두점을 건너뛴 첫 숫자 묶음
+        for (int k = 0; k < right.length; k++) {
+            byte kind = words.kind(right[k]);
+            if (kind == WordLayout.TIME || kind == WordLayout.PUNCT) continue;
+            if (kind != WordLayout.NUMBER) return -1;
+            return groupStartingAt(words, right, k);
+        }
+        return -1;
+    }
+
+    /*
+     * right[end]에서 왼쪽으로 천 단위 묶음을 모은다: 3자리 묶음이 이어지다가 1~3자리 머리에서 끝
+     * 예) [13][·][460] → 13460, [02][:][13][7][560] → 7560, [12,480] → 12480
+     */
+    private static int groupEndingAt(WordLayout words, int[] right, int end) {
+        long value = 0;
+        int digits = 0;
+        for (int k = end; k >= 0; k--) {
+            int w = right[k];
+            byte kind = words.kind(w);
+            if (kind == WordLayout.PUNCT) continue;
+            if (kind != WordLayout.NUMBER && !(kind == WordLayout.NUMBER_KG && k == end)) break;
+            if (words.confidence(w) < MIN_CONFIDENCE) break;
+
+            long d = words.digits(w);
+            if (d < 0) break;
+            int n = (int) (d >>> 32);
+            int v = (int) d;
+
+            if (digits == 0) {
+                value = v;
+                digits = n;
+                if (n != 3) break;   // 통째로 된 숫자(12,480)거나 1~2자리 → 끝
+                continue;
+            }
+            if (n > 3) break;        // 4자리 이상은 앞 묶음이 될 수 없음
+            value += v * pow10(digits);
+            digits += n;
+            if (n < 3) break;        // 머리 묶음
+        }
+        return digits == 0 || digits > 6 ? -1 : inRange(value);
+    }
+
+    // right[start]부터 오른쪽으로: 1~3자리 머리 + 3자리 묶음들
+    private static int groupStartingAt(WordLayout words, int[] right, int start) {
+        int w = right[start];
+        if (words.confidence(w) < MIN_CONFIDENCE) return -1;
+        long d = words.digits(w);
+        if (d < 0) return -1;
+        long value = (int) d;
+        int digits = (int) (d >>> 32);
+
+        if (digits <= 3) {
+            for (int k = start + 1; k < right.length; k++) {
+                int next = right[k];
+                if (words.kind(next) == WordLayout.PUNCT) continue;
+                if (words.kind(next) != WordLayout.NUMBER) break;
+                long nd = words.digits(next);
+                if (nd < 0 || (nd >>> 32) != 3 || digits + 3 > 6) break;
+                value = value * 1000 + (int) nd;
+                digits += 3;
+            }
+        }
+        return inRange(value);
+    }
+
+    private static int numberAt(WordLayout words, int w) {
+        if (words.confidence(w) < MIN_CONFIDENCE) return -1;
+        long d = words.digits(w);
+        return d < 0 ? -1 : inRange((int) d);
+    }
+
+    private static int inRange(long v) {
+        return v >= 1 && v <= MAX_KG ? (int) v : -1;
+    }
+
+    private static long pow10(int n) {
+        long p = 1;
+        for (int i = 0; i < n; i++) p *= 10;
+        return p;
+    }
+
+    // 줄 텍스트 오프셋 → 줄 안 단어 번호
+    private static int wordAt(int[] wordStart, int offset) {
+        int lo = 0, hi = wordStart.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (wordStart[mid] <= offset) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,240 @@
+package com.kang.ocrparser.layout;
+
+import java.util.Arrays;
+
+/*
+ * 단어 박스용 행 버킷 격자 인덱스.
+ *
+ * - 페이지마다 세로 중심(centerY)을 bucketHeight(단어 높이 중앙값의 절반) 단위로 나눈 버킷에 넣는다
+ * - 버킷 안은 x0 순으로 정렬 → "같은 줄 오른쪽" 조회는 라벨 높이에 걸친 버킷 2~3개를
+ *   이진 탐색으로 잘라 보는 것으로 끝난다 (단어 수와 무관하게 줄 하나 분량만 봄)
+ * - "아래쪽" 조회는 라벨 바로 아래 버킷부터 최대 거리까지만 내려간다
+ *
+ * 버킷 배열은 CSR 형식(bucketStart + order) 하나로 들고 있어서 버킷마다 배열을 만들지 않는다.
+ * 버킷 수는 좌표가 아니라 단어 수에 비례하게 막는다 (단어 × BUCKETS_PER_WORD까지):
+ * 좌표가 터무니없이 먼 입력(y=0과 y=2000000000)은 버킷 높이를 넓혀서 받는다.
+ */
+public class LayoutIndex {
+
+    static final int BUCKETS_PER_WORD = 4;
+
+    private final WordLayout words;
+    private final int lineHeight;     // 단어 높이 중앙값 (줄 간격 기준)
+    private final int rowHeight;      // 기본 버킷 높이 (단어 높이 중앙값의 절반)
+    private final int bucketHeight;   // 실제 버킷 높이 (세로 범위가 넓으면 rowHeight보다 크다)
+
+    private final int[] pageTop;      // 페이지별 가장 위 centerY
+    private final int[] pageBase;     // 페이지별 첫 버킷 번호 (마지막 원소 = 전체 버킷 수)
+
+    private final int[] bucketStart;  // 버킷 b의 단어 = order[bucketStart[b] .. bucketStart[b + 1])
+    private final int[] order;
+
+    public LayoutIndex(WordLayout words) {
+        this.words = words;
+        int n = words.size();
+
+        int[] heights = new int[n];
+        int pages = 0;
+        for (int i = 0; i < n; i++) {
+            heights[i] = words.y1(i) - words.y0(i);
+            pages = Math.max(pages, words.page(i) + 1);
+        }
+        Arrays.sort(heights);
+        this.lineHeight = n == 0 ? 1 : Math.max(1, heights[n / 2]);
+        this.rowHeight = Math.max(1, lineHeight / 2);
+
+        // 페이지별 세로 범위 → 버킷 수
+        pageTop = new int[pages];
+        int[] pageBottom = new int[pages];
+        Arrays.fill(pageTop, Integer.MAX_VALUE);
+        Arrays.fill(pageBottom, Integer.MIN_VALUE);
+        for (int i = 0; i < n; i++) {
+            int p = words.page(i);
+            int cy = words.centerY(i);
+            pageTop[p] = Math.min(pageTop[p], cy);
+            pageBottom[p] = Math.max(pageBottom[p], cy);
+        }
+        long span = 0;
+        for (int p = 0; p < pages; p++) {
+            if (pageTop[p] != Integer.MAX_VALUE) span += (long) pageBottom[p] - pageTop[p] + 1;
+        }
+        long maxBuckets = (long) Math.max(1, n) * BUCKETS_PER_WORD;
+        long height = Math.max(rowHeight, (span + maxBuckets - 1) / maxBuckets);
+        this.bucketHeight = (int) Math.min(Integer.MAX_VALUE, height);
+
+        pageBase = new int[pages + 1];
+        for (int p = 0; p < pages; p++) {
+            int count = pageTop[p] == Integer.MAX_VALUE ? 0
+                    : (int) (((long) pageBottom[p] - pageTop[p]) / bucketHeight + 1);
+            pageBase[p + 1] = pageBase[p] + count;
+        }
+
+        // 카운팅 정렬로 버킷 채우기
+        int buckets = pageBase[pages];
+        bucketStart = new int[buckets + 1];
+        int[] bucketOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            bucketOf[i] = bucket(words.page(i), words.centerY(i));
+            bucketStart[bucketOf[i] + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) bucketStart[b + 1] += bucketStart[b];
+
+        order = new int[n];
+        int[] fill = Arrays.copyOf(bucketStart, buckets);
+        for (int i = 0; i < n; i++) order[fill[bucketOf[i]]++] = i;
+
+        // 버킷 안은 x0 순 (한 줄에 단어가 몰린 입력에서도 제곱 시간이 되지 않도록 정렬 사용)
+        for (int b = 0; b < buckets; b++) {
+            sortByX(order, bucketStart[b], bucketStart[b + 1]);
+        }
+    }
+
+    public WordLayout words() {
+        return words;
+    }
+
+    public int lineHeight() {
+        return lineHeight;
+    }
+
+    /*
+     * centerY가 [top, bottom]에 있고 x0 >= fromX인 단어들 (x0 순)
+     */
+    public int[] rowRightOf(int page, int fromX, int top, int bottom) {
+        if (isEmptyPage(page)) return new int[0];
+        int first = bucket(page, top);
+        int last = bucket(page, bottom);
+
+        int[] out = new int[8];
+        int size = 0;
+        for (int b = first; b <= last; b++) {
+            int end = bucketStart[b + 1];
+            for (int k = firstAtOrRight(b, fromX); k < end; k++) {
+                int w = order[k];
+                int cy = words.centerY(w);
+                if (cy < top || cy > bottom) continue;
+                if (size == out.length) out = Arrays.copyOf(out, size * 2);
+                out[size++] = w;
+            }
+        }
+        // 버킷들을 합치면서 x0 순 유지
+        if (first != last) sortByX(out, 0, size);
+        return Arrays.copyOf(out, size);
+    }
+
+    /*
+     * a[from, to)를 x0 순으로 안정 정렬: (x0 << 32 | 원래 위치) 키를 기본형 정렬
+     */
+    private void sortByX(int[] a, int from, int to) {
+        int n = to - from;
+        if (n < 2) return;
+        long[] keys = new long[n];
+        for (int k = 0; k < n; k++) keys[k] = ((long) words.x0(a[from + k]) << 32) | k;
+        Arrays.sort(keys);
+        int[] sorted = new int[n];
+        for (int k = 0; k < n; k++) sorted[k] = a[from + (int) keys[k]];
+        System.arraycopy(sorted, 0, a, from, n);
+    }
+
+    /*
+     * [left, right]와 가로로 겹치고 bottom 아래 maxDistance 안에 있는 가장 가까운 숫자 단어 (없으면 -1)
+     */
+    public int nearestNumberBelow(int page, int left, int right, int bottom, int maxDistance) {
+        if (isEmptyPage(page)) return -1;
+        long reach = (long) bottom + maxDistance;
+        int first = bucket(page, bottom);
+        int last = bucket(page, reach);
+        // 기본 높이 버킷 기준으로 어디까지 보는지 (버킷을 넓혀도 결과가 같도록)
+        long lastRow = Math.max(0, (reach - pageTop[page]) / rowHeight);
+
+        for (int b = first; b <= last; b++) {
+            int best = -1;
+            for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+                int w = order[k];
+                if (words.x0(w) > right) break;
+                if (words.x1(w) < left) continue;
+                if (words.centerY(w) <= bottom) continue;
+                if (row(w) > lastRow) continue;
+                byte kind = words.kind(w);
+                if (kind != WordLayout.NUMBER && kind != WordLayout.NUMBER_KG) continue;
+                if (best < 0 || words.centerY(w) < words.centerY(best)) best = w;
+            }
+            if (best >= 0) return best;
+        }
+        return -1;
+    }
+
+    /*
+     * 화면상 줄 단위로 묶은 단어들 (위→아래, 줄 안은 왼쪽→오른쪽)
+     * 아직 줄에 안 들어간 가장 위 단어의 centerY ± lineHeight/2 안의 단어를 한 줄로 본다.
+     * (세로로 긴 깨진 박스가 여러 줄을 삼키지 않도록 박스 높이 대신 중앙값 높이를 씀)
+     */
+    public int[][] lines() {
+        int n = words.size();
+        boolean[] used = new boolean[n];
+        int[][] lines = new int[8][];
+        int count = 0;
+
+        int half = lineHeight / 2;
+        int[] scan = bucketHeight == rowHeight ? order : rowOrder();
+        for (int k = 0; k < n; k++) {
+            int w = scan[k];
+            if (used[w]) continue;
+            int cy = words.centerY(w);
+            int[] row = rowRightOf(words.page(w), Integer.MIN_VALUE, cy - half, cy + half);
+
+            int size = 0;
+            for (int r : row) {
+                if (!used[r]) {
+                    used[r] = true;
+                    row[size++] = r;
+                }
+            }
+            if (count == lines.length) lines = Arrays.copyOf(lines, count * 2);
+            lines[count++] = Arrays.copyOf(row, size);
+        }
+        return Arrays.copyOf(lines, count);
+    }
+
+    // 버킷을 넓혔을 때: 기본 높이 버킷 순서(페이지, 줄, x0)로 다시 줄 세운 단어들
+    private int[] rowOrder() {
+        Integer[] sorted = new Integer[order.length];
+        for (int k = 0; k < sorted.length; k++) sorted[k] = order[k];
+        Arrays.sort(sorted, (a, b) -> {
+            int c = Integer.compare(words.page(a), words.page(b));
+            if (c == 0) c = Long.compare(row(a), row(b));
+            if (c == 0) c = Integer.compare(words.x0(a), words.x0(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        int[] out = new int[sorted.length];
+        for (int k = 0; k < out.length; k++) out[k] = sorted[k];
+        return out;
+    }
+
+    private long row(int w) {
+        return ((long) words.centerY(w) - pageTop[words.page(w)]) / rowHeight;
+    }
+
+    private boolean isEmptyPage(int page) {
+        return page < 0 || page + 1 >= pageBase.length || pageBase[page + 1] == pageBase[page];
+    }
+
+    private int bucket(int page, long y) {
+        int count = pageBase[page + 1] - pageBase[page];
+        if (count == 0) return pageBase[page];
+        long b = (y - pageTop[page]) / bucketHeight;
+        return pageBase[page] + (int) Math.min(count - 1, Math.max(0, b));
+    }
+
+    // 버킷 b에서 x0 >= x인 첫 위치 (이진 탐색)
+    private int firstAtOrRight(int b, int x) {
+        int lo = bucketStart[b];
+        int hi = bucketStart[b + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (words.x0(order[mid]) < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,250 @@
+package com.kang.ocrparser.layout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.kang.ocrparser.io.OcrTextReader;
+
+/*
+ * 제공사 JSON의 pages[*].words[*]를 담는 struct-of-arrays.
+ * 단어 하나 = 같은 인덱스의 text / 박스(x0,y0,x1,y1) / confidence / page / kind.
+ * 좌표와 신뢰도는 기본형 배열이라 단어 수만큼 객체를 만들지 않는다.
+ *
+ * boundingBox.vertices는 4점 다각형이라 축 정렬 박스(min/max)로 줄여서 보관한다.
+ * (x나 y가 0이면 제공사가 필드를 생략하므로 없으면 0으로 본다)
+ */
+public class WordLayout {
+
+    // 단어 종류 (값 탐색용으로 로딩 시 한 번만 분류)
+    public static final byte OTHER = 0;
+    public static final byte NUMBER = 1;       // 12,480 / 460 / 7
+    public static final byte NUMBER_KG = 2;    // 14,080kg
+    public static final byte KG = 3;           // kg
+    public static final byte TIME = 4;         // 05:26:18 / 02:07 / 11시 / 33분
+    public static final byte PUNCT = 5;        // · , : 처럼 글자/숫자가 없는 것
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private int size;
+    private String[] text = new String[64];
+    private int[] x0 = new int[64];
+    private int[] y0 = new int[64];
+    private int[] x1 = new int[64];
+    private int[] y1 = new int[64];
+    private float[] confidence = new float[64];
+    private int[] page = new int[64];
+    private byte[] kind = new byte[64];
+
+    // .json.gz도 그대로 (OcrTextReader.open이 압축을 푼다)
+    public static WordLayout load(Path json) throws IOException {
+        try (InputStream in = OcrTextReader.open(json)) {
+            return load(in);
+        }
+    }
+
+    /*
+     * 토큰 스트리밍으로 pages[*].words만 읽는다 (text/lines 등은 skipChildren으로 건너뜀)
+     * JSON이 아니거나 words가 없으면 빈 레이아웃
+     */
+    public static WordLayout load(InputStream in) throws IOException {
+        WordLayout layout = new WordLayout();
+        try (JsonParser p = JSON.createParser(in)) {
+            p.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (p.nextToken() != JsonToken.START_OBJECT) return layout;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("pages".equals(name) && value == JsonToken.START_ARRAY) {
+                    int pageIndex = 0;
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        readPage(p, layout, pageIndex++);
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            // 깨진 JSON: 읽은 데까지만 사용
+        }
+        return layout;
+    }
+
+    private static void readPage(JsonParser p, WordLayout layout, int pageIndex) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("words".equals(name) && value == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    readWord(p, layout, pageIndex);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static void readWord(JsonParser p, WordLayout layout, int pageIndex) throws IOException {
+        String text = null;
+        float conf = 1f;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("text".equals(name) && value == JsonToken.VALUE_STRING) {
+                text = p.getText();
+            } else if ("confidence".equals(name) && value.isNumeric()) {
+                conf = p.getFloatValue();
+            } else if ("boundingBox".equals(name) && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String box = p.currentName();
+                    JsonToken v = p.nextToken();
+                    if (!"vertices".equals(box) || v != JsonToken.START_ARRAY) {
+                        p.skipChildren();
+                        continue;
+                    }
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        int x = 0, y = 0;
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String axis = p.currentName();
+                            JsonToken n = p.nextToken();
+                            if (!n.isNumeric()) {
+                                p.skipChildren();
+                            } else if ("x".equals(axis)) {
+                                x = p.getIntValue();
+                            } else if ("y".equals(axis)) {
+                                y = p.getIntValue();
+                            }
+                        }
+                        minX = Math.min(minX, x);
+                        minY = Math.min(minY, y);
+                        maxX = Math.max(maxX, x);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+
+        if (text == null || text.isBlank() || minX == Integer.MAX_VALUE) return;
+        layout.add(text, minX, minY, maxX, maxY, conf, pageIndex);
+    }
+
+    public void add(String word, int left, int top, int right, int bottom, float conf, int pageIndex) {
+        if (size == x0.length) grow();
+        text[size] = word;
+        x0[size] = left;
+        y0[size] = top;
+        x1[size] = Math.max(left, right);
+        y1[size] = Math.max(top, bottom);
+        confidence[size] = conf;
+        page[size] = pageIndex;
+        kind[size] = classify(word);
+        size++;
+    }
+
+    private void grow() {
+        int cap = size * 2;
+        text = Arrays.copyOf(text, cap);
+        x0 = Arrays.copyOf(x0, cap);
+        y0 = Arrays.copyOf(y0, cap);
+        x1 = Arrays.copyOf(x1, cap);
+        y1 = Arrays.copyOf(y1, cap);
+        confidence = Arrays.copyOf(confidence, cap);
+        page = Arrays.copyOf(page, cap);
+        kind = Arrays.copyOf(kind, cap);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String text(int i) {
+        return text[i];
+    }
+
+    public int x0(int i) {
+        return x0[i];
+    }
+
+    public int y0(int i) {
+        return y0[i];
+    }
+
+    public int x1(int i) {
+        return x1[i];
+    }
+
+    public int y1(int i) {
+        return y1[i];
+    }
+
+    public int centerY(int i) {
+        return (y0[i] + y1[i]) >>> 1;
+    }
+
+    public float confidence(int i) {
+        return confidence[i];
+    }
+
+    public int page(int i) {
+        return page[i];
+    }
+
+    public byte kind(int i) {
+        return kind[i];
+    }
+
+    /*
+     * 숫자 토큰의 숫자만 이어 붙인 값과 자릿수: (digits << 32) | value, 숫자가 없거나 7자리 이상이면 -1
+     * 예) "12,480" → 5자리 12480, "460" → 3자리 460, "14,080kg" → 5자리 14080
+     */
+    public long digits(int i) {
+        String s = text[i];
+        long v = 0;
+        int n = 0;
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') continue;
+            if (++n > 6) return -1;
+            v = v * 10 + (c - '0');
+        }
+        return n == 0 ? -1 : ((long) n << 32) | v;
+    }
+
+    static byte classify(String s) {
+        int digitCount = 0;
+        int letters = 0;
+        boolean colon = false;
+        boolean other = false;
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c >= '0' && c <= '9') digitCount++;
+            else if (c == ':') colon = true;
+            else if (c == ',' || c == '.') continue;
+            else if (Character.isLetter(c)) {
+                letters++;
+                other = true;
+            } else if (!Character.isWhitespace(c)) {
+                other = true;
+            }
+        }
+        String lower = s.toLowerCase();
+        if (digitCount == 0 && letters == 0) return PUNCT;
+        if (digitCount > 0 && colon) return TIME;
+        if (digitCount > 0 && (lower.endsWith("시") || lower.endsWith("분") || lower.endsWith("초"))
+                && letters == 1) return TIME;
+        if ("kg".equals(lower)) return KG;
+        if (digitCount > 0 && lower.endsWith("kg") && letters == 2) return NUMBER_KG;
+        if (digitCount > 0 && !other) return NUMBER;
+        return OTHER;
+    }
+}
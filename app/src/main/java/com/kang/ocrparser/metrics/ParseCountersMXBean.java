@@ -0,0 +1,22 @@
+package com.kang.ocrparser.metrics;
+
+// JMX: com.kang.ocrparser:type=ParseCounters
+public interface ParseCountersMXBean {
+
+    // WeightExtractor가 kg 후보 fallback까지 간 횟수
+    long getWeightFallbackRuns();
+
+    // 그중 gross - tare = net 조합 검증으로 채운 횟수
+    long getWeightTripleHits();
+
+    // 작업량 상한을 넘겨 partial 티켓으로 끝난 횟수
+    long getBudgetExhausted();
+
+    // 깨진 라벨(편집 거리 1 / 2)로 중량을 채운 횟수
+    long getFuzzyLabelHits1();
+
+    long getFuzzyLabelHits2();
+
+    // 라벨 없는 공차중량을 차량 이력(TareIndex) 근처 후보로 채운 횟수
+    long getTareIndexHits();
+}
@@ -0,0 +1,236 @@
+package com.kang.ocrparser.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * 파싱 파이프라인 단계별 지연시간/카운터.
+ *
+ *   long t0 = ParseMetrics.start();
+ *   ... 단계 실행 ...
+ *   ParseMetrics.stop(Stage.NORMALIZE, t0);
+ *
+ * - 켜기: -Docrparser.metrics=true (CLI는 --metrics). 클래스 로딩 시점에 한 번 읽는 static final이라
+ *   꺼져 있으면 JIT가 start()/stop() 분기를 통째로 지운다 (nanoTime 호출도 없음)
+ * - 켜져 있으면 단계별 히스토그램 기록 + JFR 녹화 중이면 StageEvent 기록
+ * - 추출기에서 삼킨 예외 수(error)는 켜짐 여부와 상관없이 항상 센다 (예외 경로라 비용 무시 가능)
+ */
+public class ParseMetrics {
+
+    public static final String PROPERTY = "ocrparser.metrics";
+
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private static final LatencyHistogram[] LATENCY = new LatencyHistogram[STAGES.length];
+    private static final LongAdder[] ERRORS = new LongAdder[STAGES.length];
+
+    static {
+        for (int i = 0; i < STAGES.length; i++) {
+            LATENCY[i] = new LatencyHistogram();
+            ERRORS[i] = new LongAdder();
+        }
+    }
+
+    private static final LongAdder WEIGHT_FALLBACK_RUNS = new LongAdder();
+    private static final LongAdder WEIGHT_TRIPLE_HITS = new LongAdder();
+    private static final LongAdder BUDGET_EXHAUSTED = new LongAdder();
+    // [d] = 편집 거리 d인 퍼지 라벨로 중량을 채운 횟수 (d = 1, 2)
+    private static final LongAdder[] FUZZY_LABEL_HITS = { new LongAdder(), new LongAdder(), new LongAdder() };
+    private static final LongAdder TARE_INDEX_HITS = new LongAdder();
+
+    private static boolean registered;
+
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    public static void stop(Stage stage, long startNanos) {
+        if (!ENABLED) return;
+        long elapsed = System.nanoTime() - startNanos;
+        LATENCY[stage.ordinal()].record(elapsed);
+
+        StageEvent event = new StageEvent();
+        if (event.isEnabled()) {
+            event.stage = stage.name();
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    public static void error(Stage stage) {
+        ERRORS[stage.ordinal()].increment();
+    }
+
+    public static void weightFallbackRun() {
+        if (ENABLED) WEIGHT_FALLBACK_RUNS.increment();
+    }
+
+    public static void weightTripleHit() {
+        if (ENABLED) WEIGHT_TRIPLE_HITS.increment();
+    }
+
+    public static void fuzzyLabelHit(int distance) {
+        if (ENABLED) FUZZY_LABEL_HITS[distance].increment();
+    }
+
+    public static void tareIndexHit() {
+        if (ENABLED) TARE_INDEX_HITS.increment();
+    }
+
+    // 작업량 상한(ParseBudget)을 넘겨 partial 티켓을 돌려준 경우 (error처럼 항상 센다)
+    public static void budgetExhausted() {
+        BUDGET_EXHAUSTED.increment();
+    }
+
+    public static long budgetExhaustedCount() {
+        return BUDGET_EXHAUSTED.sum();
+    }
+
+    public static LatencyHistogram latency(Stage stage) {
+        return LATENCY[stage.ordinal()];
+    }
+
+    public static long errors(Stage stage) {
+        return ERRORS[stage.ordinal()].sum();
+    }
+
+    public static void reset() {
+        for (int i = 0; i < STAGES.length; i++) {
+            LATENCY[i].reset();
+            ERRORS[i].reset();
+        }
+        WEIGHT_FALLBACK_RUNS.reset();
+        WEIGHT_TRIPLE_HITS.reset();
+        BUDGET_EXHAUSTED.reset();
+        for (LongAdder a : FUZZY_LABEL_HITS) a.reset();
+        TARE_INDEX_HITS.reset();
+    }
+
+    /*
+     * 배치 종료 시 출력용 요약 (단위: µs). 기록이 없는 단계는 생략.
+     *   stage              count      p50      p99      max  errors
+     */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-16s %9s %9s %9s %9s %7s%n",
+                "stage", "count", "p50(us)", "p99(us)", "max(us)", "errors"));
+        for (Stage s : STAGES) {
+            LatencyHistogram h = latency(s);
+            long errors = errors(s);
+            if (h.count() == 0 && errors == 0) continue;
+            sb.append(String.format(Locale.ROOT, "%-16s %9d %9.1f %9.1f %9.1f %7d%n",
+                    s.name(), h.count(),
+                    h.percentileNanos(50) / 1000.0,
+                    h.percentileNanos(99) / 1000.0,
+                    h.maxNanos() / 1000.0,
+                    errors));
+        }
+        sb.append("weight fallback runs=").append(WEIGHT_FALLBACK_RUNS.sum())
+                .append(" tripleHits=").append(WEIGHT_TRIPLE_HITS.sum())
+                .append(" budgetExhausted=").append(BUDGET_EXHAUSTED.sum())
+                .append(" fuzzyLabels(d1/d2)=").append(FUZZY_LABEL_HITS[1].sum())
+                .append('/').append(FUZZY_LABEL_HITS[2].sum())
+                .append(" tareIndexHits=").append(TARE_INDEX_HITS.sum());
+        return sb.toString();
+    }
+
+    // 단계별 MXBean + 카운터 MXBean 등록 (여러 번 불러도 한 번만)
+    public static synchronized void registerMBeans() {
+        if (registered) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Stage s : STAGES) {
+                server.registerMBean(new StageMetrics(s),
+                        new ObjectName("com.kang.ocrparser:type=ParseMetrics,stage=" + s.name()));
+            }
+            server.registerMBean(new ParseCounters(),
+                    new ObjectName("com.kang.ocrparser:type=ParseCounters"));
+            registered = true;
+        } catch (JMException e) {
+            throw new IllegalStateException("MBean registration failed", e);
+        }
+    }
+
+    private static final class StageMetrics implements StageMetricsMXBean {
+        private final Stage stage;
+
+        StageMetrics(Stage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public long getCount() {
+            return latency(stage).count();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return latency(stage).meanNanos() / 1000.0;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return latency(stage).percentileNanos(50) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return latency(stage).percentileNanos(99) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return latency(stage).maxNanos() / 1000.0;
+        }
+
+        @Override
+        public long getErrors() {
+            return errors(stage);
+        }
+
+        @Override
+        public void reset() {
+            latency(stage).reset();
+            ERRORS[stage.ordinal()].reset();
+        }
+    }
+
+    private static final class ParseCounters implements ParseCountersMXBean {
+        @Override
+        public long getWeightFallbackRuns() {
+            return WEIGHT_FALLBACK_RUNS.sum();
+        }
+
+        @Override
+        public long getWeightTripleHits() {
+            return WEIGHT_TRIPLE_HITS.sum();
+        }
+
+        @Override
+        public long getBudgetExhausted() {
+            return BUDGET_EXHAUSTED.sum();
+        }
+
+        @Override
+        public long getFuzzyLabelHits1() {
+            return FUZZY_LABEL_HITS[1].sum();
+        }
+
+        @Override
+        public long getFuzzyLabelHits2() {
+            return FUZZY_LABEL_HITS[2].sum();
+        }
+
+        @Override
+        public long getTareIndexHits() {
+            return TARE_INDEX_HITS.sum();
+        }
+    }
+}
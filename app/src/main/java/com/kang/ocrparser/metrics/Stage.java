@@ -0,0 +1,16 @@
+package com.kang.ocrparser.metrics;
+
+// 파이프라인 단계 (지연시간 히스토그램 / JFR 이벤트 / 예외 카운트 단위)
+public enum Stage {
+    LOAD,             // SampleJsonLoader.extractOcrText
+    PREPROCESS,       // OcrTextReader.preprocess
+    LAYOUT,           // LayoutExtractor (레이아웃 모드)
+    TEMPLATE,         // TemplateRegistry 양식 식별 + 전용 추출기
+    LABEL_SCAN,       // LabelScanner.scan (원문 + 정규화본)
+    NORMALIZE,        // TextNormalizer.normalize
+    VEHICLE,          // VehicleNumberExtractor
+    DATE,             // WeighingDateExtractor
+    WEIGHT,           // WeightExtractor 전체
+    WEIGHT_FALLBACK,  // WeightExtractor kg 후보 fallback 구간
+    OUTPUT            // JSON 직렬화
+}
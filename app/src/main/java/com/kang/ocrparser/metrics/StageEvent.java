@@ -0,0 +1,25 @@
+package com.kang.ocrparser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// JFR 커스텀 이벤트: 단계 하나의 소요시간 (메트릭이 켜져 있고 JFR 녹화 중일 때만 기록)
+@Name("com.kang.ocrparser.Stage")
+@Label("OCR Parse Stage")
+@Category({"OCR Parser"})
+@Description("Elapsed time of one parse pipeline stage")
+@StackTrace(false)
+class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
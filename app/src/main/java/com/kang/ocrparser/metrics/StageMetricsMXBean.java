@@ -0,0 +1,20 @@
+package com.kang.ocrparser.metrics;
+
+// JMX: com.kang.ocrparser:type=ParseMetrics,stage=<STAGE>
+public interface StageMetricsMXBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    // 이 단계(추출기)에서 삼킨 예외 수
+    long getErrors();
+
+    void reset();
+}
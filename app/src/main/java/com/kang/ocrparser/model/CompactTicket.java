@@ -0,0 +1,142 @@
+package com.kang.ocrparser.model;
+
+import java.util.Objects;
+
+/*
+ * 메모리에 오래 들고 있을 티켓용 불변 표현 (캐시, 대량 집계)
+ *
+ * ParsedTicket 하나는 객체 + Integer 세 개 + 날짜/차량번호 String 두 개(각각 byte[] 포함)로
+ * 티켓당 200바이트 안팎이다. 여기서는
+ * - 중량은 int + 있음 비트 (0kg와 "없음"을 구분)
+ * - 날짜는 PackedDate long (되살릴 수 없는 형식만 원문을 rawDate로)
+ * - 차량번호는 StringInterner.VEHICLES를 거친 공유 String
+ * 으로 객체 하나 48바이트. JSON으로 내보낼 때는 toParsedTicket()으로 되돌린다 (출력은 같다).
+ * 더 많이 들고 있어야 하면 TicketColumns (배열 묶음, 티켓당 25바이트).
+ */
+public final class CompactTicket {
+
+    // flags 비트
+    public static final int GROSS = 1;
+    public static final int TARE = 1 << 1;
+    public static final int NET = 1 << 2;
+    public static final int PARTIAL = 1 << 3;
+    public static final int PAGE = 1 << 4;
+
+    private final int gross;
+    private final int tare;
+    private final int net;
+    private final int pageIndex;
+    private final byte flags;
+    private final long date;
+    private final String vehicleNumber;
+    // date가 PackedDate.RAW일 때만
+    private final String rawDate;
+
+    CompactTicket(int flags, int gross, int tare, int net, int pageIndex, long date, String rawDate,
+            String vehicleNumber) {
+        this.flags = (byte) flags;
+        this.gross = gross;
+        this.tare = tare;
+        this.net = net;
+        this.pageIndex = pageIndex;
+        this.date = date;
+        this.rawDate = rawDate;
+        this.vehicleNumber = vehicleNumber;
+    }
+
+    public static CompactTicket of(ParsedTicket t) {
+        return of(t, StringInterner.VEHICLES);
+    }
+
+    public static CompactTicket of(ParsedTicket t, StringInterner vehicles) {
+        int flags = 0;
+        Integer gross = t.getGrossWeightKg(), tare = t.getTareWeightKg(), net = t.getNetWeightKg();
+        Integer page = t.getPageIndex();
+        if (gross != null) flags |= GROSS;
+        if (tare != null) flags |= TARE;
+        if (net != null) flags |= NET;
+        if (t.isPartial()) flags |= PARTIAL;
+        if (page != null) flags |= PAGE;
+        long date = PackedDate.pack(t.getWeighingDate());
+        return new CompactTicket(flags,
+                gross != null ? gross : 0, tare != null ? tare : 0, net != null ? net : 0, page != null ? page : 0,
+                date, date == PackedDate.RAW ? t.getWeighingDate() : null, vehicles.intern(t.getVehicleNumber()));
+    }
+
+    // 새 ParsedTicket (가변 객체라 부를 때마다 따로 만든다)
+    public ParsedTicket toParsedTicket() {
+        ParsedTicket t = new ParsedTicket();
+        t.setWeighingDate(getWeighingDate());
+        t.setVehicleNumber(vehicleNumber);
+        if (has(GROSS)) t.setGrossWeightKg(gross);
+        if (has(TARE)) t.setTareWeightKg(tare);
+        if (has(NET)) t.setNetWeightKg(net);
+        t.setPartial(has(PARTIAL));
+        if (has(PAGE)) t.setPageIndex(pageIndex);
+        return t;
+    }
+
+    public boolean has(int bit) {
+        return (flags & bit) != 0;
+    }
+
+    public int flags() {
+        return flags;
+    }
+
+    // 값이 없으면 0 (has(GROSS)로 구분)
+    public int grossWeightKg() {
+        return gross;
+    }
+
+    public int tareWeightKg() {
+        return tare;
+    }
+
+    public int netWeightKg() {
+        return net;
+    }
+
+    public int pageIndex() {
+        return pageIndex;
+    }
+
+    public boolean isPartial() {
+        return has(PARTIAL);
+    }
+
+    // PackedDate 값. RAW면 getWeighingDate()가 원문
+    public long packedDate() {
+        return date;
+    }
+
+    public String getWeighingDate() {
+        return date == PackedDate.RAW ? rawDate : PackedDate.format(date);
+    }
+
+    public String getVehicleNumber() {
+        return vehicleNumber;
+    }
+
+    // 없는 값은 항상 0으로 들어 있으므로 필드를 그대로 비교한다
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactTicket)) return false;
+        CompactTicket c = (CompactTicket) o;
+        return flags == c.flags && gross == c.gross && tare == c.tare && net == c.net && pageIndex == c.pageIndex
+                && date == c.date && Objects.equals(rawDate, c.rawDate) && Objects.equals(vehicleNumber, c.vehicleNumber);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Long.hashCode(date);
+        h = 31 * h + flags;
+        h = 31 * h + gross;
+        h = 31 * h + tare;
+        h = 31 * h + net;
+        h = 31 * h + pageIndex;
+        h = 31 * h + Objects.hashCode(rawDate);
+        return 31 * h + Objects.hashCode(vehicleNumber);
+    }
+}
@@ -0,0 +1,140 @@
+package com.kang.ocrparser.model;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/*
+ * WeighingDateExtractor 결과 문자열을 long 하나로: (epoch 초 << 2) | 종류
+ *
+ * - 종류: DAY(yyyy-MM-dd), MINUTE(yyyy-MM-dd HH:mm), SECOND(yyyy-MM-dd HH:mm:ss)
+ * - 시간대 정보가 없으므로 적힌 시각을 UTC로 본 epoch 초
+ * - format()으로 되돌렸을 때 원문과 같은 문자열만 담는다. 한 자리 시각 "5:26"이나
+ *   없는 날짜 "2026-02-30"은 RAW → 호출 측이 원문을 따로 들고 있어야 한다
+ * - null은 NULL(0). 종류가 0인 값은 NULL과 RAW 둘뿐이다
+ *
+ * 날짜 한 번에 substring/Integer.parseInt 없이 글자를 바로 읽으므로 pack()은 할당이 없다.
+ */
+public final class PackedDate {
+
+    public static final long NULL = 0L;
+    public static final long RAW = Long.MIN_VALUE;
+
+    public static final int DAY = 1;
+    public static final int MINUTE = 2;
+    public static final int SECOND = 3;
+
+    private PackedDate() {
+    }
+
+    public static long pack(String s) {
+        if (s == null) return NULL;
+        int n = s.length();
+        int kind = n == 10 ? DAY : n == 16 ? MINUTE : n == 19 ? SECOND : 0;
+        if (kind == 0 || s.charAt(4) != '-' || s.charAt(7) != '-') return RAW;
+        int year = digits(s, 0, 4), month = digits(s, 5, 2), day = digits(s, 8, 2);
+        int hour = 0, minute = 0, second = 0;
+        if (kind != DAY) {
+            if (s.charAt(10) != ' ' || s.charAt(13) != ':') return RAW;
+            hour = digits(s, 11, 2);
+            minute = digits(s, 14, 2);
+        }
+        if (kind == SECOND) {
+            if (s.charAt(16) != ':') return RAW;
+            second = digits(s, 17, 2);
+        }
+        if ((year | hour | minute | second) < 0 || hour > 23 || minute > 59 || second > 59) return RAW;
+        if (month < 1 || month > 12 || day < 1 || day > monthLength(year, month)) return RAW;
+        return of(kind, epochDay(year, month, day) * 86_400 + hour * 3_600 + minute * 60 + second);
+    }
+
+    public static long of(int kind, long epochSeconds) {
+        if (kind < DAY || kind > SECOND) throw new IllegalArgumentException("date kind: " + kind);
+        return epochSeconds << 2 | kind;
+    }
+
+    // DAY/MINUTE/SECOND, NULL과 RAW는 0
+    public static int kind(long packed) {
+        return (int) (packed & 3);
+    }
+
+    public static long epochSeconds(long packed) {
+        if (kind(packed) == 0) throw new IllegalArgumentException("no epoch in packed date: " + packed);
+        return packed >> 2;
+    }
+
+    // NULL → null. RAW는 원문이 없으므로 IllegalArgumentException
+    public static String format(long packed) {
+        if (packed == NULL) return null;
+        int kind = kind(packed);
+        long epoch = epochSeconds(packed);
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epoch, 86_400));
+        int secs = Math.floorMod(epoch, 86_400);
+        int year = date.getYear();
+        // pack()이 받는 네 자리 연도 밖은 (아카이브를 손으로 만든 경우 정도) LocalDate 표기를 따른다
+        if (year < 0 || year > 9999) {
+            return kind == DAY ? date.toString() : date + " " + clock(kind, secs);
+        }
+        char[] c = new char[kind == DAY ? 10 : kind == MINUTE ? 16 : 19];
+        put(c, 0, year, 4);
+        c[4] = '-';
+        put(c, 5, date.getMonthValue(), 2);
+        c[7] = '-';
+        put(c, 8, date.getDayOfMonth(), 2);
+        if (kind != DAY) {
+            c[10] = ' ';
+            put(c, 11, secs / 3_600, 2);
+            c[13] = ':';
+            put(c, 14, secs / 60 % 60, 2);
+        }
+        if (kind == SECOND) {
+            c[16] = ':';
+            put(c, 17, secs % 60, 2);
+        }
+        return new String(c);
+    }
+
+    private static String clock(int kind, int secs) {
+        char[] c = new char[kind == MINUTE ? 5 : 8];
+        put(c, 0, secs / 3_600, 2);
+        c[2] = ':';
+        put(c, 3, secs / 60 % 60, 2);
+        if (kind == SECOND) {
+            c[5] = ':';
+            put(c, 6, secs % 60, 2);
+        }
+        return new String(c);
+    }
+
+    private static int monthLength(int year, int month) {
+        if (month == 2) return Year.isLeap(year) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // LocalDate.of(...).toEpochDay()와 같은 값 (LocalDate를 만들지 않으려고 직접 계산)
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468;
+    }
+
+    // s[from, from + n)의 10진수, 숫자가 아닌 글자가 있으면 -1
+    private static int digits(String s, int from, int n) {
+        int v = 0;
+        for (int i = from; i < from + n; i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            v = v * 10 + (ch - '0');
+        }
+        return v;
+    }
+
+    private static void put(char[] c, int at, int v, int n) {
+        for (int i = at + n - 1; i >= at; i--) {
+            c[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+    }
+}
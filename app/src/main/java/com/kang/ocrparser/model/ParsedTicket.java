@@ -1,5 +1,7 @@
 package com.kang.ocrparser.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class ParsedTicket {
 
     // 날짜 (YYYY-MM-DD or YYYY-MM-DD HH:mm:ss)
@@ -17,6 +19,14 @@ public class ParsedTicket {
     // 실중량(kg)
     private Integer netWeightKg;
 
+    // 작업량 상한(ParseBudget)을 넘겨 중간에 멈춘 결과 (true일 때만 JSON에 나감)
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean partial;
+
+    // 여러 장짜리 문서에서 몇 번째 페이지(0부터)의 티켓인지 (WeighingParser.parseAll 결과에만 있음)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer pageIndex;
+
     public String getWeighingDate() {
         return weighingDate;
     }
@@ -56,4 +66,20 @@ public class ParsedTicket {
     public void setNetWeightKg(Integer netWeightKg) {
         this.netWeightKg = netWeightKg;
     }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    public Integer getPageIndex() {
+        return pageIndex;
+    }
+
+    public void setPageIndex(Integer pageIndex) {
+        this.pageIndex = pageIndex;
+    }
 }
@@ -0,0 +1,43 @@
+package com.kang.ocrparser.model;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * 크기가 정해진 문자열 인터너 (같은 차량번호가 수십만 번 나와도 String 하나만 남게)
+ *
+ * - 해시로 칸 하나를 정하는 직접 사상 표. 칸에 같은 문자열이 있으면 그것을, 없으면 받은 것을 넣고 돌려준다
+ * - 다른 문자열이 같은 칸에 오면 덮어쓴다: 중복이 조금 남을 뿐 값은 같고, 표가 커지지 않는다
+ * - 락 없음. String은 불변이라 칸을 덮어쓰는 경쟁이 있어도 읽는 쪽은 온전한 값만 본다
+ * String.intern()과 달리 JVM 전역 표를 건드리지 않고, 크기 밖의 메모리를 잡지 않는다.
+ */
+public final class StringInterner {
+
+    // 차량번호용 공용 인터너 (차량 수 수천 대 기준으로 넉넉하게)
+    public static final StringInterner VEHICLES = new StringInterner(1 << 14);
+
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+
+    public StringInterner(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        int c = Math.min(capacity, 1 << 30);
+        int size = Integer.highestOneBit(c);
+        if (size < c) size <<= 1;
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public String intern(String s) {
+        if (s == null) return null;
+        int h = s.hashCode();
+        int i = (h ^ (h >>> 16)) & mask;
+        String cur = table.getAcquire(i);
+        if (cur != null && cur.equals(s)) return cur;
+        table.setRelease(i, s);
+        return s;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,176 @@
+package com.kang.ocrparser.model;
+
+import java.util.Arrays;
+
+/*
+ * 티켓 여러 건을 필드별 배열로 들고 있는 묶음 (수백만 건을 메모리에 두는 배치/집계용)
+ *
+ * 티켓 하나에 int 세 개(중량) + long(PackedDate) + 차량번호 참조 + flags byte = 25바이트,
+ * 객체 헤더나 박싱이 없다. 차량번호는 StringInterner를 거쳐 같은 번호끼리 String 하나를 함께 쓴다.
+ * pageIndex와 해석 못 한 날짜 원문은 있는 티켓이 처음 나올 때 배열을 만든다.
+ *
+ * 스레드 안전하지 않다. 워커마다 하나씩 채우고 addAll로 합치거나, 호출 측에서 동기화한다.
+ */
+public final class TicketColumns {
+
+    private final StringInterner vehicles;
+
+    private int size;
+    private byte[] flags;
+    private int[] gross;
+    private int[] tare;
+    private int[] net;
+    private long[] dates;
+    private String[] vehicleNumbers;
+    private int[] pageIndexes;
+    private String[] rawDates;
+
+    public TicketColumns() {
+        this(16);
+    }
+
+    public TicketColumns(int capacity) {
+        this(capacity, StringInterner.VEHICLES);
+    }
+
+    public TicketColumns(int capacity, StringInterner vehicles) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        this.vehicles = vehicles;
+        this.flags = new byte[capacity];
+        this.gross = new int[capacity];
+        this.tare = new int[capacity];
+        this.net = new int[capacity];
+        this.dates = new long[capacity];
+        this.vehicleNumbers = new String[capacity];
+    }
+
+    // 넣은 자리 번호
+    public int add(ParsedTicket t) {
+        int i = next();
+        int f = 0;
+        Integer v;
+        if ((v = t.getGrossWeightKg()) != null) {
+            f |= CompactTicket.GROSS;
+            gross[i] = v;
+        }
+        if ((v = t.getTareWeightKg()) != null) {
+            f |= CompactTicket.TARE;
+            tare[i] = v;
+        }
+        if ((v = t.getNetWeightKg()) != null) {
+            f |= CompactTicket.NET;
+            net[i] = v;
+        }
+        if (t.isPartial()) f |= CompactTicket.PARTIAL;
+        if ((v = t.getPageIndex()) != null) {
+            f |= CompactTicket.PAGE;
+            setPage(i, v);
+        }
+        flags[i] = (byte) f;
+        long date = PackedDate.pack(t.getWeighingDate());
+        dates[i] = date;
+        if (date == PackedDate.RAW) setRawDate(i, t.getWeighingDate());
+        vehicleNumbers[i] = vehicles.intern(t.getVehicleNumber());
+        return i;
+    }
+
+    public int add(CompactTicket t) {
+        int i = next();
+        flags[i] = (byte) t.flags();
+        gross[i] = t.grossWeightKg();
+        tare[i] = t.tareWeightKg();
+        net[i] = t.netWeightKg();
+        if (t.has(CompactTicket.PAGE)) setPage(i, t.pageIndex());
+        dates[i] = t.packedDate();
+        if (t.packedDate() == PackedDate.RAW) setRawDate(i, t.getWeighingDate());
+        vehicleNumbers[i] = vehicles.intern(t.getVehicleNumber());
+        return i;
+    }
+
+    public void addAll(TicketColumns other) {
+        for (int i = 0; i < other.size; i++) add(other.get(i));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CompactTicket get(int i) {
+        check(i);
+        return new CompactTicket(flags[i], gross[i], tare[i], net[i], page(i), dates[i], rawDate(i), vehicleNumbers[i]);
+    }
+
+    public ParsedTicket toParsedTicket(int i) {
+        return get(i).toParsedTicket();
+    }
+
+    public boolean has(int i, int bit) {
+        check(i);
+        return (flags[i] & bit) != 0;
+    }
+
+    // 값이 없으면 0 (has(i, CompactTicket.GROSS)로 구분)
+    public int grossWeightKg(int i) {
+        check(i);
+        return gross[i];
+    }
+
+    public int tareWeightKg(int i) {
+        check(i);
+        return tare[i];
+    }
+
+    public int netWeightKg(int i) {
+        check(i);
+        return net[i];
+    }
+
+    public long packedDate(int i) {
+        check(i);
+        return dates[i];
+    }
+
+    public String vehicleNumber(int i) {
+        check(i);
+        return vehicleNumbers[i];
+    }
+
+    private int next() {
+        if (size == flags.length) grow();
+        return size++;
+    }
+
+    private void grow() {
+        int n = Math.max(16, flags.length + (flags.length >> 1));
+        flags = Arrays.copyOf(flags, n);
+        gross = Arrays.copyOf(gross, n);
+        tare = Arrays.copyOf(tare, n);
+        net = Arrays.copyOf(net, n);
+        dates = Arrays.copyOf(dates, n);
+        vehicleNumbers = Arrays.copyOf(vehicleNumbers, n);
+        if (pageIndexes != null) pageIndexes = Arrays.copyOf(pageIndexes, n);
+        if (rawDates != null) rawDates = Arrays.copyOf(rawDates, n);
+    }
+
+    private void setPage(int i, int page) {
+        if (pageIndexes == null) pageIndexes = new int[flags.length];
+        pageIndexes[i] = page;
+    }
+
+    private void setRawDate(int i, String raw) {
+        if (rawDates == null) rawDates = new String[flags.length];
+        rawDates[i] = raw;
+    }
+
+    private int page(int i) {
+        return pageIndexes != null ? pageIndexes[i] : 0;
+    }
+
+    private String rawDate(int i) {
+        return rawDates != null ? rawDates[i] : null;
+    }
+
+    private void check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+    }
+}
@@ -0,0 +1,49 @@
+package com.kang.ocrparser.parser;
+
+import java.util.regex.Matcher;
+
+/*
+ * 날짜/차량번호 추출기가 티켓마다 다시 쓰는 작업 공간 (스레드 하나에 하나, 공유 금지).
+ *
+ * - 정규식 Matcher는 미리 만들어 두고 reset(원문) + region(from, to)으로 원문 위에서 바로 찾는다 (substring 없음)
+ * - 공백을 뺀 번호판 후보는 compact 버퍼에 모은다 (replaceAll 대신)
+ * - 라벨 인덱스 정렬(LabelMatches.inOrder)용 int[]도 여기 둔다
+ * 그래서 추출 한 번에 새로 만드는 것은 결과 문자열(날짜, 번호판)뿐이다.
+ *
+ * 보통은 local()로 스레드마다 하나를 쓰고, 직접 스레드를 관리하는 호출 측은 new로 만들어 넘겨도 된다.
+ */
+public final class ExtractContext {
+
+    private static final ThreadLocal<ExtractContext> LOCAL = ThreadLocal.withInitial(ExtractContext::new);
+
+    final Matcher plate = VehicleNumberExtractor.PLATE.matcher("");
+    final Matcher address = VehicleNumberExtractor.ADDRESS.matcher("");
+    final Matcher dateTime = WeighingDateExtractor.DATE_TIME.matcher("");
+    final StringBuilder compact = new StringBuilder(64);
+    final StringBuilder out = new StringBuilder(32);
+    // 예산 없이 부르는 공개 API용 (ParseBudget은 스레드 하나에서만 쓰므로 컨텍스트마다 하나)
+    final ParseBudget unlimited = ParseBudget.unlimited();
+    private int[] order = new int[16];
+
+    public static ExtractContext local() {
+        return LOCAL.get();
+    }
+
+    // 크기가 n 이상인 정렬용 배열 (모자랄 때만 새로 만든다)
+    int[] order(int n) {
+        if (order.length < n) order = new int[Math.max(n, order.length * 2)];
+        return order;
+    }
+
+    // text[from, to)에서 m을 찾는다. 찾았으면 그룹 위치를 읽은 뒤 release(m)으로 원문 참조를 놓는다
+    static boolean find(Matcher m, CharSequence text, int from, int to) {
+        m.reset(text);
+        m.region(from, to);
+        return m.find();
+    }
+
+    // 스레드에 남은 Matcher가 마지막 원문을 붙잡고 있지 않게
+    static void release(Matcher m) {
+        m.reset("");
+    }
+}
@@ -0,0 +1,265 @@
+package com.kang.ocrparser.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * OCR로 깨진 라벨(총중랑, 공차줌량, 실증량 ...)을 편집 거리 1~2 안에서 찾는 스캐너.
+ *
+ * - 한글 음절은 자모(초성/중성/종성)로 풀어서 비교한다 → "량"→"랑"은 음절 하나가 아니라 모음 하나 차이(거리 1)
+ * - 라벨마다 Levenshtein 오토마톤(비결정 상태 = 비트)을 미리 만든 문자 마스크로 돌린다 (Wu-Manber bitap)
+ *   라벨 전체를 64비트 하나에 이어 붙여서, 거리 단계마다 long 연산 몇 번으로 모든 라벨을 한 번에 진행한다
+ *   → 라벨 수와 상관없이 텍스트 한 번 훑기
+ * - 공백은 건너뛴다 (LabelScanner의 "라벨 안 공백 허용"과 같음)
+ *
+ * 정확히 맞은 라벨(LabelScanner)이 우선이다: addMissing()은 그 필드의 정확한 라벨이 없을 때만 결과를 더하고,
+ * 정확한 라벨과 겹치는 자리나 다른 필드 라벨과 같은 거리로 겹치는 자리(애매함)는 버린다.
+ */
+public final class FuzzyLabelScanner {
+
+    // 중량 라벨만 (차량번호/날짜 라벨은 짧아서 거리 1 안에 다른 단어가 너무 많다)
+    public static final FuzzyLabelScanner WEIGHTS = new Builder()
+            .add(LabelScanner.Field.GROSS, "총중량", 2)
+            .add(LabelScanner.Field.TARE, "공차중량", 2)
+            .add(LabelScanner.Field.TARE, "차중량", 1)
+            .add(LabelScanner.Field.NET, "실중량", 2)
+            .build();
+
+    public static final int MAX_DISTANCE = 2;
+
+    public static class Builder {
+        private final List<LabelScanner.Field> fields = new ArrayList<>();
+        private final List<String> labels = new ArrayList<>();
+        private final List<Integer> distances = new ArrayList<>();
+
+        public Builder add(LabelScanner.Field field, String label, int maxDistance) {
+            if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+                throw new IllegalArgumentException("max distance must be 0.." + MAX_DISTANCE + ": " + maxDistance);
+            }
+            fields.add(field);
+            labels.add(label);
+            distances.add(maxDistance);
+            return this;
+        }
+
+        public FuzzyLabelScanner build() {
+            return new FuzzyLabelScanner(fields, labels, distances);
+        }
+    }
+
+    // 자모 기호: 0 = 그 밖의 글자(어떤 라벨 글자와도 안 맞음), 초성 19 / 중성 21 / 종성 27
+    private static final int CHO = 1;
+    private static final int JUNG = CHO + 19;
+    private static final int JONG = JUNG + 21;
+    private static final int SYMBOLS = JONG + 27;
+
+    private static final int RING = 64; // 자모 단위 시작 위치 기록 (라벨 전체 길이 <= 64)
+
+    private final LabelScanner.Field[] field;
+    private final int[] length;       // 라벨별 자모 수
+    private final int[] maxDistance;
+    private final long[] endBit;      // 라벨 마지막 자모의 비트
+    private final long starts;        // 라벨 첫 자모 비트들
+    private final long[] charMask = new long[SYMBOLS]; // 기호 → 그 기호가 있는 라벨 자리 비트
+    private final long[] initial = new long[MAX_DISTANCE + 1];
+
+    private FuzzyLabelScanner(List<LabelScanner.Field> fields, List<String> labels, List<Integer> distances) {
+        int n = fields.size();
+        field = fields.toArray(new LabelScanner.Field[0]);
+        length = new int[n];
+        maxDistance = new int[n];
+        endBit = new long[n];
+
+        long startBits = 0;
+        int bit = 0;
+        int[] symbols = new int[3];
+        for (int p = 0; p < n; p++) {
+            String label = labels.get(p);
+            int first = bit;
+            for (int i = 0; i < label.length(); i++) {
+                char c = label.charAt(i);
+                if (LabelScanner.isSpace(c)) continue;
+                int count = decompose(c, symbols);
+                for (int k = 0; k < count; k++) {
+                    if (symbols[k] == 0) throw new IllegalArgumentException("fuzzy labels must be Hangul: " + label);
+                    if (bit == Long.SIZE) throw new IllegalArgumentException("fuzzy labels exceed 64 jamo");
+                    charMask[symbols[k]] |= 1L << bit++;
+                }
+            }
+            if (bit == first) throw new IllegalArgumentException("empty label");
+            length[p] = bit - first;
+            maxDistance[p] = distances.get(p);
+            endBit[p] = 1L << (bit - 1);
+            startBits |= 1L << first;
+            // 앞에서 d글자를 지운 상태 (거리 d로 길이 d 접두사가 맞음)
+            for (int d = 1; d <= MAX_DISTANCE; d++) {
+                for (int k = 0; k < Math.min(d, length[p]); k++) initial[d] |= 1L << (first + k);
+            }
+        }
+        starts = startBits;
+    }
+
+    /*
+     * matches에 정확한 라벨이 없는 필드만 퍼지 매칭 결과를 더한다 (distance 1~2).
+     * 모든 필드에 정확한 라벨이 있으면 텍스트를 보지 않는다.
+     */
+    public void addMissing(CharSequence text, LabelMatches matches) {
+        boolean[] wanted = new boolean[field.length];
+        boolean any = false;
+        for (int p = 0; p < field.length; p++) {
+            wanted[p] = !matches.has(field[p]);
+            any |= wanted[p];
+        }
+        if (!any || text == null) return;
+
+        List<int[]> found = new ArrayList<>(); // {label, start, end, distance}
+        scan(text, wanted, found);
+        if (found.isEmpty()) return;
+
+        // 시작 위치 순으로 정렬해서 겹침을 한 번 훑기로 확인 (매칭 수가 많아도 제곱이 되지 않게)
+        found.sort((x, y) -> Integer.compare(x[1], y[1]));
+        Exact exact = new Exact(matches);
+        boolean[] dropped = new boolean[found.size()];
+        for (int a = 0; a < found.size(); a++) {
+            int[] m = found.get(a);
+            if (exact.overlaps(m[1], m[2])) dropped[a] = true;
+            for (int b = a + 1; b < found.size() && found.get(b)[1] < m[2]; b++) {
+                int[] o = found.get(b);
+                if (field[o[0]] == field[m[0]]) continue;
+                // 다른 필드 라벨과 겹치면 더 가까운 쪽만, 같으면 둘 다 버림
+                if (o[3] <= m[3]) dropped[a] = true;
+                if (m[3] <= o[3]) dropped[b] = true;
+            }
+        }
+        for (int a = 0; a < found.size(); a++) {
+            int[] m = found.get(a);
+            if (!dropped[a]) matches.add(field[m[0]], m[1], m[2], m[3]);
+        }
+    }
+
+    // 정확한 라벨 구간: 시작 위치 순 + 앞에서부터의 최대 끝 → 겹침 확인이 이진 탐색 한 번
+    private static final class Exact {
+        private final int[] starts;
+        private final int[] maxEnds;
+
+        Exact(LabelMatches matches) {
+            int n = matches.size();
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Arrays.sort(order, (x, y) -> Integer.compare(matches.start(x), matches.start(y)));
+            starts = new int[n];
+            maxEnds = new int[n];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                starts[i] = matches.start(order[i]);
+                max = Math.max(max, matches.end(order[i]));
+                maxEnds[i] = max;
+            }
+        }
+
+        // [start, end)와 겹치는 구간이 있는지: 시작이 end보다 앞인 구간 중 가장 늦게 끝나는 것이 start를 넘는지
+        boolean overlaps(int start, int end) {
+            int lo = 0;
+            int hi = starts.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < end) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo > 0 && maxEnds[lo - 1] > start;
+        }
+    }
+
+    /*
+     * R[d]: 비트 j가 1 = 라벨 앞부분(j까지)이 지금 위치에서 끝나는 텍스트와 거리 d 이하로 맞음.
+     *   R0' = ((R0 << 1) | S) & B[c]
+     *   Rd' = ((Rd << 1) | S) & B[c]      일치
+     *       | R(d-1)                      텍스트 글자 끼어듦
+     *       | (R(d-1) << 1) | S           바뀜
+     *       | (R(d-1)' << 1)              라벨 글자 빠짐
+     * S(라벨 첫 비트들)를 매번 넣어서 어느 위치에서든 새 매칭이 시작된다.
+     * 앞 라벨의 끝 비트가 뒤 라벨의 첫 비트로 넘어가도 그 비트는 S로 어차피 켜져 있어서 무해하다.
+     *
+     * 글자(음절) 경계마다 라벨 끝 비트를 보고, 연속해서 맞는 구간에서는 거리가 가장 작은 끝 하나만 남긴다.
+     */
+    private void scan(CharSequence text, boolean[] wanted, List<int[]> found) {
+        long[] r = initial.clone();
+        int[] ring = new int[RING];
+        int fed = 0;
+
+        int n = field.length;
+        int[] pendingStart = new int[n];
+        int[] pendingEnd = new int[n];
+        int[] pendingDistance = new int[n];
+        Arrays.fill(pendingEnd, -1);
+
+        int[] symbols = new int[3];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (LabelScanner.isSpace(c)) continue;
+
+            int count = decompose(c, symbols);
+            for (int k = 0; k < count; k++) {
+                ring[fed++ & (RING - 1)] = i;
+                long b = charMask[symbols[k]];
+                long prevOld = r[0];
+                long prevNew = ((r[0] << 1) | starts) & b;
+                r[0] = prevNew;
+                for (int d = 1; d <= MAX_DISTANCE; d++) {
+                    long old = r[d];
+                    long next = (((old << 1) | starts) & b) | prevOld | (prevOld << 1) | (prevNew << 1) | starts;
+                    r[d] = next;
+                    prevOld = old;
+                    prevNew = next;
+                }
+            }
+
+            for (int p = 0; p < n; p++) {
+                if (!wanted[p]) continue;
+                int d = distanceAt(p, r);
+                if (d < 0) {
+                    flush(p, pendingStart, pendingEnd, pendingDistance, found);
+                    continue;
+                }
+                if (pendingEnd[p] < 0 || d < pendingDistance[p]) {
+                    int back = Math.min(fed, length[p]);
+                    pendingStart[p] = ring[(fed - back) & (RING - 1)];
+                    pendingEnd[p] = i + 1;
+                    pendingDistance[p] = d;
+                }
+            }
+        }
+        for (int p = 0; p < n; p++) flush(p, pendingStart, pendingEnd, pendingDistance, found);
+    }
+
+    // 라벨 p가 여기서 끝나는 가장 작은 거리 (허용 거리 밖이면 -1)
+    private int distanceAt(int p, long[] r) {
+        for (int d = 0; d <= maxDistance[p]; d++) {
+            if ((r[d] & endBit[p]) != 0) return d;
+        }
+        return -1;
+    }
+
+    private static void flush(int p, int[] start, int[] end, int[] distance, List<int[]> found) {
+        if (end[p] < 0) return;
+        // 거리 0은 정확한 라벨 (LabelScanner가 못 찾은 경우는 없으므로 버림)
+        if (distance[p] > 0) found.add(new int[] { p, start[p], end[p], distance[p] });
+        end[p] = -1;
+    }
+
+    // 글자 → 자모 기호 (한글 음절이 아니면 기호 0 하나). 반환값은 기호 수
+    static int decompose(char c, int[] out) {
+        if (c < 0xAC00 || c > 0xD7A3) {
+            out[0] = 0;
+            return 1;
+        }
+        int s = c - 0xAC00;
+        int jong = s % 28;
+        out[0] = CHO + s / (21 * 28);
+        out[1] = JUNG + (s / 28) % 21;
+        if (jong == 0) return 2;
+        out[2] = JONG + jong - 1;
+        return 3;
+    }
+}
@@ -0,0 +1,145 @@
+package com.kang.ocrparser.parser;
+
+/*
+ * WeightExtractor의 kg 값 정규식을 역추적 없이 맞추는 스캐너.
+ *
+ *   VALUE_AFTER_LABEL = \s*[:]?\s*[^0-9]{0,50}?(\d{1,3}(?:[\s,]\d{3})+|\d{1,6})\s*kg  (lookingAt)
+ *   ANY_KG            = (\d{1,3}(?:[\s,]\d{3})+|\d{1,6})\s*kg                         (find)
+ *
+ * 정규식 엔진은 "1 234 234 234 ..."처럼 긴 천 단위 묶음 뒤에 kg가 없으면 시작 위치마다
+ * 묶음 전체를 먹었다가 하나씩 되돌리므로 O(n²)가 된다. 여기서는 같은 결과를 다음 성질로 O(1)에 정한다.
+ *   - 시작 위치 i의 숫자 길이 r: 1~3자리 머리는 r ≤ 3일 때만(아니면 다음 글자가 숫자라 묶음이 못 붙음),
+ *     \d{1,6}은 r ≤ 6일 때만 숫자 전체를 먹어야 뒤에 \s*kg가 올 수 있다
+ *   - 천 단위 묶음은 최대로 이었을 때만 뒤에 \s*kg가 올 수 있다 (덜 이으면 다음 글자가 구분자+숫자)
+ * 숫자 끝(runEnd), 묶음 끝(chainEnd), \s*kg 끝(kgEnd)은 처음 쓸 때 오른쪽→왼쪽 한 번에 채운다
+ * (긴 공백 뒤의 kg를 시작 위치마다 다시 훑지 않도록 kgEnd도 미리 계산).
+ */
+final class KgNumberScanner {
+
+    // GAP의 {0,50}
+    private static final int MAX_GAP = 50;
+
+    private final CharSequence text;
+    private final int n;
+
+    private int[] runEnd;     // text[i]가 숫자면 i부터 이어진 숫자의 끝, 아니면 i
+    private int[] chainEnd;   // p부터 ([\s,]\d{3})*를 최대로 이었을 때의 끝
+    private int[] kgEnd;      // p부터 \s*kg가 맞으면 그 끝, 아니면 -1
+
+    // 마지막 매칭: 숫자 [numStart, numEnd), 전체 [start, end)
+    int start;
+    int numStart;
+    int numEnd;
+    int end;
+
+    KgNumberScanner(CharSequence text) {
+        this.text = text;
+        this.n = text.length();
+    }
+
+    CharSequence text() {
+        return text;
+    }
+
+    // 텍스트 길이에 비례하는 준비 비용 (예산 계산용)
+    int length() {
+        return n;
+    }
+
+    /*
+     * ANY_KG의 find(): from부터 처음 맞는 위치. 다음 호출은 end부터 하면 정규식과 같은 순서가 된다.
+     */
+    boolean find(int from) {
+        for (int i = from; i < n; i++) {
+            if (isDigit(text.charAt(i)) && matchAt(i)) {
+                start = i;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * VALUE_AFTER_LABEL의 lookingAt(): 라벨 끝에서 구분자/공백과 50자 이내 잡문자를 건너뛴 첫 숫자에서만 맞춰 본다.
+     * (잡문자는 숫자를 넘을 수 없고, 앞의 \s*[:]?\s*를 덜 먹으면 GAP만 길어지므로 탐욕적으로 건너뛴 위치가 기준)
+     */
+    boolean valueAfterLabel(int labelEnd) {
+        int i = labelEnd;
+        while (i < n && LabelScanner.isSpace(text.charAt(i))) i++;
+        if (i < n && text.charAt(i) == ':') i++;
+        while (i < n && LabelScanner.isSpace(text.charAt(i))) i++;
+
+        int limit = Math.min(n, i + MAX_GAP + 1);
+        for (int q = i; q < limit; q++) {
+            if (isDigit(text.charAt(q))) {
+                if (!matchAt(q)) return false;
+                start = labelEnd;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // i(숫자)에서 시작하는 KG_NUM\s*kg
+    private boolean matchAt(int i) {
+        prepare();
+        int r = runEnd[i];
+
+        // 1~3자리 + 천 단위 묶음 (정규식 대안 순서대로 먼저)
+        if (r - i <= 3) {
+            int chain = chainEnd[r];
+            if (chain > r && kgAt(chain)) {
+                numStart = i;
+                numEnd = chain;
+                return true;
+            }
+        }
+        // 1~6자리
+        if (r - i <= 6 && kgAt(r)) {
+            numStart = i;
+            numEnd = r;
+            return true;
+        }
+        return false;
+    }
+
+    // \s*kg
+    private boolean kgAt(int p) {
+        if (kgEnd[p] < 0) return false;
+        end = kgEnd[p];
+        return true;
+    }
+
+    private void prepare() {
+        if (runEnd != null) return;
+        runEnd = new int[n + 1];
+        chainEnd = new int[n + 1];
+        kgEnd = new int[n + 1];
+        runEnd[n] = n;
+        chainEnd[n] = n;
+        kgEnd[n] = -1;
+
+        int nonSpace = n;   // i 이후 첫 비공백 위치
+        for (int i = n - 1; i >= 0; i--) {
+            char c = text.charAt(i);
+            runEnd[i] = isDigit(c) ? (i + 1 < n && isDigit(text.charAt(i + 1)) ? runEnd[i + 1] : i + 1) : i;
+            chainEnd[i] = isGroup(i) ? chainEnd[i + 4] : i;
+
+            if (!LabelScanner.isSpace(c)) nonSpace = i;
+            kgEnd[i] = nonSpace + 1 < n && text.charAt(nonSpace) == 'k' && text.charAt(nonSpace + 1) == 'g'
+                    ? nonSpace + 2 : -1;
+        }
+    }
+
+    // [\s,]\d{3}
+    private boolean isGroup(int p) {
+        if (p + 3 >= n) return false;
+        char c = text.charAt(p);
+        return (c == ',' || LabelScanner.isSpace(c))
+                && isDigit(text.charAt(p + 1)) && isDigit(text.charAt(p + 2)) && isDigit(text.charAt(p + 3));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,167 @@
+package com.kang.ocrparser.parser;
+
+import java.util.Arrays;
+
+/*
+ * LabelScanner 결과: (필드, 시작, 끝, 편집 거리) 목록. 스캔 순서(라벨 끝 위치 순)로 쌓인다.
+ * 편집 거리는 정확히 맞은 라벨이면 0, FuzzyLabelScanner가 찾은 라벨이면 1~2.
+ * 기본형 배열만 쓰고 clear() 후 재사용할 수 있다.
+ */
+public class LabelMatches {
+
+    private LabelScanner.Field[] fields = new LabelScanner.Field[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] distances = new int[16];
+    private int size;
+
+    // LabelScanner가 쓰는 매칭 검증용 링버퍼 (스캔마다 새로 만들지 않도록 여기에 보관)
+    private int[] ringOffsets;
+    private boolean[] ringGaps;
+
+    public void clear() {
+        size = 0;
+    }
+
+    void add(LabelScanner.Field field, int start, int end) {
+        add(field, start, end, 0);
+    }
+
+    void add(LabelScanner.Field field, int start, int end, int distance) {
+        if (size == starts.length) {
+            int cap = size * 2;
+            fields = Arrays.copyOf(fields, cap);
+            starts = Arrays.copyOf(starts, cap);
+            ends = Arrays.copyOf(ends, cap);
+            distances = Arrays.copyOf(distances, cap);
+        }
+        fields[size] = field;
+        starts[size] = start;
+        ends[size] = end;
+        distances[size] = distance;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LabelScanner.Field field(int i) {
+        return fields[i];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int end(int i) {
+        return ends[i];
+    }
+
+    public int distance(int i) {
+        return distances[i];
+    }
+
+    // field 라벨이 하나라도 있는지
+    public boolean has(LabelScanner.Field field) {
+        for (int i = 0; i < size; i++) {
+            if (fields[i] == field) return true;
+        }
+        return false;
+    }
+
+    /*
+     * 정규식 find()와 같은 기준의 첫 매칭: 가장 왼쪽 시작, 같은 시작이면 가장 긴 것.
+     * 없으면 -1 (반환값은 인덱스)
+     */
+    public int first(LabelScanner.Field field) {
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            if (fields[i] != field) continue;
+            if (best < 0
+                    || starts[i] < starts[best]
+                    || (starts[i] == starts[best] && ends[i] > ends[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * field에 해당하는 매칭 인덱스를 시작 위치 순(같으면 긴 것 먼저)으로 돌려준다.
+     * 정규식 find()가 앞에서부터 시작 위치를 하나씩 시도하는 순서와 같다.
+     */
+    public int[] inOrder(LabelScanner.Field field) {
+        int[] idx = new int[count(field)];
+        inOrder(field, idx);
+        return idx;
+    }
+
+    public int count(LabelScanner.Field field) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (fields[i] == field) count++;
+        }
+        return count;
+    }
+
+    /*
+     * inOrder(field)와 같은 순서를 idx 앞쪽에 채우고 개수를 돌려준다 (idx.length >= count(field))
+     * 배열을 다시 쓰는 호출 측(ExtractContext)용
+     */
+    public int inOrder(LabelScanner.Field field, int[] idx) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (fields[i] == field) idx[count++] = i;
+        }
+
+        if (count <= 32) {
+            // 보통은 라벨 수가 적으므로 삽입 정렬
+            for (int a = 1; a < count; a++) {
+                int i = idx[a];
+                int j = a;
+                while (j > 0 && before(i, idx[j - 1])) {
+                    idx[j] = idx[j - 1];
+                    j--;
+                }
+                idx[j] = i;
+            }
+            return count;
+        }
+        // 라벨이 비정상적으로 많은 입력(같은 라벨 반복)에서 제곱 시간이 되지 않도록 병합 정렬 (안정 정렬)
+        int[] sorted = mergeSort(idx, new int[count], count);
+        if (sorted != idx) System.arraycopy(sorted, 0, idx, 0, count);
+        return count;
+    }
+
+    private int[] mergeSort(int[] a, int[] tmp, int n) {
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, o = lo;
+                while (i < mid && j < hi) tmp[o++] = before(a[j], a[i]) ? a[j++] : a[i++];
+                while (i < mid) tmp[o++] = a[i++];
+                while (j < hi) tmp[o++] = a[j++];
+            }
+            int[] t = a;
+            a = tmp;
+            tmp = t;
+        }
+        return a;
+    }
+
+    private boolean before(int a, int b) {
+        return starts[a] < starts[b] || (starts[a] == starts[b] && ends[a] > ends[b]);
+    }
+
+    int[] ringOffsets(int window) {
+        if (ringOffsets == null || ringOffsets.length != window) ringOffsets = new int[window];
+        return ringOffsets;
+    }
+
+    boolean[] ringGaps(int window) {
+        if (ringGaps == null || ringGaps.length != window) ringGaps = new boolean[window];
+        return ringGaps;
+    }
+}
@@ -0,0 +1,299 @@
+package com.kang.ocrparser.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * 필드 라벨(앵커) 위치를 텍스트 한 번 스캔으로 모두 찾는 Aho-Corasick 스캐너.
+ *
+ * - 라벨 정의에서 공백 ' '은 "여기에 공백이 0개 이상 올 수 있음"(정규식 \s*)을 뜻한다.
+ *   예) "총 중 량" → 총중량 / 총 중 량 / 총  중량 모두 매칭
+ * - 스캔 중 공백(\s)은 오토마톤에 넣지 않고 건너뛰며, 매칭 시 라벨이 허용한 자리에만
+ *   공백이 있었는지 확인한다(라벨 길이만큼의 상수 비용).
+ * - ASCII 대문자는 소문자로 맞춰서 넣는다 (차량 No. 같은 라벨 대응)
+ *
+ * 라벨 개수와 상관없이 텍스트 길이에 선형. 결과는 LabelMatches에 (필드, 시작, 끝)으로 담긴다.
+ */
+public class LabelScanner {
+
+    public enum Field {
+        VEHICLE,        // 차량번호 라벨
+        VEHICLE_LINE,   // 차량번호 fallback용: "차량"/"vehicle"이 들어간 줄
+        DATE,           // 계량일자 라벨
+        GROSS,          // 총중량
+        TARE,           // 공차중량 / 차중량
+        NET             // 실중량
+    }
+
+    // 파서가 쓰는 기본 라벨 집합 (각 추출기의 기존 정규식 라벨과 동일)
+    public static final LabelScanner DEFAULT = new Builder()
+            // (차량\s*(번호|no\.?|넘버)?|차\s*번호|차번호)
+            .add(Field.VEHICLE, "차량")
+            .add(Field.VEHICLE, "차량 번호")
+            .add(Field.VEHICLE, "차량 no")
+            .add(Field.VEHICLE, "차량 no.")
+            .add(Field.VEHICLE, "차량 넘버")
+            .add(Field.VEHICLE, "차 번호")
+            .add(Field.VEHICLE_LINE, "차량")
+            .add(Field.VEHICLE_LINE, "vehicle")
+            // (계량\s*일자|계량일자)
+            .add(Field.DATE, "계량 일자")
+            // (총\s*중\s*량|총중량)
+            .add(Field.GROSS, "총 중 량")
+            // (공\s*차\s*중\s*량|공차중량|차\s*중\s*량|차중량)
+            .add(Field.TARE, "공 차 중 량")
+            .add(Field.TARE, "차 중 량")
+            // (실\s*중\s*량|실중량)
+            .add(Field.NET, "실 중 량")
+            .build();
+
+    public static class Builder {
+        private final List<Field> fields = new ArrayList<>();
+        private final List<String> specs = new ArrayList<>();
+
+        public Builder add(Field field, String spec) {
+            fields.add(field);
+            specs.add(spec);
+            return this;
+        }
+
+        public LabelScanner build() {
+            return new LabelScanner(fields, specs);
+        }
+    }
+
+    // 라벨별 정보
+    private final Field[] labelField;
+    private final int[] labelLength;          // 공백 제외 글자 수
+    private final boolean[][] labelGapAllowed; // [label][i] = i번째 글자 앞에 공백 허용
+
+    // 트라이 노드별 전이 (정렬된 문자 → 자식), 실패 링크, 출력 라벨 목록
+    private char[][] edgeChars;
+    private int[][] edgeTargets;
+    private int[] fail;
+    private int[][] output;
+
+    // 라벨에 쓰인 문자만 오토마톤에 넣고, 나머지는 바로 루트로
+    private final boolean[] alphabet = new boolean[Character.MAX_VALUE + 1];
+
+    private final int window; // 매칭 검증용 링버퍼 크기(2의 거듭제곱)
+
+    private LabelScanner(List<Field> fields, List<String> specs) {
+        int n = fields.size();
+        labelField = fields.toArray(new Field[0]);
+        labelLength = new int[n];
+        labelGapAllowed = new boolean[n][];
+
+        List<String> compact = new ArrayList<>(n);
+        int maxLen = 1;
+        for (int i = 0; i < n; i++) {
+            String spec = specs.get(i);
+            StringBuilder sb = new StringBuilder();
+            boolean[] gap = new boolean[spec.length()];
+            boolean sawSpace = false;
+            for (int k = 0; k < spec.length(); k++) {
+                char c = spec.charAt(k);
+                if (c == ' ') {
+                    sawSpace = true;
+                    continue;
+                }
+                gap[sb.length()] = sawSpace;
+                sb.append(foldAscii(c));
+                sawSpace = false;
+            }
+            if (sb.length() == 0) throw new IllegalArgumentException("empty label: '" + spec + "'");
+            compact.add(sb.toString());
+            labelLength[i] = sb.length();
+            labelGapAllowed[i] = Arrays.copyOf(gap, sb.length());
+            maxLen = Math.max(maxLen, sb.length());
+        }
+        window = Integer.highestOneBit(maxLen) << 1;
+
+        buildAutomaton(compact);
+    }
+
+    private void buildAutomaton(List<String> labels) {
+        // 1) 트라이 (빌드 시에만 리스트 사용)
+        List<StringBuilder> chars = new ArrayList<>();
+        List<List<Integer>> targets = new ArrayList<>();
+        List<List<Integer>> outs = new ArrayList<>();
+        chars.add(new StringBuilder());
+        targets.add(new ArrayList<>());
+        outs.add(new ArrayList<>());
+
+        for (int li = 0; li < labels.size(); li++) {
+            String label = labels.get(li);
+            int node = 0;
+            for (int k = 0; k < label.length(); k++) {
+                char c = label.charAt(k);
+                alphabet[c] = true;
+                int idx = chars.get(node).indexOf(String.valueOf(c));
+                if (idx >= 0) {
+                    node = targets.get(node).get(idx);
+                } else {
+                    int child = chars.size();
+                    chars.add(new StringBuilder());
+                    targets.add(new ArrayList<>());
+                    outs.add(new ArrayList<>());
+                    chars.get(node).append(c);
+                    targets.get(node).add(child);
+                    node = child;
+                }
+            }
+            outs.get(node).add(li);
+        }
+
+        int size = chars.size();
+        edgeChars = new char[size][];
+        edgeTargets = new int[size][];
+        for (int s = 0; s < size; s++) {
+            // 이진 탐색용으로 문자 순 정렬
+            int m = chars.get(s).length();
+            Integer[] order = new Integer[m];
+            for (int k = 0; k < m; k++) order[k] = k;
+            final int node = s;
+            Arrays.sort(order, (a, b) -> Character.compare(chars.get(node).charAt(a), chars.get(node).charAt(b)));
+            edgeChars[s] = new char[m];
+            edgeTargets[s] = new int[m];
+            for (int k = 0; k < m; k++) {
+                edgeChars[s][k] = chars.get(s).charAt(order[k]);
+                edgeTargets[s][k] = targets.get(s).get(order[k]);
+            }
+        }
+
+        // 2) 실패 링크 (BFS) + 출력 병합
+        fail = new int[size];
+        List<List<Integer>> merged = new ArrayList<>(outs);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int k = 0; k < edgeChars[s].length; k++) {
+                char c = edgeChars[s][k];
+                int child = edgeTargets[s][k];
+                int f = fail[s];
+                int next;
+                while ((next = step(f, c)) < 0 && f != 0) f = fail[f];
+                fail[child] = (next >= 0 && next != child) ? next : 0;
+
+                List<Integer> o = new ArrayList<>(merged.get(child));
+                o.addAll(merged.get(fail[child]));
+                merged.set(child, o);
+                queue.add(child);
+            }
+        }
+
+        output = new int[size][];
+        for (int s = 0; s < size; s++) {
+            output[s] = merged.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // 노드 s에서 c로 가는 전이 (없으면 -1)
+    private int step(int s, char c) {
+        char[] cs = edgeChars[s];
+        int idx = Arrays.binarySearch(cs, c);
+        return idx >= 0 ? edgeTargets[s][idx] : -1;
+    }
+
+    public LabelMatches scan(CharSequence text) {
+        LabelMatches matches = new LabelMatches();
+        scan(text, matches);
+        return matches;
+    }
+
+    /*
+     * text 전체를 한 번 훑어 라벨 위치를 matches에 채운다 (matches는 초기화 후 재사용)
+     */
+    public void scan(CharSequence text, LabelMatches matches) {
+        matches.clear();
+        if (text == null) return;
+
+        int mask = window - 1;
+        int[] offsets = matches.ringOffsets(window);
+        boolean[] gaps = matches.ringGaps(window);
+
+        int state = 0;
+        int fed = 0;          // 오토마톤에 넣은 글자 수
+        boolean gap = false;  // 직전 글자와 현재 글자 사이에 공백이 있었는지
+
+        int n = text.length();
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (isSpace(c)) {
+                gap = true;
+                continue;
+            }
+
+            c = foldAscii(c);
+            if (!alphabet[c]) {
+                state = 0;
+                gap = false;
+                // 라벨 문자가 아닌 글자는 링버퍼에도 기록할 필요 없음 (어떤 라벨도 걸칠 수 없음)
+                continue;
+            }
+
+            offsets[fed & mask] = i;
+            gaps[fed & mask] = gap;
+            fed++;
+            gap = false;
+
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) state = fail[state];
+            state = next >= 0 ? next : 0;
+
+            for (int label : output[state]) {
+                int len = labelLength[label];
+                if (!gapsAllowed(label, fed, gaps, mask)) continue;
+                int start = offsets[(fed - len) & mask];
+                matches.add(labelField[label], start, i + 1);
+            }
+        }
+    }
+
+    // 라벨 안에서 공백이 허용되지 않은 자리에 공백이 있었으면 무효
+    private boolean gapsAllowed(int label, int fed, boolean[] gaps, int mask) {
+        int len = labelLength[label];
+        boolean[] allowed = labelGapAllowed[label];
+        int first = fed - len;
+        for (int k = 1; k < len; k++) {
+            if (gaps[(first + k) & mask] && !allowed[k]) return false;
+        }
+        return true;
+    }
+
+    /*
+     * 라벨 뒤 값 영역 [valueStart, valueEnd): 정규식 \s*[구분자]?\s*([^\n\r]{0,max}) 의 그룹 위치
+     * (라벨과 값 사이 공백은 줄바꿈을 넘어갈 수 있고, 값 자체는 줄 끝에서 끊긴다)
+     * 추출기가 substring 없이 원문 위에서 보도록 위치만 돌려준다.
+     */
+    static int valueStart(String text, int labelEnd, String separators) {
+        int n = text.length();
+        int i = labelEnd;
+        while (i < n && isSpace(text.charAt(i))) i++;
+        if (i < n && separators.indexOf(text.charAt(i)) >= 0) i++;
+        while (i < n && isSpace(text.charAt(i))) i++;
+        return i;
+    }
+
+    static int valueEnd(String text, int valueStart, int max) {
+        int end = valueStart;
+        int limit = Math.min(text.length(), valueStart + max);
+        while (end < limit && text.charAt(end) != '\n' && text.charAt(end) != '\r') end++;
+        return end;
+    }
+
+    // 정규식 \s (유니코드 옵션 없음)
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static char foldAscii(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+    }
+}
@@ -0,0 +1,56 @@
+package com.kang.ocrparser.parser;
+
+/*
+ * 티켓 하나를 파싱하는 데 쓸 수 있는 작업량 상한 (스텝 = 대략 훑은 글자/후보 수).
+ *
+ * 추출기들은 선형 시간이지만, 비정상적으로 큰 입력이나 후보 조합 검증(후보 수의 제곱)처럼
+ * 입력에 따라 커지는 구간에서 charge()로 차감한다. 다 쓰면 Exhausted를 던지고
+ * WeighingParser가 그때까지 채운 값만 partial=true로 돌려준다.
+ * → 깨진 업로드 하나가 서버/배치 워커 스레드를 붙잡고 있지 못하게 한다.
+ *
+ * 기본 상한은 시스템 프로퍼티 ocrparser.maxSteps (0 이하 = 무제한). 보통 티켓은 수만 스텝이면 끝난다.
+ * 스레드 하나에서만 쓴다 (티켓마다 새로 만듦).
+ */
+public class ParseBudget {
+
+    public static final String PROPERTY = "ocrparser.maxSteps";
+
+    public static final long DEFAULT_MAX_STEPS = Long.getLong(PROPERTY, 20_000_000L);
+
+    private final long maxSteps;
+    private long used;
+
+    public ParseBudget(long maxSteps) {
+        this.maxSteps = maxSteps <= 0 ? Long.MAX_VALUE : maxSteps;
+    }
+
+    public static ParseBudget standard() {
+        return new ParseBudget(DEFAULT_MAX_STEPS);
+    }
+
+    public static ParseBudget unlimited() {
+        return new ParseBudget(0);
+    }
+
+    public void charge(long steps) {
+        used += steps;
+        if (used > maxSteps) throw new Exhausted();
+    }
+
+    public long used() {
+        return used;
+    }
+
+    public long maxSteps() {
+        return maxSteps;
+    }
+
+    // 예산 초과 신호 (흐름 제어용이라 스택 트레이스를 만들지 않음)
+    static final class Exhausted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Exhausted() {
+            super("parse budget exhausted", null, false, false);
+        }
+    }
+}
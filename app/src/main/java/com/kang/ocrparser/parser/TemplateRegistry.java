@@ -0,0 +1,277 @@
+package com.kang.ocrparser.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kang.ocrparser.io.TicketJson;
+
+/*
+ * 계량표 양식 목록 + 양식별 적중률.
+ *
+ * - 식별은 앞 HEAD_LINES줄과 뒤 TAIL_LINES줄만 한 번 훑어 공백 없는 문자열로 만든 뒤
+ *   양식 순서대로 표지 문자열을 확인한다 (본문 길이와 무관)
+ * - 기본 양식은 클래스패스 /templates.json, 추가 정의는 JSON 파일(--templates / -Docrparser.templates)
+ *   같은 이름이면 파일 쪽이 기본 양식을 대신하고, 파일 양식이 먼저 검사된다
+ *
+ * 정의 형식:
+ *   {"templates": [{"name": "...", "head": ["계량증명서"], "tail": ["동우바이오(주)"],
+ *                   "weights": ["gross", "tare", "net"], "dateLabels": ["계량 일자"], "vehicleLabels": ["차량 번호"]}]}
+ *   weights: 원문에 나오는 kg 값 순서 (건너뛸 값은 "skip"), 라벨의 공백은 "공백 0개 이상"
+ */
+public final class TemplateRegistry {
+
+    public static final String PROPERTY = "ocrparser.templates";
+
+    static final int HEAD_LINES = 4;
+    static final int TAIL_LINES = 6;
+    // 한 줄이 아주 긴 입력에서도 식별 비용이 본문 길이를 따라가지 않도록
+    static final int MAX_REGION = 1024;
+
+    private static final String BUILT_IN = "/templates.json";
+
+    private static volatile TemplateRegistry active;
+
+    private final TicketTemplate[] templates;
+    private final LongAdder[] hits;
+    private final LongAdder[] fallbacks;
+    private final LongAdder unknown = new LongAdder();
+    private final String version;
+
+    public TemplateRegistry(List<TicketTemplate> templates) {
+        this.templates = templates.toArray(new TicketTemplate[0]);
+        this.hits = new LongAdder[this.templates.length];
+        this.fallbacks = new LongAdder[this.templates.length];
+        StringBuilder desc = new StringBuilder();
+        for (int i = 0; i < this.templates.length; i++) {
+            hits[i] = new LongAdder();
+            fallbacks[i] = new LongAdder();
+            desc.append(this.templates[i].describe()).append('\n');
+        }
+        this.version = this.templates.length == 0 ? "" : Integer.toHexString(desc.toString().hashCode());
+    }
+
+    /*
+     * 파서가 쓰는 양식 목록. 처음 부를 때 기본 양식 + ocrparser.templates 파일로 만든다.
+     */
+    public static TemplateRegistry active() {
+        TemplateRegistry r = active;
+        if (r == null) {
+            synchronized (TemplateRegistry.class) {
+                if (active == null) {
+                    String file = System.getProperty(PROPERTY);
+                    try {
+                        active = withBuiltIns(file == null || file.isBlank() ? List.of() : load(Path.of(file)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("cannot load templates from " + file, e);
+                    }
+                }
+                r = active;
+            }
+        }
+        return r;
+    }
+
+    public static void install(TemplateRegistry registry) {
+        active = registry;
+    }
+
+    // extra를 앞에, 이름이 겹치지 않는 기본 양식을 뒤에
+    public static TemplateRegistry withBuiltIns(List<TicketTemplate> extra) throws IOException {
+        Map<String, TicketTemplate> byName = new LinkedHashMap<>();
+        for (TicketTemplate t : extra) byName.put(t.name(), t);
+        try (InputStream in = TemplateRegistry.class.getResourceAsStream(BUILT_IN)) {
+            if (in != null) {
+                for (TicketTemplate t : parse(TicketJson.mapper().readTree(in))) byName.putIfAbsent(t.name(), t);
+            }
+        }
+        return new TemplateRegistry(new ArrayList<>(byName.values()));
+    }
+
+    public static List<TicketTemplate> load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return parse(TicketJson.mapper().readTree(in));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        } catch (JsonProcessingException e) {
+            // 한 줄 메시지 + 위치 (CLI 시작 오류로 그대로 출력)
+            JsonLocation at = e.getLocation();
+            throw new IOException(file + ": " + e.getOriginalMessage()
+                    + (at == null ? "" : " (line " + at.getLineNr() + ", column " + at.getColumnNr() + ")"), e);
+        }
+    }
+
+    private static List<TicketTemplate> parse(JsonNode root) {
+        List<TicketTemplate> out = new ArrayList<>();
+        for (JsonNode t : root.path("templates")) {
+            List<TicketTemplate.Slot> weights = new ArrayList<>();
+            for (String s : strings(t, "weights")) weights.add(TicketTemplate.slot(s));
+            out.add(new TicketTemplate(t.path("name").asText(null), strings(t, "head"), strings(t, "tail"),
+                    weights, strings(t, "dateLabels"), strings(t, "vehicleLabels")));
+        }
+        return out;
+    }
+
+    private static List<String> strings(JsonNode node, String field) {
+        List<String> out = new ArrayList<>();
+        for (JsonNode v : node.path(field)) out.add(v.asText());
+        return out;
+    }
+
+    public int size() {
+        return templates.length;
+    }
+
+    // 파싱 결과에 영향을 주므로 파싱 캐시 버전에 붙인다 (양식이 없으면 "")
+    public String version() {
+        return version;
+    }
+
+    /*
+     * 첫 번째로 맞는 양식 번호 (없으면 -1).
+     * 보는 범위가 MAX_REGION * 2로 고정이라 ParseBudget에는 달지 않는다 (예산은 본문 길이를 따라가는 단계용).
+     */
+    int match(String raw) {
+        if (templates.length == 0) return -1;
+        int headEnd = Math.min(headEnd(raw), MAX_REGION);
+        int tailStart = Math.max(tailStart(raw), raw.length() - MAX_REGION);
+
+        String head = compactLines(raw, 0, headEnd);
+        String tail = compactLines(raw, tailStart, raw.length());
+        for (int i = 0; i < templates.length; i++) {
+            if (templates[i].matches(head, tail)) return i;
+        }
+        return -1;
+    }
+
+    boolean headMarkerIn(String compactLine) {
+        for (TicketTemplate t : templates) {
+            if (t.headIn(compactLine)) return true;
+        }
+        return false;
+    }
+
+    boolean tailMarkerIn(String compactLine) {
+        for (TicketTemplate t : templates) {
+            if (t.tailIn(compactLine)) return true;
+        }
+        return false;
+    }
+
+    TicketTemplate template(int index) {
+        return templates[index];
+    }
+
+    // index < 0: 알 수 없는 양식, extracted == false: 양식은 맞았지만 검증 실패로 일반 경로
+    void record(int index, boolean extracted) {
+        if (index < 0) unknown.increment();
+        else (extracted ? hits : fallbacks)[index].increment();
+    }
+
+    public long unknownCount() {
+        return unknown.sum();
+    }
+
+    public long hitCount(String name) {
+        for (int i = 0; i < templates.length; i++) {
+            if (templates[i].name().equals(name)) return hits[i].sum();
+        }
+        return 0;
+    }
+
+    public long fallbackCount(String name) {
+        for (int i = 0; i < templates.length; i++) {
+            if (templates[i].name().equals(name)) return fallbacks[i].sum();
+        }
+        return 0;
+    }
+
+    public void reset() {
+        unknown.reset();
+        for (int i = 0; i < templates.length; i++) {
+            hits[i].reset();
+            fallbacks[i].reset();
+        }
+    }
+
+    /*
+     * 예) routed=812/1000 (81.2%) unknown=150 | dongwoo-bio hit=400/410 (97.6%) | ...
+     * hit: 전용 추출기로 끝난 티켓, 나머지는 양식은 맞았지만 검증에 실패해 일반 경로로 간 티켓
+     */
+    public String stats() {
+        long routed = 0;
+        long total = unknown.sum();
+        StringBuilder per = new StringBuilder();
+        for (int i = 0; i < templates.length; i++) {
+            long h = hits[i].sum();
+            long matched = h + fallbacks[i].sum();
+            routed += h;
+            total += matched;
+            if (matched == 0) continue;
+            per.append(" | ").append(templates[i].name())
+                    .append(" hit=").append(h).append('/').append(matched)
+                    .append(" (").append(percent(h, matched)).append(')');
+        }
+        return "routed=" + routed + "/" + total + " (" + percent(routed, total) + ")"
+                + " unknown=" + unknown.sum() + per;
+    }
+
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "-" : String.format("%.1f%%", 100.0 * part / whole);
+    }
+
+    // 앞에서 HEAD_LINES번째 비어 있지 않은 줄의 끝
+    private static int headEnd(String s) {
+        int n = Math.min(s.length(), MAX_REGION);
+        int lines = 0;
+        boolean content = false;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '\n') {
+                if (content && ++lines == HEAD_LINES) return i;
+                content = false;
+            } else if (!LabelScanner.isSpace(c)) {
+                content = true;
+            }
+        }
+        return n;
+    }
+
+    // 뒤에서 TAIL_LINES번째 비어 있지 않은 줄의 시작
+    private static int tailStart(String s) {
+        int lines = 0;
+        boolean content = false;
+        int floor = Math.max(0, s.length() - MAX_REGION);
+        for (int i = s.length() - 1; i >= floor; i--) {
+            char c = s.charAt(i);
+            if (c == '\n') {
+                if (content && ++lines == TAIL_LINES) return i + 1;
+                content = false;
+            } else if (!LabelScanner.isSpace(c)) {
+                content = true;
+            }
+        }
+        return floor;
+    }
+
+    // 공백 제거 + ASCII 소문자, 줄 경계는 '\n' 하나로 (표지가 줄을 넘어 맞지 않게)
+    static String compactLines(String s, int from, int to) {
+        StringBuilder sb = new StringBuilder(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '\n') sb.append('\n');
+            else if (!LabelScanner.isSpace(c)) sb.append(TicketTemplate.foldAscii(c));
+        }
+        return sb.toString();
+    }
+}
@@ -1,24 +1,205 @@
 package com.kang.ocrparser.parser;
 
+import java.util.Locale;
+
+/*
+ * 중량 파싱용 정규화. 예전 replaceAll 체인과 결과가 완전히 같도록 한 번의 스캔으로 처리한다.
+ *
+ *   toLowerCase()
+ *   → 시간 토큰 제거  \b\d{1,2}:\d{2}(?::\d{2})?\b → " "
+ *   → kg 표기 통합     k\s*g → kg
+ *   → 숫자 사이 쉼표 제거 (?<=\d),(?=\d) → ""
+ *   → 공백 정리        \s+ → " "  + trim()
+ *
+ * 각 단계는 앞 단계 결과를 보므로, 스캔 중에는 "시간 토큰 치환 후 기준" 직전 문자(prev)와
+ * 직전 비공백 문자(lastNonWs), 보류 중인 공백(pendingWs)만 들고 다닌다.
+ * 버퍼는 스레드별로 재사용한다.
+ */
 public class TextNormalizer {
 
+    // 너무 큰 입력 뒤에 버퍼를 계속 들고 있지 않도록 상한
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
     public static String normalize(String rawText) {
         if (rawText == null) return "";
 
-        String text = rawText.toLowerCase();
+        // 일반적인 입력은 문자 단위 소문자화로 String.toLowerCase()와 결과가 같다.
+        // 문맥/로케일 의존 케이스(U+0130, U+03A3, 서로게이트, tr/az/lt 로케일)를 만나면
+        // 그때만 전체를 미리 소문자화한 뒤 같은 스캐너를 다시 돌린다.
+        String result = isCharwiseLocale() ? scan(rawText, true) : null;
+        if (result == null) {
+            result = scan(rawText.toLowerCase(), false);
+        }
+        return result;
+    }
+
+    private static String scan(String s, boolean lowerPerChar) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+
+        int n = s.length();
+        char prev = 0;          // 시간 토큰 치환 후 텍스트 기준 직전 문자 (쉼표 규칙용)
+        char lastNonWs = 0;     // 시간 토큰 치환 후 텍스트 기준 직전 비공백 문자 (k\s*g 규칙용)
+        boolean pendingWs = false;
+
+        int i = 0;
+        while (i < n) {
+            char raw = s.charAt(i);
+            if (lowerPerChar && raw >= 0x0130 && needsFullLowerCase(raw)) return null;
+            char c = lower(raw, lowerPerChar);
+
+            // 시간 토큰 제거 (05:36 / 05:36:01 등) → 공백 하나
+            if (isDigit(c)) {
+                int end = matchTimeToken(s, i, lowerPerChar);
+                if (end > 0) {
+                    pendingWs = true;
+                    prev = ' ';
+                    i = end;
+                    continue;
+                }
+            }
+
+            if (isSpace(c)) {
+                pendingWs = true;
+                prev = c;
+                i++;
+                continue;
+            }
 
-        // 시간 토큰 제거 (05:36 / 05:36:01 등)
-        text = text.replaceAll("\\b\\d{1,2}:\\d{2}(?::\\d{2})?\\b", " ");
+            // 숫자 사이 쉼표 제거 (14,080 → 14080)
+            // 뒤 숫자가 시간 토큰 시작이면 그 숫자는 공백으로 바뀌므로 제거하지 않음
+            if (c == ',' && isDigit(prev) && i + 1 < n) {
+                char next = lower(s.charAt(i + 1), lowerPerChar);
+                if (isDigit(next) && matchTimeToken(s, i + 1, lowerPerChar) < 0) {
+                    prev = c;
+                    lastNonWs = c;
+                    i++;
+                    continue;
+                }
+            }
 
-        // 1) kg 표기 통합 (k g, kG 등 → kg)
-        text = text.replaceAll("k\\s*g", "kg");
+            if (pendingWs) {
+                // kg 표기 통합 (k g → kg): k와 g 사이 공백은 버림, 그 외 공백 묶음은 " " 하나로
+                if (!(c == 'g' && lastNonWs == 'k')) out.append(' ');
+                pendingWs = false;
+            }
 
-        // 2) 숫자 사이 쉼표 제거 (14,080 → 14080)
-        text = text.replaceAll("(?<=\\d),(?=\\d)", "");
+            out.append(c);
+            prev = c;
+            lastNonWs = c;
+            i++;
+        }
+
+        String result = trimmed(out);
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    /*
+     * \b\d{1,2}:\d{2}(?::\d{2})?\b 를 i 위치에서 맞춰본다. 매칭되면 끝 위치, 아니면 -1.
+     * \b 판정은 java.util.regex와 같은 규칙(문자/숫자/_ 또는 기반 문자가 있는 결합 문자)을 따른다.
+     */
+    private static int matchTimeToken(String s, int i, boolean lowerPerChar) {
+        int n = s.length();
+        if (isWordBefore(s, i, lowerPerChar)) return -1;
+
+        // \d{1,2}: 두 자리 우선, 안 되면 한 자리 (두 자리가 가능하면 한 자리 뒤는 숫자라 ':'일 수 없음)
+        int p = i + 1;
+        if (p < n && isDigit(lower(s.charAt(p), lowerPerChar))) p++;
+        if (p >= n || lower(s.charAt(p), lowerPerChar) != ':') return -1;
+
+        // :\d{2}
+        if (p + 2 >= n
+                || !isDigit(lower(s.charAt(p + 1), lowerPerChar))
+                || !isDigit(lower(s.charAt(p + 2), lowerPerChar))) {
+            return -1;
+        }
+        int end = p + 3;
+
+        // (?::\d{2})? 욕심껏 먼저 시도하고, 뒤 \b가 안 맞으면 빼고 다시
+        if (end + 2 < n
+                && lower(s.charAt(end), lowerPerChar) == ':'
+                && isDigit(lower(s.charAt(end + 1), lowerPerChar))
+                && isDigit(lower(s.charAt(end + 2), lowerPerChar))
+                && !isWordAt(s, end + 3, lowerPerChar)) {
+            return end + 3;
+        }
+        return isWordAt(s, end, lowerPerChar) ? -1 : end;
+    }
+
+    // i 바로 앞이 단어 문자인지 (\b 왼쪽 판정)
+    private static boolean isWordBefore(String s, int i, boolean lowerPerChar) {
+        if (i <= 0) return false;
+        int ch = lower(Character.codePointBefore(s, i), lowerPerChar);
+        return isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK
+                && hasBaseCharacter(s, i - 1, lowerPerChar));
+    }
 
-        // 3) 공백 정리
-        text = text.replaceAll("\\s+", " ");
+    // i 위치가 단어 문자인지 (\b 오른쪽 판정)
+    private static boolean isWordAt(String s, int i, boolean lowerPerChar) {
+        if (i >= s.length()) return false;
+        int ch = lower(Character.codePointAt(s, i), lowerPerChar);
+        return isWord(ch) || (Character.getType(ch) == Character.NON_SPACING_MARK
+                && hasBaseCharacter(s, i, lowerPerChar));
+    }
+
+    // 결합 문자(NSM) 앞쪽으로 거슬러 올라가 기반 문자가 문자/숫자인지
+    private static boolean hasBaseCharacter(String s, int i, boolean lowerPerChar) {
+        for (int x = i; x >= 0; x--) {
+            int ch = lower(Character.codePointAt(s, x), lowerPerChar);
+            if (Character.isLetterOrDigit(ch)) return true;
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) continue;
+            return false;
+        }
+        return false;
+    }
+
+    private static boolean isWord(int ch) {
+        return ch == '_' || Character.isLetterOrDigit(ch);
+    }
+
+    // 정규식 \d (유니코드 옵션 없음)
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // 정규식 \s (유니코드 옵션 없음)
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static char lower(char c, boolean lowerPerChar) {
+        if (!lowerPerChar) return c;
+        if (c < 0x80) return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+        return Character.toLowerCase(c);
+    }
+
+    private static int lower(int cp, boolean lowerPerChar) {
+        return lowerPerChar ? Character.toLowerCase(cp) : cp;
+    }
+
+    // String.toLowerCase()가 문자 단위 변환과 달라지는 로케일인지
+    private static boolean isCharwiseLocale() {
+        String lang = Locale.getDefault().getLanguage();
+        return !("tr".equals(lang) || "az".equals(lang) || "lt".equals(lang));
+    }
+
+    // String.toLowerCase()가 문자 단위 변환과 달라지는 문자
+    private static boolean needsFullLowerCase(char c) {
+        return c == '\u0130' || c == '\u03A3' || Character.isSurrogate(c);
+    }
 
-        return text.trim();
+    // String.trim()과 같은 기준(<= ' ')
+    private static String trimmed(StringBuilder sb) {
+        int start = 0;
+        int end = sb.length();
+        while (start < end && sb.charAt(start) <= ' ') start++;
+        while (end > start && sb.charAt(end - 1) <= ' ') end--;
+        return sb.substring(start, end);
     }
 }
@@ -0,0 +1,155 @@
+package com.kang.ocrparser.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * 한 페이지 텍스트를 티켓 단위로 자른다 (WeighingParser.parseAll용).
+ *
+ * 줄 단위로 앞에서부터 보면서, 지금 조각에 중량(중량 라벨 또는 "<숫자> kg")이 이미 있을 때
+ * - 제목 줄("계량증명서" 등 짧은 줄)이나 양식 head 표지가 다시 나오거나
+ * - 중량 세 개가 다 나온 뒤에 이미 본 라벨(차량번호/계량일자/총·공차·실중량)이 또 나오면
+ * 새 티켓의 시작으로 본다.
+ * 자르는 위치는 그 줄에서 위로 머리말처럼 보이는 줄("* 계 그 표 *", "날 짜: ...", "(공급자 보관용)")까지 올린다.
+ * 중량 줄, 양식 tail 표지 줄, 숫자가 든 긴 줄(주소/스캔 시각/좌표)은 앞 티켓의 꼬리로 남긴다.
+ *
+ * 중량이 없는 마지막 조각은 앞 티켓에 붙인다 (꼬리말의 "차량" 같은 단어로 잘린 경우).
+ */
+final class TicketSplitter {
+
+    // 제목 줄로 보는 최대 길이 (공백 제거 후). "계량표는 상기와 같이 ..." 같은 문장은 제외
+    private static final int TITLE_MAX = 12;
+    private static final String[] TITLES = { "계량증명", "계량확인", "계량표", "계근표" };
+
+    private static final int WEIGHTS = bit(LabelScanner.Field.GROSS) | bit(LabelScanner.Field.TARE)
+            | bit(LabelScanner.Field.NET);
+    private static final int REPEATABLE = WEIGHTS | bit(LabelScanner.Field.VEHICLE) | bit(LabelScanner.Field.DATE);
+
+    private TicketSplitter() {
+    }
+
+    static List<String> split(String page, TemplateRegistry templates) {
+        int[] starts = lineStarts(page);
+        int lines = starts.length;
+        if (lines == 0) return List.of();
+
+        int[] mask = new int[lines];
+        LabelMatches labels = LabelScanner.DEFAULT.scan(page);
+        for (int m = 0; m < labels.size(); m++) {
+            int b = bit(labels.field(m)) & REPEATABLE;
+            if (b != 0) mask[lineOf(starts, labels.start(m))] |= b;
+        }
+
+        int[] kg = new int[lines];
+        boolean[] title = new boolean[lines];
+        boolean[] head = new boolean[lines];
+        boolean[] header = new boolean[lines];
+        for (int i = 0; i < lines; i++) {
+            int end = lineEnd(page, starts, i);
+            kg[i] = countKg(page, starts[i], end);
+            String compact = TemplateRegistry.compactLines(page, starts[i], end);
+            title[i] = isTitle(compact);
+            head[i] = templates.headMarkerIn(compact);
+            header[i] = kg[i] == 0 && !templates.tailMarkerIn(compact) && looksLikeHeader(compact);
+        }
+
+        List<String> out = new ArrayList<>();
+        int segStart = 0;
+        int lastWeight = -1;
+        int fields = 0;
+        int kgs = 0;
+        for (int i = 0; i < lines; i++) {
+            if (lastWeight >= segStart) {
+                boolean complete = (fields & WEIGHTS) == WEIGHTS || kgs >= 3;
+                if (title[i] || head[i] || (complete && (mask[i] & fields) != 0)) {
+                    int cut = i;
+                    while (cut - 1 > lastWeight && header[cut - 1] && !title[cut]) cut--;
+                    out.add(page.substring(starts[segStart], starts[cut]));
+
+                    segStart = cut;
+                    fields = 0;
+                    kgs = 0;
+                    for (int j = cut; j < i; j++) fields |= mask[j];
+                }
+            }
+            fields |= mask[i];
+            kgs += kg[i];
+            if (kg[i] > 0 || (mask[i] & WEIGHTS) != 0) lastWeight = i;
+        }
+
+        String last = page.substring(starts[segStart]);
+        if (lastWeight < segStart && !out.isEmpty()) {
+            out.set(out.size() - 1, out.get(out.size() - 1) + last);
+        } else if (!last.isBlank()) {
+            out.add(last);
+        }
+        return out;
+    }
+
+    // 짧은 제목/구분 줄이거나 "라벨: 값" 모양의 줄 (숫자가 없는 짧은 라벨)
+    private static boolean looksLikeHeader(String compact) {
+        if (compact.isEmpty()) return true;
+        if (compact.length() <= TITLE_MAX && !hasDigit(compact, compact.length())) return true;
+        int colon = compact.indexOf(':');
+        return colon > 0 && colon <= 8 && !hasDigit(compact, colon);
+    }
+
+    private static boolean isTitle(String compact) {
+        if (compact.length() > TITLE_MAX) return false;
+        for (String t : TITLES) {
+            if (compact.contains(t)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasDigit(String s, int to) {
+        for (int i = 0; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') return true;
+        }
+        return false;
+    }
+
+    // "<숫자> kg" 개수 (숫자와 kg 사이 공백 허용)
+    private static int countKg(String s, int from, int to) {
+        int count = 0;
+        for (int i = from; i + 1 < to; i++) {
+            char k = s.charAt(i);
+            if (k != 'k' && k != 'K') continue;
+            int g = i + 1;
+            while (g < to && LabelScanner.isSpace(s.charAt(g))) g++;
+            if (g >= to || (s.charAt(g) != 'g' && s.charAt(g) != 'G')) continue;
+            int d = i;
+            while (d > from && LabelScanner.isSpace(s.charAt(d - 1))) d--;
+            if (d > from && s.charAt(d - 1) >= '0' && s.charAt(d - 1) <= '9') count++;
+        }
+        return count;
+    }
+
+    private static int[] lineStarts(String s) {
+        if (s.isEmpty()) return new int[0];
+        int[] starts = new int[16];
+        int n = 0;
+        starts[n++] = 0;
+        for (int i = 0; i < s.length() - 1; i++) {
+            if (s.charAt(i) != '\n') continue;
+            if (n == starts.length) starts = Arrays.copyOf(starts, n * 2);
+            starts[n++] = i + 1;
+        }
+        return Arrays.copyOf(starts, n);
+    }
+
+    private static int lineEnd(String s, int[] starts, int line) {
+        return line + 1 < starts.length ? starts[line + 1] - 1 : s.length();
+    }
+
+    private static int lineOf(int[] starts, int offset) {
+        int i = Arrays.binarySearch(starts, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private static int bit(LabelScanner.Field field) {
+        return 1 << field.ordinal();
+    }
+}
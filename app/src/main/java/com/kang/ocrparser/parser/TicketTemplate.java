@@ -0,0 +1,228 @@
+package com.kang.ocrparser.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.kang.ocrparser.model.ParsedTicket;
+
+/*
+ * 계량표 양식(업체) 하나의 정의 + 전용 추출기.
+ *
+ * 식별: 앞쪽 줄(head)과 뒤쪽 줄(tail)을 공백 없이 붙인 문자열에 표지 문자열이 모두 들어 있으면 이 양식
+ *   예) head "계량증명서", tail "동우바이오(주)"
+ *
+ * 추출 (정규화/라벨 탐색/후보 조합 없이 원문 한 번):
+ * - 중량: 원문의 "<숫자> kg"를 앞에서부터 읽어 weights 순서(gross, tare, net, skip)대로 배정
+ *   숫자는 kg 바로 앞에서 거꾸로 읽는다: 1~6자리, 앞에 [ ,]+3자리 묶음이 이어지면 포함 (역추적 없음)
+ * - 날짜/차량번호: 양식 고유 라벨 바로 뒤 값 (값 해석은 기본 추출기와 같은 규칙)
+ * gross - tare = net 이 맞을 때만 결과를 쓰고, 아니면 false → 호출 측이 일반 경로로 파싱한다.
+ */
+public final class TicketTemplate {
+
+    public enum Slot { GROSS, TARE, NET, SKIP }
+
+    // 비현실적인 중량 (WeightExtractor fallback과 같은 상한)
+    private static final int MAX_KG = 300_000;
+
+    private final String name;
+    private final String[] head;
+    private final String[] tail;
+    private final Slot[] weights;
+    private final List<String> dateLabels;
+    private final List<String> vehicleLabels;
+    private final LabelScanner labels;   // 날짜/차량번호 라벨이 없으면 null
+
+    public TicketTemplate(String name, List<String> head, List<String> tail, List<Slot> weights,
+                          List<String> dateLabels, List<String> vehicleLabels) {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("template name is required");
+        if (head.isEmpty() && tail.isEmpty()) {
+            throw new IllegalArgumentException("template '" + name + "' needs at least one head or tail marker");
+        }
+        if (!weights.contains(Slot.GROSS) || !weights.contains(Slot.TARE) || !weights.contains(Slot.NET)) {
+            throw new IllegalArgumentException("template '" + name + "' weights must list gross, tare and net");
+        }
+        this.name = name;
+        this.head = compactAll(head);
+        this.tail = compactAll(tail);
+        this.weights = weights.toArray(new Slot[0]);
+        this.dateLabels = List.copyOf(dateLabels);
+        this.vehicleLabels = List.copyOf(vehicleLabels);
+
+        LabelScanner.Builder b = new LabelScanner.Builder();
+        for (String l : dateLabels) b.add(LabelScanner.Field.DATE, l);
+        for (String l : vehicleLabels) b.add(LabelScanner.Field.VEHICLE, l);
+        this.labels = dateLabels.isEmpty() && vehicleLabels.isEmpty() ? null : b.build();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // 캐시 버전 계산용 정의 요약 (정의가 같으면 같은 문자열)
+    String describe() {
+        return name + "|" + String.join(",", head) + "|" + String.join(",", tail) + "|"
+                + List.of(weights) + "|" + dateLabels + "|" + vehicleLabels;
+    }
+
+    // headText/tailText: TemplateRegistry가 만든 공백 없는 앞/뒤 줄 (줄 사이는 '\n')
+    boolean matches(String headText, String tailText) {
+        for (String m : head) {
+            if (!headText.contains(m)) return false;
+        }
+        for (String m : tail) {
+            if (!tailText.contains(m)) return false;
+        }
+        return true;
+    }
+
+    // TicketSplitter용: 한 줄(공백 없는 형태)에 이 양식의 head / tail 표지가 있는지
+    boolean headIn(String compactLine) {
+        for (String m : head) {
+            if (compactLine.contains(m)) return true;
+        }
+        return false;
+    }
+
+    boolean tailIn(String compactLine) {
+        for (String m : tail) {
+            if (compactLine.contains(m)) return true;
+        }
+        return false;
+    }
+
+    boolean extract(String raw, ParsedTicket ticket, ParseBudget budget) {
+        budget.charge(raw.length());
+
+        int[] values = new int[3];
+        int found = 0;
+        int slot = 0;
+        int from = 0;
+        int n = raw.length();
+        for (int i = 0; i + 1 < n && slot < weights.length; i++) {
+            char k = raw.charAt(i);
+            if (k != 'k' && k != 'K') continue;
+            int g = i + 1;
+            while (g < n && LabelScanner.isSpace(raw.charAt(g))) g++;
+            if (g >= n || (raw.charAt(g) != 'g' && raw.charAt(g) != 'G')) continue;
+
+            long kg = numberBefore(raw, i, from);
+            if (kg < 0) continue;
+            from = g + 1;
+
+            Slot s = weights[slot++];
+            if (s == Slot.SKIP) continue;
+            if (kg < 1 || kg > MAX_KG) return false;
+            values[s.ordinal()] = (int) kg;
+            found |= 1 << s.ordinal();
+        }
+        if (found != 0b111) return false;
+
+        int gross = values[0], tare = values[1], net = values[2];
+        if (tare >= gross || gross - tare != net) return false;
+
+        String date = null;
+        String vehicle = null;
+        if (labels != null) {
+            budget.charge(raw.length());
+            LabelMatches m = labels.scan(raw);
+            ExtractContext ctx = ExtractContext.local();
+            int d = m.first(LabelScanner.Field.DATE);
+            if (d >= 0) {
+                int at = LabelScanner.valueStart(raw, m.end(d), ":");
+                date = WeighingDateExtractor.pickDateTime(
+                        raw, at, LabelScanner.valueEnd(raw, at, WeighingDateExtractor.NEAR_MAX), ctx);
+            }
+            int v = m.first(LabelScanner.Field.VEHICLE);
+            if (v >= 0) {
+                int at = LabelScanner.valueStart(raw, m.end(v), ":.");
+                vehicle = VehicleNumberExtractor.plate(
+                        raw, at, LabelScanner.valueEnd(raw, at, VehicleNumberExtractor.NEAR_MAX), ctx);
+            }
+        }
+
+        // 끝까지 성공했을 때만 한 번에 쓴다 (중간에 실패하면 일반 경로가 빈 ticket에서 시작)
+        ticket.setGrossWeightKg(gross);
+        ticket.setTareWeightKg(tare);
+        ticket.setNetWeightKg(net);
+        if (date != null) ticket.setWeighingDate(date);
+        if (vehicle != null) ticket.setVehicleNumber(vehicle);
+        return true;
+    }
+
+    /*
+     * kgAt 앞의 숫자 (없으면 -1). floor 앞으로는 보지 않는다 (이전 값과 겹치지 않게).
+     *   "12,480 kg" → 12480, "13 460kg" → 13460, "02 : 13 7 560 kg" → 7560
+     * 마지막 묶음부터 거꾸로: 3자리 묶음 앞에 [ ,] + 숫자가 있으면 이어 붙이고, 3자리가 아닌 묶음에서 멈춘다.
+     */
+    static long numberBefore(String s, int kgAt, int floor) {
+        int end = kgAt;
+        while (end > floor && LabelScanner.isSpace(s.charAt(end - 1))) end--;
+
+        int start = end;
+        while (start > floor && isDigit(s.charAt(start - 1))) start--;
+        int len = end - start;
+        if (len == 0 || len > 6) return -1;
+
+        long value = digits(s, start, end);
+        long scale = pow10(len);
+        while (len == 3 && start - 2 >= floor && (s.charAt(start - 1) == ' ' || s.charAt(start - 1) == ',')
+                && isDigit(s.charAt(start - 2))) {
+            int groupEnd = start - 1;
+            int groupStart = groupEnd;
+            while (groupStart > floor && isDigit(s.charAt(groupStart - 1)) && groupEnd - groupStart < 4) groupStart--;
+            len = groupEnd - groupStart;
+            // 4자리 이상이면 묶음이 아니다 ("1234 567")
+            if (len > 3 || (groupStart > floor && isDigit(s.charAt(groupStart - 1)))) break;
+            if (scale > 1_000_000_000L) return -1;
+            value += digits(s, groupStart, groupEnd) * scale;
+            scale *= pow10(len);
+            start = groupStart;
+        }
+        return value;
+    }
+
+    private static long digits(String s, int from, int to) {
+        long v = 0;
+        for (int i = from; i < to; i++) v = v * 10 + (s.charAt(i) - '0');
+        return v;
+    }
+
+    private static long pow10(int n) {
+        long p = 1;
+        for (int i = 0; i < n; i++) p *= 10;
+        return p;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static String[] compactAll(List<String> markers) {
+        List<String> out = new ArrayList<>(markers.size());
+        for (String m : markers) {
+            String c = compact(m);
+            if (c.isEmpty()) throw new IllegalArgumentException("empty template marker");
+            out.add(c);
+        }
+        return out.toArray(new String[0]);
+    }
+
+    // 공백 제거 + ASCII 소문자 (TemplateRegistry가 앞/뒤 줄을 만드는 규칙과 같음)
+    static String compact(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!LabelScanner.isSpace(c)) sb.append(foldAscii(c));
+        }
+        return sb.toString();
+    }
+
+    static char foldAscii(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+    }
+
+    static Slot slot(String s) {
+        return Slot.valueOf(s.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -6,44 +6,121 @@ import java.util.regex.Pattern;
 public class VehicleNumberExtractor {
 
     // 차량번호 라벨 확장: "차량 No. 0580" 대응
-    private static final Pattern VEHICLE_ANCHOR =
-            Pattern.compile("(?i)(차량\\s*(번호|no\\.?|넘버)?|차\\s*번호|차번호)\\s*[:.]?\\s*([^\\n\\r]{0,60})");
+    // 라벨 위치는 LabelScanner(Field.VEHICLE)가 찾고, 여기서는 라벨 뒤 \s*[:.]?\s*([^\n\r]{0,60})만 본다
+    static final int NEAR_MAX = 60;
 
     // 번호판 패턴(한글 포함 우선), 숫자만(3~5자리)
-    private static final Pattern PLATE =
+    static final Pattern PLATE =
             Pattern.compile("([0-9]{2,3}[가-힣][0-9]{4}|[0-9]{3,5})");
 
-    // 도로명주소/연락처 라인 방어(04의 2960-19 같은 것)
-    private static boolean looksLikeAddressOrContact(String line) {
-        String l = line.toLowerCase();
-        if (l.contains("tel") || l.contains("fax")) return true;
-        // "...로 2960-19", "...길 123-4", "...번길 12-3" 같은 패턴
-        if (line.matches(".*(로|길|번길)\\s*\\d+\\s*[-]\\s*\\d+.*")) return true;
-        return false;
+    // 도로명주소: "...로 2960-19", "...길 123-4", "...번길 12-3" (줄 어디에 있어도 - 예전 .*(...).* matches와 같음)
+    static final Pattern ADDRESS =
+            Pattern.compile("(로|길|번길)\\s*\\d+\\s*[-]\\s*\\d+");
+
+    // 도로명주소/연락처 라인 방어(04의 2960-19 같은 것) - text[from, to)가 한 줄
+    private static boolean looksLikeAddressOrContact(String text, int from, int to, ExtractContext ctx) {
+        if (containsIgnoreCase(text, from, to, "tel") || containsIgnoreCase(text, from, to, "fax")) return true;
+        boolean address = ExtractContext.find(ctx.address, text, from, to);
+        ExtractContext.release(ctx.address);
+        return address;
     }
 
     public static String extract(String rawText) {
         if (rawText == null || rawText.isBlank()) return null;
+        return extract(rawText, LabelScanner.DEFAULT.scan(rawText));
+    }
+
+    // labels: rawText를 LabelScanner로 스캔한 결과 (다른 추출기와 공유)
+    public static String extract(String rawText, LabelMatches labels) {
+        return extract(rawText, labels, ExtractContext.local());
+    }
+
+    // ctx: 호출 측이 들고 다니는 작업 공간 (결과 문자열 말고는 새로 만들지 않음)
+    public static String extract(String rawText, LabelMatches labels, ExtractContext ctx) {
+        return extract(rawText, labels, ctx.unlimited, ctx);
+    }
+
+    // fallback에서 방문하는 줄 길이만큼 budget을 쓴다 (아주 긴 한 줄 입력 대비)
+    static String extract(String rawText, LabelMatches labels, ParseBudget budget, ExtractContext ctx) {
+        if (rawText == null || rawText.isBlank()) return null;
 
-        // 1) 라벨 근처에서 우선 추출
-        Matcher anchor = VEHICLE_ANCHOR.matcher(rawText);
-        if (anchor.find()) {
-            String near = anchor.group(3); // 라벨 뒤쪽
-            String compact = near.replaceAll("\\s+", "");
-            Matcher plate = PLATE.matcher(compact);
-            if (plate.find()) return plate.group(1);
+        // 1) 라벨 근처에서 우선 추출 (라벨 뒤쪽 값 영역, 원문 위치로만)
+        int anchor = labels.first(LabelScanner.Field.VEHICLE);
+        if (anchor >= 0) {
+            budget.charge(NEAR_MAX);
+            int from = LabelScanner.valueStart(rawText, labels.end(anchor), ":.");
+            String plate = plate(rawText, from, LabelScanner.valueEnd(rawText, from, NEAR_MAX), ctx);
+            if (plate != null) return plate;
         }
 
         // 2) fallback: 전체에서 찾지 말고 "차량" 들어간 라인에서만 찾기
-        for (String line : rawText.split("\\R")) {
-            if (!(line.contains("차량") || line.toLowerCase().contains("vehicle"))) continue;
-            if (looksLikeAddressOrContact(line)) continue;
+        //    (스캐너가 찾은 "차량"/"vehicle" 위치의 줄만 방문 - 텍스트 전체를 줄 단위로 자르지 않음)
+        // 라벨은 시작 위치 순이라 이전 줄 끝보다 앞이면 같은 줄 (긴 한 줄에 라벨이 많아도 줄 경계는 한 번만 찾음)
+        int lastLineEnd = -1;
+        int[] order = ctx.order(labels.count(LabelScanner.Field.VEHICLE_LINE));
+        int count = labels.inOrder(LabelScanner.Field.VEHICLE_LINE, order);
+        for (int k = 0; k < count; k++) {
+            int pos = labels.start(order[k]);
+            if (pos < lastLineEnd) continue;
 
-            String compact = line.replaceAll("\\s+", "");
-            Matcher plate = PLATE.matcher(compact);
-            if (plate.find()) return plate.group(1);
+            int lineStart = lineStart(rawText, pos);
+            int lineEnd = lineEnd(rawText, pos);
+            lastLineEnd = lineEnd;
+            budget.charge(lineEnd - lineStart);
+
+            if (looksLikeAddressOrContact(rawText, lineStart, lineEnd, ctx)) continue;
+
+            String plate = plate(rawText, lineStart, lineEnd, ctx);
+            if (plate != null) return plate;
         }
 
         return null;
     }
+
+    // 라벨 뒤 값 영역 text[from, to)에서 공백(\s)을 뺀 문자열의 첫 번호판 (예전 replaceAll("\\s+", "") + find와 같음)
+    static String plate(String text, int from, int to, ExtractContext ctx) {
+        StringBuilder compact = ctx.compact;
+        compact.setLength(0);
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (!LabelScanner.isSpace(c)) compact.append(c);
+        }
+        Matcher m = ctx.plate;
+        if (!ExtractContext.find(m, compact, 0, compact.length())) return null;
+        return compact.substring(m.start(1), m.end(1));
+    }
+
+    // 예전 line.toLowerCase().contains(word)와 같음 (word는 ASCII 소문자)
+    private static boolean containsIgnoreCase(String text, int from, int to, String word) {
+        int n = word.length();
+        for (int i = from; i + n <= to; i++) {
+            int k = 0;
+            while (k < n) {
+                char c = text.charAt(i + k);
+                if (c >= 'A' && c <= 'Z') c = (char) (c + 32);
+                if (c != word.charAt(k)) break;
+                k++;
+            }
+            if (k == n) return true;
+        }
+        return false;
+    }
+
+    // 정규식 \R 기준 줄 경계
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == 0x0B || c == '\f'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int lineStart(String text, int pos) {
+        int i = pos;
+        while (i > 0 && !isLineBreak(text.charAt(i - 1))) i--;
+        return i;
+    }
+
+    private static int lineEnd(String text, int pos) {
+        int i = pos;
+        while (i < text.length() && !isLineBreak(text.charAt(i))) i++;
+        return i;
+    }
 }
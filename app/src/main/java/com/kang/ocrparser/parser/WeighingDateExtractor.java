@@ -8,38 +8,55 @@ public class WeighingDateExtractor {
     // 예) 계량일자: 2026-02-02 05:37:55
     // 예) 계량 일자: 2026-02-01 11:55:35
     // 예) 날 짜: 2026-02-02-00004  (뒤에 -00004 같은 식별자는 제거)
-    private static final Pattern DATE_TIME =
+    static final Pattern DATE_TIME =
             Pattern.compile("(\\d{4}-\\d{2}-\\d{2})(?:\\s+(\\d{1,2}:\\d{2}(?::\\d{2})?))?");
 
-    private static final Pattern DATE_ANCHOR =
-    	    Pattern.compile("(계량\\s*일자|계량일자)\\s*[:]?\\s*([^\\n\\r]{0,60})");
+    // 라벨(계량\s*일자) 위치는 LabelScanner가 찾고, 여기서는 라벨 뒤 \s*[:]?\s*([^\n\r]{0,60})만 본다
+    static final int NEAR_MAX = 60;
 
     public static String extract(String rawText) {
         if (rawText == null || rawText.isBlank()) return null;
-
-        // 라벨(앵커) 근처에서만 추출: 근거 없는 전역 탐색은 오탐 위험이 커서 하지 않음
-        Matcher anchor = DATE_ANCHOR.matcher(rawText);
-        if (!anchor.find()) return null;
-
-        String near = anchor.group(2);
-        return pickDateTime(near);
+        return extract(rawText, LabelScanner.DEFAULT.scan(rawText));
     }
 
-    private static String pickDateTime(String text) {
-        if (text == null || text.isBlank()) return null;
+    // labels: rawText를 LabelScanner로 스캔한 결과 (다른 추출기와 공유)
+    public static String extract(String rawText, LabelMatches labels) {
+        return extract(rawText, labels, ExtractContext.local());
+    }
 
-        Matcher m = DATE_TIME.matcher(text);
-        if (!m.find()) return null;
+    // ctx: 호출 측이 들고 다니는 작업 공간 (결과 문자열 말고는 새로 만들지 않음)
+    public static String extract(String rawText, LabelMatches labels, ExtractContext ctx) {
+        if (rawText == null || rawText.isBlank()) return null;
 
-        String date = m.group(1);
-        String time = m.group(2);
+        // 라벨(앵커) 근처에서만 추출: 근거 없는 전역 탐색은 오탐 위험이 커서 하지 않음
+        int anchor = labels.first(LabelScanner.Field.DATE);
+        if (anchor < 0) return null;
 
-        if (date == null) return null;
+        int from = LabelScanner.valueStart(rawText, labels.end(anchor), ":");
+        return pickDateTime(rawText, from, LabelScanner.valueEnd(rawText, from, NEAR_MAX), ctx);
+    }
 
-        if (time == null || time.isBlank()) {
-            return date; // 시간 없으면 날짜만
+    /*
+     * text[from, to)의 첫 "날짜[ 시간]" (시간 없으면 날짜만, 있으면 "날짜 시간")
+     * 날짜와 시간 사이가 공백 한 칸이면(보통) 원문을 그대로 잘라서 문자열 하나만 만든다
+     */
+    static String pickDateTime(String text, int from, int to, ExtractContext ctx) {
+        Matcher m = ctx.dateTime;
+        try {
+            if (!ExtractContext.find(m, text, from, to)) return null;
+
+            int dateStart = m.start(1);
+            int dateEnd = m.end(1);
+            int timeStart = m.start(2);
+            int timeEnd = m.end(2);
+            if (timeStart < 0) return text.substring(dateStart, dateEnd);
+            if (timeStart == dateEnd + 1 && text.charAt(dateEnd) == ' ') return text.substring(dateStart, timeEnd);
+
+            StringBuilder out = ctx.out;
+            out.setLength(0);
+            return out.append(text, dateStart, dateEnd).append(' ').append(text, timeStart, timeEnd).toString();
+        } finally {
+            ExtractContext.release(m);
         }
-
-        return date + " " + time;
     }
 }
@@ -1,37 +1,243 @@
 package com.kang.ocrparser.parser;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import com.kang.ocrparser.layout.LayoutExtractor;
+import com.kang.ocrparser.layout.WordLayout;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.metrics.Stage;
 import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.tare.TareIndex;
 
 public class WeighingParser {
 
+    // 추출 규칙(라벨/휴리스틱)이 바뀌어 같은 입력의 결과가 달라질 수 있으면 올린다 (파싱 캐시 키에 포함)
+    public static final String VERSION = "3";
+
+    // 파싱 캐시 키용: 파서 버전 + 양식 정의 (양식 파일이 바뀌어도 예전 결과를 쓰지 않도록)
+    public static String cacheVersion() {
+        String templates = TemplateRegistry.active().version();
+        return templates.isEmpty() ? VERSION : VERSION + "+" + templates;
+    }
+
     public static ParsedTicket parse(String rawText) {
+        return parse(rawText, null);
+    }
+
+    /*
+     * 레이아웃 모드: 단어 좌표(layout)가 있으면 중량 라벨-값을 좌표로 먼저 짝짓고,
+     * 못 찾은 필드만 기존 텍스트 파이프라인이 채운다 (좌표로 찾은 값은 조합 검증에 확정값으로 들어감)
+     */
+    public static ParsedTicket parse(String rawText, WordLayout layout) {
+        return parse(rawText, layout, ParseBudget.standard());
+    }
+
+    /*
+     * budget: 티켓 하나에 쓸 작업량 상한. 다 쓰면 그때까지 채운 값만 담아 partial=true로 돌려준다
+     * (예외를 던지지 않음 - 깨진 입력 하나가 워커를 오래 붙잡지 못하게)
+     */
+    public static ParsedTicket parse(String rawText, WordLayout layout, ParseBudget budget) {
         if (rawText == null) rawText = "";
 
         ParsedTicket ticket = new ParsedTicket();
-
-        // 1) 원문에서 날짜/차량번호 먼저 추출 (TextNormalizer가 시간 토큰을 지우기 때문)
         try {
-            String vehicle = VehicleNumberExtractor.extract(rawText);
-            if (vehicle != null && !vehicle.isBlank()) {
-                ticket.setVehicleNumber(vehicle);
+            parse(rawText, layout, budget, ticket);
+        } catch (ParseBudget.Exhausted e) {
+            ParseMetrics.budgetExhausted();
+            ticket.setPartial(true);
+        }
+        return ticket;
+    }
+
+    public static List<ParsedTicket> parseAll(List<String> pages) {
+        return parseAll(pages, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * 여러 장 / 여러 티켓이 든 문서 → 문서 순서대로 티켓 목록 (각 티켓에 pageIndex).
+     * 페이지마다 TicketSplitter로 티켓 조각을 나누고, 조각들을 pool에서 나눠 파싱한다.
+     * 조각마다 예산(ParseBudget)을 따로 쓰므로 깨진 조각 하나가 나머지를 막지 않는다.
+     */
+    public static List<ParsedTicket> parseAll(List<String> pages, ForkJoinPool pool) {
+        int n = pages.size();
+        TemplateRegistry templates = TemplateRegistry.active();
+
+        // 1) 페이지별 분할 (페이지 단위로 병렬)
+        String[][] segments = new String[n][];
+        pool.invoke(new ForEach(0, n, i -> segments[i] = TicketSplitter.split(
+                pages.get(i) == null ? "" : pages.get(i), templates).toArray(new String[0])));
+
+        // 2) 조각 단위로 펼쳐서 병렬 파싱 (결과는 인덱스 자리에 → 문서 순서 유지)
+        int total = 0;
+        for (String[] s : segments) total += s.length;
+        String[] texts = new String[total];
+        int[] pageOf = new int[total];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (String s : segments[i]) {
+                texts[k] = s;
+                pageOf[k++] = i;
             }
+        }
 
-            String date = WeighingDateExtractor.extract(rawText);
-            if (date != null && !date.isBlank()) {
-                ticket.setWeighingDate(date);
+        ParsedTicket[] tickets = new ParsedTicket[total];
+        pool.invoke(new ForEach(0, total, i -> {
+            ParsedTicket t = parse(texts[i]);
+            t.setPageIndex(pageOf[i]);
+            tickets[i] = t;
+        }));
+        return new ArrayList<>(Arrays.asList(tickets));
+    }
+
+    // [from, to)를 반씩 나눠 fork (티켓 하나가 수십 us라 잎은 한 개)
+    private static final class ForEach extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer body;
+
+        ForEach(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) body.accept(from);
+                return;
             }
-        } catch (Exception e) {
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForEach(from, mid, body), new ForEach(mid, to, body));
         }
+    }
+
+    private static void parse(String rawText, WordLayout layout, ParseBudget budget, ParsedTicket ticket) {
+        // 0) 아는 양식이면 전용 추출기로 끝낸다 (레이아웃 모드는 좌표가 우선이라 건너뜀)
+        if (layout == null && parseByTemplate(rawText, budget, ticket)) return;
+
+        if (layout != null && layout.size() > 0) {
+            long t0 = ParseMetrics.start();
+            try {
+                budget.charge(layout.size());
+                LayoutExtractor.extractWeights(layout, ticket);
+            } catch (ParseBudget.Exhausted e) {
+                throw e;
+            } catch (Exception e) {
+                ParseMetrics.error(Stage.LAYOUT);
+            }
+            ParseMetrics.stop(Stage.LAYOUT, t0);
+        }
+
+        // 라벨 위치는 텍스트당 한 번만 스캔해서 추출기들이 같이 쓴다 (원문 1회 + 정규화본 1회)
+        LabelMatches labels = new LabelMatches();
+
+        // 1) 원문에서 날짜/차량번호 먼저 추출 (TextNormalizer가 시간 토큰을 지우기 때문)
+        extractDateAndVehicle(rawText, labels, budget, ticket);
 
         //  2) 중량 파싱
+        budget.charge(rawText.length());
+        long t0 = ParseMetrics.start();
         String normalized = TextNormalizer.normalize(rawText);
+        ParseMetrics.stop(Stage.NORMALIZE, t0);
 
+        Stage running = Stage.LABEL_SCAN;
         try {
-            WeightExtractor.extract(normalized, ticket);
+            t0 = ParseMetrics.start();
+            budget.charge(normalized.length());
+            LabelScanner.DEFAULT.scan(normalized, labels);
+            // 정확한 중량 라벨이 없는 필드는 OCR로 깨진 라벨(편집 거리 1~2)까지 찾아본다
+            budget.charge(normalized.length());
+            FuzzyLabelScanner.WEIGHTS.addMissing(normalized, labels);
+            ParseMetrics.stop(Stage.LABEL_SCAN, t0);
+
+            running = Stage.WEIGHT;
+            t0 = ParseMetrics.start();
+            WeightExtractor.extract(normalized, labels, ticket, budget);
+            ParseMetrics.stop(Stage.WEIGHT, t0);
+        } catch (ParseBudget.Exhausted e) {
+            throw e;
         } catch (Exception e) {
             // 크래시 방지
+            ParseMetrics.error(running);
         }
+    }
 
-        return ticket;
+    /*
+     * 양식 식별 → 전용 추출. 중량이 검증되면 true (양식이 날짜/차량번호를 못 찾았으면 기본 추출기로 채움).
+     * false면 ticket은 손대지 않은 상태 → 일반 경로.
+     */
+    private static boolean parseByTemplate(String rawText, ParseBudget budget, ParsedTicket ticket) {
+        TemplateRegistry templates = TemplateRegistry.active();
+        if (templates.size() == 0) return false;
+
+        long t0 = ParseMetrics.start();
+        int index = -1;
+        boolean extracted = false;
+        try {
+            index = templates.match(rawText);
+            extracted = index >= 0 && templates.template(index).extract(rawText, ticket, budget);
+        } catch (ParseBudget.Exhausted e) {
+            throw e;
+        } catch (Exception e) {
+            ParseMetrics.error(Stage.TEMPLATE);
+        }
+        ParseMetrics.stop(Stage.TEMPLATE, t0);
+        templates.record(index, extracted);
+        if (!extracted) return false;
+
+        if (ticket.getWeighingDate() == null || ticket.getVehicleNumber() == null) {
+            extractDateAndVehicle(rawText, new LabelMatches(), budget, ticket);
+        }
+        // 양식 추출은 gross - tare = net 이 맞을 때만 성공하므로 그대로 차량 이력에 넣는다
+        TareIndex tares = TareIndex.active();
+        if (tares != null) tares.record(ticket);
+        return true;
+    }
+
+    // 원문 라벨 스캔 → 비어 있는 차량번호/날짜만 채운다
+    private static void extractDateAndVehicle(String rawText, LabelMatches labels, ParseBudget budget,
+                                              ParsedTicket ticket) {
+        // running: 예외가 났을 때 어느 단계에서 났는지 세기 위함 (결과는 기존처럼 버리고 계속 진행)
+        Stage running = Stage.LABEL_SCAN;
+        ExtractContext ctx = ExtractContext.local();
+        try {
+            long t0 = ParseMetrics.start();
+            budget.charge(rawText.length());
+            LabelScanner.DEFAULT.scan(rawText, labels);
+            ParseMetrics.stop(Stage.LABEL_SCAN, t0);
+
+            if (ticket.getVehicleNumber() == null) {
+                running = Stage.VEHICLE;
+                t0 = ParseMetrics.start();
+                String vehicle = VehicleNumberExtractor.extract(rawText, labels, budget, ctx);
+                ParseMetrics.stop(Stage.VEHICLE, t0);
+                if (vehicle != null && !vehicle.isBlank()) {
+                    ticket.setVehicleNumber(vehicle);
+                }
+            }
+
+            if (ticket.getWeighingDate() == null) {
+                running = Stage.DATE;
+                t0 = ParseMetrics.start();
+                budget.charge(WeighingDateExtractor.NEAR_MAX);
+                String date = WeighingDateExtractor.extract(rawText, labels, ctx);
+                ParseMetrics.stop(Stage.DATE, t0);
+                if (date != null && !date.isBlank()) {
+                    ticket.setWeighingDate(date);
+                }
+            }
+        } catch (ParseBudget.Exhausted e) {
+            throw e;
+        } catch (Exception e) {
+            ParseMetrics.error(running);
+        }
     }
 }
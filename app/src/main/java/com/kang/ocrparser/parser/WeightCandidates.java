@@ -0,0 +1,118 @@
+package com.kang.ocrparser.parser;
+
+import java.util.Arrays;
+
+/*
+ * WeightExtractor fallback용 kg 후보 모음.
+ * List<Integer> 대신 int[] 하나에 담고, 정렬은 한 번 + 중복 제거는 제자리에서 한다.
+ */
+class WeightCandidates {
+
+    private int[] values = new int[16];
+    private int size;
+
+    void clear() {
+        size = 0;
+    }
+
+    void add(int v) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = v;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int i) {
+        return values[i];
+    }
+
+    /*
+     * 오름차순 정렬 + 중복 제거 + 제외값(null이면 무시) 제거를 한 번에 처리
+     * (기존: removeIfEquals → distinctPreserveOrder → Collections.sort 와 같은 결과)
+     */
+    void sortDistinctExcluding(Integer excludeA, Integer excludeB) {
+        Arrays.sort(values, 0, size);
+        int w = 0;
+        for (int r = 0; r < size; r++) {
+            int v = values[r];
+            if (w > 0 && values[w - 1] == v) continue;
+            if (excludeA != null && excludeA == v) continue;
+            if (excludeB != null && excludeB == v) continue;
+            values[w++] = v;
+        }
+        size = w;
+    }
+
+    /*
+     * 정렬된 후보 + 추가값(라벨로 확정된 gross/tare/net, null이면 무시)을 합친 정렬·중복 제거 배열
+     */
+    int[] poolWith(Integer a, Integer b, Integer c) {
+        int[] pool = Arrays.copyOf(values, size + 3);
+        int n = size;
+        if (a != null) pool[n++] = a;
+        if (b != null) pool[n++] = b;
+        if (c != null) pool[n++] = c;
+        if (n == size) return Arrays.copyOf(pool, n);
+
+        Arrays.sort(pool, 0, n);
+        int w = 0;
+        for (int r = 0; r < n; r++) {
+            if (w > 0 && pool[w - 1] == pool[r]) continue;
+            pool[w++] = pool[r];
+        }
+        return Arrays.copyOf(pool, w);
+    }
+
+    /*
+     * 정렬된 후보 중 v와 같은 값을 뺀 상태의 최소/최대/개수 (실제로 지우지는 않음)
+     */
+    int countExcluding(Integer v) {
+        return (v != null && indexOf(v) >= 0) ? size - 1 : size;
+    }
+
+    int minExcluding(Integer v) {
+        for (int i = 0; i < size; i++) {
+            if (v == null || values[i] != v) return values[i];
+        }
+        throw new IllegalStateException("empty");
+    }
+
+    int maxExcluding(Integer v) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (v == null || values[i] != v) return values[i];
+        }
+        throw new IllegalStateException("empty");
+    }
+
+    // 오름차순으로 lo < x < hi 인 첫 값 (제외값 제외), 없으면 -1
+    int firstBetweenExcluding(int lo, int hi, Integer exclude) {
+        int i = Arrays.binarySearch(values, 0, size, lo + 1);
+        if (i < 0) i = -i - 1;
+        for (; i < size && values[i] < hi; i++) {
+            if (exclude != null && values[i] == exclude) continue;
+            if (values[i] > lo) return values[i];
+        }
+        return -1;
+    }
+
+    // target에서 band 이내인 후보 중 가장 가까운 값 (제외값 제외, 같은 거리면 작은 쪽), 없으면 -1
+    int nearestWithin(int target, int band, Integer exclude) {
+        int hi = Arrays.binarySearch(values, 0, size, target);
+        if (hi < 0) hi = -hi - 1;
+        int lo = hi - 1;
+        // 중복이 없으므로 제외값은 한 칸만 건너뛰면 된다
+        if (lo >= 0 && exclude != null && values[lo] == exclude) lo--;
+        if (hi < size && exclude != null && values[hi] == exclude) hi++;
+        long dLo = lo >= 0 ? (long) target - values[lo] : Long.MAX_VALUE;
+        long dHi = hi < size ? (long) values[hi] - target : Long.MAX_VALUE;
+        if (Math.min(dLo, dHi) > band) return -1;
+        return dLo <= dHi ? values[lo] : values[hi];
+    }
+
+    private int indexOf(int v) {
+        int i = Arrays.binarySearch(values, 0, size, v);
+        return i >= 0 ? i : -1;
+    }
+}
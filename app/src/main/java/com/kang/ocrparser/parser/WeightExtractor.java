@@ -1,113 +1,66 @@
 package com.kang.ocrparser.parser;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
 
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.metrics.Stage;
 import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.tare.TareIndex;
 
 public class WeightExtractor {
 
     // 숫자: 130 / 14080 / 5 900 / 12480 / 13 460 등
     // - 1~3자리 + (공백/쉼표) + 3자리 반복 OR 그냥 1~6자리
-    private static final String KG_NUM = "(\\d{1,3}(?:[\\s,]\\d{3})+|\\d{1,6})";
-
+    //   KG_NUM = (\d{1,3}(?:[\s,]\d{3})+|\d{1,6})
     // 라벨과 숫자 사이에 잡문자(시간은 TextNormalizer에서 제거됨)가 있어도 허용
-    private static final String GAP = "[^0-9]{0,50}?";
-
-    private static final int PATTERN_FLAGS = Pattern.MULTILINE;
-
-    private static final Pattern GROSS_PATTERN =
-            Pattern.compile("(총\\s*중\\s*량|총중량)\\s*[:]?\\s*" + GAP + KG_NUM + "\\s*kg", PATTERN_FLAGS);
+    //   GAP = [^0-9]{0,50}?
+    //
+    // 라벨(총중량/공차중량/차중량/실중량) 위치는 LabelScanner가 한 번에 찾고 (깨진 라벨은 FuzzyLabelScanner),
+    // 각 라벨 끝에서 \s*[:]?\s* GAP KG_NUM \s*kg 를, fallback은 텍스트 전체에서 KG_NUM \s*kg 를 찾는다.
+    // 정규식은 긴 숫자 묶음에서 역추적이 제곱으로 커져서 같은 규칙을 KgNumberScanner가 선형 시간에 맞춘다.
 
-    private static final Pattern TARE_PATTERN =
-            Pattern.compile("(공\\s*차\\s*중\\s*량|공차중량|차\\s*중\\s*량|차중량)\\s*[:]?\\s*" + GAP + KG_NUM + "\\s*kg", PATTERN_FLAGS);
+    // 라벨 하나를 확인하는 비용 (공백 + GAP 50자)
+    private static final int LABEL_STEPS = 64;
 
-    private static final Pattern NET_PATTERN =
-            Pattern.compile("(실\\s*중\\s*량|실중량)\\s*[:]?\\s*" + GAP + KG_NUM + "\\s*kg", PATTERN_FLAGS);
+    public static void extract(String normalizedText, ParsedTicket ticket) {
+        if (normalizedText == null || normalizedText.isEmpty() || ticket == null) return;
+        extract(normalizedText, LabelScanner.DEFAULT.scan(normalizedText), ticket);
+    }
 
-    private static final Pattern ANY_KG_PATTERN =
-            Pattern.compile(KG_NUM + "\\s*kg", PATTERN_FLAGS);
+    // labels: normalizedText를 LabelScanner로 스캔한 결과
+    public static void extract(String normalizedText, LabelMatches labels, ParsedTicket ticket) {
+        extract(normalizedText, labels, ticket, ParseBudget.unlimited());
+    }
 
-    public static void extract(String normalizedText, ParsedTicket ticket) {
+    // budget을 다 쓰면 ParseBudget.Exhausted (그때까지 채운 값은 ticket에 남아 있음)
+    static void extract(String normalizedText, LabelMatches labels, ParsedTicket ticket, ParseBudget budget) {
         if (normalizedText == null || normalizedText.isEmpty() || ticket == null) return;
 
-        // 1) normalizedText을 확인해서 문자열 값을 확인하고 그 안에 GROSS_PATTERN과 일치하는 값이 있으면 setGrossWeightKg에 저장
-        setIfFound(GROSS_PATTERN, normalizedText, ticket::setGrossWeightKg);
-        setIfFound(TARE_PATTERN, normalizedText, ticket::setTareWeightKg);
-        setIfFound(NET_PATTERN, normalizedText, ticket::setNetWeightKg);
+        // 1) 라벨 위치마다 뒤쪽 값을 확인하고, 처음 맞는 값이 있으면 setGrossWeightKg 등에 저장
+        KgNumberScanner value = new KgNumberScanner(normalizedText);
+        budget.charge(value.length());
+        setIfFound(value, labels, LabelScanner.Field.GROSS, ticket.getGrossWeightKg(), ticket::setGrossWeightKg, budget);
+        setIfFound(value, labels, LabelScanner.Field.TARE, ticket.getTareWeightKg(), ticket::setTareWeightKg, budget);
+        setIfFound(value, labels, LabelScanner.Field.NET, ticket.getNetWeightKg(), ticket::setNetWeightKg, budget);
 
         boolean needFallback =
                 ticket.getGrossWeightKg() == null
                         || ticket.getTareWeightKg() == null
                         || ticket.getNetWeightKg() == null;
 
+        // verified: 세 값이 모두 텍스트에서 나왔고 gross - tare = net (차량 이력에 넣어도 되는 값)
+        boolean verified;
         if (needFallback) {
-            List<Integer> weights = new ArrayList<>();
-
-            Matcher all = ANY_KG_PATTERN.matcher(normalizedText);
-            while (all.find()) {
-                String rawNum = all.group(1);
-
-                //  시간/콜론 근처 오염만 최소한으로 차단,회피
-                if (looksLikeTimeNoiseAround(normalizedText, all.start(), rawNum)) {
-                    continue;
-                }
-
-                Integer w = parseKg(rawNum);
-                if (w == null) continue;
-
-                // 너무 비현실적인 값만 배제
-                if (w < 1 || w > 300_000) continue;
-
-                weights.add(w);
-            }
-
-            if (!weights.isEmpty()) {
-                // 이미 확정된 gross/tare는 후보에서 제거 (net은 조합검증에 필요할 수 있어 유지)
-                removeIfEquals(weights, ticket.getGrossWeightKg());
-                removeIfEquals(weights, ticket.getTareWeightKg());
-
-                weights = distinctPreserveOrder(weights);
-                Collections.sort(weights);
-
-                // 2-1) 조합 검증 우선: gross > tare, net = gross - tare
-                fillByConsistentTriple(weights, ticket);
-
-                // 2-2) 그래도 비면 휴리스틱 채우기
-                List<Integer> weightsForHeuristic = new ArrayList<>(weights);
-                removeIfEquals(weightsForHeuristic, ticket.getNetWeightKg());
-                Collections.sort(weightsForHeuristic);
-
-                // gross 비면 최대값
-                if (ticket.getGrossWeightKg() == null && !weightsForHeuristic.isEmpty()) {
-                    ticket.setGrossWeightKg(weightsForHeuristic.get(weightsForHeuristic.size() - 1));
-                }
-
-                // tare 비면: gross & net이 있으면 (net, gross) 사이 값을 선택
-                if (ticket.getTareWeightKg() == null) {
-                    Integer g = ticket.getGrossWeightKg();
-                    Integer n = ticket.getNetWeightKg();
-
-                    if (g != null && n != null) {
-                        for (int v : weightsForHeuristic) {
-                            if (v > n && v < g) {
-                                ticket.setTareWeightKg(v);
-                                break;
-                            }
-                        }
-                    }
-
-                    // 마지막 안전장치: 최소값 (단, 후보가 2개 이상일 때)
-                    if (ticket.getTareWeightKg() == null && weightsForHeuristic.size() >= 2) {
-                        ticket.setTareWeightKg(weightsForHeuristic.get(0));
-                    }
-                }
-            }
+            ParseMetrics.weightFallbackRun();
+            long t0 = ParseMetrics.start();
+            verified = fallback(normalizedText, value, ticket, budget);
+            ParseMetrics.stop(Stage.WEIGHT_FALLBACK, t0);
+        } else {
+            verified = ticket.getGrossWeightKg() - ticket.getTareWeightKg() == ticket.getNetWeightKg();
+        }
+        if (verified) {
+            TareIndex tares = TareIndex.active();
+            if (tares != null) tares.record(ticket);
         }
 
         // 3-0) 공차중량이 없지만 gross/net이 있으면 tare = gross - net 로 복구
@@ -129,82 +82,193 @@ public class WeightExtractor {
         }
     }
 
-    private static void fillByConsistentTriple(List<Integer> candidates, ParsedTicket ticket) {
-        Integer g0 = ticket.getGrossWeightKg();
-        Integer t0 = ticket.getTareWeightKg();
-        Integer n0 = ticket.getNetWeightKg();
+    // 라벨로 못 채운 값: 텍스트 전체의 kg 후보로 조합 검증 → 휴리스틱 순으로 채운다 (조합 검증으로 채웠으면 true)
+    private static boolean fallback(String normalizedText, KgNumberScanner all, ParsedTicket ticket,
+                                 ParseBudget budget) {
+        WeightCandidates weights = new WeightCandidates();
 
-        List<Integer> pool = new ArrayList<>(candidates);
-        if (g0 != null) pool.add(g0);
-        if (t0 != null) pool.add(t0);
-        if (n0 != null) pool.add(n0);
+        for (int from = 0; all.find(from); from = all.end) {
+            int numStart = all.numStart;
+            int numEnd = all.numEnd;
+            budget.charge(1);
 
-        pool = distinctPreserveOrder(pool);
-        Collections.sort(pool);
+            //  시간/콜론 근처 오염만 최소한으로 차단,회피
+            if (looksLikeTimeNoiseAround(normalizedText, all.start, numStart, numEnd)) {
+                continue;
+            }
 
-        Set<Integer> poolSet = new HashSet<>(pool);
+            int w = parseKg(normalizedText, numStart, numEnd);
+            if (w < 0) continue;
 
-        for (int i = pool.size() - 1; i >= 0; i--) {
-            int gross = pool.get(i);
-            for (int j = 0; j < pool.size(); j++) {
-                int tare = pool.get(j);
-                if (gross <= tare) continue;
+            // 너무 비현실적인 값만 배제
+            if (w < 1 || w > 300_000) continue;
 
-                int net = gross - tare;
-                if (!poolSet.contains(net)) continue;
+            weights.add(w);
+        }
 
-                if (g0 != null && g0 != gross) continue;
-                if (t0 != null && t0 != tare) continue;
-                if (n0 != null && n0 != net) continue;
+        boolean triple = false;
+        if (weights.size() > 0) {
+            // 이미 확정된 gross/tare는 후보에서 제거 (net은 조합검증에 필요할 수 있어 유지)
+            // 정렬은 여기서 한 번만, 중복 제거는 제자리에서
+            weights.sortDistinctExcluding(ticket.getGrossWeightKg(), ticket.getTareWeightKg());
 
-                if (ticket.getGrossWeightKg() == null) ticket.setGrossWeightKg(gross);
-                if (ticket.getTareWeightKg() == null) ticket.setTareWeightKg(tare);
-                if (ticket.getNetWeightKg() == null) ticket.setNetWeightKg(net);
-                return;
+            // 2-0) 차량 이력(TareIndex)의 공차중량 근처 값이 후보에 있으면 tare로 확정
+            //      → 조합 검증이 tare 고정 경로(gross마다 O(log n))로 가고, 최소값 추측까지 가지 않는다
+            fillTareFromHistory(weights, ticket);
+
+            // 2-1) 조합 검증 우선: gross > tare, net = gross - tare
+            triple = fillByConsistentTriple(weights, ticket, budget);
+
+            // 2-2) 그래도 비면 휴리스틱 채우기 (확정된 net 값은 후보에서 제외하고 본다)
+            Integer net = ticket.getNetWeightKg();
+            int heuristicCount = weights.countExcluding(net);
+
+            // gross 비면 최대값
+            if (ticket.getGrossWeightKg() == null && heuristicCount > 0) {
+                ticket.setGrossWeightKg(weights.maxExcluding(net));
+            }
+
+            // tare 비면: gross & net이 있으면 (net, gross) 사이 값을 선택
+            if (ticket.getTareWeightKg() == null) {
+                Integer g = ticket.getGrossWeightKg();
+                Integer n = ticket.getNetWeightKg();
+
+                if (g != null && n != null) {
+                    int v = weights.firstBetweenExcluding(n, g, net);
+                    if (v >= 0) ticket.setTareWeightKg(v);
+                }
+
+                // 마지막 안전장치: 최소값 (단, 후보가 2개 이상일 때)
+                if (ticket.getTareWeightKg() == null && heuristicCount >= 2) {
+                    ticket.setTareWeightKg(weights.minExcluding(net));
+                }
             }
         }
+        return triple;
     }
 
-    private static void setIfFound(Pattern p, String text, java.util.function.Consumer<Integer> setter) {
-        Matcher m = p.matcher(text);
-        if (m.find()) {
-            // (라벨)(숫자) => group(2)가 숫자
-            Integer v = parseKg(m.group(2));
-            if (v != null) setter.accept(v);
-        }
+    /*
+     * 이력은 텍스트에 있는 후보 중 하나를 고르는 데만 쓴다 (후보에 없는 값을 지어내지 않음).
+     * gross와 net이 둘 다 있으면 tare = gross - net 이므로 보지 않는다.
+     */
+    private static void fillTareFromHistory(WeightCandidates weights, ParsedTicket ticket) {
+        TareIndex index = TareIndex.active();
+        if (index == null || ticket.getTareWeightKg() != null) return;
+        Integer g = ticket.getGrossWeightKg();
+        Integer n = ticket.getNetWeightKg();
+        if (g != null && n != null) return;
+
+        TareIndex.Hint hint = index.hint(ticket.getVehicleNumber());
+        if (hint == null) return;
+        int v = weights.nearestWithin(hint.typicalKg, hint.band(), n);
+        if (v <= 0 || (g != null && v >= g)) return;
+        ticket.setTareWeightKg(v);
+        ParseMetrics.tareIndexHit();
     }
 
-    private static void removeIfEquals(List<Integer> list, Integer v) {
-        if (v == null) return;
-        list.removeIf(x -> x != null && x.equals(v));
+    /*
+     * gross(큰 값부터) × tare(작은 값부터) 순으로 gross - tare = net 이 후보에 있는 첫 조합을 채운다.
+     * - 후보는 정렬된 int[] 하나, net 존재 확인은 이진 탐색
+     * - tare 또는 net이 라벨로 확정돼 있으면 tare가 하나로 정해지므로 gross마다 O(log n)
+     * - 아니면 gross마다 투 포인터로 "합이 gross인 가장 작은 tare"를 O(n)에 찾는다
+     * 첫 조합에서 바로 끝낸다.
+     */
+    private static boolean fillByConsistentTriple(WeightCandidates candidates, ParsedTicket ticket, ParseBudget budget) {
+        Integer g0 = ticket.getGrossWeightKg();
+        Integer t0 = ticket.getTareWeightKg();
+        Integer n0 = ticket.getNetWeightKg();
+
+        int[] pool = candidates.poolWith(g0, t0, n0);
+
+        for (int i = pool.length - 1; i >= 0; i--) {
+            int gross = pool[i];
+            if (g0 != null && g0 != gross) continue;
+
+            // 투 포인터는 gross마다 최대 i번 (후보가 비정상적으로 많으면 여기서 예산이 끝남)
+            budget.charge(t0 != null || n0 != null ? 1 : i + 1);
+            int tare = smallestConsistentTare(pool, i, t0, n0);
+            if (tare < 0) continue;
+
+            if (ticket.getGrossWeightKg() == null) ticket.setGrossWeightKg(gross);
+            if (ticket.getTareWeightKg() == null) ticket.setTareWeightKg(tare);
+            if (ticket.getNetWeightKg() == null) ticket.setNetWeightKg(gross - tare);
+            ParseMetrics.weightTripleHit();
+            return true;
+        }
+        return false;
     }
 
-    private static Integer parseKg(String s) {
-        if (s == null) return null;
-        s = s.trim();
-        if (s.isEmpty()) return null;
+    // pool[grossIdx]에 대해 tare < gross, gross - tare ∈ pool, 확정값 조건을 만족하는 가장 작은 tare (없으면 -1)
+    private static int smallestConsistentTare(int[] pool, int grossIdx, Integer t0, Integer n0) {
+        int gross = pool[grossIdx];
 
-        // 쉼표 제거
-        s = s.replace(",", "");
+        if (t0 != null || n0 != null) {
+            long tare = t0 != null ? t0 : (long) gross - n0;
+            if (tare >= gross || tare < 0) return -1;
+            if (Arrays.binarySearch(pool, (int) tare) < 0) return -1;
 
-        // 천 단위 공백/탭 등 제거
-        s = s.replaceAll("\\s+", "");
+            long net = gross - tare;
+            if (n0 != null && n0 != net) return -1;
+            if (Arrays.binarySearch(pool, (int) net) < 0) return -1;
+            return (int) tare;
+        }
+
+        // tare + net = gross 인 쌍 중 작은 쪽이 가장 작은 것 (tare == net 허용)
+        int lo = 0;
+        int hi = grossIdx;
+        while (lo <= hi) {
+            long sum = (long) pool[lo] + pool[hi];
+            if (sum == gross) {
+                return pool[lo] < gross ? pool[lo] : -1;
+            }
+            if (sum < gross) lo++;
+            else hi--;
+        }
+        return -1;
+    }
 
-        try {
-            return Integer.parseInt(s);
-        } catch (NumberFormatException e) {
-            return null;
+    /*
+     * 정규식 find()처럼 라벨 시작 위치 순으로 시도해서 처음 맞는 값 하나만 쓴다.
+     * (같은 끝 위치의 라벨 - 예: 공차중량 안의 차중량 - 은 결과가 같으므로 한 번만 시도)
+     * 이미 값이 있으면(레이아웃 모드에서 좌표로 찾은 값) 덮어쓰지 않는다.
+     */
+    private static void setIfFound(KgNumberScanner value, LabelMatches labels, LabelScanner.Field field,
+                                   Integer current, java.util.function.Consumer<Integer> setter, ParseBudget budget) {
+        if (current != null) return;
+        int lastEnd = -1;
+        for (int idx : labels.inOrder(field)) {
+            int end = labels.end(idx);
+            if (end == lastEnd) continue;
+            lastEnd = end;
+
+            budget.charge(LABEL_STEPS);
+            if (value.valueAfterLabel(end)) {
+                // KG_NUM 부분이 숫자
+                int v = parseKg(value.text(), value.numStart, value.numEnd);
+                if (v >= 0) {
+                    setter.accept(v);
+                    if (labels.distance(idx) > 0) ParseMetrics.fuzzyLabelHit(labels.distance(idx));
+                }
+                return;
+            }
         }
     }
 
-    private static List<Integer> distinctPreserveOrder(List<Integer> list) {
-        List<Integer> out = new ArrayList<>();
-        Set<Integer> seen = new HashSet<>();
-        for (Integer v : list) {
-            if (v == null) continue;
-            if (seen.add(v)) out.add(v);
+    /*
+     * text[from, to)의 숫자만 이어서 읽는다 (쉼표/공백 등 천 단위 구분자는 건너뜀, 부분 문자열을 만들지 않음)
+     * 숫자가 없거나 int 범위를 넘으면 -1
+     */
+    private static int parseKg(CharSequence text, int from, int to) {
+        long v = 0;
+        boolean any = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') continue;
+            v = v * 10 + (c - '0');
+            if (v > Integer.MAX_VALUE) return -1;
+            any = true;
         }
-        return out;
+        return any ? (int) v : -1;
     }
 
     /*
@@ -212,19 +276,45 @@ public class WeightExtractor {
      * looksLikeTimeNoiseAround에서 시간관련 숫자들을 차단하여 회피하는방식으로 구성
      * (시간 자체는 TextNormalizer에서 제거하지만, OCR 깨짐으로 콜론이 남는 경우 방어)
      */
-    private static boolean looksLikeTimeNoiseAround(String text, int matchStart, String rawNum) {
-        if (text == null || rawNum == null) return false;
+    private static boolean looksLikeTimeNoiseAround(String text, int matchStart, int numStart, int numEnd) {
+        if (text == null) return false;
 
         // 공백 포함 숫자에서 주로 문제 발생 (예: "18 997")
-        if (!rawNum.contains(" ")) return false;
+        if (!containsSpace(text, numStart, numEnd)) return false;
 
         int from = Math.max(0, matchStart - 25);
-        String left = text.substring(from, matchStart);
 
         // 예: "... 05:26: 18 997 kg" / "... 05:26 18 997 kg"
-        if (left.matches(".*\\d{1,2}:\\d{2}\\s*$")) return true;
-        if (left.matches(".*\\d{1,2}:\\s*$")) return true;
+        // (기존 .*\d{1,2}:\d{2}\s*$ / .*\d{1,2}:\s*$ 를 [from, matchStart) 끝에서 거꾸로 확인)
+        int e = matchStart;
+        while (e > from && LabelScanner.isSpace(text.charAt(e - 1))) e--;
 
+        if (e - 4 >= from && isDigit(text.charAt(e - 1)) && isDigit(text.charAt(e - 2))
+                && text.charAt(e - 3) == ':' && isDigit(text.charAt(e - 4))
+                && !containsLineTerminator(text, from, e - 4)) return true;
+        if (e - 2 >= from && text.charAt(e - 1) == ':' && isDigit(text.charAt(e - 2))
+                && !containsLineTerminator(text, from, e - 2)) return true;
+
+        return false;
+    }
+
+    // 정규식 . 이 못 넘는 글자 (.* 가 [from, to)를 덮을 수 있는지)
+    private static boolean containsLineTerminator(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean containsSpace(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == ' ') return true;
+        }
         return false;
     }
 }
@@ -0,0 +1,122 @@
+package com.kang.ocrparser.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * ParseDaemon 클라이언트 + 소켓 프로토콜 정의.
+ *
+ *   요청: UTF input 절대경로, UTF output 절대경로, boolean layout
+ *   응답: byte status, UTF message (OK면 저장한 절대경로)
+ *
+ * 파서/Jackson을 참조하지 않는다 → 데몬 경로로 끝나는 클라이언트 JVM은 이 클래스와 JDK만 로딩한다.
+ */
+public final class DaemonClient {
+
+    public static final byte OK = 0;
+    public static final byte NOT_FOUND = 1;
+    public static final byte ERROR = 2;
+    public static final byte BUSY = 3;
+    // 요청은 보냈는데 응답을 못 받음 (끊김/시간 초과): 데몬이 이미 출력을 썼을 수도 있다. 클라이언트 쪽에서만 쓰는 값
+    public static final byte NO_REPLY = 4;
+
+    // 데몬이 멈춰 있을 때 클라이언트가 기다리는 시간
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    public static final class Reply {
+        public final byte status;
+        public final String message;
+
+        Reply(byte status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    private DaemonClient() {
+    }
+
+    // <tmpdir>/ocrparser-<user>.sock (사용자마다 따로)
+    public static Path defaultSocket() {
+        return Path.of(System.getProperty("java.io.tmpdir"), "ocrparser-" + System.getProperty("user.name") + ".sock");
+    }
+
+    public static Reply forward(Path socket, Path input, Path output, boolean layout) {
+        return forward(socket, input, output, layout, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /*
+     * 데몬에 파싱을 맡긴다. 데몬이 없거나(소켓 없음/연결 거부), 요청을 다 보내지 못했거나, 바쁘면 null
+     * → 데몬은 아무것도 쓰지 않았으니 호출 측이 자기 프로세스에서 파싱한다.
+     * 요청을 보낸 뒤 끊기거나 timeoutMillis 안에 응답이 없으면 NO_REPLY: 다시 써도 되는 출력(.json)만
+     * 직접 파싱하고, 추가하는 출력(.tka)은 같은 티켓이 두 번 들어갈 수 있으므로 오류로 끝낸다 (appends()).
+     * 경로는 데몬의 작업 디렉토리와 무관하도록 절대경로로 보낸다.
+     */
+    public static Reply forward(Path socket, Path input, Path output, boolean layout, long timeoutMillis) {
+        if (!Files.exists(socket)) return null;
+        SocketChannel ch;
+        try {
+            ch = SocketChannel.open(StandardProtocolFamily.UNIX);
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            try {
+                ch.connect(UnixDomainSocketAddress.of(socket));
+
+                DataOutputStream out = new DataOutputStream(Channels.newOutputStream(ch));
+                out.writeUTF(input.toAbsolutePath().toString());
+                out.writeUTF(output.toAbsolutePath().toString());
+                out.writeBoolean(layout);
+                out.flush();
+            } catch (IOException e) {
+                return null;
+            }
+
+            // 블로킹 채널 스트림에는 읽기 타임아웃이 없으므로 시간이 지나면 채널을 닫아 읽기를 깨운다
+            Thread watchdog = new Thread(() -> {
+                try {
+                    Thread.sleep(timeoutMillis);
+                    closeQuietly(ch);
+                } catch (InterruptedException ignore) {
+                    // 제시간에 응답이 왔다
+                }
+            }, "daemon-client-timeout");
+            watchdog.setDaemon(true);
+            watchdog.start();
+            try {
+                DataInputStream in = new DataInputStream(Channels.newInputStream(ch));
+                byte status = in.readByte();
+                String message = in.readUTF();
+                return status == BUSY ? null : new Reply(status, message);
+            } catch (IOException e) {
+                return new Reply(NO_REPLY, "no reply from daemon on " + socket + " (" + e.getClass().getSimpleName() + ")");
+            } finally {
+                watchdog.interrupt();
+            }
+        } finally {
+            closeQuietly(ch);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignore) {
+            // 닫는 중 오류는 무시
+        }
+    }
+
+    // 같은 요청을 두 번 처리하면 결과가 달라지는 출력 (아카이브는 행을 추가한다)
+    public static boolean appends(Path output) {
+        Path name = output.getFileName();
+        return name != null && name.toString().toLowerCase().endsWith(".tka");
+    }
+}
@@ -0,0 +1,520 @@
+package com.kang.ocrparser.server;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.kang.ocrparser.batch.BatchRecord;
+import com.kang.ocrparser.batch.BatchRunner;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.metrics.LatencyHistogram;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+
+/*
+ * 감시 폴더 수집: OCR 클라이언트가 공유 폴더에 떨어뜨린 응답 파일을 바로 파싱한다 (cron 주기 대신).
+ *
+ *   WatchService ──▶ 감시 스레드 (안정화 대기) ──▶ 워커 풀 ──▶ 결과 쓰기 → 입력을 done/ (실패는 failed/)
+ *
+ * - 대상: inbox 바로 아래의 .json/.txt (.gz 포함). 하위 디렉토리와 다른 확장자(.tmp, .part 등)는 보지 않는다
+ * - 안정화: 파일에 마지막 이벤트가 온 뒤 settleMillis 동안 크기와 수정 시각이 그대로여야 읽는다
+ *   (쓰는 중인 파일을 읽지 않게). 클라이언트가 다른 이름으로 쓰고 rename하면 그 대기도 짧게 끝난다
+ * - 워커 풀은 고정 크기, 한 번에 맡기는 파일은 threads + queue개까지. 나머지는 감시 스레드의 대기열에 남아서
+ *   파일 수천 개가 한꺼번에 와도 감시 스레드가 막히지 않고 이벤트를 계속 받는다
+ * - 결과: 출력 디렉토리면 <이름>.out.json을 임시 파일에 쓰고 ATOMIC_MOVE, .ndjson/.jsonl이면 한 줄 추가
+ *   (source = 입력 파일 이름). 그 다음 입력을 done/ 또는 failed/로 ATOMIC_MOVE (inbox와 같은 파일 시스템이어야 함)
+ * - 시작할 때, 이벤트가 넘칠 때(OVERFLOW), 그리고 안정화 대기 RESCAN_EVERY_SETTLES번(최소 1초)마다
+ *   inbox를 다시 훑어서 밀린 파일을 수정 시각 순으로 넣는다 (NFS/SMB처럼 이벤트가 오지 않는 공유 폴더).
+ *   결과를 쓰고 입력을 옮기기 전에 죽으면 다음 시작 때 다시 처리한다 (최소 한 번)
+ * - 크기/수정 시각을 읽지 못하면(없어진 경우 말고) 버리지 않고 잠시 뒤 다시 본다
+ * - 처리가 끝났는데 done/(또는 failed/)으로 옮기지 못한 파일은 처리(실패)한 것으로 한 번만 세고,
+ *   크기/수정 시각이 그대로인 채 다시 보이면 파싱 없이 옮기기만 다시 한다 (바뀌었으면 새 파일로 처리)
+ * - 출력 디렉토리 모드에서 다른 입력이 같은 결과 이름을 쓰면(a.json, a.txt → a.out.json) 뒤의 것은 실패로 돌린다.
+ *   같은 입력 이름으로 다시 보낸 것은 덮어쓴다
+ */
+public class FolderWatcher {
+
+    public static final long DEFAULT_SETTLE_MILLIS = 20;
+
+    // 주기적으로 inbox를 다시 훑는 간격 = 안정화 대기 × 이 값 (최소 RESCAN_MIN_NANOS)
+    static final int RESCAN_EVERY_SETTLES = 100;
+    private static final long RESCAN_MIN_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // 속성 읽기가 실패한 파일을 다시 보기까지
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Path inbox;
+    private final Path output;
+    private final boolean ndjson;
+    private final Path done;
+    private final Path failed;
+    private final ParseCache cache;
+    private final long settleNanos;
+    private final long rescanNanos;
+
+    private final ThreadPoolExecutor workers;
+    private final Semaphore slots;
+    private final int capacity;
+
+    // 감시 스레드만 건드린다
+    private final Map<Path, Pending> pending = new HashMap<>();
+    private final ArrayDeque<Pending> ready = new ArrayDeque<>();
+    // 워커에 맡긴 파일 (끝나서 옮겨질 때까지 다시 넣지 않는다)
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    // 처리는 끝났지만 done/ 또는 failed/로 옮기지 못한 파일
+    private final Map<Path, Unmoved> unmoved = new ConcurrentHashMap<>();
+    // 출력 디렉토리 모드: 결과 이름(소문자) → 그 이름을 처음 쓴 입력 파일 이름
+    private final Map<String, String> outputOwners = new ConcurrentHashMap<>();
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rescans = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private WatchService watch;
+    private Thread watcher;
+    private BufferedWriter ndjsonOut;
+    private BufferedWriter failureLog;
+
+    // 이벤트가 온 파일 하나: 마지막으로 본 크기/수정 시각과 읽어도 되는 시각
+    private static final class Pending {
+        final Path file;
+        final long firstSeen;
+        long deadline;
+        long size = -1;
+        long modified = -1;
+
+        Pending(Path file, long now) {
+            this.file = file;
+            this.firstSeen = now;
+        }
+    }
+
+    // 옮기지 못한 파일: 처리할 때의 크기/수정 시각과 옮길 곳
+    private static final class Unmoved {
+        final Path dir;
+        final long size;
+        final long modified;
+
+        Unmoved(Path dir, Pending p) {
+            this.dir = dir;
+            this.size = p.size;
+            this.modified = p.modified;
+        }
+    }
+
+    /*
+     * output: 결과 디렉토리 또는 .ndjson/.jsonl 파일
+     * done/failed: null이면 inbox/done, inbox/failed
+     * cache: null이면 캐시 없이 매번 파싱
+     */
+    public FolderWatcher(Path inbox, Path output, Path done, Path failed, int threads, int queue,
+            long settleMillis, ParseCache cache) {
+        this.inbox = inbox.toAbsolutePath().normalize();
+        this.output = output;
+        this.ndjson = BatchRunner.isNdjsonOutput(output);
+        this.done = done != null ? done : this.inbox.resolve("done");
+        this.failed = failed != null ? failed : this.inbox.resolve("failed");
+        this.cache = cache;
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, settleMillis));
+        this.rescanNanos = Math.max(settleNanos * RESCAN_EVERY_SETTLES, RESCAN_MIN_NANOS);
+
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.capacity = n + (queue > 0 ? queue : n * 4);
+        this.slots = new Semaphore(capacity);
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "watch-worker-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public void start() throws IOException {
+        Files.createDirectories(inbox);
+        Files.createDirectories(done);
+        Files.createDirectories(failed);
+        if (ndjson) {
+            Path parent = output.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            ndjsonOut = Files.newBufferedWriter(output, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } else {
+            Files.createDirectories(output);
+        }
+        failureLog = Files.newBufferedWriter(failed.resolve("failures.txt"), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        ParseServer.warmUp();
+        ParseMetrics.reset();
+
+        // 등록 먼저, 그 다음 목록: 사이에 들어온 파일은 이벤트나 목록 둘 중 하나로 잡힌다 (중복은 pending에서 합쳐짐)
+        watch = FileSystems.getDefault().newWatchService();
+        inbox.register(watch, ENTRY_CREATE, ENTRY_MODIFY);
+        rescan(System.nanoTime());
+
+        watcher = new Thread(this::watchLoop, "watch-folder");
+        watcher.start();
+    }
+
+    // 감시를 멈추고 이미 맡긴 파일은 끝까지 처리한다 (대기열에 남은 파일은 다음 시작 때 다시 잡힌다)
+    public void stop() throws InterruptedException {
+        try {
+            if (watch != null) watch.close();
+        } catch (IOException ignore) {
+            // 닫는 중 오류는 무시
+        }
+        if (watcher != null) watcher.join();
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        closeQuietly(ndjsonOut);
+        closeQuietly(failureLog);
+    }
+
+    public Stats stats() {
+        return new Stats(processed.sum(), failures.sum(), rescans.sum(), latency.count(),
+                latency.percentileNanos(0.5), latency.percentileNanos(0.99), latency.maxNanos());
+    }
+
+    public int threads() {
+        return workers.getMaximumPoolSize();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long settleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(settleNanos);
+    }
+
+    public Path done() {
+        return done;
+    }
+
+    public Path failed() {
+        return failed;
+    }
+
+    public static class Stats {
+        public final long processed;
+        public final long failed;
+        public final long rescans;
+        // 처음 본 때부터 결과를 쓰고 입력을 옮길 때까지 (안정화 대기 포함)
+        public final long latencyCount;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+
+        Stats(long processed, long failed, long rescans, long latencyCount, long p50Nanos, long p99Nanos,
+                long maxNanos) {
+            this.processed = processed;
+            this.failed = failed;
+            this.rescans = rescans;
+            this.latencyCount = latencyCount;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "processed=" + processed + " failed=" + failed + " rescans=" + rescans
+                    + String.format(" latency p50=%.1fms p99=%.1fms max=%.1fms",
+                            p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6);
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            long nextRescan = System.nanoTime() + rescanNanos;
+            while (true) {
+                long now = System.nanoTime();
+                if (now - nextRescan >= 0) {
+                    try {
+                        rescan(now);
+                    } catch (IOException e) {
+                        System.err.println("[WARN]   rescan of " + inbox + " failed: " + BatchRunner.describe(e));
+                    }
+                    nextRescan = now + rescanNanos;
+                }
+                settle(now);
+                dispatch();
+
+                // 다음 안정화 시각(또는 다시 훑을 시각)까지 기다린다. 워커 자리가 없어 대기 중인 파일이 있으면 짧게
+                long wait = ready.isEmpty()
+                        ? Math.min(nextDeadline(now), Math.max(1, nextRescan - now))
+                        : TimeUnit.MILLISECONDS.toNanos(2);
+                WatchKey key = watch.poll(wait, TimeUnit.NANOSECONDS);
+                if (key == null) continue;
+
+                now = System.nanoTime();
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        overflow = true;
+                    } else {
+                        seen(inbox.resolve((Path) event.context()), now);
+                    }
+                }
+                if (overflow) rescan(now);
+                if (!key.reset()) return; // inbox가 지워졌다
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // stop()
+        } catch (IOException e) {
+            System.err.println("[WARN]   watch stopped: " + BatchRunner.describe(e));
+        }
+    }
+
+    // 이벤트를 놓쳤을 수 있을 때: inbox의 대상 파일을 수정 시각 순으로 다시 넣는다
+    private void rescan(long now) throws IOException {
+        rescans.increment();
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> s = Files.list(inbox)) {
+            s.filter(FolderWatcher::isTarget).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(FolderWatcher::modifiedOrZero));
+        for (Path f : files) seen(f, now);
+    }
+
+    // 이벤트마다 크기/수정 시각을 적어 두고 마감을 미룬다
+    private void seen(Path file, long now) {
+        if (!isTarget(file)) return;
+        Pending p = pending.get(file);
+        if (p == null) {
+            p = new Pending(file, now);
+            pending.put(file, p);
+        }
+        try {
+            BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+            p.size = a.size();
+            p.modified = a.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            // 마감 때 다시 본다
+        }
+        p.deadline = now + settleNanos;
+    }
+
+    // 마감이 지난 파일: 크기/수정 시각이 마지막 이벤트 때와 같으면 ready로, 달라졌으면 한 번 더 기다린다
+    private void settle(long now) {
+        for (Iterator<Pending> it = pending.values().iterator(); it.hasNext();) {
+            Pending p = it.next();
+            if (p.deadline > now) continue;
+            if (inFlight.contains(p.file)) {
+                // 처리 중에 같은 이름으로 다시 썼을 수 있다: 끝나고 옮겨진 뒤에도 남아 있으면 새 파일
+                p.deadline = now + Math.max(settleNanos, TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            BasicFileAttributes a;
+            try {
+                a = Files.readAttributes(p.file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                it.remove(); // 그 사이 지워졌거나 옮겨졌다
+                continue;
+            } catch (IOException e) {
+                p.deadline = now + Math.max(settleNanos, RETRY_NANOS); // 공유 폴더의 일시적인 오류일 수 있다
+                continue;
+            }
+            if (!a.isRegularFile()) {
+                it.remove();
+                continue;
+            }
+            long size = a.size();
+            long modified = a.lastModifiedTime().toMillis();
+            if (size != p.size || modified != p.modified) {
+                // 이벤트 없이 바뀌었다 (이벤트가 늦었거나 합쳐짐)
+                p.size = size;
+                p.modified = modified;
+                p.deadline = now + Math.max(settleNanos, TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            Unmoved u = unmoved.get(p.file);
+            if (u != null) {
+                it.remove();
+                if (u.size == size && u.modified == modified) {
+                    // 이미 처리(또는 실패 기록)했다: 옮기기만 다시, 안 되면 다음에 다시 훑을 때
+                    try {
+                        moveTo(p.file, u.dir);
+                        unmoved.remove(p.file);
+                    } catch (IOException e) {
+                        // 그대로 둔다
+                    }
+                    continue;
+                }
+                unmoved.remove(p.file); // 같은 이름의 새 파일
+                ready.add(p);
+                continue;
+            }
+            it.remove();
+            ready.add(p);
+        }
+    }
+
+    private long nextDeadline(long now) {
+        long next = Long.MAX_VALUE;
+        for (Pending p : pending.values()) next = Math.min(next, p.deadline);
+        return next == Long.MAX_VALUE ? next : Math.max(1, next - now);
+    }
+
+    private void dispatch() {
+        while (!ready.isEmpty() && slots.tryAcquire()) {
+            Pending p = ready.poll();
+            if (!inFlight.add(p.file)) {
+                // 다시 훑을 때 한 번 더 들어온 파일: 지금 처리가 끝난 뒤에 다시 본다
+                slots.release();
+                seen(p.file, System.nanoTime());
+                continue;
+            }
+            workers.execute(() -> {
+                try {
+                    process(p);
+                } finally {
+                    inFlight.remove(p.file);
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    private void process(Pending p) {
+        Path in = p.file;
+        String name = in.getFileName().toString();
+        ParsedTicket ticket;
+        try {
+            ticket = cache != null ? cache.parseFile(in) : WeighingParser.parse(OcrTextReader.read(in));
+        } catch (NoSuchFileException e) {
+            return; // 다른 쪽에서 가져갔다
+        } catch (IOException | RuntimeException e) {
+            fail(p, BatchRunner.describe(e));
+            return;
+        }
+        if (!ndjson) {
+            String out = BatchRunner.outputName(in);
+            String first = outputOwners.putIfAbsent(out.toLowerCase(Locale.ROOT), name);
+            if (first != null && !first.equals(name)) {
+                fail(p, "output name " + out + " already used by " + first);
+                return;
+            }
+        }
+        try {
+            writeResult(name, ticket);
+        } catch (IOException e) {
+            fail(p, "output: " + BatchRunner.describe(e));
+            return;
+        }
+        processed.increment();
+        try {
+            moveTo(in, done);
+        } catch (IOException e) {
+            // 결과는 남았으므로 실패로 세지 않는다. 다음에 다시 훑을 때 옮기기만 다시 한다
+            unmoved.put(in, new Unmoved(done, p));
+            System.err.println("[WARN]   result written but cannot move " + in + " to " + done + ": "
+                    + BatchRunner.describe(e));
+        }
+        latency.record(System.nanoTime() - p.firstSeen);
+    }
+
+    private void writeResult(String name, ParsedTicket ticket) throws IOException {
+        if (ndjson) {
+            String line = TicketJson.write(TicketJson.COMPACT, new BatchRecord(name, ticket));
+            synchronized (ndjsonOut) {
+                ndjsonOut.write(line);
+                ndjsonOut.write('\n');
+                ndjsonOut.flush();
+            }
+            return;
+        }
+        // 결과 폴더를 보는 쪽이 쓰다 만 파일을 읽지 않게 임시 이름으로 쓰고 옮긴다
+        Path out = output.resolve(BatchRunner.outputName(Path.of(name)));
+        Path tmp = output.resolve(out.getFileName() + ".tmp-" + Thread.currentThread().getId());
+        Files.writeString(tmp, TicketJson.write(TicketJson.PRETTY, ticket), StandardCharsets.UTF_8);
+        Files.move(tmp, out, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void fail(Pending p, String reason) {
+        failures.increment();
+        try {
+            synchronized (failureLog) {
+                failureLog.write(p.file.getFileName() + "\t" + reason + "\n");
+                failureLog.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("[WARN]   cannot write " + failed.resolve("failures.txt") + ": " + BatchRunner.describe(e));
+        }
+        try {
+            moveTo(p.file, failed);
+        } catch (IOException e) {
+            // 다시 훑을 때 또 파싱해서 두 번 세지 않도록, 바뀌지 않은 채 다시 보이면 옮기기만 다시 한다
+            unmoved.put(p.file, new Unmoved(failed, p));
+            System.err.println("[WARN]   cannot move " + p.file + " to " + failed + ": " + BatchRunner.describe(e));
+        }
+    }
+
+    // 같은 이름이 이미 있으면 덮어쓴다 (같은 티켓을 다시 보낸 경우)
+    private static void moveTo(Path in, Path dir) throws IOException {
+        Files.move(in, dir.resolve(in.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean isTarget(Path p) {
+        Path file = p.getFileName();
+        if (file == null) return false;
+        String name = file.toString().toLowerCase();
+        // 숨김 파일, 결과 파일(출력 폴더를 inbox로 잡은 경우)은 입력이 아니다
+        if (name.startsWith(".") || name.endsWith(".out.json")) return false;
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        return name.endsWith(".json") || name.endsWith(".txt");
+    }
+
+    private static long modifiedOrZero(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void closeQuietly(BufferedWriter w) {
+        if (w == null) return;
+        try {
+            w.close();
+        } catch (IOException ignore) {
+            // 종료 중이므로 무시
+        }
+    }
+}
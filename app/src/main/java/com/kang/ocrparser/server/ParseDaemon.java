@@ -0,0 +1,210 @@
+package com.kang.ocrparser.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kang.ocrparser.batch.BatchRunner;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.model.ParsedTicket;
+
+/*
+ * 상주 파싱 데몬 (유닉스 도메인 소켓, JDK 16+ UnixDomainSocketAddress)
+ *
+ * 계량대 PC 스크립트가 티켓마다 JVM을 새로 띄우는 대신, --client가 입력/출력 경로만 소켓으로 넘긴다.
+ * 파일 읽기 → 파싱 → 출력 쓰기는 단건 CLI와 같은 규칙(BatchRunner.parseOne/writeOne)으로 데몬이 한다.
+ *
+ * - 연결 수락은 전용 스레드, 처리는 고정 크기 워커 풀. 풀이 꽉 차면 BUSY → 클라이언트가 직접 파싱
+ * - 소켓 파일은 소유자만 읽고 쓸 수 있게 한다 (POSIX일 때). 소유자 전용 디렉터리에서 만들어 권한을 건 뒤 제자리로 옮기므로
+ *   기본 umask 권한으로 열려 있는 순간이 없다. 남아 있던 소켓 파일은 아무도 안 받으면 지우고 시작
+ */
+public class ParseDaemon {
+
+    private final Path socket;
+    private final ParseCache cache;
+    private final ThreadPoolExecutor workers;
+    private ServerSocketChannel server;
+    private Thread acceptor;
+
+    // cache: null이면 캐시 없이 매번 파싱
+    public ParseDaemon(Path socket, int concurrency, ParseCache cache) {
+        this.socket = socket.toAbsolutePath();
+        this.cache = cache;
+        int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                r -> {
+                    Thread t = new Thread(r, "daemon-worker-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void start() throws IOException {
+        ParseServer.warmUp();
+        ParseMetrics.reset();
+
+        removeStaleSocket();
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            bind();
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+
+        acceptor = new Thread(this::acceptLoop, "daemon-accept");
+        acceptor.start();
+    }
+
+    public void stop() {
+        try {
+            if (server != null) server.close();
+        } catch (IOException ignore) {
+            // 닫는 중 오류는 무시
+        }
+        workers.shutdown();
+        try {
+            Files.deleteIfExists(socket);
+        } catch (IOException ignore) {
+            // 다음 시작 때 removeStaleSocket이 지운다
+        }
+    }
+
+    public Path socket() {
+        return socket;
+    }
+
+    public int concurrency() {
+        return workers.getMaximumPoolSize();
+    }
+
+    /*
+     * 0700 임시 디렉터리(소켓 옆) 안에서 bind → 0600 → 소켓 경로로 rename.
+     * 디렉터리를 지나갈 권한이 없으니 권한을 걸기 전 소켓에 다른 사용자가 연결할 수 없다.
+     */
+    private void bind() throws IOException {
+        Path dir;
+        try {
+            dir = Files.createTempDirectory(socket.getParent(), ".ocrd",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            // POSIX가 아닌 파일 시스템: 권한 없이 바로
+            server.bind(UnixDomainSocketAddress.of(socket));
+            return;
+        }
+        Path tmp = dir.resolve("s");
+        try {
+            server.bind(UnixDomainSocketAddress.of(tmp));
+            Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+            Files.move(tmp, socket, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private void removeStaleSocket() throws IOException {
+        if (!Files.exists(socket)) return;
+        boolean live;
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            probe.connect(UnixDomainSocketAddress.of(socket));
+            live = true;
+        } catch (IOException e) {
+            live = false;
+        }
+        if (live) throw new IOException("daemon already running on " + socket);
+        Files.deleteIfExists(socket);
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            SocketChannel ch;
+            try {
+                ch = server.accept();
+            } catch (AsynchronousCloseException e) {
+                return;
+            } catch (IOException e) {
+                continue;
+            }
+            try {
+                workers.execute(() -> serve(ch));
+            } catch (RejectedExecutionException e) {
+                reject(ch);
+            }
+        }
+    }
+
+    // 한 연결에서 요청 여러 개를 차례로 처리 (--client는 하나 보내고 끊는다)
+    private void serve(SocketChannel ch) {
+        try (ch) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(ch));
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(ch));
+            while (true) {
+                Path input;
+                Path output;
+                boolean layout;
+                try {
+                    input = Path.of(in.readUTF());
+                    output = Path.of(in.readUTF());
+                    layout = in.readBoolean();
+                } catch (EOFException e) {
+                    return;
+                }
+                handle(input, output, layout, out);
+                out.flush();
+            }
+        } catch (IOException ignore) {
+            // 클라이언트가 먼저 끊음 → 클라이언트 쪽에서 직접 파싱한다
+        }
+    }
+
+    private void handle(Path input, Path output, boolean layout, DataOutputStream out) throws IOException {
+        if (!Files.exists(input)) {
+            out.writeByte(DaemonClient.NOT_FOUND);
+            out.writeUTF(input.toString());
+            return;
+        }
+        try {
+            ParsedTicket ticket = BatchRunner.parseOne(input, cache, layout);
+            BatchRunner.writeOne(output, ticket);
+        } catch (IOException | RuntimeException e) {
+            out.writeByte(DaemonClient.ERROR);
+            out.writeUTF(e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage()));
+            return;
+        }
+        out.writeByte(DaemonClient.OK);
+        out.writeUTF(output.toString());
+    }
+
+    private static void reject(SocketChannel ch) {
+        try (ch) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(ch));
+            out.writeByte(DaemonClient.BUSY);
+            out.writeUTF("daemon busy");
+            out.flush();
+        } catch (IOException ignore) {
+            // 클라이언트는 끊긴 것으로 보고 직접 파싱한다
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.kang.ocrparser.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.kang.ocrparser.batch.BatchRecord;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * 상주형 HTTP 파싱 서버 (JDK 내장 com.sun.net.httpserver, 추가 의존성 없음)
+ *
+ *   POST /parse        본문: OCR 텍스트 또는 제공사 JSON → ParsedTicket JSON
+ *   POST /parse/batch  본문: NDJSON(한 줄에 JSON 하나) → 결과 NDJSON을 줄 단위로 스트리밍
+ *                      (MAX_BODY_BYTES를 넘는 줄은 읽지 않고 {"source":"N","error":"line too long"})
+ *
+ * 요청 수락은 HttpServer 디스패처 스레드에서 바로 하고, 실제 파싱은 고정 크기 워커 풀
+ * (동시 처리 수 + 대기열 길이 제한)에서 한다. 풀이 꽉 차면 기다리지 않고 503을 돌려준다.
+ * 컴파일된 Pattern / ObjectWriter는 전역 static이라 요청 간에 그대로 재사용된다.
+ * ParseCache를 주면 같은 본문(또는 같은 OCR 텍스트)은 다시 파싱하지 않는다.
+ */
+public class ParseServer {
+
+    // /parse 본문, /parse/batch 한 줄의 최대 크기 (제공사 응답이 보통 100~190KB)
+    private static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    // readLine: 상한을 넘은 줄 (나머지는 읽어서 버림)
+    private static final byte[] TOO_LONG = new byte[0];
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final ParseCache cache;
+
+    public ParseServer(int port, int concurrency, int queueDepth) throws IOException {
+        this(port, concurrency, queueDepth, null);
+    }
+
+    // cache: null이면 캐시 없이 매번 파싱
+    public ParseServer(int port, int concurrency, int queueDepth, ParseCache cache) throws IOException {
+        this.cache = cache;
+        int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        int depth = queueDepth > 0 ? queueDepth : threads * 4;
+
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(depth),
+                r -> {
+                    Thread t = new Thread(r, "parse-worker-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        // executor를 지정하지 않으면 핸들러는 디스패처 스레드에서 돈다 → 수락/거절만 하고 바로 워커로 넘김
+        server.createContext("/parse", admit(this::handleParse));
+        server.createContext("/parse/batch", admit(this::handleBatch));
+    }
+
+    public void start() {
+        warmUp();
+        // 워밍업 호출은 단계별 지연시간 통계에서 뺀다
+        ParseMetrics.reset();
+        server.start();
+    }
+
+    // 첫 요청 전에 정규식/스캐너/ObjectWriter 클래스 로딩과 초기 JIT를 끝내 둔다
+    static void warmUp() {
+        String sample = "차량번호: 12가3456\n계량일자: 2024-01-01 05:26:18\n"
+                + "총중량: 14,080 kg\n공차중량: 5 900 kg\n실중량: 8,180 kg";
+        byte[] body = sample.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 2_000; i++) {
+            parseBody(body);
+        }
+        try {
+            TicketJson.COMPACT.writeValueAsBytes(parseBody(body));
+        } catch (IOException ignore) {
+            // 워밍업 실패는 무시 (실제 요청에서 다시 시도됨)
+        }
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        workers.shutdown();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public int concurrency() {
+        return workers.getMaximumPoolSize();
+    }
+
+    public int queueDepth() {
+        return workers.getQueue().remainingCapacity() + workers.getQueue().size();
+    }
+
+    // POST만 받고, 워커 풀이 꽉 찼으면 503
+    private HttpHandler admit(HttpHandler handler) {
+        return exchange -> {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendError(exchange, 405, "method not allowed");
+                return;
+            }
+            try {
+                workers.execute(() -> {
+                    try {
+                        handler.handle(exchange);
+                    } catch (Exception e) {
+                        try {
+                            sendError(exchange, 500, e.getClass().getSimpleName());
+                        } catch (IOException ignore) {
+                            // 이미 응답을 보내기 시작했으면 연결만 닫힌다
+                        }
+                    } finally {
+                        exchange.close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "server busy");
+            }
+        };
+    }
+
+    private void handleParse(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            sendError(exchange, 413, "body too large");
+            return;
+        }
+
+        ParsedTicket ticket = cache != null
+                ? parseCached(() -> cache.parseBytes(body, true))
+                : parseBody(body);
+        byte[] out = TicketJson.writeBytes(TicketJson.COMPACT, ticket);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, out.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(out);
+        }
+    }
+
+    // 한 줄 읽고 → 파싱 → 한 줄 쓰기. 본문 전체를 메모리에 모으지 않는다 (chunked 응답)
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (InputStream reader = new BufferedInputStream(exchange.getRequestBody(), 1 << 16);
+             BufferedWriter writer = new BufferedWriter(
+                     new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+
+            byte[] line;
+            int lineNo = 0;
+            while ((line = readLine(reader)) != null) {
+                lineNo++;
+                String source = String.valueOf(lineNo);
+                if (line == TOO_LONG) {
+                    writer.write(TicketJson.mapper().createObjectNode()
+                            .put("source", source).put("error", "line too long").toString());
+                    writer.write('\n');
+                    continue;
+                }
+                if (isBlank(line)) continue;
+
+                byte[] body = line;
+                ParsedTicket ticket = cache != null
+                        ? parseCached(() -> cache.parseText(OcrTextReader.decode(body, true)))
+                        : parseBody(body);
+                writer.write(TicketJson.write(TicketJson.COMPACT, new BatchRecord(source, ticket)));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /*
+     * '\n'까지 한 줄 (끝의 '\r' 제외). 본문이 끝났으면 null,
+     * MAX_BODY_BYTES를 넘으면 줄 끝까지 읽어 버리고 TOO_LONG (한 줄이 힙을 다 먹지 않도록)
+     */
+    private static byte[] readLine(InputStream in) throws IOException {
+        byte[] buf = new byte[256];
+        int len = 0;
+        boolean tooLong = false;
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (tooLong) continue;
+            if (len == MAX_BODY_BYTES) {
+                tooLong = true;
+                continue;
+            }
+            if (len == buf.length) buf = Arrays.copyOf(buf, Math.min(MAX_BODY_BYTES, len * 2));
+            buf[len++] = (byte) b;
+        }
+        if (b < 0 && len == 0 && !tooLong) return null;
+        if (tooLong) return TOO_LONG;
+        if (len > 0 && buf[len - 1] == '\r') len--;
+        return Arrays.copyOf(buf, len);
+    }
+
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    // 단건 CLI와 같은 흐름: UTF-8 (앞의 BOM 무시) → JSON이면 text 추출 → 전처리 → 파싱 (예외가 나도 빈 결과)
+    static ParsedTicket parseBody(byte[] body) {
+        try {
+            return WeighingParser.parse(OcrTextReader.decode(body, true));
+        } catch (Exception e) {
+            return new ParsedTicket();
+        }
+    }
+
+    private static ParsedTicket parseCached(Supplier<ParsedTicket> parse) {
+        try {
+            return parse.get();
+        } catch (Exception e) {
+            return new ParsedTicket();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] out = TicketJson.mapper().createObjectNode()
+                .put("error", message)
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, out.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(out);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,219 @@
+package com.kang.ocrparser.shard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.kang.ocrparser.batch.BatchRunner;
+
+/*
+ * 여러 프로세스/기계로 나눠 도는 배치의 코디네이터 (공유 파일시스템 기준, 구조는 ShardLayout).
+ *
+ * 1) 입력을 샤드로 나눠 작업 디렉토리에 쓴다 (파일 크기 합이 고르게, 큰 파일부터 가장 가벼운 샤드에).
+ *    작업 디렉토리에 plan.json이 이미 있으면 다시 나누지 않고 이어서 한다.
+ * 2) 이 JVM에서 워커 JVM을 workers개 띄운다 (--shard-worker, 다른 기계에서 따로 띄워도 된다).
+ * 3) 코디네이터도 워커로 같이 돈다 → 띄운 워커가 다 죽어도 lease 만료 뒤 회수해서 끝까지 간다.
+ * 4) 모든 샤드가 done이 되면 done/*.ndjson을 샤드 순서대로 하나로 합친다 (실패 리포트도).
+ */
+public class ShardCoordinator {
+
+    public static final long DEFAULT_LEASE_MILLIS = 30_000;
+    private static final int DEFAULT_FILES_PER_SHARD = 256;
+    private static final long CHILD_EXIT_SECONDS = 10;
+
+    private final ShardLayout layout;
+    private final int shards;
+    private final int workers;
+    private final int threads;
+    private final long leaseMillis;
+    private final List<String> workerArgs;
+
+    // shards: 0 이하면 파일 256개당 하나 / workers: 띄울 워커 JVM 수 (0이면 코디네이터 혼자 또는 외부 워커와)
+    // workerArgs: 워커 JVM에 넘길 옵션 (--max-steps, --templates, --tare-index 등).
+    //   --tare-index는 한 프로세스만 열 수 있으므로 워커마다 workerTareIndex(path, n) 파일로 바꿔 넘긴다
+    public ShardCoordinator(Path workDir, int shards, int workers, int threads, long leaseMillis,
+            List<String> workerArgs) {
+        this.layout = new ShardLayout(workDir);
+        this.shards = shards;
+        this.workers = workers;
+        this.threads = threads;
+        this.leaseMillis = leaseMillis > 0 ? leaseMillis : DEFAULT_LEASE_MILLIS;
+        this.workerArgs = List.copyOf(workerArgs);
+    }
+
+    public static Path defaultWorkDir(Path output) {
+        return output.resolveSibling(output.getFileName() + ".shards");
+    }
+
+    // 띄운 워커 n의 공차 이력 파일: tares.idx → tares.idx.worker-n (실행마다 같은 워커 번호가 같은 이력을 이어 쓴다)
+    public static Path workerTareIndex(Path index, int worker) {
+        return index.resolveSibling(index.getFileName() + ".worker-" + worker);
+    }
+
+    public static class Summary {
+        public final int files;
+        public final int shards;
+        public final boolean resumed;        // 이전 실행의 plan.json을 이어받음
+        public final int reclaimed;          // 작업 디렉토리 전체에서 회수된 샤드 수 (워커별 journal의 합)
+        public final long lines;             // 합친 결과 줄 수
+        public final long failures;          // 합친 실패 리포트 줄 수
+        public final long elapsedMillis;
+
+        Summary(int files, int shards, boolean resumed, int reclaimed, long lines, long failures, long elapsedMillis) {
+            this.files = files;
+            this.shards = shards;
+            this.resumed = resumed;
+            this.reclaimed = reclaimed;
+            this.lines = lines;
+            this.failures = failures;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    public Summary run(String source, Path output) throws IOException, InterruptedException {
+        long t0 = System.nanoTime();
+        layout.createDirectories();
+
+        ShardLayout.Plan plan = layout.readPlan();
+        boolean resumed = plan != null;
+        if (plan == null) {
+            plan = partition(source, BatchRunner.resolveInputs(source));
+        } else if (!plan.source.equals(source)) {
+            throw new IllegalStateException("work dir " + layout.root + " belongs to another run (" + plan.source + ")");
+        }
+
+        List<Process> children = new ArrayList<>();
+        for (int w = 1; w <= workers; w++) children.add(launch(w));
+
+        ShardWorker self = new ShardWorker(layout.root, threads);
+        try {
+            self.run();
+        } finally {
+            for (Process p : children) {
+                // 샤드가 다 끝났으면 워커도 다음 확인 때 스스로 끝난다
+                if (!p.waitFor(CHILD_EXIT_SECONDS, TimeUnit.SECONDS)) p.destroy();
+            }
+        }
+
+        long[] merged = merge(plan, output);
+        layout.journal(self.owner(), "merged " + merged[0] + " lines", -1);
+        long elapsed = (System.nanoTime() - t0) / 1_000_000;
+        return new Summary(plan.files, plan.shards, resumed, countReclaims(), merged[0], merged[1], elapsed);
+    }
+
+    // 파일 크기 합이 고르게: 큰 파일부터 지금 가장 가벼운 샤드에 (샤드 안은 경로 순)
+    private ShardLayout.Plan partition(String source, List<Path> inputs) throws IOException {
+        int n = shards > 0 ? shards : Math.max(1, (inputs.size() + DEFAULT_FILES_PER_SHARD - 1) / DEFAULT_FILES_PER_SHARD);
+        n = Math.max(1, Math.min(n, Math.max(1, inputs.size())));
+
+        List<Path> paths = new ArrayList<>(inputs.size());
+        long[] sizes = new long[inputs.size()];
+        for (int i = 0; i < inputs.size(); i++) {
+            Path p = inputs.get(i).toAbsolutePath();
+            paths.add(p);
+            sizes[i] = Files.size(p);
+        }
+        Integer[] order = new Integer[inputs.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> sizes[i]).reversed()
+                .thenComparing(i -> paths.get(i)));
+
+        long[] load = new long[n];
+        List<List<Path>> lists = new ArrayList<>(n);
+        for (int s = 0; s < n; s++) lists.add(new ArrayList<>());
+        for (int i : order) {
+            int lightest = 0;
+            for (int s = 1; s < n; s++) if (load[s] < load[lightest]) lightest = s;
+            load[lightest] += sizes[i] + 1;
+            lists.get(lightest).add(paths.get(i));
+        }
+        for (int s = 0; s < n; s++) {
+            List<Path> list = lists.get(s);
+            list.sort(null);
+            StringBuilder sb = new StringBuilder();
+            for (Path p : list) sb.append(p).append('\n');
+            Files.writeString(layout.list(s), sb, StandardCharsets.UTF_8);
+        }
+
+        ShardLayout.Plan plan = new ShardLayout.Plan(source, inputs.size(), n, leaseMillis);
+        layout.writePlan(plan);
+        layout.journal("coordinator", "plan " + inputs.size() + " files / " + n + " shards", -1);
+        return plan;
+    }
+
+    // 같은 java, 같은 클래스패스로 워커 JVM을 띄운다 (출력은 logs/worker-N.log)
+    private Process launch(int worker) throws IOException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("com.kang.ocrparser.Main");
+        cmd.add("--shard-worker");
+        cmd.add(layout.root.toString());
+        if (threads > 0) {
+            cmd.add("--threads");
+            cmd.add(String.valueOf(threads));
+        }
+        for (int i = 0; i < workerArgs.size(); i++) {
+            String arg = workerArgs.get(i);
+            cmd.add(arg);
+            if ("--tare-index".equals(arg) && i + 1 < workerArgs.size()) {
+                cmd.add(workerTareIndex(Path.of(workerArgs.get(++i)), worker).toAbsolutePath().toString());
+            }
+        }
+        Path log = layout.log(worker);
+        return new ProcessBuilder(cmd)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
+    }
+
+    // 샤드 순서대로 이어 붙인다. 반환: {결과 줄 수, 실패 줄 수}
+    private long[] merge(ShardLayout.Plan plan, Path output) throws IOException {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        long lines = 0;
+        long failures = 0;
+        Path failureReport = BatchRunner.failureReportPath(output, true);
+        try (OutputStream out = Files.newOutputStream(output);
+             OutputStream fail = Files.newOutputStream(failureReport)) {
+            for (int s = 0; s < plan.shards; s++) {
+                Path done = layout.done(s);
+                lines += Files.copy(done, out) > 0 ? countLines(done) : 0;
+                Path shardFailures = BatchRunner.failureReportPath(done, true);
+                if (Files.exists(shardFailures)) {
+                    Files.copy(shardFailures, fail);
+                    failures += countLines(shardFailures);
+                }
+            }
+        }
+        if (failures == 0) Files.deleteIfExists(failureReport);
+        return new long[] { lines, failures };
+    }
+
+    private int countReclaims() throws IOException {
+        int reclaims = 0;
+        try (Stream<Path> journals = Files.list(layout.journals())) {
+            for (Path journal : (Iterable<Path>) journals::iterator) {
+                try (Stream<String> s = Files.lines(journal, StandardCharsets.UTF_8)) {
+                    reclaims += (int) s.filter(l -> l.contains("\treclaim ")).count();
+                }
+            }
+        }
+        return reclaims;
+    }
+
+    private static long countLines(Path file) throws IOException {
+        try (Stream<String> s = Files.lines(file, StandardCharsets.UTF_8)) {
+            return s.count();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.kang.ocrparser.shard;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kang.ocrparser.io.TicketJson;
+
+/*
+ * 샤드 작업 디렉토리 구조 (코디네이터와 워커가 공유 파일시스템으로 주고받는 것 전부)
+ *
+ *   plan.json                     {"source", "files", "shards", "leaseMillis"} - 샤드 목록을 다 쓴 뒤 마지막에 생김
+ *   shards/shard-0007.list        입력 파일 절대 경로, 한 줄에 하나
+ *   leases/shard-0007.lease       "<owner>\n<heartbeat 번호>\n" - 만들 수 있는 쪽(CREATE_NEW)이 샤드를 잡는다
+ *   out/shard-0007.<owner>.ndjson 워커별 출력 (같은 샤드를 두 워커가 처리하게 돼도 섞이지 않게)
+ *   done/shard-0007.ndjson        먼저 끝낸 워커 출력의 하드 링크 - 만들 수 있는 쪽이 결과의 주인
+ *   journal/<owner>.log           <epoch ms>\t<owner>\t<event>\t<shard> (사람이 보는 기록, 파일마다 쓰는 프로세스는 하나 -
+ *                                 NFS에서는 여러 클라이언트의 APPEND가 원자적이지 않아 한 파일에 같이 쓰면 줄이 섞인다)
+ *   logs/worker-<n>.log           코디네이터가 띄운 워커 JVM의 stdout/stderr
+ */
+final class ShardLayout {
+
+    final Path root;
+
+    ShardLayout(Path root) {
+        this.root = root.toAbsolutePath();
+    }
+
+    static final class Plan {
+        final String source;
+        final int files;
+        final int shards;
+        final long leaseMillis;
+
+        Plan(String source, int files, int shards, long leaseMillis) {
+            this.source = source;
+            this.files = files;
+            this.shards = shards;
+            this.leaseMillis = leaseMillis;
+        }
+    }
+
+    Path plan() {
+        return root.resolve("plan.json");
+    }
+
+    Path list(int shard) {
+        return root.resolve("shards").resolve(name(shard) + ".list");
+    }
+
+    Path lease(int shard) {
+        return root.resolve("leases").resolve(name(shard) + ".lease");
+    }
+
+    Path output(int shard, String owner) {
+        return root.resolve("out").resolve(name(shard) + "." + owner + ".ndjson");
+    }
+
+    Path done(int shard) {
+        return root.resolve("done").resolve(name(shard) + ".ndjson");
+    }
+
+    Path journals() {
+        return root.resolve("journal");
+    }
+
+    Path journal(String owner) {
+        return journals().resolve(owner + ".log");
+    }
+
+    Path log(int worker) {
+        return root.resolve("logs").resolve("worker-" + worker + ".log");
+    }
+
+    static String name(int shard) {
+        return String.format("shard-%04d", shard);
+    }
+
+    // 없으면 null
+    Plan readPlan() throws IOException {
+        if (!Files.exists(plan())) return null;
+        JsonNode node = TicketJson.mapper().readTree(plan().toFile());
+        return new Plan(node.path("source").asText(), node.path("files").asInt(),
+                node.path("shards").asInt(), node.path("leaseMillis").asLong());
+    }
+
+    // 임시 파일에 쓰고 이름을 바꿔서, plan.json이 보이면 샤드 목록도 다 있다
+    void writePlan(Plan plan) throws IOException {
+        ObjectNode node = TicketJson.mapper().createObjectNode();
+        node.put("source", plan.source);
+        node.put("files", plan.files);
+        node.put("shards", plan.shards);
+        node.put("leaseMillis", plan.leaseMillis);
+        Path tmp = root.resolve("plan.json.tmp");
+        Files.writeString(tmp, node.toString(), StandardCharsets.UTF_8);
+        Files.move(tmp, plan(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void createDirectories() throws IOException {
+        for (String dir : new String[] { "shards", "leases", "out", "done", "logs", "journal" }) {
+            Files.createDirectories(root.resolve(dir));
+        }
+    }
+
+    // owner 자신의 기록 파일에 한 줄 추가 (기록용이라 실패해도 작업은 계속)
+    void journal(String owner, String event, int shard) {
+        String line = System.currentTimeMillis() + "\t" + owner + "\t" + event + "\t" + (shard < 0 ? "-" : name(shard)) + "\n";
+        try {
+            Files.writeString(journal(owner), line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // 무시
+        }
+    }
+}
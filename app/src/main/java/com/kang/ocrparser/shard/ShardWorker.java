@@ -0,0 +1,238 @@
+package com.kang.ocrparser.shard;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kang.ocrparser.batch.BatchRunner;
+
+/*
+ * 샤드 워커: 작업 디렉토리에서 샤드를 하나씩 잡아(lease) 배치와 같은 경로
+ * (BatchRunner → OcrTextReader/SampleJsonLoader → WeighingParser)로 처리한다. 샤드가 다 끝나면 돌아온다.
+ *
+ * - 잡기: leases/<shard>.lease를 CREATE_NEW로 만들 수 있으면 내 것
+ * - heartbeat: 처리하는 동안 leaseMillis/3마다 lease 안의 번호를 올린다
+ * - 회수: 남의 lease 내용이 (내 시계로) leaseMillis 동안 그대로면 죽은 워커로 보고,
+ *   lease를 다른 이름으로 옮긴 뒤(ATOMIC_MOVE, 한 워커만 성공) 새로 만든다.
+ *   기계마다 시계가 달라도 되도록 파일 시각은 보지 않는다.
+ * - 완료: 출력 파일을 done/<shard>.ndjson으로 하드 링크. 링크는 이미 있으면 실패하므로
+ *   느린 워커와 회수한 워커가 둘 다 끝내도 결과는 먼저 링크한 하나뿐이다.
+ */
+public class ShardWorker {
+
+    private static final long POLL_MILLIS = 200;
+    private static final AtomicInteger LOCAL_SEQ = new AtomicInteger();
+
+    private final ShardLayout layout;
+    private final int threads;
+    private final String owner;
+    // 남의 lease: 마지막으로 본 내용과 그 내용을 처음 본 시각 (System.nanoTime)
+    private final Map<Integer, String> seenContent = new HashMap<>();
+    private final Map<Integer, Long> seenSince = new HashMap<>();
+
+    private int processed;
+    private int reclaimed;
+
+    public ShardWorker(Path workDir, int threads) {
+        this.layout = new ShardLayout(workDir);
+        this.threads = threads;
+        // pid@host + 같은 JVM 안 순번 (파일 이름에 쓰므로 안전한 글자만)
+        String id = ManagementFactory.getRuntimeMXBean().getName() + "-" + LOCAL_SEQ.incrementAndGet();
+        this.owner = id.replaceAll("[^A-Za-z0-9.@-]", "_");
+    }
+
+    public String owner() {
+        return owner;
+    }
+
+    public int processed() {
+        return processed;
+    }
+
+    public int reclaimed() {
+        return reclaimed;
+    }
+
+    // 모든 샤드에 done이 생길 때까지 (plan.json이 아직 없으면 생길 때까지 기다린다)
+    public void run() throws IOException, InterruptedException {
+        ShardLayout.Plan plan;
+        while ((plan = layout.readPlan()) == null) Thread.sleep(POLL_MILLIS);
+
+        // 워커마다 다른 샤드부터 보게 해서 처음에 같은 lease를 두고 부딪치지 않게
+        int offset = Math.floorMod(owner.hashCode(), plan.shards);
+        while (true) {
+            int remaining = 0;
+            int claimed = -1;
+            for (int k = 0; k < plan.shards; k++) {
+                int shard = (offset + k) % plan.shards;
+                if (Files.exists(layout.done(shard))) continue;
+                remaining++;
+                if (claimed < 0 && tryAcquire(shard, plan)) claimed = shard;
+            }
+            if (claimed >= 0) {
+                process(claimed, plan);
+            } else if (remaining == 0) {
+                return;
+            } else {
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+    }
+
+    private boolean tryAcquire(int shard, ShardLayout.Plan plan) throws IOException {
+        Path lease = layout.lease(shard);
+        if (create(lease)) {
+            if (Files.exists(layout.done(shard))) {
+                // 목록을 본 뒤에 다른 워커가 끝냈다
+                Files.deleteIfExists(lease);
+                return false;
+            }
+            layout.journal(owner, "acquire", shard);
+            return true;
+        }
+
+        String content = readOrNull(lease);
+        if (content == null) return false; // 방금 풀렸다 → 다음 바퀴에
+        long now = System.nanoTime();
+        if (!content.equals(seenContent.get(shard))) {
+            seenContent.put(shard, content);
+            seenSince.put(shard, now);
+            return false;
+        }
+        if (now - seenSince.get(shard) < TimeUnit.MILLISECONDS.toNanos(plan.leaseMillis)) return false;
+
+        // heartbeat가 leaseMillis 동안 없었다 → 회수
+        Path tomb = lease.resolveSibling(lease.getFileName() + ".reclaimed-" + owner);
+        try {
+            Files.move(lease, tomb, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false; // 다른 워커가 먼저 회수했거나 주인이 끝냈다
+        }
+        Files.deleteIfExists(tomb);
+        seenContent.remove(shard);
+        seenSince.remove(shard);
+        if (!create(lease)) return false;
+        String previous = content.substring(0, Math.max(0, content.indexOf('\n')));
+        layout.journal(owner, "reclaim from " + previous, shard);
+        reclaimed++;
+        return true;
+    }
+
+    private void process(int shard, ShardLayout.Plan plan) throws IOException, InterruptedException {
+        Path lease = layout.lease(shard);
+        Heartbeat heartbeat = new Heartbeat(lease, plan.leaseMillis);
+        Path out = layout.output(shard, owner);
+        try {
+            List<Path> inputs = new ArrayList<>();
+            for (String line : Files.readAllLines(layout.list(shard), StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) inputs.add(Path.of(line));
+            }
+            new BatchRunner(threads).run(inputs, out);
+        } finally {
+            heartbeat.stop();
+        }
+
+        Path failures = BatchRunner.failureReportPath(out, true);
+        if (heartbeat.lost) {
+            // 그 사이 다른 워커가 회수해 갔다: 그쪽 결과를 쓴다
+            layout.journal(owner, "lost", shard);
+            Files.deleteIfExists(out);
+            Files.deleteIfExists(failures);
+            return;
+        }
+        try {
+            Files.createLink(layout.done(shard), out);
+            // 링크 다음에 죽으면 실패 리포트만 빠진다 (결과 줄은 그대로)
+            if (Files.exists(failures)) {
+                Files.createLink(BatchRunner.failureReportPath(layout.done(shard), true), failures);
+            }
+            layout.journal(owner, "done", shard);
+            processed++;
+        } catch (FileAlreadyExistsException e) {
+            layout.journal(owner, "duplicate", shard);
+        }
+        Files.deleteIfExists(out);
+        Files.deleteIfExists(failures);
+        if (owner.equals(ownerOf(readOrNull(lease)))) Files.deleteIfExists(lease);
+    }
+
+    // lease 안의 번호를 주기적으로 올린다. 주인이 바뀌었거나 lease가 없어졌으면 lost
+    private final class Heartbeat {
+        private final Path lease;
+        private final ScheduledExecutorService timer;
+        private long beat;
+        volatile boolean lost;
+
+        Heartbeat(Path lease, long leaseMillis) {
+            this.lease = lease;
+            this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "shard-heartbeat");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1, leaseMillis / 3);
+            timer.scheduleAtFixedRate(this::beat, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        private void beat() {
+            if (lost) return;
+            try {
+                if (!owner.equals(ownerOf(readOrNull(lease)))) {
+                    lost = true;
+                    return;
+                }
+                // CREATE 없이 덮어쓴다: 그 사이 회수돼서 파일이 옮겨졌으면 NoSuchFileException
+                Files.writeString(lease, owner + "\n" + (++beat) + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (NoSuchFileException e) {
+                lost = true;
+            } catch (IOException e) {
+                // 공유 파일시스템이 잠깐 안 될 수 있다: 다음 주기에 다시
+            }
+        }
+
+        void stop() throws InterruptedException {
+            timer.shutdownNow();
+            timer.awaitTermination(1, TimeUnit.SECONDS);
+            beat();
+        }
+    }
+
+    private boolean create(Path lease) throws IOException {
+        try {
+            Files.writeString(lease, owner + "\n0\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    private static String ownerOf(String content) {
+        if (content == null) return null;
+        int nl = content.indexOf('\n');
+        return nl < 0 ? content : content.substring(0, nl);
+    }
+
+    private static String readOrNull(Path file) {
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.kang.ocrparser.tare;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kang.ocrparser.cache.ContentHash;
+import com.kang.ocrparser.model.ParsedTicket;
+
+/*
+ * 차량번호 → 최근 공차중량 이력 (메모리 매핑 파일, 실행이 끝나도 남는다).
+ * 같은 트럭이 수백 번 계량하고 공차중량은 거의 그대로라서, 라벨로 공차중량을 못 찾은 티켓은
+ * WeightExtractor fallback이 이 이력 근처의 kg 후보를 먼저 확인한다 (조합 탐색/최소값 추측 전에).
+ *
+ * 파일: 헤더 64바이트 + 슬롯 32바이트 × slots (열린 주소법, 선형 탐사)
+ *   슬롯: key(long, 차량번호 64비트 해시, 0 = 빈 칸) / version(int) / samples(int) / 최근 공차 4개(int × 4, 링)
+ *
+ * - 찾기는 잠금 없이 O(1): 슬롯마다 seqlock (쓰는 동안 version이 홀수, 읽은 뒤 version이 같으면 유효)
+ * - 기록은 슬롯을 CAS로 잡고, 슬롯 번호로 고른 stripe 하나만 잠근다 (배치 워커끼리 거의 안 부딪침)
+ * - 슬롯의 3/4이 차면 새 차량은 버리고 dropped로 센다 (크기는 처음 만들 때 정해짐)
+ * - 파일은 한 프로세스만 연다 (FileLock). 쓰다가 죽어서 홀수로 남은 version은 열 때 짝수로 되돌린다
+ * - 키가 해시뿐이라 다른 차량과 겹칠 수 있지만(2^-64), 이력은 텍스트에 있는 값을 고르는 데만 쓰므로 값을 지어내지는 않는다
+ */
+public final class TareIndex implements Closeable {
+
+    public static final int DEFAULT_SLOTS = 1 << 16;
+    public static final int MAX_SLOTS = 1 << 25;
+
+    // 이력이 이보다 적으면 hint를 주지 않는다 (한 번 잘못 읽힌 값이 다음 티켓을 끌고 가지 않게)
+    static final int MIN_SAMPLES = 2;
+    static final int RECENT = 4;
+    // 허용 폭: max(50kg, 대표값의 2%, 최근 값들의 폭)
+    static final int MIN_BAND_KG = 50;
+
+    private static final int MAGIC = 0x58444954; // "TIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_SLOTS = 8;
+    private static final int OFF_VEHICLES = 12;
+
+    private static final int SLOT = 32;
+    private static final int S_KEY = 0;
+    private static final int S_SEQ = 8;
+    private static final int S_SAMPLES = 12;
+    private static final int S_RECENT = 16;
+
+    private static final int STRIPES = 64;
+    private static final long SEED = ContentHash.seed("tare-index");
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static volatile TareIndex active;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer buf;
+    private final int slots;
+    private final int mask;
+    private final int maxVehicles;
+    private final Object[] stripes = new Object[STRIPES];
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // 최근 공차중량 요약 (찾기 결과, 불변)
+    public static final class Hint {
+        public final int samples;     // 지금까지 기록된 횟수
+        public final int typicalKg;   // 최근 값들의 중앙값
+        public final int minKg;       // 최근 값들의 최소/최대
+        public final int maxKg;
+
+        Hint(int samples, int typicalKg, int minKg, int maxKg) {
+            this.samples = samples;
+            this.typicalKg = typicalKg;
+            this.minKg = minKg;
+            this.maxKg = maxKg;
+        }
+
+        // typicalKg에서 이만큼까지를 같은 공차중량으로 본다
+        public int band() {
+            return Math.max(Math.max(MIN_BAND_KG, typicalKg / 50), maxKg - minKg);
+        }
+
+        public boolean accepts(int kg) {
+            return Math.abs((long) kg - typicalKg) <= band();
+        }
+    }
+
+    public static class Stats {
+        public final int vehicles;
+        public final int capacity;
+        public final long lookups;
+        public final long records;
+        public final long dropped;
+
+        Stats(int vehicles, int capacity, long lookups, long records, long dropped) {
+            this.vehicles = vehicles;
+            this.capacity = capacity;
+            this.lookups = lookups;
+            this.records = records;
+            this.dropped = dropped;
+        }
+
+        @Override
+        public String toString() {
+            return "vehicles=" + vehicles + "/" + capacity + " lookups=" + lookups
+                    + " records=" + records + " dropped=" + dropped;
+        }
+    }
+
+    private TareIndex(Path file, FileChannel channel, FileLock lock, MappedByteBuffer buf, int slots) {
+        this.file = file;
+        this.channel = channel;
+        this.lock = lock;
+        this.buf = buf;
+        this.slots = slots;
+        this.mask = slots - 1;
+        this.maxVehicles = slots / 4 * 3;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    public static TareIndex open(Path file) throws IOException {
+        return open(file, DEFAULT_SLOTS);
+    }
+
+    /*
+     * 있으면 그대로 열고(slots는 파일 헤더 값), 없으면 slots 칸으로 만든다.
+     * slots: 2의 거듭제곱, 차량 수 × 4/3 이상
+     */
+    public static TareIndex open(Path file, int slots) throws IOException {
+        if (slots <= 0 || slots > MAX_SLOTS || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("slots must be a power of two up to " + MAX_SLOTS + ": " + slots);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) throw new IOException("tare index is in use by another process: " + file);
+
+            boolean fresh = channel.size() == 0;
+            if (!fresh) slots = readSlots(channel, file);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) slots * SLOT);
+            if (fresh) {
+                INT.set(buf, OFF_VERSION, VERSION);
+                INT.set(buf, OFF_SLOTS, slots);
+                INT.set(buf, OFF_MAGIC, MAGIC);
+            }
+            TareIndex index = new TareIndex(file, channel, lock, buf, slots);
+            if (!fresh) index.repair();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int readSlots(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (channel.size() < HEADER || header.getInt(OFF_MAGIC) != MAGIC) {
+            throw new IOException("not a tare index: " + file);
+        }
+        if (header.getInt(OFF_VERSION) != VERSION) {
+            throw new IOException("unsupported tare index version " + header.getInt(OFF_VERSION) + ": " + file);
+        }
+        int slots = header.getInt(OFF_SLOTS);
+        if (slots <= 0 || slots > MAX_SLOTS || Integer.bitCount(slots) != 1
+                || channel.size() != HEADER + (long) slots * SLOT) {
+            throw new IOException("corrupt tare index header: " + file);
+        }
+        return slots;
+    }
+
+    // 쓰는 도중 죽어서 홀수로 남은 version을 닫아 준다 (읽는 쪽이 기다리지 않게)
+    private void repair() {
+        for (int i = 0; i < slots; i++) {
+            int at = HEADER + i * SLOT;
+            int seq = (int) INT.get(buf, at + S_SEQ);
+            if ((seq & 1) != 0) INT.setVolatile(buf, at + S_SEQ, seq + 1);
+        }
+    }
+
+    /*
+     * 파서가 쓰는 색인 (없으면 null → 이력을 보지도, 쌓지도 않는다)
+     */
+    public static TareIndex active() {
+        return active;
+    }
+
+    public static void install(TareIndex index) {
+        active = index;
+    }
+
+    // 이력이 MIN_SAMPLES번 이상인 차량만, 아니면 null
+    public Hint hint(String vehicle) {
+        if (vehicle == null || vehicle.isEmpty()) return null;
+        lookups.increment();
+        int at = find(key(vehicle));
+        if (at < 0) return null;
+
+        int samples;
+        int[] recent = new int[RECENT];
+        while (true) {
+            int seq = (int) INT.getAcquire(buf, at + S_SEQ);
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            samples = (int) INT.get(buf, at + S_SAMPLES);
+            for (int i = 0; i < RECENT; i++) recent[i] = (int) INT.get(buf, at + S_RECENT + i * 4);
+            VarHandle.acquireFence();
+            if ((int) INT.get(buf, at + S_SEQ) == seq) break;
+        }
+        if (samples < MIN_SAMPLES) return null;
+
+        int n = Math.min(samples, RECENT);
+        Arrays.sort(recent, 0, n);
+        int typical = (n & 1) == 1 ? recent[n / 2] : (int) (((long) recent[n / 2 - 1] + recent[n / 2]) / 2);
+        return new Hint(samples, typical, recent[0], recent[n - 1]);
+    }
+
+    /*
+     * 파싱이 끝난 티켓의 공차중량을 이력에 넣는다.
+     * 차량번호가 있고 gross - tare = net 으로 검증된 티켓만 (partial이나 추측으로 채운 값은 넣지 않음)
+     */
+    public boolean record(ParsedTicket ticket) {
+        if (ticket == null || ticket.isPartial()) return false;
+        Integer gross = ticket.getGrossWeightKg();
+        Integer tare = ticket.getTareWeightKg();
+        Integer net = ticket.getNetWeightKg();
+        if (gross == null || tare == null || net == null || tare <= 0 || gross - tare != net) return false;
+        return record(ticket.getVehicleNumber(), tare);
+    }
+
+    public boolean record(String vehicle, int tareKg) {
+        if (vehicle == null || vehicle.isEmpty() || tareKg <= 0) return false;
+        long key = key(vehicle);
+        int at = claim(key);
+        if (at < 0) {
+            dropped.increment();
+            return false;
+        }
+        synchronized (stripes[((at - HEADER) / SLOT) & (STRIPES - 1)]) {
+            int seq = (int) INT.get(buf, at + S_SEQ);
+            INT.setVolatile(buf, at + S_SEQ, seq + 1);
+            // 아래 일반 쓰기가 홀수 seq보다 먼저 보이지 않도록
+            VarHandle.storeStoreFence();
+            int samples = (int) INT.get(buf, at + S_SAMPLES);
+            INT.set(buf, at + S_RECENT + (samples & (RECENT - 1)) * 4, tareKg);
+            INT.set(buf, at + S_SAMPLES, samples == Integer.MAX_VALUE ? RECENT : samples + 1);
+            INT.setRelease(buf, at + S_SEQ, seq + 2);
+        }
+        records.increment();
+        return true;
+    }
+
+    // key의 슬롯 위치 (없으면 -1)
+    private int find(long key) {
+        for (int i = (int) key & mask, probes = 0; probes < slots; i = (i + 1) & mask, probes++) {
+            int at = HEADER + i * SLOT;
+            long k = (long) LONG.getAcquire(buf, at + S_KEY);
+            if (k == key) return at;
+            if (k == 0) return -1;
+        }
+        return -1;
+    }
+
+    // key의 슬롯 위치, 없으면 빈 칸을 CAS로 잡는다 (차량 수 상한이면 -1)
+    private int claim(long key) {
+        for (int i = (int) key & mask, probes = 0; probes < slots; i = (i + 1) & mask, probes++) {
+            int at = HEADER + i * SLOT;
+            long k = (long) LONG.getAcquire(buf, at + S_KEY);
+            if (k == key) return at;
+            if (k != 0) continue;
+
+            if ((int) INT.getAndAdd(buf, OFF_VEHICLES, 1) >= maxVehicles) {
+                INT.getAndAdd(buf, OFF_VEHICLES, -1);
+                return -1;
+            }
+            if (LONG.compareAndSet(buf, at + S_KEY, 0L, key)) return at;
+            // 다른 워커가 먼저 잡았다: 같은 차량이면 그 칸을 쓰고, 아니면 다음 칸
+            INT.getAndAdd(buf, OFF_VEHICLES, -1);
+            if ((long) LONG.getAcquire(buf, at + S_KEY) == key) return at;
+        }
+        return -1;
+    }
+
+    private static long key(String vehicle) {
+        long h = ContentHash.of(vehicle, SEED);
+        return h == 0 ? 1 : h;
+    }
+
+    public Stats stats() {
+        return new Stats((int) INT.getVolatile(buf, OFF_VEHICLES), maxVehicles,
+                lookups.sum(), records.sum(), dropped.sum());
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    // 디스크에 내리고 잠금을 푼다 (파서가 이 색인을 쓰고 있었으면 끈다)
+    @Override
+    public void close() throws IOException {
+        if (active == this) active = null;
+        buf.force();
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
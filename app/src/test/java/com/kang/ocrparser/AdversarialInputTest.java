@@ -0,0 +1,123 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.batch.BatchRunner;
+
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.ParseBudget;
+import com.kang.ocrparser.parser.WeighingParser;
+
+/*
+ * 역추적/제곱 시간을 노린 입력에서도 티켓 하나가 시간 상한 안에 끝나는지 확인한다.
+ * (정규식 버전은 아래 천 단위 묶음 입력 하나에 수십 초 이상 걸렸다)
+ */
+public class AdversarialInputTest {
+
+    // CI 편차를 감안한 넉넉한 상한 (정상 동작은 수십 ms)
+    private static final long LIMIT_MILLIS = 2_000;
+
+    @TempDir
+    Path tempDir;
+
+    private static ParsedTicket parseWithin(String text) {
+        long t0 = System.nanoTime();
+        ParsedTicket ticket = WeighingParser.parse(text);
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+        assertTrue(millis < LIMIT_MILLIS, "took " + millis + "ms for input of " + text.length() + " chars");
+        assertNotNull(ticket);
+        return ticket;
+    }
+
+    @Test
+    void longThousandGroupsWithoutUnitStayLinear() {
+        // "1 234 234 234 ..." 뒤에 kg가 없음: 시작 위치마다 묶음 전체를 되돌리던 입력
+        parseWithin("총중량: 1" + " 234".repeat(50_000));
+        parseWithin("1" + ",234".repeat(50_000) + " g");
+    }
+
+    @Test
+    void repeatedLabelsAndUnitsStayLinear() {
+        ParsedTicket ticket = parseWithin("총중량".repeat(20_000) + " 12 480 kg");
+        assertEquals(12480, ticket.getGrossWeightKg());
+
+        parseWithin("kg ".repeat(100_000));
+        parseWithin("차량 ".repeat(50_000) + "12가3456");
+        parseWithin("05:26: ".repeat(30_000) + "18 997 kg");
+    }
+
+    @Test
+    void manyCandidatesWithoutConsistentTripleEndAsPartial() {
+        // 어떤 두 값의 합도 후보에 없음 → 조합 검증이 후보 수의 제곱만큼 돈다
+        StringBuilder sb = new StringBuilder();
+        for (int v = 150_001; v <= 170_000; v++) sb.append(v).append(" kg\n");
+
+        ParsedTicket ticket = parseWithin(sb.toString());
+
+        assertTrue(ticket.isPartial());
+    }
+
+    @Test
+    void smallBudgetReturnsPartialTicketWithFieldsFoundSoFar() throws Exception {
+        String text = "계량일자: 2026-02-02 05:37:55\n차량번호: 80구8713\n" + "x".repeat(5_000) + "\n총중량: 12480 kg";
+
+        // 원문 단계(날짜/차량번호)까지만 되는 예산
+        ParsedTicket ticket = WeighingParser.parse(text, null, new ParseBudget(7_000));
+
+        assertTrue(ticket.isPartial());
+        assertEquals("80구8713", ticket.getVehicleNumber());
+        assertNull(ticket.getGrossWeightKg());
+        assertTrue(TicketJson.write(TicketJson.COMPACT, ticket).contains("\"partial\":true"));
+
+        ParsedTicket full = WeighingParser.parse(text);
+        assertFalse(full.isPartial());
+        assertEquals(12480, full.getGrossWeightKg());
+        assertFalse(TicketJson.write(TicketJson.COMPACT, full).contains("partial"));
+    }
+
+    // 레이아웃 모드 단어 하나: 높이 2짜리 박스
+    private static String word(String text, int x, int y) {
+        return "{\"text\":\"" + text + "\",\"boundingBox\":{\"vertices\":["
+                + "{\"x\":" + x + ",\"y\":" + y + "},{\"x\":" + (x + 40) + ",\"y\":" + y + "},"
+                + "{\"x\":" + (x + 40) + ",\"y\":" + (y + 2) + "},{\"x\":" + x + ",\"y\":" + (y + 2) + "}]}}";
+    }
+
+    @Test
+    void farApartWordBoxesDoNotSizeTheLayoutIndex() throws Exception {
+        // 좌표대로 버킷을 만들면 페이지마다 10억 개 (두 페이지 합은 int도 넘는다)
+        String page = "{\"words\":[" + word("총중량", 0, 0) + "," + word("12480", 50, 0) + "," + word("kg", 100, 0)
+                + "," + word("x", 0, 2_000_000_000) + "]}";
+        for (String pages : new String[] { page, page + "," + page }) {
+            Path in = tempDir.resolve("far.json");
+            Files.writeString(in, "{\"text\":\"총중량 12480 kg\",\"pages\":[" + pages + "]}", StandardCharsets.UTF_8);
+
+            long t0 = System.nanoTime();
+            ParsedTicket ticket = BatchRunner.parseOne(in, null, true);
+            long millis = (System.nanoTime() - t0) / 1_000_000;
+            assertTrue(millis < LIMIT_MILLIS, "took " + millis + "ms");
+            assertEquals(12480, ticket.getGrossWeightKg());
+        }
+    }
+
+    @Test
+    void randomFragmentsNeverStall() {
+        String[] pieces = {"총중량", "공차중량", "실중량", "차량", "계량일자", "kg", " kg", ":", " ", ",", "\n",
+                "1", "23", "456", " 789", ",000", "05:26:", "2026-02-02", "가", "·", "-", " "};
+        Random random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            StringBuilder sb = new StringBuilder();
+            int count = 1 + random.nextInt(5_000);
+            for (int k = 0; k < count; k++) sb.append(pieces[random.nextInt(pieces.length)]);
+            parseWithin(sb.toString());
+        }
+    }
+}
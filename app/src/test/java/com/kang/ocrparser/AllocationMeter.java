@@ -0,0 +1,37 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * 현재 스레드가 지금까지 할당한 바이트 (com.sun.management.ThreadMXBean)
+ * 할당 테스트들과 GoldenCorpus 측정이 함께 쓴다. 만든 스레드에서만 읽는다.
+ */
+final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long tid = Thread.currentThread().getId();
+
+    private AllocationMeter() {
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // 측정을 지원하지 않는 JVM이면 null
+    static AllocationMeter forCurrentThread() {
+        return THREADS.isThreadAllocatedMemorySupported() ? new AllocationMeter() : null;
+    }
+
+    // 테스트용: 지원하지 않는 JVM이면 테스트를 건너뛴다
+    static AllocationMeter assumeSupported() {
+        AllocationMeter meter = forCurrentThread();
+        assumeTrue(meter != null, "thread allocation measurement not supported");
+        return meter;
+    }
+
+    long bytes() {
+        return THREADS.getThreadAllocatedBytes(tid);
+    }
+}
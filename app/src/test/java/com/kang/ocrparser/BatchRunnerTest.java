@@ -0,0 +1,68 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.batch.BatchRunner;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.parser.WeighingParser;
+
+public class BatchRunnerTest {
+
+    private static final String TICKET = "차량번호: 80구8713\n총중량: 12,480 kg\n공차중량: 7,470 kg";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reportsOutputNameCollisionsInsteadOfOverwriting() throws Exception {
+        Path in = tempDir.resolve("in");
+        Files.createDirectories(in.resolve("a"));
+        Files.createDirectories(in.resolve("b"));
+        Files.writeString(in.resolve("a/x.json"), "{\"text\":\"총중량: 100 kg\"}", StandardCharsets.UTF_8);
+        Files.writeString(in.resolve("b/x.json"), "{\"text\":\"총중량: 200 kg\"}", StandardCharsets.UTF_8);
+        Files.writeString(in.resolve("x.txt"), TICKET, StandardCharsets.UTF_8);
+        Files.writeString(in.resolve("y.txt"), TICKET, StandardCharsets.UTF_8);
+
+        Path out = tempDir.resolve("out");
+        List<Path> inputs = BatchRunner.resolveInputs(in.toString());
+        BatchRunner.Summary summary = new BatchRunner(2).run(inputs, out);
+
+        // 정렬 순서로 처음인 a/x.json만 x.out.json이 되고 나머지 둘은 실패
+        assertEquals(4, summary.total);
+        assertEquals(2, summary.succeeded);
+        assertEquals(2, summary.failures.size());
+        assertEquals(List.of(in.resolve("b/x.json"), in.resolve("x.txt")),
+                summary.failures.stream().map(f -> f.input).toList());
+        assertTrue(summary.failures.get(0).reason.contains("x.out.json"), summary.failures.get(0).reason);
+        assertEquals(100, TicketJson.mapper().readTree(out.resolve("x.out.json").toFile())
+                .get("grossWeightKg").asInt());
+        assertEquals(TicketJson.write(TicketJson.PRETTY, WeighingParser.parse(TICKET)),
+                Files.readString(out.resolve("y.out.json"), StandardCharsets.UTF_8));
+        assertEquals(2, Files.readAllLines(out.resolve("failures.txt")).size());
+    }
+
+    @Test
+    void countsEachInputOnce() throws Exception {
+        Path in = tempDir.resolve("in");
+        Files.createDirectories(in);
+        Files.writeString(in.resolve("ok.txt"), TICKET, StandardCharsets.UTF_8);
+        // 읽기 실패(깨진 UTF-8)
+        Files.write(in.resolve("broken.txt"), new byte[] {(byte) 0xC3, (byte) 0x28});
+
+        BatchRunner.Summary summary = new BatchRunner(2).run(BatchRunner.resolveInputs(in.toString()),
+                tempDir.resolve("all.ndjson"));
+
+        assertEquals(2, summary.total);
+        assertEquals(summary.total, summary.succeeded + summary.failures.size());
+        assertEquals(1, summary.failures.size());
+        assertEquals(in.resolve("broken.txt"), summary.failures.get(0).input);
+    }
+}
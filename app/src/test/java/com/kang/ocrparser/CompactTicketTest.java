@@ -0,0 +1,128 @@
+package com.kang.ocrparser;
+
+import static com.kang.ocrparser.Tickets.ticket;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.model.CompactTicket;
+import com.kang.ocrparser.model.PackedDate;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.model.StringInterner;
+import com.kang.ocrparser.model.TicketColumns;
+
+public class CompactTicketTest {
+
+    private static final int TICKETS = 50_000;
+    private static final String[] VEHICLES = { "80구8713", "0580", "12가3456", "경기12바3456" };
+
+    private static List<ParsedTicket> samples() {
+        List<ParsedTicket> list = new ArrayList<>();
+        list.add(ticket("2026-02-02 05:37:55", "80구8713", 14080, 13950, 130));
+        list.add(ticket("2026-02-01 11:55", "0580", 14230, 12910, 1320));
+        list.add(ticket("2026-02-02", null, 0, null, null));
+        list.add(ticket(null, "80구1234", null, null, null));
+        // epoch로 되살릴 수 없는 날짜는 원문 그대로
+        list.add(ticket("2026-02-02 5:26", "80구1234", 12000, 7000, 5000));
+        list.add(ticket("2026-02-30", "80구1234", -1, 0, Integer.MAX_VALUE));
+        list.add(ticket("1969-12-31 23:59:59", "80구1234", null, 7000, null));
+        ParsedTicket partial = ticket("2026-03-01", "81구5678", 15000, null, null);
+        partial.setPartial(true);
+        list.add(partial);
+        ParsedTicket page = ticket("2026-03-01 09:00", "81구5678", 15000, 7000, 8000);
+        page.setPageIndex(2);
+        list.add(page);
+        list.add(new ParsedTicket());
+        return list;
+    }
+
+    @Test
+    void roundTripKeepsJsonOutput() throws Exception {
+        ObjectMapper om = TicketJson.mapper();
+        TicketColumns columns = new TicketColumns(2);
+        for (ParsedTicket t : samples()) {
+            String expected = om.writeValueAsString(t);
+            CompactTicket c = CompactTicket.of(t);
+            assertEquals(expected, om.writeValueAsString(c.toParsedTicket()));
+
+            int i = columns.add(t);
+            assertEquals(c, columns.get(i));
+            assertEquals(expected, om.writeValueAsString(columns.toParsedTicket(i)));
+        }
+        assertEquals(samples().size(), columns.size());
+
+        // addAll로 합친 묶음도 같은 결과
+        TicketColumns merged = new TicketColumns();
+        merged.addAll(columns);
+        for (int i = 0; i < columns.size(); i++) assertEquals(columns.get(i), merged.get(i));
+
+        assertEquals(PackedDate.RAW, CompactTicket.of(samples().get(4)).packedDate());
+        assertEquals(PackedDate.NULL, CompactTicket.of(samples().get(3)).packedDate());
+        assertEquals(PackedDate.SECOND, PackedDate.kind(CompactTicket.of(samples().get(0)).packedDate()));
+        assertEquals(-1, PackedDate.epochSeconds(PackedDate.pack("1969-12-31 23:59:59")));
+        assertEquals("0000-01-01", PackedDate.format(PackedDate.pack("0000-01-01")));
+        assertEquals(PackedDate.RAW, PackedDate.pack("2026-13-01"));
+        assertEquals(PackedDate.RAW, PackedDate.pack("2026-01-01 24:00"));
+        assertEquals(PackedDate.RAW, PackedDate.pack("2026/01/01"));
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.get(columns.size()));
+    }
+
+    @Test
+    void internerSharesEqualStringsWithinBound() {
+        StringInterner interner = new StringInterner(100);
+        assertEquals(128, interner.capacity());
+        String a = interner.intern(new String("80구8713"));
+        assertSame(a, interner.intern(new String("80구8713")));
+        assertSame(a, CompactTicket.of(ticket(null, new String("80구8713"), null, null, null), interner).getVehicleNumber());
+        assertNull(interner.intern(null));
+
+        // 칸보다 많은 문자열을 넣어도 값은 그대로 돌아오고 표는 커지지 않는다
+        for (int i = 0; i < 10_000; i++) {
+            String s = "V" + i;
+            assertEquals(s, interner.intern(s));
+        }
+        assertEquals(128, interner.capacity());
+    }
+
+    @Test
+    void retainsAQuarterOfParsedTicketHeap() {
+        AllocationMeter meter = AllocationMeter.assumeSupported();
+
+        char[][] dates = new char[18][];
+        for (int d = 0; d < dates.length; d++) dates[d] = ("2026-02-" + (10 + d) + " 05:37:55").toCharArray();
+        char[][] vehicles = new char[VEHICLES.length][];
+        for (int v = 0; v < vehicles.length; v++) vehicles[v] = VEHICLES[v].toCharArray();
+
+        // 파서가 만드는 것처럼 티켓마다 새 문자열(배열 포함)과 Integer
+        ParsedTicket[] parsed = new ParsedTicket[TICKETS];
+        long before = meter.bytes();
+        for (int i = 0; i < TICKETS; i++) {
+            parsed[i] = ticket(new String(dates[i % dates.length]), new String(vehicles[i % vehicles.length]),
+                    14000 + i % 5000, 7000 + i % 3000, 7000 + i % 2000);
+        }
+        double parsedBytes = (meter.bytes() - before) / (double) TICKETS;
+
+        // 컴팩트 표현은 새로 할당한 바이트가 곧 들고 있는 바이트 (차량번호는 인터너의 것을 함께 쓴다)
+        CompactTicket[] compact = new CompactTicket[TICKETS];
+        for (int i = 0; i < 1_000; i++) CompactTicket.of(parsed[i]);
+        before = meter.bytes();
+        for (int i = 0; i < TICKETS; i++) compact[i] = CompactTicket.of(parsed[i]);
+        double compactBytes = (meter.bytes() - before) / (double) TICKETS;
+
+        // 묶음은 배열 크기만큼 (int 3 + long + 참조 + byte = 25바이트/티켓)
+        before = meter.bytes();
+        TicketColumns columns = new TicketColumns(TICKETS);
+        for (int i = 0; i < TICKETS; i++) columns.add(parsed[i]);
+        double columnBytes = (meter.bytes() - before) / (double) TICKETS;
+
+        assertEquals(compact[TICKETS - 1], columns.get(TICKETS - 1));
+        assertTrue(parsedBytes >= 4 * compactBytes, "parsed " + parsedBytes + " vs compact " + compactBytes);
+        assertTrue(compactBytes <= 56, "compact bytes per ticket: " + compactBytes);
+        assertTrue(columnBytes < 32, "column bytes per ticket: " + columnBytes);
+    }
+}
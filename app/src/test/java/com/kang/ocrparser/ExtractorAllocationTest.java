@@ -0,0 +1,91 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.kang.ocrparser.parser.ExtractContext;
+import com.kang.ocrparser.parser.LabelMatches;
+import com.kang.ocrparser.parser.LabelScanner;
+import com.kang.ocrparser.parser.VehicleNumberExtractor;
+import com.kang.ocrparser.parser.WeighingDateExtractor;
+
+public class ExtractorAllocationTest {
+
+    private static final int ROUNDS = 20_000;
+
+    private static final String[] TEXTS = {
+            // 라벨 바로 뒤 (공백 섞인 번호판, 날짜 + 시간)
+            "계량일자: 2026-02-02 05:37:55\n차량번호: 80 구 8713\n총중량: 14080 kg\n",
+            // 시간이 공백 여러 칸 뒤 / 숫자만 번호판
+            "계량 일자 : 2026-02-01    11:55\n차량 No. 0580\n",
+            // 차량 라벨 없음 → "vehicle" 줄 fallback, 주소/연락처 줄은 건너뜀
+            "업체: 동우\nVehicle 주소: 어딘가로 2960-19\nvehicle Tel 031-123-4567\nVEHICLE 80구1234\n계량일자: 2026-02-02\n",
+    };
+
+    // 결과가 모두 null인 입력: 라벨·fallback 줄을 다 거치지만 만들 문자열이 없다
+    private static final String NOTHING =
+            "계량일자: 미기재\n차량번호: 없음\nvehicle 주소: 어딘가로 12-3\nvehicle FAX 02\n";
+
+    @Test
+    void extractorsReturnSameValuesThroughContext() {
+        ExtractContext ctx = new ExtractContext();
+        String[][] expected = {
+                { "80구8713", "2026-02-02 05:37:55" },
+                { "0580", "2026-02-01 11:55" },
+                { "80구1234", "2026-02-02" },
+        };
+        for (int i = 0; i < TEXTS.length; i++) {
+            LabelMatches labels = LabelScanner.DEFAULT.scan(TEXTS[i]);
+            assertEquals(expected[i][0], VehicleNumberExtractor.extract(TEXTS[i], labels, ctx));
+            assertEquals(expected[i][1], WeighingDateExtractor.extract(TEXTS[i], labels, ctx));
+            // 컨텍스트 없는 기존 API도 같은 결과
+            assertEquals(expected[i][0], VehicleNumberExtractor.extract(TEXTS[i]));
+            assertEquals(expected[i][1], WeighingDateExtractor.extract(TEXTS[i]));
+        }
+        LabelMatches labels = LabelScanner.DEFAULT.scan(NOTHING);
+        assertNull(VehicleNumberExtractor.extract(NOTHING, labels, ctx));
+        assertNull(WeighingDateExtractor.extract(NOTHING, labels, ctx));
+    }
+
+    @Test
+    void allocatesOnlyTheResultStrings() {
+        AllocationMeter meter = AllocationMeter.assumeSupported();
+
+        ExtractContext ctx = new ExtractContext();
+        LabelMatches[] labels = new LabelMatches[TEXTS.length];
+        for (int i = 0; i < TEXTS.length; i++) labels[i] = LabelScanner.DEFAULT.scan(TEXTS[i]);
+        LabelMatches nothing = LabelScanner.DEFAULT.scan(NOTHING);
+
+        // 결과 문자열 두 개 (String + byte[] 각각 수십 바이트). 예전에는 substring/replaceAll/Pattern 컴파일로 티켓당 1.5KB 안팎
+        double found = bytesPerCall(meter, () -> {
+            int n = 0;
+            for (int i = 0; i < TEXTS.length; i++) {
+                n += VehicleNumberExtractor.extract(TEXTS[i], labels[i], ctx).length();
+                n += WeighingDateExtractor.extract(TEXTS[i], labels[i], ctx).length();
+            }
+            return n;
+        }) / TEXTS.length;
+        assertTrue(found < 256, "bytes per ticket: " + found);
+
+        double none = bytesPerCall(meter, () -> {
+            String v = VehicleNumberExtractor.extract(NOTHING, nothing, ctx);
+            String d = WeighingDateExtractor.extract(NOTHING, nothing, ctx);
+            return v == null && d == null ? 0 : 1;
+        });
+        assertTrue(none < 8, "bytes per ticket without results: " + none);
+    }
+
+    // JIT가 안정된 뒤 한 번 호출당 할당 바이트
+    private static double bytesPerCall(AllocationMeter meter, Supplier<Integer> call) {
+        long sink = 0;
+        for (int i = 0; i < ROUNDS; i++) sink += call.get();
+        long before = meter.bytes();
+        for (int i = 0; i < ROUNDS; i++) sink += call.get();
+        long after = meter.bytes();
+        assertTrue(sink >= 0);
+        return (after - before) / (double) ROUNDS;
+    }
+}
@@ -0,0 +1,252 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.batch.BatchRecord;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.parser.WeighingParser;
+import com.kang.ocrparser.server.FolderWatcher;
+
+public class FolderWatcherTest {
+
+    private static final int BURST = 200;
+
+    @TempDir
+    Path tempDir;
+
+    private static String ticket(int i) {
+        return "차량번호: 80구" + (1000 + i) + "\n계량일자: 2026-02-02 05:37:55\n"
+                + "총중량: " + (12_000 + i) + " kg\n공차중량: 7,470 kg\n실중량: " + (4_530 + i) + " kg";
+    }
+
+    private static long count(Path dir, String suffix) throws Exception {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(suffix)).count();
+        }
+    }
+
+    private static void await(Path dir, String suffix, long expected) throws Exception {
+        long until = System.nanoTime() + 20_000_000_000L;
+        while (count(dir, suffix) < expected) {
+            assertTrue(System.nanoTime() < until, dir + ": " + count(dir, suffix) + " of " + expected);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void parsesBacklogBurstAndSlowWritesThenMovesInputs() throws Exception {
+        Path inbox = tempDir.resolve("inbox");
+        Path out = tempDir.resolve("out");
+        Files.createDirectories(inbox);
+        // 시작 전에 밀려 있던 파일
+        Files.writeString(inbox.resolve("backlog.txt"), ticket(0), StandardCharsets.UTF_8);
+
+        // 안정화 대기(300ms)는 아래 느린 쓰기 간격(10ms)보다 한 자릿수 이상 길게
+        FolderWatcher watcher = new FolderWatcher(inbox, out, null, null, 4, 8, 300, null);
+        watcher.start();
+        try {
+            // 다른 이름으로 쓰고 rename (클라이언트 권장 방식), 워커 자리보다 훨씬 많이 한꺼번에
+            for (int i = 1; i <= BURST; i++) {
+                Path tmp = inbox.resolve("t" + i + ".part");
+                Files.writeString(tmp, ticket(i), StandardCharsets.UTF_8);
+                Files.move(tmp, inbox.resolve("t" + i + ".txt"), StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            // 제자리에서 조금씩 쓰는 파일: 안정화 대기보다 짧게 쉬는 동안은 읽지 않는다
+            byte[] slow = ticket(BURST + 1).getBytes(StandardCharsets.UTF_8);
+            try (OutputStream os = Files.newOutputStream(inbox.resolve("slow.txt"))) {
+                for (int at = 0; at < slow.length; at += 16) {
+                    os.write(slow, at, Math.min(16, slow.length - at));
+                    os.flush();
+                    Thread.sleep(10);
+                }
+            }
+
+            // 깨진 UTF-8 → failed/
+            Files.write(inbox.resolve("broken.txt"), new byte[] {(byte) 0xC3, (byte) 0x28});
+
+            await(watcher.done(), ".txt", BURST + 2);
+            await(watcher.failed(), "broken.txt", 1);
+        } finally {
+            watcher.stop();
+        }
+
+        assertEquals(TicketJson.write(TicketJson.PRETTY, WeighingParser.parse(ticket(0))),
+                Files.readString(out.resolve("backlog.out.json"), StandardCharsets.UTF_8));
+        for (int i = 1; i <= BURST; i++) {
+            assertEquals(TicketJson.write(TicketJson.PRETTY, WeighingParser.parse(ticket(i))),
+                    Files.readString(out.resolve("t" + i + ".out.json"), StandardCharsets.UTF_8));
+        }
+        assertEquals(TicketJson.write(TicketJson.PRETTY, WeighingParser.parse(ticket(BURST + 1))),
+                Files.readString(out.resolve("slow.out.json"), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(out.resolve("broken.out.json")));
+        // 임시 파일이 남지 않고, inbox에는 하위 폴더만 남는다
+        assertEquals(BURST + 2, count(out, ""));
+        assertEquals(BURST + 2, count(out, ".out.json"));
+        try (Stream<Path> s = Files.list(inbox)) {
+            assertEquals(List.of("done", "failed"), s.map(p -> p.getFileName().toString()).sorted().toList());
+        }
+        List<String> log = Files.readAllLines(watcher.failed().resolve("failures.txt"), StandardCharsets.UTF_8);
+        assertEquals(1, log.size());
+        assertTrue(log.get(0).startsWith("broken.txt\t"), log.get(0));
+
+        FolderWatcher.Stats stats = watcher.stats();
+        assertEquals(BURST + 2, stats.processed);
+        assertEquals(1, stats.failed);
+        assertEquals(BURST + 2, stats.latencyCount);
+        assertTrue(stats.p50Nanos >= 300_000_000L, stats.toString());
+    }
+
+    @Test
+    void appendsNdjsonRecordsKeyedByFileName() throws Exception {
+        Path inbox = tempDir.resolve("inbox");
+        Path out = tempDir.resolve("all.ndjson");
+        Path done = tempDir.resolve("done");
+
+        FolderWatcher watcher = new FolderWatcher(inbox, out, done, null, 2, 0, 0, null);
+        watcher.start();
+        try {
+            for (int i = 0; i < 20; i++) {
+                Path tmp = inbox.resolve(".r" + i + ".txt");
+                Files.writeString(tmp, ticket(i), StandardCharsets.UTF_8);
+                Files.move(tmp, inbox.resolve("r" + i + ".txt"), StandardCopyOption.ATOMIC_MOVE);
+            }
+            await(done, ".txt", 20);
+        } finally {
+            watcher.stop();
+        }
+
+        // 끝나는 순서대로 쌓이므로 정렬해서 비교
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(TicketJson.write(TicketJson.COMPACT, new BatchRecord("r" + i + ".txt", WeighingParser.parse(ticket(i)))));
+        }
+        List<String> lines = new ArrayList<>(Files.readAllLines(out, StandardCharsets.UTF_8));
+        Collections.sort(expected);
+        Collections.sort(lines);
+        assertEquals(expected, lines);
+        assertEquals(0, watcher.stats().failed);
+    }
+
+    @Test
+    void retriesDoneMoveWithoutCountingTwice() throws Exception {
+        Path inbox = tempDir.resolve("inbox");
+        Path out = tempDir.resolve("out");
+        Path done = tempDir.resolve("done");
+        // done/x.txt 자리에 비어 있지 않은 디렉토리 → 결과는 써지지만 입력을 옮기지 못한다
+        Files.createDirectories(done.resolve("x.txt"));
+        Files.writeString(done.resolve("x.txt/keep"), "", StandardCharsets.UTF_8);
+
+        FolderWatcher watcher = new FolderWatcher(inbox, out, done, null, 2, 0, 5, null);
+        watcher.start();
+        try {
+            Path tmp = inbox.resolve(".x.txt");
+            Files.writeString(tmp, ticket(1), StandardCharsets.UTF_8);
+            Files.move(tmp, inbox.resolve("x.txt"), StandardCopyOption.ATOMIC_MOVE);
+            await(out, ".out.json", 1);
+            long until = System.nanoTime() + 20_000_000_000L;
+            while (watcher.stats().processed < 1) {
+                assertTrue(System.nanoTime() < until);
+                Thread.sleep(10);
+            }
+            assertTrue(Files.exists(inbox.resolve("x.txt")));
+
+            // 막은 것을 치우면 주기적으로 다시 훑을 때(이벤트 없이) 옮기기만 다시 한다
+            Files.delete(done.resolve("x.txt/keep"));
+            Files.delete(done.resolve("x.txt"));
+            await(done, "x.txt", 1);
+        } finally {
+            watcher.stop();
+        }
+
+        assertTrue(Files.isRegularFile(done.resolve("x.txt")));
+        assertFalse(Files.exists(inbox.resolve("x.txt")));
+        assertEquals(TicketJson.write(TicketJson.PRETTY, WeighingParser.parse(ticket(1))),
+                Files.readString(out.resolve("x.out.json"), StandardCharsets.UTF_8));
+        FolderWatcher.Stats stats = watcher.stats();
+        assertEquals(1, stats.processed);
+        assertEquals(0, stats.failed);
+        assertEquals(0, Files.size(watcher.failed().resolve("failures.txt")));
+        assertTrue(stats.rescans >= 2, stats.toString());
+    }
+
+    @Test
+    void failsSecondInputWithSameOutputName() throws Exception {
+        Path inbox = tempDir.resolve("inbox");
+        Path out = tempDir.resolve("out");
+
+        FolderWatcher watcher = new FolderWatcher(inbox, out, null, null, 2, 0, 5, null);
+        watcher.start();
+        try {
+            Files.writeString(inbox.resolve("a.json"), "{\"text\":\"" + ticket(1).replace("\n", "\\n") + "\"}",
+                    StandardCharsets.UTF_8);
+            await(watcher.done(), "a.json", 1);
+            // a.txt도 a.out.json이 된다 → 덮어쓰지 않고 실패
+            Files.writeString(inbox.resolve("a.txt"), ticket(2), StandardCharsets.UTF_8);
+            await(watcher.failed(), "a.txt", 1);
+            // 같은 입력 이름으로 다시 보낸 것은 덮어쓴다
+            Files.writeString(inbox.resolve("a.json"), "{\"text\":\"" + ticket(3).replace("\n", "\\n") + "\"}",
+                    StandardCharsets.UTF_8);
+            long until = System.nanoTime() + 20_000_000_000L;
+            while (watcher.stats().processed < 2) {
+                assertTrue(System.nanoTime() < until, watcher.stats().toString());
+                Thread.sleep(10);
+            }
+        } finally {
+            watcher.stop();
+        }
+
+        assertEquals(TicketJson.write(TicketJson.PRETTY, WeighingParser.parse(ticket(3))),
+                Files.readString(out.resolve("a.out.json"), StandardCharsets.UTF_8));
+        List<String> log = Files.readAllLines(watcher.failed().resolve("failures.txt"), StandardCharsets.UTF_8);
+        assertEquals(List.of("a.txt\toutput name a.out.json already used by a.json"), log);
+        assertEquals(1, watcher.stats().failed);
+    }
+
+    @Test
+    void failedInputThatCannotBeMovedIsCountedOnce() throws Exception {
+        Path inbox = tempDir.resolve("inbox");
+        Path out = tempDir.resolve("out");
+        Path failed = tempDir.resolve("failed");
+        // failed/broken.txt 자리에 비어 있지 않은 디렉토리 → 실패로 기록하지만 옮기지 못한다
+        Files.createDirectories(failed.resolve("broken.txt"));
+        Files.writeString(failed.resolve("broken.txt/keep"), "", StandardCharsets.UTF_8);
+
+        FolderWatcher watcher = new FolderWatcher(inbox, out, null, failed, 2, 0, 5, null);
+        watcher.start();
+        try {
+            Files.write(inbox.resolve("broken.txt"), new byte[] {(byte) 0xC3, (byte) 0x28});
+            // 주기적으로 다시 훑기(1초)를 두 번 넘게 지나도 다시 파싱하지 않는다
+            long until = System.nanoTime() + 20_000_000_000L;
+            while (watcher.stats().rescans < 4) {
+                assertTrue(System.nanoTime() < until, watcher.stats().toString());
+                Thread.sleep(10);
+            }
+            assertEquals(1, watcher.stats().failed);
+            assertTrue(Files.exists(inbox.resolve("broken.txt")));
+
+            Files.delete(failed.resolve("broken.txt/keep"));
+            Files.delete(failed.resolve("broken.txt"));
+            await(failed, "broken.txt", 1);
+        } finally {
+            watcher.stop();
+        }
+
+        assertTrue(Files.isRegularFile(failed.resolve("broken.txt")));
+        assertEquals(1, watcher.stats().failed);
+        assertEquals(1, Files.readAllLines(failed.resolve("failures.txt"), StandardCharsets.UTF_8).size());
+    }
+}
@@ -0,0 +1,61 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.FuzzyLabelScanner;
+import com.kang.ocrparser.parser.LabelMatches;
+import com.kang.ocrparser.parser.LabelScanner;
+import com.kang.ocrparser.parser.LabelScanner.Field;
+import com.kang.ocrparser.parser.WeighingParser;
+
+public class FuzzyLabelScannerTest {
+
+    private static LabelMatches scan(String text) {
+        LabelMatches m = LabelScanner.DEFAULT.scan(text);
+        FuzzyLabelScanner.WEIGHTS.addMissing(text, m);
+        return m;
+    }
+
+    @Test
+    void findsMisreadLabelsWithJamoDistance() {
+        // 량→랑 / 중→줌 / 중→증: 음절 하나가 아니라 자모 하나 차이
+        String text = "총 중 랑 : 12,480 kg\n공차줌량: 7,470 kg\n실증량: 5,010 kg";
+
+        LabelMatches m = scan(text);
+
+        int gross = m.first(Field.GROSS);
+        assertEquals(0, m.start(gross));
+        assertEquals("총 중 랑".length(), m.end(gross));
+        assertEquals(1, m.distance(gross));
+        assertEquals(1, m.distance(m.first(Field.TARE)));
+        assertEquals(text.indexOf("실증량"), m.start(m.first(Field.NET)));
+
+        // 라벨로 바로 채워짐 (kg 후보 조합 탐색을 거치지 않아도 같은 값)
+        ParsedTicket ticket = WeighingParser.parse(text);
+        assertEquals(12480, ticket.getGrossWeightKg());
+        assertEquals(7470, ticket.getTareWeightKg());
+        assertEquals(5010, ticket.getNetWeightKg());
+    }
+
+    @Test
+    void exactLabelsWinAndFarWordsDoNotMatch() {
+        // 정확한 라벨이 있는 필드는 퍼지 결과를 더하지 않는다
+        LabelMatches m = scan("총중량: 100 kg 총중랑: 200 kg");
+        assertEquals(1, m.inOrder(Field.GROSS).length);
+        assertEquals(0, m.distance(m.first(Field.GROSS)));
+
+        // 정확한 공차중량 안의 "차중량"은 총중량과 거리 2지만 정확한 라벨과 겹쳐서 버림
+        assertEquals(-1, scan("공차중량: 7,470 kg").first(Field.GROSS));
+
+        // 음절로는 한 글자 차이지만 자모로는 3개 차이 → 라벨 아님
+        assertEquals(-1, scan("감중량 20 kg").first(Field.GROSS));
+        // 떨어져 나온 "중 량:" 도 라벨 아님
+        LabelMatches orphan = scan("중 량: 7,470 kg");
+        assertEquals(-1, orphan.first(Field.GROSS));
+        assertEquals(-1, orphan.first(Field.TARE));
+        assertEquals(-1, orphan.first(Field.NET));
+    }
+}
@@ -0,0 +1,383 @@
+package com.kang.ocrparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+
+/*
+ * 골든 코퍼스: samples/*.json 과 기대 결과(golden/expected.json), 거기서 만든 노이즈 변형으로
+ * 필드별 정확도와 처리량(티켓/초), 티켓당 할당량을 잰다.
+ *
+ * 변형은 의미를 바꾸지 않는 OCR 잡음만 넣으므로 기대 결과는 원본과 같다.
+ * - TIME_TOKENS: 중량 값 앞에 시각 ("05:26", "11시 33분")
+ * - SPACING:     한글 사이 공백을 넣거나 뺌 ("총중량" ↔ "총 중 량")
+ * - COMMAS:      천 단위 구분 ("12,480" → "12480" / "12 480")
+ * - LABELS:      중량 라벨 한 글자 깨짐 ("중량" → "중랑" / "줌량" / "증량")
+ * - MIXED:       위 네 가지를 모두
+ * 시드가 고정이라 같은 코드면 항상 같은 변형이 나온다.
+ *
+ * 실행: ./gradlew :app:goldenCorpus (check에는 -PperfGate일 때만)
+ *   --baseline <path>        기준값보다 정확도가 하나라도 떨어지거나 처리량/할당량이 허용 범위를 넘으면 종료 코드 1
+ *   --write-baseline <path>  이번 결과를 기준값으로 저장 (-PupdateBaseline)
+ *   --tolerance <ratio>      처리량/할당량 허용 범위 (기본 0.3)
+ *   --no-perf                정확도만
+ */
+public class GoldenCorpus {
+
+    static final String EXPECTED = "/golden/expected.json";
+
+    static final String[] FIELDS = { "weighingDate", "vehicleNumber", "grossWeightKg", "tareWeightKg", "netWeightKg" };
+
+    enum Noise { ORIGINAL, TIME_TOKENS, SPACING, COMMAS, LABELS, MIXED }
+
+    static final int VARIANTS = 5;
+
+    private static final double DEFAULT_TOLERANCE = 0.3;
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long ROUND_NANOS = 400_000_000L;
+    private static final int ROUNDS = 5;
+
+    static final class Case {
+        final String sample;
+        final Noise noise;
+        final String text;
+        final ParsedTicket expected;
+
+        Case(String sample, Noise noise, String text, ParsedTicket expected) {
+            this.sample = sample;
+            this.noise = noise;
+            this.text = text;
+            this.expected = expected;
+        }
+    }
+
+    // 노이즈 종류별 맞은 개수: correct[noise][field], FIELDS.length 칸은 다섯 필드가 모두 맞은 티켓
+    static final class Accuracy {
+        final int[] cases = new int[Noise.values().length];
+        final int[][] correct = new int[Noise.values().length][FIELDS.length + 1];
+
+        double ratio(Noise noise, int field) {
+            int n = cases[noise.ordinal()];
+            return n == 0 ? 1.0 : (double) correct[noise.ordinal()][field] / n;
+        }
+    }
+
+    static final class Throughput {
+        final double ticketsPerSec;
+        final double bytesPerTicket;
+        // 파싱 결과 해시의 합: 결과를 쓰는 곳이 있어야 JIT가 측정 루프의 파싱을 지우지 않는다
+        final long checksum;
+
+        Throughput(double ticketsPerSec, double bytesPerTicket, long checksum) {
+            this.ticketsPerSec = ticketsPerSec;
+            this.bytesPerTicket = bytesPerTicket;
+            this.checksum = checksum;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path baseline = null;
+        Path writeBaseline = null;
+        double tolerance = DEFAULT_TOLERANCE;
+        boolean perf = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--baseline" -> baseline = Path.of(args[++i]);
+                case "--write-baseline" -> writeBaseline = Path.of(args[++i]);
+                case "--tolerance" -> tolerance = Double.parseDouble(args[++i]);
+                case "--no-perf" -> perf = false;
+                default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+
+        List<Case> cases = cases();
+        Accuracy accuracy = score(cases);
+        System.out.print(report(accuracy));
+        Throughput throughput = perf ? measure(cases) : null;
+        if (throughput != null) {
+            System.out.printf("[GOLDEN] throughput %,.0f tickets/s, %,.0f bytes/ticket allocated (checksum %x)%n",
+                    throughput.ticketsPerSec, throughput.bytesPerTicket, throughput.checksum);
+        }
+
+        if (writeBaseline != null) {
+            Files.writeString(writeBaseline, TicketJson.write(TicketJson.PRETTY, toJson(accuracy, throughput)),
+                    StandardCharsets.UTF_8);
+            System.out.println("[GOLDEN] baseline written to " + writeBaseline.toAbsolutePath());
+        }
+        if (baseline != null) {
+            JsonNode stored = TicketJson.mapper().readTree(Files.readString(baseline, StandardCharsets.UTF_8));
+            List<String> regressions = compare(stored, accuracy, throughput, tolerance);
+            if (!regressions.isEmpty()) {
+                for (String r : regressions) System.err.println("[GOLDEN] REGRESSION " + r);
+                System.err.println("[GOLDEN] intended? update with ./gradlew :app:goldenCorpus -PupdateBaseline");
+                System.exit(1);
+            }
+            System.out.println("[GOLDEN] no regression against " + baseline);
+        }
+    }
+
+    // 원본 + 노이즈 종류마다 VARIANTS개 (샘플 순서, 종류 순서)
+    static List<Case> cases() throws IOException {
+        JsonNode expected = TicketJson.mapper().readTree(resource(EXPECTED));
+        List<Case> out = new ArrayList<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = expected.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> e = it.next();
+            String sample = e.getKey();
+            ParsedTicket want = TicketJson.mapper().treeToValue(e.getValue(), ParsedTicket.class);
+            String text = OcrTextReader.decode(resource("/" + sample), sample.endsWith(".json"));
+
+            out.add(new Case(sample, Noise.ORIGINAL, text, want));
+            for (Noise noise : Noise.values()) {
+                if (noise == Noise.ORIGINAL) continue;
+                for (int v = 0; v < VARIANTS; v++) {
+                    Random rnd = new Random(Objects.hash(sample, noise.name(), v));
+                    out.add(new Case(sample, noise, noisy(text, noise, rnd), want));
+                }
+            }
+        }
+        return out;
+    }
+
+    static Accuracy score(List<Case> cases) {
+        Accuracy a = new Accuracy();
+        for (Case c : cases) {
+            ParsedTicket got = WeighingParser.parse(c.text);
+            int n = c.noise.ordinal();
+            a.cases[n]++;
+            boolean all = true;
+            for (int f = 0; f < FIELDS.length; f++) {
+                boolean ok = Objects.equals(field(c.expected, f), field(got, f));
+                if (ok) a.correct[n][f]++;
+                all &= ok;
+            }
+            if (all) a.correct[n][FIELDS.length]++;
+        }
+        return a;
+    }
+
+    /*
+     * 예열 뒤 ROUND_NANOS 동안 전체 케이스를 반복 파싱하는 라운드를 ROUNDS번 돌려 가장 빠른 라운드를 쓴다.
+     * 할당량은 이 스레드가 측정 구간에서 할당한 바이트 / 티켓 수.
+     */
+    static Throughput measure(List<Case> cases) {
+        String[] texts = cases.stream().map(c -> c.text).toArray(String[]::new);
+        long sink = 0;
+        long end = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < end) {
+            for (String t : texts) sink += hashOf(WeighingParser.parse(t));
+        }
+
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+        double best = 0;
+        long parsed = 0;
+        long allocated = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long count = 0;
+            long bytes0 = meter == null ? 0 : meter.bytes();
+            long t0 = System.nanoTime();
+            long stop = t0 + ROUND_NANOS;
+            long now;
+            do {
+                for (String t : texts) sink += hashOf(WeighingParser.parse(t));
+                count += texts.length;
+                now = System.nanoTime();
+            } while (now < stop);
+            if (meter != null) allocated += meter.bytes() - bytes0;
+            parsed += count;
+            best = Math.max(best, count * 1e9 / (now - t0));
+        }
+        // 할당을 잴 수 없는 JVM이면 NaN (기준선에 쓰지도, 비교하지도 않는다)
+        return new Throughput(best, meter == null ? Double.NaN : (double) allocated / parsed, sink);
+    }
+
+    static String report(Accuracy a) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("[GOLDEN] %-12s %6s", "noise", "cases"));
+        for (String f : FIELDS) sb.append(String.format(" %14s", f));
+        sb.append(String.format(" %8s%n", "all"));
+        for (Noise noise : Noise.values()) {
+            sb.append(String.format("[GOLDEN] %-12s %6d", noise.name().toLowerCase(), a.cases[noise.ordinal()]));
+            for (int f = 0; f <= FIELDS.length; f++) {
+                sb.append(String.format(f < FIELDS.length ? " %13.1f%%" : " %7.1f%%", 100 * a.ratio(noise, f)));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    static ObjectNode toJson(Accuracy a, Throughput t) {
+        ObjectNode root = TicketJson.mapper().createObjectNode();
+        ObjectNode acc = root.putObject("accuracy");
+        for (Noise noise : Noise.values()) {
+            ObjectNode row = acc.putObject(noise.name().toLowerCase());
+            for (int f = 0; f < FIELDS.length; f++) row.put(FIELDS[f], round(a.ratio(noise, f)));
+            row.put("all", round(a.ratio(noise, FIELDS.length)));
+        }
+        if (t != null) {
+            root.put("ticketsPerSec", Math.round(t.ticketsPerSec));
+            if (!Double.isNaN(t.bytesPerTicket)) root.put("bytesPerTicket", Math.round(t.bytesPerTicket));
+        }
+        return root;
+    }
+
+    // 정확도는 결정적이라 그대로 비교, 처리량/할당량은 tolerance만큼 봐준다
+    static List<String> compare(JsonNode stored, Accuracy a, Throughput t, double tolerance) {
+        List<String> out = new ArrayList<>();
+        JsonNode acc = stored.path("accuracy");
+        for (Noise noise : Noise.values()) {
+            JsonNode row = acc.path(noise.name().toLowerCase());
+            for (int f = 0; f <= FIELDS.length; f++) {
+                String name = f < FIELDS.length ? FIELDS[f] : "all";
+                if (!row.has(name)) continue;
+                double was = row.get(name).asDouble();
+                double now = round(a.ratio(noise, f));
+                if (now < was) out.add(String.format("%s/%s accuracy %.4f < %.4f", noise.name().toLowerCase(), name, now, was));
+            }
+        }
+        if (t != null && stored.has("ticketsPerSec")) {
+            double was = stored.get("ticketsPerSec").asDouble();
+            if (t.ticketsPerSec < was * (1 - tolerance)) {
+                out.add(String.format("throughput %,.0f < %,.0f tickets/s (-%.0f%% allowed)",
+                        t.ticketsPerSec, was, tolerance * 100));
+            }
+        }
+        if (t != null && stored.has("bytesPerTicket")) {
+            double was = stored.get("bytesPerTicket").asDouble();
+            if (t.bytesPerTicket > was * (1 + tolerance)) {
+                out.add(String.format("allocation %,.0f > %,.0f bytes/ticket (+%.0f%% allowed)",
+                        t.bytesPerTicket, was, tolerance * 100));
+            }
+        }
+        return out;
+    }
+
+    // ---- 노이즈 ----
+
+    private static final Pattern KG_VALUE = Pattern.compile("(\\d{1,3}(?:[, ]\\d{3})+|\\d+)(\\s*kg)");
+    private static final Pattern THOUSANDS = Pattern.compile("(\\d{1,3})[, ]?(\\d{3})(\\s*kg)");
+    private static final Pattern WEIGHT_LABEL = Pattern.compile("중(\\s*)량");
+
+    static String noisy(String text, Noise noise, Random rnd) {
+        return switch (noise) {
+            case ORIGINAL -> text;
+            case TIME_TOKENS -> timeTokens(text, rnd);
+            case SPACING -> spacing(text, rnd);
+            case COMMAS -> commas(text, rnd);
+            case LABELS -> labels(text, rnd);
+            case MIXED -> labels(commas(spacing(timeTokens(text, rnd), rnd), rnd), rnd);
+        };
+    }
+
+    // kg 값 앞에 시각 (이미 있으면 하나 더)
+    static String timeTokens(String text, Random rnd) {
+        Matcher m = KG_VALUE.matcher(text);
+        StringBuilder sb = new StringBuilder(text.length() + 32);
+        while (m.find()) {
+            String time = rnd.nextBoolean()
+                    ? String.format("%02d:%02d", rnd.nextInt(24), rnd.nextInt(60))
+                    : String.format("%d시 %d분", rnd.nextInt(24), rnd.nextInt(60));
+            m.appendReplacement(sb, Matcher.quoteReplacement(time + " " + m.group(1) + m.group(2)));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    // 한글 두 글자 사이에 공백을 넣거나, 한글 사이 공백 하나를 뺀다
+    static String spacing(String text, Random rnd) {
+        StringBuilder sb = new StringBuilder(text.length() + 32);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ' && i > 0 && i + 1 < text.length() && isHangul(text.charAt(i - 1))
+                    && isHangul(text.charAt(i + 1)) && rnd.nextInt(3) == 0) {
+                continue;
+            }
+            sb.append(c);
+            if (isHangul(c) && i + 1 < text.length() && isHangul(text.charAt(i + 1)) && rnd.nextInt(3) == 0) {
+                sb.append(' ');
+            }
+        }
+        return sb.toString();
+    }
+
+    // 천 단위: 쉼표 / 공백 / 없음 중 하나로 바꾼다
+    static String commas(String text, Random rnd) {
+        Matcher m = THOUSANDS.matcher(text);
+        StringBuilder sb = new StringBuilder(text.length());
+        while (m.find()) {
+            String sep = switch (rnd.nextInt(3)) {
+                case 0 -> ",";
+                case 1 -> " ";
+                default -> "";
+            };
+            m.appendReplacement(sb, Matcher.quoteReplacement(m.group(1) + sep + m.group(2) + m.group(3)));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    // "중량"의 한 글자를 OCR이 흔히 헷갈리는 글자로 (라벨마다 70%)
+    static String labels(String text, Random rnd) {
+        Matcher m = WEIGHT_LABEL.matcher(text);
+        StringBuilder sb = new StringBuilder(text.length());
+        while (m.find()) {
+            String replaced = m.group();
+            if (rnd.nextInt(10) < 7) {
+                replaced = switch (rnd.nextInt(3)) {
+                    case 0 -> "줌" + m.group(1) + "량";
+                    case 1 -> "증" + m.group(1) + "량";
+                    default -> "중" + m.group(1) + "랑";
+                };
+            }
+            m.appendReplacement(sb, Matcher.quoteReplacement(replaced));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static boolean isHangul(char c) {
+        return c >= 0xAC00 && c <= 0xD7A3;
+    }
+
+    private static Object field(ParsedTicket t, int f) {
+        return switch (f) {
+            case 0 -> t.getWeighingDate();
+            case 1 -> t.getVehicleNumber();
+            case 2 -> t.getGrossWeightKg();
+            case 3 -> t.getTareWeightKg();
+            default -> t.getNetWeightKg();
+        };
+    }
+
+    private static int hashOf(ParsedTicket t) {
+        return Objects.hash(t.getWeighingDate(), t.getVehicleNumber(), t.getNetWeightKg());
+    }
+
+    private static double round(double ratio) {
+        return Math.round(ratio * 10_000) / 10_000.0;
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = GoldenCorpus.class.getResourceAsStream(name)) {
+            if (in == null) throw new UncheckedIOException(new IOException("missing corpus resource: " + name));
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kang.ocrparser.GoldenCorpus.Case;
+import com.kang.ocrparser.GoldenCorpus.Noise;
+import com.kang.ocrparser.io.TicketJson;
+
+// 정확도 게이트만 (결정적). 처리량/할당량은 ./gradlew :app:goldenCorpus 에서
+public class GoldenCorpusTest {
+
+    @Test
+    void accuracyDoesNotRegressAgainstBaseline() throws Exception {
+        List<Case> cases = GoldenCorpus.cases();
+        assertEquals(4 * (1 + (Noise.values().length - 1) * GoldenCorpus.VARIANTS), cases.size());
+
+        GoldenCorpus.Accuracy accuracy = GoldenCorpus.score(cases);
+        // 원본 샘플은 기대 결과와 전부 같아야 한다
+        assertEquals(1.0, accuracy.ratio(Noise.ORIGINAL, GoldenCorpus.FIELDS.length), GoldenCorpus.report(accuracy));
+
+        JsonNode baseline;
+        try (InputStream in = GoldenCorpusTest.class.getResourceAsStream("/golden/baseline.json")) {
+            baseline = TicketJson.mapper().readTree(in);
+        }
+        List<String> regressions = GoldenCorpus.compare(baseline, accuracy, null, 0);
+        assertTrue(regressions.isEmpty(), String.join("\n", regressions) + "\n" + GoldenCorpus.report(accuracy));
+    }
+
+    @Test
+    void noiseIsDeterministicAndKeepsValues() {
+        String text = "총중량: 12,480 kg\n공차중량: 7,470 kg\n실중량: 5,010 kg\n";
+
+        for (Noise noise : Noise.values()) {
+            assertEquals(GoldenCorpus.noisy(text, noise, new Random(7)), GoldenCorpus.noisy(text, noise, new Random(7)));
+        }
+        assertTrue(GoldenCorpus.timeTokens(text, new Random(1)).matches("(?s)총중량: \\S+( \\S+)? 12,480 kg\n.*"));
+        assertFalse(GoldenCorpus.commas(text, new Random(3)).equals(text));
+        assertEquals(text.replace(",", "").replace(" ", "").replace("\n", ""),
+                GoldenCorpus.commas(text, new Random(3)).replace(",", "").replace(" ", "").replace("\n", ""));
+        String corrupted = GoldenCorpus.labels(text, new Random(5));
+        assertEquals(text.length(), corrupted.length());
+        assertFalse(corrupted.equals(text));
+    }
+}
@@ -0,0 +1,43 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.kang.ocrparser.parser.LabelMatches;
+import com.kang.ocrparser.parser.LabelScanner;
+import com.kang.ocrparser.parser.LabelScanner.Field;
+
+public class LabelScannerTest {
+
+    @Test
+    void findsSpacedHangulLabelsInOnePass() {
+        String text = "총 중 량 : 14080 kg\n공 차 중 량 : 13950 kg\n실중량: 130 kg\n계량 일자: 2026-02-01";
+
+        LabelMatches m = LabelScanner.DEFAULT.scan(text);
+
+        int gross = m.first(Field.GROSS);
+        assertEquals(0, m.start(gross));
+        assertEquals("총 중 량".length(), m.end(gross));
+
+        // 공차중량 안의 차중량도 같이 잡히지만, 시작 위치 순으로는 공차중량이 먼저
+        int[] tare = m.inOrder(Field.TARE);
+        assertEquals(2, tare.length);
+        assertEquals(text.indexOf("공 차"), m.start(tare[0]));
+        assertEquals(m.end(tare[0]), m.end(tare[1]));
+
+        assertTrue(m.first(Field.NET) >= 0);
+        assertEquals(text.indexOf("계량 일자"), m.start(m.first(Field.DATE)));
+    }
+
+    @Test
+    void rejectsWhitespaceWhereLabelDoesNotAllowIt() {
+        // 계량\s*일자 → "계 량 일자"는 라벨이 아님
+        assertEquals(-1, LabelScanner.DEFAULT.scan("계 량 일자: 2026-02-01").first(Field.DATE));
+
+        // 차량\s*no\.? 는 대소문자 무시, 가장 긴 라벨 우선
+        LabelMatches m = LabelScanner.DEFAULT.scan("차량 No. 0580");
+        int v = m.first(Field.VEHICLE);
+        assertEquals("차량 No.".length(), m.end(v));
+    }
+}
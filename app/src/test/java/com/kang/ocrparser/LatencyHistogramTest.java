@@ -0,0 +1,34 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.kang.ocrparser.metrics.LatencyHistogram;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinBucketError() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1_000);
+        }
+
+        assertEquals(100_000, h.count());
+        assertEquals(100_000_000L, h.maxNanos());
+
+        // 버킷 하한값이라 실제 값보다 작거나 같고, 상대 오차는 1/16 이내
+        long p50 = h.percentileNanos(50);
+        long p99 = h.percentileNanos(99);
+        assertTrue(p50 <= 50_000_000L && p50 >= 50_000_000L * 15 / 16, "p50=" + p50);
+        assertTrue(p99 <= 99_000_000L && p99 >= 99_000_000L * 15 / 16, "p99=" + p99);
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentileNanos(99));
+        assertEquals(0, h.maxNanos());
+    }
+}
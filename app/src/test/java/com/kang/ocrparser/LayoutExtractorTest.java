@@ -0,0 +1,51 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.kang.ocrparser.layout.WordLayout;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+
+public class LayoutExtractorTest {
+
+    // 한 줄에 단어들을 왼쪽부터 배치 (x는 시작 좌표, 폭은 글자 수 × 20)
+    private static void row(WordLayout layout, int y, Object... xAndText) {
+        for (int k = 0; k < xAndText.length; k += 2) {
+            int x = (Integer) xAndText[k];
+            String text = (String) xAndText[k + 1];
+            layout.add(text, x, y, x + text.length() * 20, y + 40, 0.95f, 0);
+        }
+    }
+
+    @Test
+    void pairsLabelsWithValuesOnTheSameRow() {
+        // 제공사 text가 라벨 열 → 값 열 순서로 평탄화된 경우 (텍스트 모드는 모든 라벨이 첫 kg 값에 붙음)
+        String text = "총중량\n공차중량\n실중량\n14,080 kg\n13,950 kg\n130 kg";
+
+        WordLayout layout = new WordLayout();
+        row(layout, 100, 10, "총중량", 400, "14,080", 540, "kg");
+        row(layout, 200, 10, "공차중량", 400, "13,950", 540, "kg");
+        row(layout, 300, 10, "실중량", 400, "130", 540, "kg");
+
+        ParsedTicket ticket = WeighingParser.parse(text, layout);
+
+        assertEquals(14080, ticket.getGrossWeightKg());
+        assertEquals(13950, ticket.getTareWeightKg());
+        assertEquals(130, ticket.getNetWeightKg());
+    }
+
+    @Test
+    void joinsThousandGroupsSplitIntoWordsAndSkipsTimeFragments() {
+        WordLayout layout = new WordLayout();
+        row(layout, 100, 10, "총중량:", 300, "02:07", 600, "13", 680, "·", 720, "460", 800, "kg");
+        row(layout, 200, 10, "차중량:", 300, "02", 350, ":", 380, "13", 600, "7", 720, "560", 800, "kg");
+
+        ParsedTicket ticket = WeighingParser.parse("총중량: 02:07 13 · 460 kg\n차중량: 02 : 13 7 560 kg", layout);
+
+        assertEquals(13460, ticket.getGrossWeightKg());
+        assertEquals(7560, ticket.getTareWeightKg());
+        assertEquals(5900, ticket.getNetWeightKg());
+    }
+}
@@ -0,0 +1,232 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.batch.NdjsonPipeline;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.model.ParsedTicket;
+
+public class NdjsonPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    // 압축 입력의 체크포인트: 압축 파일 크기와 수정 시각이 지금 파일과 같아야 이어 간다
+    private static String compressedCheckpoint(Path input, long offset, long line, long outputBytes) throws Exception {
+        return "{\"input\":\"" + input.toAbsolutePath().toString().replace("\\", "\\\\")
+                + "\",\"inputBytes\":" + Files.size(input)
+                + ",\"inputModified\":" + Files.getLastModifiedTime(input).toMillis()
+                + ",\"offset\":" + offset + ",\"line\":" + line
+                + ",\"outputBytes\":" + outputBytes + ",\"failureBytes\":0}";
+    }
+
+    // 줄마다 값이 다른 입력 (빈 줄 섞임) → 순서가 바뀌면 바로 보인다
+    private Path writeInput(int count) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            sb.append("{\"text\":\"총중량: ").append(10_000 + i).append(" kg\\n공차중량: 5000 kg\"}\n");
+            if (i % 10 == 0) sb.append("\n");
+        }
+        Path input = tempDir.resolve("day.ndjson");
+        Files.writeString(input, sb.toString(), StandardCharsets.UTF_8);
+        return input;
+    }
+
+    @Test
+    void writesResultsInInputOrderAndSkipsBlankLines() throws Exception {
+        Path input = writeInput(500);
+        Path output = tempDir.resolve("out.ndjson");
+
+        NdjsonPipeline.Result result = new NdjsonPipeline(4, 8, null)
+                .run(input, output, NdjsonPipeline.defaultCheckpoint(output));
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(500, lines.size());
+        assertEquals(500L, result.lines);
+        assertTrue(lines.get(0).startsWith("{\"source\":\"1\","));
+        assertTrue(lines.get(0).contains("\"grossWeightKg\":10001"));
+        // 10번째 줄 뒤의 빈 줄 때문에 11번째 결과는 입력 12번째 줄
+        assertTrue(lines.get(10).startsWith("{\"source\":\"12\","));
+        assertTrue(lines.get(499).contains("\"grossWeightKg\":10500"));
+        assertFalse(Files.exists(NdjsonPipeline.defaultCheckpoint(output)));
+    }
+
+    @Test
+    void resumesFromCheckpointAfterCrash() throws Exception {
+        Path input = writeInput(300);
+        Path output = tempDir.resolve("out.ndjson");
+        Path checkpoint = NdjsonPipeline.defaultCheckpoint(output);
+        new NdjsonPipeline(2, 4, null).run(input, output, checkpoint);
+        byte[] expected = Files.readAllBytes(output);
+
+        // 120번째 결과까지 체크포인트된 뒤 죽은 상태: 출력 뒤쪽엔 쓰다 만 줄이 남아 있다
+        List<String> inputLines = Files.readAllLines(input, StandardCharsets.UTF_8);
+        List<String> outputLines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        int inputLineNo = 120 + 120 / 10;   // 120번째 값 뒤의 빈 줄까지
+        long offset = 0;
+        for (int i = 0; i < inputLineNo; i++) offset += inputLines.get(i).getBytes(StandardCharsets.UTF_8).length + 1;
+        long outputBytes = 0;
+        for (int i = 0; i < 120; i++) outputBytes += outputLines.get(i).getBytes(StandardCharsets.UTF_8).length + 1;
+
+        Files.write(output, Arrays.copyOf(expected, (int) outputBytes + 40));
+        Files.writeString(checkpoint, "{\"input\":\"" + input.toAbsolutePath().toString().replace("\\", "\\\\")
+                + "\",\"offset\":" + offset + ",\"line\":" + inputLineNo
+                + ",\"outputBytes\":" + outputBytes + ",\"failureBytes\":0}");
+
+        NdjsonPipeline.Result result = new NdjsonPipeline(2, 4, null).run(input, output, checkpoint);
+
+        assertEquals(offset, result.resumedFromOffset);
+        assertEquals(180L, result.lines);
+        assertEquals(new String(expected, StandardCharsets.UTF_8), Files.readString(output, StandardCharsets.UTF_8));
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    @Test
+    void streamsGzipAndZipInputsKeyedByEntryName() throws Exception {
+        // .jsonl.gz: 평문과 같은 결과
+        Path plain = writeInput(200);
+        Path plainOut = tempDir.resolve("plain.ndjson");
+        new NdjsonPipeline(3, 4, null).run(plain, plainOut, null);
+        Path gz = tempDir.resolve("day.jsonl.gz");
+        try (OutputStream o = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            Files.copy(plain, o);
+        }
+        Path gzOut = tempDir.resolve("gz.ndjson");
+        new NdjsonPipeline(3, 4, null).run(gz, gzOut, null);
+        assertEquals(Files.readString(plainOut, StandardCharsets.UTF_8), Files.readString(gzOut, StandardCharsets.UTF_8));
+
+        // .zip: 응답 파일 하나가 결과 한 줄, source = 항목 이름 (디렉토리/다른 확장자/__MACOSX는 건너뜀)
+        Path zip = tempDir.resolve("export.zip");
+        try (ZipOutputStream z = new ZipOutputStream(Files.newOutputStream(zip), StandardCharsets.UTF_8)) {
+            String[][] entries = {
+                    { "2026-02-01/", "" },
+                    { "2026-02-01/t_0002.json", "{\"text\":\"차량번호: 80구8713\\n총중량: 14080 kg\"}" },
+                    { "__MACOSX/2026-02-01/._t_0002.json", "junk" },
+                    { "2026-02-01/manifest.csv", "id,file" },
+                    { "2026-02-01/t_0001.txt", "총중량: 12000 kg\n공차중량: 7000 kg\n" },
+                    { "2026-02-01/t_0003.json", "{\"text\":\"총중량: 9000 kg\"}" },
+            };
+            for (String[] e : entries) {
+                z.putNextEntry(new ZipEntry(e[0]));
+                z.write(e[1].getBytes(StandardCharsets.UTF_8));
+                z.closeEntry();
+            }
+        }
+        Path zipOut = tempDir.resolve("zip.ndjson");
+        NdjsonPipeline.Result result = new NdjsonPipeline(2, 2, null).run(zip, zipOut, NdjsonPipeline.defaultCheckpoint(zipOut));
+        List<String> lines = Files.readAllLines(zipOut, StandardCharsets.UTF_8);
+        assertEquals(3L, result.lines);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"source\":\"2026-02-01/t_0002.json\",\"weighingDate\":null,\"vehicleNumber\":\"80구8713\""));
+        assertTrue(lines.get(1).startsWith("{\"source\":\"2026-02-01/t_0001.txt\","));
+        assertTrue(lines.get(1).contains("\"netWeightKg\":5000"));
+        assertTrue(lines.get(2).startsWith("{\"source\":\"2026-02-01/t_0003.json\","));
+        assertFalse(Files.exists(NdjsonPipeline.defaultCheckpoint(zipOut)));
+
+        // .zip 이어 하기: 첫 항목까지 체크포인트된 상태 → 나머지 두 항목만
+        long firstLine = lines.get(0).getBytes(StandardCharsets.UTF_8).length + 1;
+        Path checkpoint = NdjsonPipeline.defaultCheckpoint(zipOut);
+        Files.writeString(checkpoint, compressedCheckpoint(zip, 1, 1, firstLine));
+        result = new NdjsonPipeline(2, 2, null).run(zip, zipOut, checkpoint);
+        assertEquals(2L, result.lines);
+        assertEquals(lines, Files.readAllLines(zipOut, StandardCharsets.UTF_8));
+
+        // .json.gz: 응답 하나. 단건/배치 읽기(OcrTextReader)도 그대로 푼다
+        Path single = tempDir.resolve("t_0004.json.gz");
+        try (OutputStream o = new GZIPOutputStream(Files.newOutputStream(single))) {
+            o.write("{\"text\":\"총중량: 15000 kg\\r\\n공차중량: 6000 kg\"}".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals("총중량: 15000 kg\n공차중량: 6000 kg", OcrTextReader.read(single));
+        assertTrue(NdjsonPipeline.holdsManyResponses(zip));
+        assertFalse(NdjsonPipeline.holdsManyResponses(single));
+        Path singleOut = tempDir.resolve("single.ndjson");
+        new NdjsonPipeline(1, 1, null).run(single, singleOut, null);
+        lines = Files.readAllLines(singleOut, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"source\":\"t_0004.json\","));
+        assertTrue(lines.get(0).contains("\"netWeightKg\":9000"));
+    }
+
+    @Test
+    void readsCp949ZipNamesAndChecksCompressedCheckpoints() throws Exception {
+        // UTF-8 플래그 없이 CP949로 이름을 쓴 .zip (국내 Windows 압축 도구)
+        Path zip = tempDir.resolve("export.zip");
+        try (ZipOutputStream z = new ZipOutputStream(Files.newOutputStream(zip), Charset.forName("Cp949"))) {
+            z.putNextEntry(new ZipEntry("계량표/t_0001.json"));
+            z.write("{\"text\":\"총중량: 12000 kg\"}".getBytes(StandardCharsets.UTF_8));
+            z.closeEntry();
+        }
+        Path zipOut = tempDir.resolve("zip.ndjson");
+        new NdjsonPipeline(1, 1, null).run(zip, zipOut, null);
+        assertTrue(Files.readString(zipOut, StandardCharsets.UTF_8).startsWith("{\"source\":\"계량표/t_0001.json\","));
+
+        Path plain = writeInput(50);
+        Path gz = tempDir.resolve("day.jsonl.gz");
+        try (OutputStream o = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            Files.copy(plain, o);
+        }
+        Path output = tempDir.resolve("gz.ndjson");
+        Path checkpoint = NdjsonPipeline.defaultCheckpoint(output);
+
+        // 같은 파일이지만 푼 내용보다 먼 오프셋 → 이어 가지 않고 실패로 알린다
+        Files.writeString(checkpoint, compressedCheckpoint(gz, Files.size(plain) + 1, 60, 0));
+        IOException e = assertThrows(IOException.class, () -> new NdjsonPipeline(2, 2, null).run(gz, output, checkpoint));
+        assertTrue(e.getMessage().startsWith("checkpoint does not match input"), e.getMessage());
+
+        // 압축 파일이 바뀌었으면(수정 시각이 다름) 체크포인트를 무시하고 처음부터
+        Files.writeString(checkpoint, compressedCheckpoint(gz, Files.size(plain) + 1, 60, 0));
+        Files.setLastModifiedTime(gz, FileTime.fromMillis(Files.getLastModifiedTime(gz).toMillis() + 1_000));
+        NdjsonPipeline.Result result = new NdjsonPipeline(2, 2, null).run(gz, output, checkpoint);
+        assertEquals(0L, result.resumedFromOffset);
+        assertEquals(50L, result.lines);
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    @Test
+    void workerErrorFailsTheRunInsteadOfHanging() throws Exception {
+        Path input = writeInput(300);
+        Path output = tempDir.resolve("out.ndjson");
+        AtomicInteger calls = new AtomicInteger();
+        // 50번째 줄에서 parse()가 잡지 않는 Error
+        ParseCache failing = new ParseCache(10, null, "test") {
+            @Override
+            public ParsedTicket parseBytes(byte[] content, boolean json) {
+                if (calls.incrementAndGet() == 50) throw new StackOverflowError();
+                return super.parseBytes(content, json);
+            }
+        };
+
+        ExecutorService runner = Executors.newSingleThreadExecutor();
+        try {
+            Future<NdjsonPipeline.Result> run = runner.submit(() -> new NdjsonPipeline(2, 4, failing).run(input, output, null));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> run.get(20, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException, String.valueOf(e.getCause()));
+            assertTrue(e.getCause().getCause() instanceof StackOverflowError, String.valueOf(e.getCause()));
+        } finally {
+            runner.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.io.OcrTextReader;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+
+public class ParseAllTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String ticket(String vehicle, String date, int gross, int tare) {
+        return ticket("계 량 증 명 서", vehicle, date, gross, tare);
+    }
+
+    private static String ticket(String title, String vehicle, String date, int gross, int tare) {
+        return title + "\n"
+                + "계량일자: " + date + "\n"
+                + "차량번호: " + vehicle + "\n"
+                + "총중량: " + gross + " kg\n"
+                + "공차중량: " + tare + " kg\n"
+                + "실중량: " + (gross - tare) + " kg\n"
+                + "* 위와 같이 계량하였음을 확인함.\n"
+                + "2026-02-02 05:37:55\n";
+    }
+
+    @Test
+    void splitsPagesIntoTicketsInDocumentOrder() {
+        // 1페이지에 티켓 3장, 2페이지는 빈 페이지, 3페이지에 1장
+        List<String> pages = List.of(
+                ticket("80구8713", "2026-02-02", 12480, 7470)
+                        + ticket("12가3456", "2026-02-03", 14080, 13950)
+                        + ticket("** 계 량 확 인 서 **\n(공급자 보관용)", "5405", "2026-02-04", 9000, 4000),
+                "",
+                ticket("0580", "2025-12-01", 14230, 12910));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<ParsedTicket> tickets;
+        try {
+            tickets = WeighingParser.parseAll(pages, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(4, tickets.size());
+        assertEquals(List.of("80구8713", "12가3456", "5405", "0580"),
+                tickets.stream().map(ParsedTicket::getVehicleNumber).toList());
+        assertEquals(List.of(0, 0, 0, 2), tickets.stream().map(ParsedTicket::getPageIndex).toList());
+
+        ParsedTicket third = tickets.get(2);
+        assertEquals("2026-02-04", third.getWeighingDate());
+        assertEquals(9000, third.getGrossWeightKg());
+        assertEquals(4000, third.getTareWeightKg());
+        assertEquals(5000, third.getNetWeightKg());
+
+        // 티켓이 하나뿐인 문서는 parse()와 같은 결과
+        ParsedTicket single = WeighingParser.parseAll(List.of(ticket("80구8713", "2026-02-02", 12480, 7470))).get(0);
+        assertEquals(12480, single.getGrossWeightKg());
+        assertEquals("2026-02-02", single.getWeighingDate());
+        assertNull(WeighingParser.parse(ticket("80구8713", "2026-02-02", 12480, 7470)).getPageIndex());
+    }
+
+    @Test
+    void readsPagesFromJsonAndFormFeeds() throws Exception {
+        Path json = tempDir.resolve("doc.json");
+        Files.writeString(json, "{\"pages\": [{\"text\": \"p0\"}, {\"words\": []}, {\"text\": \"p2\\r\\n\"}]}",
+                StandardCharsets.UTF_8);
+        // text가 없는 페이지도 자리를 지킨다
+        assertEquals(List.of("p0", "", "p2\n"), OcrTextReader.readPages(json));
+        // 기존 단건 읽기는 그대로 (빈 페이지 빼고 줄바꿈으로 이음)
+        assertEquals("p0\np2", OcrTextReader.read(json));
+
+        Path txt = tempDir.resolve("doc.txt");
+        Files.writeString(txt, "p0\fp1\f", StandardCharsets.UTF_8);
+        assertEquals(List.of("p0", "p1", ""), OcrTextReader.readPages(txt));
+    }
+}
@@ -0,0 +1,116 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.tare.TareIndex;
+
+public class ParseCacheTest {
+
+    private static final String TICKET = "{\"text\":\"차량번호: 80구8713\\n총중량: 12480 kg\\n공차중량: 7470 kg\"}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void countsHitsAndEvictsLeastRecentlyUsed() throws Exception {
+        try (ParseCache cache = new ParseCache(2, null)) {
+            ParsedTicket first = cache.parseText("총중량: 12480 kg");
+            assertEquals(12480, first.getGrossWeightKg());
+
+            // 돌려받은 객체를 바꿔도 캐시 내용은 그대로
+            first.setGrossWeightKg(1);
+            assertEquals(12480, cache.parseText("총중량: 12480 kg").getGrossWeightKg());
+            assertEquals(1, cache.stats().hits);
+
+            cache.parseText("총중량: 100 kg");
+            cache.parseText("총중량: 200 kg");
+            assertEquals(2, cache.stats().size);
+            assertEquals(1, cache.stats().evictions);
+        }
+    }
+
+    @Test
+    void rawBytesSurviveRestartOnlyForSameParserVersion() throws Exception {
+        Path store = tempDir.resolve("cache.ndjson");
+        byte[] raw = TICKET.getBytes(StandardCharsets.UTF_8);
+
+        try (ParseCache cache = new ParseCache(100, store, "1")) {
+            assertEquals("80구8713", cache.parseBytes(raw, true).getVehicleNumber());
+        }
+
+        try (ParseCache cache = new ParseCache(100, store, "1")) {
+            ParsedTicket ticket = cache.parseBytes(raw, true);
+            assertEquals("80구8713", ticket.getVehicleNumber());
+            assertEquals(5010, ticket.getNetWeightKg());
+            assertEquals(1, cache.stats().hits);
+            assertEquals(0, cache.stats().misses);
+        }
+
+        try (ParseCache cache = new ParseCache(100, store, "2")) {
+            cache.parseBytes(raw, true);
+            assertEquals(0, cache.stats().hits);
+        }
+    }
+
+    @Test
+    void countsOneMissPerLookupAndCompactsStore() throws Exception {
+        Path store = tempDir.resolve("cache.ndjson");
+        byte[] raw = TICKET.getBytes(StandardCharsets.UTF_8);
+
+        try (ParseCache cache = new ParseCache(2, store, "1")) {
+            cache.parseBytes(raw, true);
+            assertEquals(0, cache.stats().hits);
+            assertEquals(1, cache.stats().misses);
+            for (int i = 0; i < 10; i++) cache.parseText("총중량: " + (100 + i) + " kg");
+        }
+        // 원본 키 + 텍스트 키 + 10줄
+        assertEquals(12, Files.readAllLines(store).size());
+
+        // 다시 열면 상한(2) 안의 항목만 남기고 파일을 다시 쓴다
+        try (ParseCache cache = new ParseCache(2, store, "1")) {
+            assertEquals(2, cache.stats().size);
+            assertEquals(2, Files.readAllLines(store).size());
+            assertEquals(109, cache.parseText("총중량: 109 kg").getGrossWeightKg());
+            assertEquals(1, cache.stats().hits);
+        }
+        try (ParseCache cache = new ParseCache(2, store, "1")) {
+            assertEquals(2, cache.stats().size);
+        }
+    }
+
+    @Test
+    void bypassedWhileTareIndexIsActive() throws Exception {
+        Path store = tempDir.resolve("cache.ndjson");
+        byte[] raw = TICKET.getBytes(StandardCharsets.UTF_8);
+
+        TareIndex index = TareIndex.open(tempDir.resolve("tares.idx"), 1 << 10);
+        TareIndex.install(index);
+        try (ParseCache cache = new ParseCache(10, store, "1")) {
+            assertEquals(12480, cache.parseBytes(raw, true).getGrossWeightKg());
+            assertEquals(12480, cache.parseBytes(raw, true).getGrossWeightKg());
+            assertEquals(0, cache.stats().hits);
+            assertEquals(0, cache.stats().misses);
+            assertEquals(0, cache.stats().size);
+        } finally {
+            TareIndex.install(null);
+            index.close();
+        }
+        assertEquals(0, Files.size(store));
+
+        // 색인이 없는 실행은 평소대로 캐시를 쓴다
+        try (ParseCache cache = new ParseCache(10, store, "1")) {
+            cache.parseBytes(raw, true);
+            cache.parseBytes(raw, true);
+            assertEquals(1, cache.stats().hits);
+        }
+    }
+}
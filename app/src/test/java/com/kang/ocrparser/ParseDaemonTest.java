@@ -0,0 +1,157 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.archive.TicketArchiveReader;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.parser.WeighingParser;
+import com.kang.ocrparser.server.DaemonClient;
+import com.kang.ocrparser.server.ParseDaemon;
+
+public class ParseDaemonTest {
+
+    private static final String TICKET = "차량번호: 80구8713\n계량일자: 2026-02-02 05:37:55\n"
+            + "총중량: 12,480 kg\n공차중량: 7,470 kg\n실중량: 5,010 kg";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void daemonParsesForwardedFileLikeInProcessRun() throws Exception {
+        Path input = tempDir.resolve("ticket.txt");
+        Files.writeString(input, TICKET, StandardCharsets.UTF_8);
+        Path socket = tempDir.resolve("d.sock");
+
+        ParseDaemon daemon = new ParseDaemon(socket, 2, null);
+        daemon.start();
+        try {
+            Path output = tempDir.resolve("out/ticket.json");
+            DaemonClient.Reply reply = DaemonClient.forward(socket, input, output, false);
+
+            assertNotNull(reply);
+            assertEquals(DaemonClient.OK, reply.status);
+            assertEquals(output.toAbsolutePath().toString(), reply.message);
+            assertEquals(TicketJson.write(TicketJson.PRETTY, WeighingParser.parse(TICKET)),
+                    Files.readString(output, StandardCharsets.UTF_8));
+
+            DaemonClient.Reply missing = DaemonClient.forward(socket, tempDir.resolve("nope.txt"), output, false);
+            assertEquals(DaemonClient.NOT_FOUND, missing.status);
+        } finally {
+            daemon.stop();
+        }
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void socketIsOwnerOnlyAndBoundWithoutLeftovers() throws Exception {
+        Path input = tempDir.resolve("ticket.txt");
+        Files.writeString(input, TICKET, StandardCharsets.UTF_8);
+        Path socket = tempDir.resolve("d.sock");
+
+        ParseDaemon daemon = new ParseDaemon(socket, 1, null);
+        daemon.start();
+        try {
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+            // bind에 쓴 0700 임시 디렉터리는 남지 않는다
+            try (Stream<Path> files = Files.list(tempDir)) {
+                assertEquals(List.of("d.sock", "ticket.txt"),
+                        files.map(f -> f.getFileName().toString()).sorted().toList());
+            }
+            assertEquals(DaemonClient.OK, DaemonClient.forward(socket, input, tempDir.resolve("o.json"), false).status);
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test
+    void forwardReturnsNullWhenNoDaemonListens() throws Exception {
+        Path input = tempDir.resolve("ticket.txt");
+        Files.writeString(input, TICKET, StandardCharsets.UTF_8);
+
+        assertNull(DaemonClient.forward(tempDir.resolve("none.sock"), input, tempDir.resolve("o.json"), false));
+
+        // 죽은 데몬이 남긴 소켓 파일: 연결이 거부되면 null, 새 데몬은 그 파일을 지우고 뜬다
+        Path stale = tempDir.resolve("stale.sock");
+        Files.createFile(stale);
+        assertNull(DaemonClient.forward(stale, input, tempDir.resolve("o.json"), false));
+
+        ParseDaemon daemon = new ParseDaemon(stale, 1, null);
+        daemon.start();
+        try {
+            assertEquals(DaemonClient.OK, DaemonClient.forward(stale, input, tempDir.resolve("o.json"), false).status);
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test
+    void concurrentArchiveRequestsAppendEveryTicketOnce() throws Exception {
+        Path input = tempDir.resolve("ticket.txt");
+        Files.writeString(input, TICKET, StandardCharsets.UTF_8);
+        Path socket = tempDir.resolve("d.sock");
+        Path archive = tempDir.resolve("out/tickets.tka");
+
+        ParseDaemon daemon = new ParseDaemon(socket, 4, null);
+        daemon.start();
+        try {
+            // 데몬 워커 여럿이 같은 .tka를 동시에 열고 추가한다
+            List<Thread> clients = new ArrayList<>();
+            AtomicInteger ok = new AtomicInteger();
+            for (int c = 0; c < 4; c++) {
+                Thread t = new Thread(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        DaemonClient.Reply reply = DaemonClient.forward(socket, input, archive, false);
+                        if (reply != null && reply.status == DaemonClient.OK) ok.incrementAndGet();
+                    }
+                });
+                clients.add(t);
+                t.start();
+            }
+            for (Thread t : clients) t.join();
+
+            try (TicketArchiveReader reader = TicketArchiveReader.open(archive)) {
+                assertEquals(ok.get(), reader.rowCount());
+            }
+            assertTrue(ok.get() > 0);
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test
+    void stuckDaemonTimesOutWithNoReply() throws Exception {
+        Path input = tempDir.resolve("ticket.txt");
+        Files.writeString(input, TICKET, StandardCharsets.UTF_8);
+        Path socket = tempDir.resolve("stuck.sock");
+
+        // 요청을 받고 답하지 않는 데몬
+        try (ServerSocketChannel stuck = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            stuck.bind(UnixDomainSocketAddress.of(socket));
+            long t0 = System.nanoTime();
+            DaemonClient.Reply reply = DaemonClient.forward(socket, input, tempDir.resolve("o.tka"), false, 200);
+            long millis = (System.nanoTime() - t0) / 1_000_000;
+
+            assertNotNull(reply);
+            assertEquals(DaemonClient.NO_REPLY, reply.status);
+            assertTrue(millis < 5_000, "waited " + millis + "ms");
+            // .tka는 다시 추가하면 안 되고, .json은 덮어써도 된다
+            assertTrue(DaemonClient.appends(tempDir.resolve("o.tka")));
+            assertFalse(DaemonClient.appends(tempDir.resolve("o.json")));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import com.kang.ocrparser.layout.WordLayout;
+import com.kang.ocrparser.metrics.ParseMetrics;
+import com.kang.ocrparser.metrics.Stage;
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.ParseBudget;
+import com.kang.ocrparser.parser.WeighingParser;
+
+/*
+ * ParseMetrics.ENABLED는 클래스 로딩 때 한 번 읽는 static final이라, 켠 상태는 별도 JVM에서 잰다
+ * (이 JVM에서 켜면 할당 테스트에 StageEvent 할당이 섞인다). 자식 JVM이 main()을 돌려 key=value로 출력.
+ */
+public class ParseMetricsTest {
+
+    private static final String TICKET = "차량번호: 80구8713\n총중량: 12,480 kg\n공차중량: 7,470 kg\n실중량: 5,010 kg";
+
+    private static final String SUMMARY = "--- summary";
+
+    @Test
+    void countsStagesErrorsAndPartialsWhenEnabled() throws Exception {
+        Process p = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-D" + ParseMetrics.PROPERTY + "=true",
+                "-cp", System.getProperty("java.class.path"),
+                ParseMetricsTest.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(p.waitFor(60, TimeUnit.SECONDS), out);
+        assertEquals(0, p.exitValue(), out);
+
+        Map<String, String> values = new HashMap<>();
+        int split = out.indexOf(SUMMARY);
+        assertTrue(split >= 0, out);
+        for (String line : out.substring(0, split).split("\n")) {
+            int eq = line.indexOf('=');
+            if (eq > 0) values.put(line.substring(0, eq), line.substring(eq + 1).trim());
+        }
+        String summary = out.substring(split + SUMMARY.length());
+
+        // 정상 3건 + partial 2건 + 레이아웃 예외 1건
+        assertEquals("true", values.get("enabled"), out);
+        assertEquals("2", values.get("partials"), out);
+        assertEquals("2", values.get("budgetExhausted"), out);
+        assertEquals("2", values.get("mbean.BudgetExhausted"), out);
+        assertEquals("1", values.get("errors.LAYOUT"), out);
+        assertEquals("1", values.get("mbean.LAYOUT.Errors"), out);
+        assertEquals("0", values.get("errors.WEIGHT"), out);
+        assertEquals("1", values.get("mbean.LAYOUT.Count"), out);
+        // 정상 3건 + 레이아웃 1건은 중량 단계까지 간다 (partial은 그 전에 멈춤)
+        assertEquals("4", values.get("mbean.WEIGHT.Count"), out);
+        assertTrue(Double.parseDouble(values.get("mbean.WEIGHT.MaxMicros")) > 0, out);
+        assertTrue(Long.parseLong(values.get("mbean.LABEL_SCAN.Count")) >= 4, out);
+        // MBean reset() 연산은 그 단계만 비운다
+        assertEquals("0", values.get("reset.LAYOUT.Errors"), out);
+        assertEquals("4", values.get("reset.WEIGHT.Count"), out);
+
+        assertTrue(summary.contains("budgetExhausted=2"), summary);
+        boolean layoutLine = false;
+        for (String line : summary.split("\n")) {
+            List<String> cols = List.of(line.trim().split("\\s+"));
+            if (cols.get(0).equals("LAYOUT")) {
+                layoutLine = true;
+                assertEquals("1", cols.get(1), line);
+                assertEquals("1", cols.get(cols.size() - 1), line);
+            }
+            // 기록이 없는 단계는 요약에서 빠진다
+            assertNotEquals("OUTPUT", cols.get(0), line);
+        }
+        assertTrue(layoutLine, summary);
+    }
+
+    // 자식 JVM (-Docrparser.metrics=true)
+    public static void main(String[] args) throws Exception {
+        ParseMetrics.registerMBeans();
+        ParseMetrics.reset();
+
+        for (int i = 0; i < 3; i++) {
+            WeighingParser.parse(TICKET);
+        }
+        int partials = 0;
+        for (int i = 0; i < 2; i++) {
+            ParsedTicket t = WeighingParser.parse(TICKET, null, new ParseBudget(10));
+            if (t.isPartial()) partials++;
+        }
+        // 페이지 번호가 음수인 단어 → LayoutExtractor가 예외, 파서는 삼키고 LAYOUT 에러로 센다
+        WordLayout layout = new WordLayout();
+        layout.add("총중량", 0, 0, 50, 10, 1f, -1);
+        layout.add("12,480", 60, 0, 100, 10, 1f, -1);
+        WeighingParser.parse(TICKET, layout);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName counters = new ObjectName("com.kang.ocrparser:type=ParseCounters");
+        ObjectName layoutStage = new ObjectName("com.kang.ocrparser:type=ParseMetrics,stage=LAYOUT");
+        ObjectName weightStage = new ObjectName("com.kang.ocrparser:type=ParseMetrics,stage=WEIGHT");
+        ObjectName labelStage = new ObjectName("com.kang.ocrparser:type=ParseMetrics,stage=LABEL_SCAN");
+
+        System.out.println("enabled=" + ParseMetrics.ENABLED);
+        System.out.println("partials=" + partials);
+        System.out.println("budgetExhausted=" + ParseMetrics.budgetExhaustedCount());
+        System.out.println("errors.LAYOUT=" + ParseMetrics.errors(Stage.LAYOUT));
+        System.out.println("errors.WEIGHT=" + ParseMetrics.errors(Stage.WEIGHT));
+        System.out.println("mbean.BudgetExhausted=" + server.getAttribute(counters, "BudgetExhausted"));
+        System.out.println("mbean.LAYOUT.Errors=" + server.getAttribute(layoutStage, "Errors"));
+        System.out.println("mbean.LAYOUT.Count=" + server.getAttribute(layoutStage, "Count"));
+        System.out.println("mbean.WEIGHT.Count=" + server.getAttribute(weightStage, "Count"));
+        System.out.println("mbean.WEIGHT.MaxMicros=" + server.getAttribute(weightStage, "MaxMicros"));
+        System.out.println("mbean.LABEL_SCAN.Count=" + server.getAttribute(labelStage, "Count"));
+        String summary = ParseMetrics.summary();
+
+        server.invoke(layoutStage, "reset", null, null);
+        System.out.println("reset.LAYOUT.Errors=" + server.getAttribute(layoutStage, "Errors"));
+        System.out.println("reset.WEIGHT.Count=" + server.getAttribute(weightStage, "Count"));
+        System.out.println(SUMMARY);
+        System.out.println(summary);
+    }
+}
@@ -0,0 +1,134 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kang.ocrparser.cache.ParseCache;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.parser.WeighingParser;
+import com.kang.ocrparser.server.ParseServer;
+
+public class ParseServerTest {
+
+    private static final String TICKET = "차량번호: 80구8713\n총중량: 12,480 kg\n공차중량: 7,470 kg\n실중량: 5,010 kg";
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private static String json(String text) {
+        return TicketJson.mapper().createObjectNode().put("text", text).toString();
+    }
+
+    private static HttpResponse<String> post(ParseServer server, String path, byte[] body, Duration timeout)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return CLIENT.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private static HttpResponse<String> post(ParseServer server, String path, String body) throws Exception {
+        return post(server, path, body.getBytes(StandardCharsets.UTF_8), Duration.ofSeconds(20));
+    }
+
+    @Test
+    void parsesJsonAndTextWithOrWithoutCache() throws Exception {
+        String expected = TicketJson.write(TicketJson.COMPACT, WeighingParser.parse(TICKET));
+        byte[] bom = ("\uFEFF" + json(TICKET)).getBytes(StandardCharsets.UTF_8);
+
+        for (ParseCache cache : new ParseCache[] { null, new ParseCache(100, null, "test") }) {
+            ParseServer server = new ParseServer(0, 2, 4, cache);
+            server.start();
+            try {
+                assertEquals(expected, post(server, "/parse", json(TICKET)).body());
+                assertEquals(expected, post(server, "/parse", TICKET).body());
+                // 앞의 BOM은 캐시를 쓰든 안 쓰든 JSON으로 읽는다
+                HttpResponse<String> withBom = post(server, "/parse", bom, Duration.ofSeconds(20));
+                assertEquals(200, withBom.statusCode());
+                assertEquals(expected, withBom.body());
+            } finally {
+                server.stop(0);
+                if (cache != null) cache.close();
+            }
+        }
+    }
+
+    @Test
+    void batchKeepsOrderAndReportsOverlongLines() throws Exception {
+        ParseServer server = new ParseServer(0, 2, 4);
+        server.start();
+        try {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                body.append(json("총중량: " + (10_000 + i) + " kg")).append('\n');
+                if (i == 4) body.append('\n');
+                // 한 줄 상한(8MB)을 넘는 줄: 그 줄만 에러, 나머지는 그대로
+                if (i == 9) body.append("x".repeat(8 * 1024 * 1024 + 1)).append('\n');
+            }
+            HttpResponse<String> response = post(server, "/parse/batch", body.toString());
+            assertEquals(200, response.statusCode());
+
+            List<String> lines = response.body().lines().toList();
+            assertEquals(21, lines.size());
+            int value = 0;
+            for (String line : lines) {
+                JsonNode node = TicketJson.mapper().readTree(line);
+                if (node.has("error")) {
+                    assertEquals("12", node.get("source").asText());
+                    assertEquals("line too long", node.get("error").asText());
+                    continue;
+                }
+                assertEquals(10_000 + value, node.get("grossWeightKg").asInt(), line);
+                value++;
+            }
+            assertEquals(20, value);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void answers503WithRetryAfterWhenWorkersAndQueueAreFull() throws Exception {
+        ParseServer server = new ParseServer(0, 1, 1);
+        server.start();
+        // 본문을 다 보내지 않는 요청 둘: 하나는 워커를, 하나는 대기열 자리를 잡고 있는다
+        String head = "POST /parse/batch HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1000\r\n\r\n{";
+        try (Socket busy = new Socket("localhost", server.port());
+             Socket queued = new Socket("localhost", server.port())) {
+            for (Socket s : new Socket[] { busy, queued }) {
+                OutputStream os = s.getOutputStream();
+                os.write(head.getBytes(StandardCharsets.US_ASCII));
+                os.flush();
+            }
+
+            // 두 요청이 디스패처를 지나기 전에 보낸 요청은 대기열에 들어갈 수 있으므로 503이 올 때까지 다시 보낸다
+            HttpResponse<String> response = null;
+            long until = System.nanoTime() + 20_000_000_000L;
+            while (response == null || response.statusCode() != 503) {
+                assertTrue(System.nanoTime() < until, "no 503");
+                try {
+                    response = post(server, "/parse", TICKET.getBytes(StandardCharsets.UTF_8), Duration.ofSeconds(1));
+                } catch (HttpTimeoutException e) {
+                    response = null;
+                }
+            }
+            assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+            assertEquals("server busy", TicketJson.mapper().readTree(response.body()).get("error").asText());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.io.SampleJsonLoader;
+
+public class SampleJsonLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    private String fromPath(String content) throws IOException {
+        Path file = dir.resolve("sample.json");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return SampleJsonLoader.extractOcrText(file);
+    }
+
+    private static String fromStream(String content) throws IOException {
+        return SampleJsonLoader.extractOcrText(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // 세 가지 입력(String / Path / InputStream)이 모두 같은 text를 내야 하는 경우
+    private void assertAll3(String expected, String content) throws IOException {
+        assertEquals(expected, SampleJsonLoader.extractOcrText(content), "String: " + content);
+        assertEquals(expected, fromPath(content), "Path: " + content);
+        assertEquals(expected, fromStream(content), "InputStream: " + content);
+    }
+
+    @Test
+    void followsFieldPriorityRegardlessOfOrder() throws IOException {
+        // text > ocr.text > data.text > pages[*].text, 문서 안 순서와 무관
+        assertAll3("top", "{\"pages\":[{\"text\":\"p\"}],\"data\":{\"text\":\"d\"},\"ocr\":{\"text\":\"o\"},\"text\":\"top\"}");
+        assertAll3("o", "{\"pages\":[{\"text\":\"p\"}],\"data\":{\"text\":\"d\"},\"ocr\":{\"text\":\"o\"}}");
+        assertAll3("d", "{\"data\":{\"text\":\"d\"},\"pages\":[{\"text\":\"p\"}]}");
+        // pages: 앞뒤 공백 제거, 빈 페이지/text 없는 페이지는 빼고 줄바꿈으로
+        assertAll3("p1\np3", "{\"pages\":[{\"text\":\" p1 \"},{\"text\":\"  \"},{\"words\":[]},{\"text\":\"p3\"}]}");
+
+        // 문자열이 아닌 text는 없는 것으로 보고 다음 후보
+        assertAll3("o", "{\"text\":{\"value\":\"x\"},\"ocr\":{\"text\":5},\"ocr\":{\"text\":\"o\"}}");
+        // 같은 키가 여러 번이면 DOM처럼 마지막 값
+        assertAll3("second", "{\"text\":\"first\",\"text\":\"second\"}");
+        assertAll3("d", "{\"ocr\":{\"text\":\"o\"},\"ocr\":{},\"data\":{\"text\":\"d\"}}");
+    }
+
+    @Test
+    void skipsTextInsideNestedChildren() throws IOException {
+        String json = "{\"metadata\":{\"text\":\"no\",\"deep\":{\"text\":\"no\"}},"
+                + "\"pages\":[{\"words\":[{\"text\":\"no\",\"boundingBox\":[1,2,3,4]}],\"lines\":[{\"text\":\"no\"}],\"text\":\"page\"}],"
+                + "\"ocr\":{\"words\":[{\"text\":\"no\"}],\"meta\":{\"text\":\"no\"},\"text\":\"yes\"}}";
+        assertAll3("yes", json);
+
+        // 후보가 깊은 곳에만 있으면 못 찾은 것: String/Path는 원문, 스트림은 ""
+        String nested = "{\"metadata\":{\"ocr\":{\"text\":\"no\"}},\"words\":[{\"text\":\"no\"}]}";
+        assertEquals(nested, SampleJsonLoader.extractOcrText(nested));
+        assertEquals(nested, fromPath(nested));
+        assertEquals("", fromStream(nested));
+    }
+
+    @Test
+    void nonJsonAndEmptyInput() throws IOException {
+        assertAll3("총중량: 12,480 kg\n", "총중량: 12,480 kg\n");
+        assertAll3("", "");
+        assertAll3("", " \n\t ");
+        assertEquals("", SampleJsonLoader.extractOcrText((String) null));
+        assertEquals("", SampleJsonLoader.extractOcrText((java.io.InputStream) null));
+
+        // 루트가 배열이면 text를 찾지 않는다
+        String array = "[{\"text\":\"x\"}]";
+        assertEquals(array, SampleJsonLoader.extractOcrText(array));
+        assertEquals(array, fromPath(array));
+    }
+
+    @Test
+    void ignoresLeadingBomOnEveryOverload() throws IOException {
+        assertAll3("x", "\uFEFF{\"text\":\"x\"}");
+        assertAll3("x", "\uFEFF \n{\"text\":\"x\"}");
+
+        // BOM 뒤가 JSON이 아니면 원문 그대로 (BOM 제거는 전처리 몫)
+        assertAll3("\uFEFF총중량: 1 kg", "\uFEFF총중량: 1 kg");
+
+        // BOM이 아닌 EF BB BB(U+FEFB) / EF BF BF(U+FFFF)로 시작하면 텍스트: 뒤의 '{'를 JSON 시작으로 보면 안 된다
+        assertAll3("\uFEFB{\"text\":\"x\"}", "\uFEFB{\"text\":\"x\"}");
+        assertAll3("\uFFFF{\"text\":\"x\"}", "\uFFFF{\"text\":\"x\"}");
+    }
+
+    @Test
+    void malformedJsonFallsBackToRawText() throws IOException {
+        // top-level text 뒤에서 깨진 JSON도 DOM 방식처럼 실패 → 원문 (스트림은 되감을 수 없어 "")
+        for (String broken : new String[] {
+                "{\"text\":\"x\",\"pages\":[",
+                "{\"text\":\"x\",\"pages\":[{\"text\":}]}",
+                "{\"text\":\"x\" \"ocr\":{}}",
+                "{\"ocr\":{\"text\":\"o\"},",
+                "\uFEFF{\"text\":\"x\",",
+                "{" }) {
+            assertEquals(broken, SampleJsonLoader.extractOcrText(broken), broken);
+            assertEquals(broken, fromPath(broken), broken);
+            assertEquals("", fromStream(broken), broken);
+        }
+
+        // 루트 객체가 닫힌 뒤의 꼬리는 DOM(readTree)처럼 무시
+        assertAll3("x", "{\"text\":\"x\"} trailing");
+    }
+}
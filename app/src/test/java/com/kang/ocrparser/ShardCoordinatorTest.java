@@ -0,0 +1,97 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.shard.ShardCoordinator;
+
+public class ShardCoordinatorTest {
+
+    private static final int FILES = 30;
+
+    @TempDir
+    Path tempDir;
+
+    // 워커별 journal/<owner>.log를 모두 이어 붙인다 (파일마다 한 owner만 쓴다)
+    private static String journal(Path work) throws Exception {
+        StringBuilder all = new StringBuilder();
+        try (Stream<Path> s = Files.list(work.resolve("journal"))) {
+            for (Path file : s.sorted().toList()) {
+                String owner = file.getFileName().toString().replaceFirst("\\.log$", "");
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    assertEquals(owner, line.split("\t")[1], file + ": " + line);
+                    all.append(line).append('\n');
+                }
+            }
+        }
+        return all.toString();
+    }
+
+    @Test
+    void workerJvmsShareShardsReclaimDeadLeaseAndMerge() throws Exception {
+        Path in = Files.createDirectories(tempDir.resolve("in"));
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(in.resolve(String.format("t%02d.txt", i)),
+                    "계량일자: 2026-02-02\n차량번호: 80구" + (1000 + i) + "\n"
+                            + "총중량: " + (12000 + i) + " kg\n공차중량: 7000 kg\n실중량: " + (5000 + i) + " kg\n",
+                    StandardCharsets.UTF_8);
+        }
+
+        // 샤드 0을 잡은 채로 죽은 워커 (heartbeat 없음)
+        Path work = tempDir.resolve("work");
+        Files.createDirectories(work.resolve("leases"));
+        Files.writeString(work.resolve("leases/shard-0000.lease"), "12345@crashed-host-1\n7\n");
+
+        Path output = tempDir.resolve("out/all.ndjson");
+        Path tares = tempDir.resolve("tares.idx");
+        ShardCoordinator coordinator = new ShardCoordinator(work, 5, 2, 1, 1_000,
+                List.of("--tare-index", tares.toString()));
+        ShardCoordinator.Summary summary = coordinator.run(in.toString(), output);
+
+        assertEquals(FILES, summary.files);
+        assertEquals(5, summary.shards);
+        assertEquals(1, summary.reclaimed);
+        assertEquals(FILES, summary.lines);
+        assertFalse(summary.resumed);
+
+        // 입력마다 정확히 한 줄, 일반 배치와 같은 파싱 결과
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        Set<String> sources = new HashSet<>();
+        for (String line : lines) {
+            JsonNode node = TicketJson.mapper().readTree(line);
+            assertTrue(sources.add(node.get("source").asText()), line);
+            int i = Integer.parseInt(node.get("source").asText().replaceAll(".*t(\\d+)\\.txt$", "$1"));
+            assertEquals(5000 + i, node.get("netWeightKg").asInt());
+        }
+        assertEquals(FILES, sources.size());
+
+        String journal = journal(work);
+        assertTrue(journal.contains("reclaim from 12345@crashed-host-1\tshard-0000"), journal);
+        assertEquals(5, journal.lines().filter(l -> l.contains("\tdone\t")).count(), journal);
+        assertTrue(Files.exists(work.resolve("logs/worker-1.log")));
+        // --tare-index는 워커마다 따로 연 파일로 넘어간다
+        assertTrue(Files.exists(ShardCoordinator.workerTareIndex(tares, 1)));
+        assertTrue(Files.exists(ShardCoordinator.workerTareIndex(tares, 2)));
+        assertFalse(Files.exists(tares));
+
+        // 같은 작업 디렉토리로 다시 돌리면 나누지도 파싱하지도 않고 합치기만
+        ShardCoordinator.Summary again = new ShardCoordinator(work, 5, 0, 1, 1_000, List.of())
+                .run(in.toString(), output);
+        assertTrue(again.resumed);
+        assertEquals(FILES, again.lines);
+        assertEquals(5, journal(work).lines()
+                .filter(l -> l.contains("\tdone\t")).count());
+    }
+}
@@ -0,0 +1,131 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.WeighingParser;
+import com.kang.ocrparser.tare.TareIndex;
+
+public class TareIndexTest {
+
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 20_000;
+    private static final int VEHICLES = 500;
+
+    @TempDir
+    Path tempDir;
+
+    private static String full(String vehicle, int gross, int tare) {
+        return "계량일자: 2026-03-01\n차량번호: " + vehicle + "\n총중량: " + gross + " kg\n공차중량: " + tare
+                + " kg\n실중량: " + (gross - tare) + " kg\n";
+    }
+
+    // 공차/실중량 라벨이 없고, 관계없는 kg 값(1200)이 섞여 있다 → 기존 fallback은 최소값 1200을 tare로 고른다
+    private static final String NO_TARE_LABEL =
+            "계량일자: 2026-03-02\n차량번호: 80구1234\n총중량: 15000 kg\n기타 1200 kg\n측정 7010 kg\n";
+
+    @Test
+    void parsedHistoryPicksTareCandidateInsteadOfMinimumAndPersists() throws Exception {
+        ParsedTicket before = WeighingParser.parse(NO_TARE_LABEL);
+        assertEquals(1200, before.getTareWeightKg());
+
+        Path file = tempDir.resolve("tares.idx");
+        TareIndex index = TareIndex.open(file, 1 << 10);
+        TareIndex.install(index);
+        try {
+            // 이력 1건으로는 아직 참고하지 않는다
+            WeighingParser.parse(full("80구1234", 14000, 7000));
+            assertEquals(1200, WeighingParser.parse(NO_TARE_LABEL).getTareWeightKg());
+
+            WeighingParser.parse(full("80구1234", 16020, 7020));
+            ParsedTicket t = WeighingParser.parse(NO_TARE_LABEL);
+            assertEquals(15000, t.getGrossWeightKg());
+            assertEquals(7010, t.getTareWeightKg());
+            assertEquals(7990, t.getNetWeightKg());
+
+            // 이력으로 고른 tare는 조합 검증이 안 됐으므로(7990이 텍스트에 없음) 이력에 넣지 않는다
+            assertEquals(2, index.hint("80구1234").samples);
+
+            // 다른 차량의 이력은 쓰지 않는다
+            assertEquals(1200, WeighingParser.parse(NO_TARE_LABEL.replace("80구1234", "81구5678")).getTareWeightKg());
+            // 이력에서 너무 먼 값만 있으면 기존 규칙대로
+            assertEquals(1200, WeighingParser.parse(NO_TARE_LABEL.replace("7010", "7400")).getTareWeightKg());
+        } finally {
+            index.close();
+        }
+        assertNull(TareIndex.active());
+
+        // 다시 열면 이력이 그대로 (최소값 추측 1200이나 이력으로 고른 값은 들어가 있지 않다)
+        try (TareIndex reopened = TareIndex.open(file)) {
+            TareIndex.Hint hint = reopened.hint("80구1234");
+            assertNotNull(hint);
+            assertEquals(2, hint.samples);
+            assertEquals(7000, hint.minKg);
+            assertEquals(7020, hint.maxKg);
+            assertEquals(7010, hint.typicalKg);
+            // 폭 = max(50, 7010의 2%, 7020 - 7000) = 140
+            assertTrue(hint.accepts(7150));
+            assertFalse(hint.accepts(7151));
+            assertNull(reopened.hint("81구5678"));
+            assertEquals(1, reopened.stats().vehicles);
+        }
+    }
+
+    @Test
+    void concurrentWritersAndReadersSeeConsistentSlots() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS * 2);
+        try (TareIndex index = TareIndex.open(tempDir.resolve("tares.idx"), 1 << 12)) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int w = 0; w < THREADS; w++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        // 차량 v의 공차중량은 항상 5000 + v*10 (최근 값이 찢어져 읽히면 다른 값이 보인다)
+                        int v = i % VEHICLES;
+                        assertTrue(index.record("V" + v, 5000 + v * 10));
+                    }
+                    return 0;
+                }));
+                futures.add(pool.submit(() -> {
+                    int seen = 0;
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        int v = (i * 7) % VEHICLES;
+                        TareIndex.Hint hint = index.hint("V" + v);
+                        if (hint == null) continue;
+                        assertEquals(5000 + v * 10, hint.minKg);
+                        assertEquals(5000 + v * 10, hint.maxKg);
+                        seen++;
+                    }
+                    return seen;
+                }));
+            }
+            for (Future<Integer> f : futures) f.get();
+
+            for (int v = 0; v < VEHICLES; v++) {
+                assertEquals(THREADS * PER_THREAD / VEHICLES, index.hint("V" + v).samples);
+            }
+            TareIndex.Stats stats = index.stats();
+            assertEquals(VEHICLES, stats.vehicles);
+            assertEquals(THREADS * PER_THREAD, stats.records);
+            assertEquals(0, stats.dropped);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 슬롯의 3/4을 넘는 차량은 버린다
+        try (TareIndex small = TareIndex.open(tempDir.resolve("small.idx"), 16)) {
+            for (int v = 0; v < 20; v++) small.record("S" + v, 6000);
+            assertEquals(12, small.stats().vehicles);
+            assertEquals(8, small.stats().dropped);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.kang.ocrparser.parser.TextNormalizer;
+
+public class TextNormalizerTest {
+
+    // 단일 스캔 구현이 예전 replaceAll 체인과 같은 결과를 내는지 비교하기 위한 기준 구현
+    private static String legacyNormalize(String rawText) {
+        String text = rawText.toLowerCase();
+        text = text.replaceAll("\\b\\d{1,2}:\\d{2}(?::\\d{2})?\\b", " ");
+        text = text.replaceAll("k\\s*g", "kg");
+        text = text.replaceAll("(?<=\\d),(?=\\d)", "");
+        text = text.replaceAll("\\s+", " ");
+        return text.trim();
+    }
+
+    @Test
+    void normalizesNoisyWeightLines() {
+        String ocrText = """
+            품종명랑 05:26:18 12,480 K G
+            중 량:
+            05:36:01 7,470 kg
+            """;
+
+        assertEquals("품종명랑 12480 kg 중 량: 7470 kg", TextNormalizer.normalize(ocrText));
+    }
+
+    @Test
+    void matchesLegacyChainOnEdgeCases() {
+        String[] cases = {
+            "", "   ", "12:34", "1:23:45", "12:34:5", "12:34:567", "123:45", "a12:34", "_12:34",
+            "5,12:30", "1,2,3", "1,,2", "k 12:30 g", "k  kg", "K\tG", "14,080kg", " \u0001 abc \u0001 ",
+            "İ 12:30", "ΣA 1,000 kg", "😀 05:36 kg", "é 12:30"
+        };
+        for (String s : cases) {
+            assertEquals(legacyNormalize(s), TextNormalizer.normalize(s), s);
+        }
+    }
+
+    @Test
+    void matchesLegacyChainOnRandomInput() {
+        String alphabet = "0123456789::,, \t\n\r_kKgG총중량́ ";
+        Random random = new Random(7);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(40);
+            for (int k = 0; k < len; k++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = sb.toString();
+            assertEquals(legacyNormalize(s), TextNormalizer.normalize(s), s);
+        }
+    }
+}
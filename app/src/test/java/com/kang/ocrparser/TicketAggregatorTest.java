@@ -0,0 +1,119 @@
+package com.kang.ocrparser;
+
+import static com.kang.ocrparser.Tickets.ticket;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.aggregate.TicketAggregator;
+import com.kang.ocrparser.aggregate.TicketAggregator.DailyTotal;
+import com.kang.ocrparser.model.ParsedTicket;
+
+public class TicketAggregatorTest {
+
+    private static final int VEHICLES = 200;
+    private static final int DAYS = 40;
+    private static final int PER_THREAD = 20_000;
+    private static final int THREADS = 4;
+
+    @TempDir
+    Path tempDir;
+
+    // i번째 티켓: 차량/날짜/공차/실중량이 i로 정해진다 (스레드와 무관)
+    private static ParsedTicket nth(int i) {
+        String vehicle = (i % VEHICLES) + "가" + (1000 + i % VEHICLES);
+        LocalDate day = LocalDate.of(2025, 12, 20).plusDays((i / VEHICLES) % DAYS);
+        String date = i % 3 == 0 ? day.toString() : day + " 08:" + (10 + i % 50);
+        return ticket(date, vehicle, null, 7000 + i % 997, i % 11 == 0 ? null : 100 + i % 500);
+    }
+
+    @Test
+    void parallelUpdatesMatchSequentialTotals() throws Exception {
+        TicketAggregator agg = new TicketAggregator();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int from = t * PER_THREAD;
+                futures.add(pool.submit(() -> {
+                    for (int i = from; i < from + PER_THREAD; i++) agg.add(nth(i));
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        // 한 스레드로 같은 값을 직접 계산
+        String vehicle = nth(7).getVehicleNumber();
+        LocalDate day = LocalDate.parse(nth(7).getWeighingDate().substring(0, 10));
+        int tickets = 0, netTickets = 0, minTare = Integer.MAX_VALUE, maxTare = Integer.MIN_VALUE;
+        long net = 0;
+        for (int i = 0; i < THREADS * PER_THREAD; i++) {
+            ParsedTicket t = nth(i);
+            if (!t.getVehicleNumber().equals(vehicle) || !t.getWeighingDate().startsWith(day.toString())) continue;
+            tickets++;
+            if (t.getNetWeightKg() != null) {
+                netTickets++;
+                net += t.getNetWeightKg();
+            }
+            minTare = Math.min(minTare, t.getTareWeightKg());
+            maxTare = Math.max(maxTare, t.getTareWeightKg());
+        }
+
+        DailyTotal total = agg.get(vehicle, day);
+        assertEquals(tickets, total.tickets);
+        assertEquals(netTickets, total.netTickets);
+        assertEquals(net, total.netKg);
+        assertEquals(minTare, total.minTareKg);
+        assertEquals(maxTare, total.maxTareKg);
+
+        assertEquals(THREADS * PER_THREAD, agg.tickets());
+        assertEquals(VEHICLES, agg.vehicles());
+        assertEquals(VEHICLES * DAYS, agg.entries());
+        assertEquals(VEHICLES * DAYS, agg.snapshot().size());
+        assertEquals(agg.tickets(), agg.snapshot().stream().mapToLong(t -> t.tickets).sum());
+
+        // 질의: 차량 하나의 날짜별 / 하루의 차량별
+        List<DailyTotal> byVehicle = agg.vehicle(vehicle);
+        assertEquals(DAYS, byVehicle.size());
+        assertEquals(LocalDate.of(2025, 12, 20), byVehicle.get(0).day);
+        assertEquals(VEHICLES, agg.day(day).size());
+        assertNull(agg.get("없는차량", day));
+    }
+
+    @Test
+    void skipsUnkeyedTicketsCapsEntriesAndWritesCsv() throws Exception {
+        TicketAggregator agg = new TicketAggregator(2);
+        agg.add(ticket("2026-02-02 05:37:55", "80구8713", null, 7470, 5010));
+        agg.add(ticket("2026-02-02", "80구8713", null, null, 100));
+        agg.add(ticket("2025-12-01", "0580", null, 12910, null));
+        agg.add(ticket("2026-02-02", null, null, 7470, 5010));      // 차량번호 없음
+        agg.add(ticket("2026-02-30", "5405", null, 13950, 130));    // 없는 날짜
+        agg.add(ticket("2026-02-01", "5405", null, 13950, 130));    // 항목 상한(2) 초과
+
+        assertEquals(3, agg.tickets());
+        assertEquals(2, agg.skipped());
+        assertEquals(1, agg.dropped());
+        assertEquals(2, agg.vehicles(), "dropped ticket does not register its vehicle");
+
+        Path csv = tempDir.resolve("out/agg.csv");
+        assertEquals(2, agg.writeCsv(csv));
+        assertEquals(List.of(
+                "\uFEFFvehicle,day,tickets,netTickets,netKg,minTareKg,maxTareKg",
+                "0580,2025-12-01,1,0,0,12910,12910",
+                "80구8713,2026-02-02,2,2,5110,7470,7470"),
+                Files.readAllLines(csv, StandardCharsets.UTF_8));
+    }
+}
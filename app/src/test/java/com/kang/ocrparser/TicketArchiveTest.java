@@ -0,0 +1,141 @@
+package com.kang.ocrparser;
+
+import static com.kang.ocrparser.Tickets.ticket;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.archive.TicketArchiveReader;
+import com.kang.ocrparser.archive.TicketArchiveWriter;
+import com.kang.ocrparser.archive.TicketFilter;
+import com.kang.ocrparser.io.TicketJson;
+import com.kang.ocrparser.model.ParsedTicket;
+
+public class TicketArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    // 2월 1일~10일, 하루 5건. 차량번호는 3대가 돌아가며
+    private static List<ParsedTicket> february() {
+        List<ParsedTicket> list = new ArrayList<>();
+        String[] vehicles = {"80구8713", "12가3456", "5너1234"};
+        for (int day = 1; day <= 10; day++) {
+            for (int k = 0; k < 5; k++) {
+                String date = String.format("2026-02-%02d %02d:%02d:00", day, 8 + k, 10 * k);
+                int gross = 10_000 + day * 100 + k;
+                list.add(ticket(date, vehicles[(day + k) % 3], gross, 5_000, gross - 5_000));
+            }
+        }
+        return list;
+    }
+
+    private static String json(List<ParsedTicket> tickets) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (ParsedTicket t : tickets) sb.append(TicketJson.write(TicketJson.COMPACT, t)).append('\n');
+        return sb.toString();
+    }
+
+    @Test
+    void roundTripsAllFieldsAcrossRowGroups() throws Exception {
+        List<ParsedTicket> tickets = february();
+        tickets.add(new ParsedTicket());
+        tickets.add(ticket("2026-02-30", null, 12_480, null, null));        // 없는 날짜 → 원문 그대로
+        tickets.add(ticket("2026-02-02 5:26", "80구8713", null, 7_000, null));
+        tickets.add(ticket("2026-02-03", "12가3456", 9_000, 4_000, 5_000));
+        tickets.add(ticket("2026-02-03 06:15", null, -5, 0, null));
+        ParsedTicket partial = ticket(null, "80구8713", null, null, null);
+        partial.setPartial(true);
+        tickets.add(partial);
+
+        Path file = tempDir.resolve("tickets.tka");
+        try (TicketArchiveWriter writer = new TicketArchiveWriter(file, 8)) {
+            for (ParsedTicket t : tickets) writer.append(t);
+        }
+
+        try (TicketArchiveReader reader = TicketArchiveReader.open(file)) {
+            assertEquals(tickets.size(), reader.rowCount());
+            assertEquals((tickets.size() + 7) / 8, reader.rowGroups());
+            assertEquals(json(tickets), json(reader.find(TicketFilter.all())));
+        }
+    }
+
+    @Test
+    void filtersByDateRangeAndVehicleAndSkipsRowGroups() throws Exception {
+        List<ParsedTicket> tickets = february();
+        tickets.add(ticket(null, "80구8713", 1, 1, 0));
+        tickets.add(ticket("2026-02-05 5:26", "80구8713", 1, 1, 0));   // 해석 못 한 날짜
+
+        Path file = tempDir.resolve("tickets.tka");
+        try (TicketArchiveWriter writer = new TicketArchiveWriter(file, 5)) {
+            for (ParsedTicket t : tickets) writer.append(t);
+        }
+
+        try (TicketArchiveReader reader = TicketArchiveReader.open(file)) {
+            // 그룹 하나 = 하루
+            TicketFilter days = TicketFilter.all().from(LocalDate.of(2026, 2, 4)).to(LocalDate.of(2026, 2, 6));
+            List<ParsedTicket> found = reader.find(days);
+            assertEquals(15, found.size());
+            assertEquals("2026-02-04 08:00:00", found.get(0).getWeighingDate());
+            assertEquals("2026-02-06 12:40:00", found.get(14).getWeighingDate());
+            assertEquals(3, reader.rowGroupsToScan(days));
+
+            TicketFilter vehicle = TicketFilter.all().vehicle("80구8713");
+            long expected = tickets.stream().filter(t -> "80구8713".equals(t.getVehicleNumber())).count();
+            assertEquals(expected, reader.count(vehicle));
+            for (ParsedTicket t : reader.find(vehicle)) assertEquals("80구8713", t.getVehicleNumber());
+
+            TicketFilter both = days.vehicle("12가3456");
+            assertEquals(json(tickets.stream()
+                            .filter(t -> "12가3456".equals(t.getVehicleNumber()))
+                            .filter(t -> t.getWeighingDate() != null && t.getWeighingDate().compareTo("2026-02-04") >= 0
+                                    && t.getWeighingDate().compareTo("2026-02-07") < 0)
+                            .toList()),
+                    json(reader.find(both)));
+
+            // 사전에 없는 차량번호는 그룹을 하나도 열지 않는다
+            assertEquals(0, reader.rowGroupsToScan(TicketFilter.all().vehicle("99허9999")));
+            assertEquals(0, reader.count(TicketFilter.all().vehicle("99허9999")));
+        }
+    }
+
+    @Test
+    void appendsToExistingArchiveAndDropsTornTail() throws Exception {
+        List<ParsedTicket> tickets = february();
+        Path file = tempDir.resolve("tickets.tka");
+        try (TicketArchiveWriter writer = new TicketArchiveWriter(file, 16)) {
+            for (ParsedTicket t : tickets.subList(0, 20)) writer.append(t);
+        }
+        long goodSize = Files.size(file);
+
+        // 쓰다 죽은 그룹: 앞부분만 남아 있다
+        try (TicketArchiveWriter writer = new TicketArchiveWriter(file, 16)) {
+            for (ParsedTicket t : tickets.subList(20, 30)) writer.append(t);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(Files.size(file) - 10);
+        }
+        try (TicketArchiveReader reader = TicketArchiveReader.open(file)) {
+            assertEquals(20, reader.rowCount());
+        }
+
+        try (TicketArchiveWriter writer = new TicketArchiveWriter(file, 16)) {
+            assertTrue(Files.size(file) == goodSize);
+            for (ParsedTicket t : tickets.subList(20, tickets.size())) writer.append(t);
+        }
+
+        try (TicketArchiveReader reader = TicketArchiveReader.open(file)) {
+            assertEquals(tickets.size(), reader.rowCount());
+            assertEquals(json(tickets), json(reader.find(TicketFilter.all())));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.kang.ocrparser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.TemplateRegistry;
+import com.kang.ocrparser.parser.WeighingParser;
+
+public class TicketTemplateTest {
+
+    // sample_02 (장원C&S) 형태: 날짜 뒤에 일련번호가 붙어 일반 경로로는 날짜를 못 찾는다
+    private static final String JANGWON = """
+            * 계 그 표 *
+            날 짜: 2026-02-02-00004
+            ID-NO : 010889
+            차번호: 80구8713
+            총중량: 02:07 13 460 kg
+            차중량: 02 : 13 7 560 kg
+            실중량: 5 900 kg
+            장원C&S
+            2026-02-02 02:14:23
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void routesKnownTemplateToItsExtractor() throws Exception {
+        TemplateRegistry previous = TemplateRegistry.active();
+        TemplateRegistry.install(TemplateRegistry.withBuiltIns(List.of()));
+        try {
+            ParsedTicket ticket = WeighingParser.parse(JANGWON);
+
+            assertEquals("2026-02-02", ticket.getWeighingDate());
+            assertEquals("80구8713", ticket.getVehicleNumber());
+            assertEquals(13460, ticket.getGrossWeightKg());
+            assertEquals(7560, ticket.getTareWeightKg());
+            assertEquals(5900, ticket.getNetWeightKg());
+
+            TemplateRegistry reg = TemplateRegistry.active();
+            assertEquals(1, reg.hitCount("jangwon-cns"));
+            assertEquals(0, reg.unknownCount());
+        } finally {
+            TemplateRegistry.install(previous);
+        }
+    }
+
+    @Test
+    void inconsistentTemplateValuesFallBackToGenericParser() throws Exception {
+        TemplateRegistry previous = TemplateRegistry.active();
+        TemplateRegistry.install(TemplateRegistry.withBuiltIns(List.of()));
+        try {
+            // 양식은 맞지만 kg 값 순서가 정의와 달라 gross - tare = net 검증에 실패 → 라벨 기반 일반 경로
+            String text = """
+                    ID-NO : 010889
+                    차번호: 80구8713
+                    실중량: 5,900 kg
+                    총중량: 13,460 kg
+                    차중량: 7,560 kg
+                    장원C&S
+                    """;
+
+            ParsedTicket ticket = WeighingParser.parse(text);
+
+            assertEquals(13460, ticket.getGrossWeightKg());
+            assertEquals(7560, ticket.getTareWeightKg());
+            assertEquals(5900, ticket.getNetWeightKg());
+
+            TemplateRegistry reg = TemplateRegistry.active();
+            assertEquals(0, reg.hitCount("jangwon-cns"));
+            assertEquals(1, reg.fallbackCount("jangwon-cns"));
+        } finally {
+            TemplateRegistry.install(previous);
+        }
+    }
+
+    @Test
+    void rejectsInvalidTemplateFilesWithTheFileName() throws Exception {
+        Path incomplete = tempDir.resolve("incomplete.json");
+        Files.writeString(incomplete, "{\"templates\": [{\"name\": \"acme\", \"head\": [\"ACME\"], \"weights\": [\"gross\"]}]}",
+                StandardCharsets.UTF_8);
+        IOException e = assertThrows(IOException.class, () -> TemplateRegistry.load(incomplete));
+        assertTrue(e.getMessage().startsWith(incomplete + ": "), e.getMessage());
+        assertTrue(e.getMessage().contains("gross, tare and net"), e.getMessage());
+
+        // 깨진 JSON: 여러 줄짜리 Jackson 메시지 대신 한 줄 + 위치
+        Path broken = tempDir.resolve("broken.json");
+        Files.writeString(broken, "{\"templates\": [\n", StandardCharsets.UTF_8);
+        e = assertThrows(IOException.class, () -> TemplateRegistry.load(broken));
+        assertTrue(e.getMessage().startsWith(broken + ": "), e.getMessage());
+        assertTrue(e.getMessage().endsWith("(line 2, column 1)"), e.getMessage());
+        assertFalse(e.getMessage().contains("\n"), e.getMessage());
+    }
+
+    @Test
+    void loadsAdditionalTemplatesFromFile() throws Exception {
+        Path file = tempDir.resolve("templates.json");
+        Files.writeString(file, """
+                {"templates": [{"name": "acme", "head": ["ACME 계량표"], "tail": [],
+                                "weights": ["skip", "gross", "tare", "net"],
+                                "dateLabels": ["입차"], "vehicleLabels": ["차량"]}]}
+                """, StandardCharsets.UTF_8);
+        TemplateRegistry previous = TemplateRegistry.active();
+        TemplateRegistry.install(TemplateRegistry.withBuiltIns(TemplateRegistry.load(file)));
+        try {
+            ParsedTicket ticket = WeighingParser.parse("""
+                    acme 계량표
+                    차량 : 12가3456
+                    입차 : 2026-03-01 08:00
+                    감량 20 kg
+                    21,000 kg
+                    9,500 kg
+                    11,500 kg
+                    """);
+
+            assertEquals("2026-03-01 08:00", ticket.getWeighingDate());
+            assertEquals("12가3456", ticket.getVehicleNumber());
+            assertEquals(21000, ticket.getGrossWeightKg());
+            assertEquals(9500, ticket.getTareWeightKg());
+            assertEquals(11500, ticket.getNetWeightKg());
+
+            WeighingParser.parse("총중량: 100 kg");
+
+            TemplateRegistry reg = TemplateRegistry.active();
+            assertEquals(1, reg.hitCount("acme"));
+            assertEquals(1, reg.unknownCount());
+            assertTrue(reg.stats().startsWith("routed=1/2 (50.0%) unknown=1 | acme hit=1/1"), reg.stats());
+            assertTrue(reg.size() > 1, "built-in templates stay registered");
+        } finally {
+            TemplateRegistry.install(previous);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.kang.ocrparser;
+
+import com.kang.ocrparser.model.ParsedTicket;
+
+// 테스트 공용 티켓 픽스처 (파싱 없이 필드만 채운 ParsedTicket)
+final class Tickets {
+
+    private Tickets() {
+    }
+
+    static ParsedTicket ticket(String date, String vehicle, Integer gross, Integer tare, Integer net) {
+        ParsedTicket t = new ParsedTicket();
+        t.setWeighingDate(date);
+        t.setVehicleNumber(vehicle);
+        t.setGrossWeightKg(gross);
+        t.setTareWeightKg(tare);
+        t.setNetWeightKg(net);
+        return t;
+    }
+}
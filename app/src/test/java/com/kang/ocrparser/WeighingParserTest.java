@@ -27,4 +27,23 @@ public class WeighingParserTest {
         assertEquals(7470, ticket.getTareWeightKg());
         assertEquals(5010, ticket.getNetWeightKg());
     }
+
+    @Test
+    void resolvesWeightsFromFallbackCandidates() {
+        // 총중량/공차중량 라벨이 OCR로 깨져서 kg 후보 조합(gross - tare = net)으로 찾아야 하는 경우
+        String ocrText = """
+            품종명랑 05:26:18 12,480 kg
+            명:
+            중 량:
+            05:36:01 7,470 kg
+            실 중 량: 5,010 kg
+            감 량 0 kg
+            """;
+
+        ParsedTicket ticket = WeighingParser.parse(ocrText);
+
+        assertEquals(12480, ticket.getGrossWeightKg());
+        assertEquals(7470, ticket.getTareWeightKg());
+        assertEquals(5010, ticket.getNetWeightKg());
+    }
 }
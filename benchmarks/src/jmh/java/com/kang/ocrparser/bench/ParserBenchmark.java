@@ -0,0 +1,93 @@
+package com.kang.ocrparser.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.kang.ocrparser.model.ParsedTicket;
+import com.kang.ocrparser.parser.TextNormalizer;
+import com.kang.ocrparser.parser.VehicleNumberExtractor;
+import com.kang.ocrparser.parser.WeighingDateExtractor;
+import com.kang.ocrparser.parser.WeighingParser;
+import com.kang.ocrparser.parser.WeightExtractor;
+
+/*
+ * 파서 단계별 처리량. lines로 합성 티켓 길이(잡음 줄 수)를 바꿔가며 입력 크기에 따른 비용 변화를 본다.
+ * - labelHit: 라벨(총중량/공차중량/실중량)로 바로 끝나는 경로
+ * - fallback: 라벨이 깨져 kg 후보 전체 탐색으로 가는 경로
+ * - misread: 라벨이 자모 하나씩 잘못 읽혀 FuzzyLabelScanner로 찾는 경로
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParserBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int lines;
+
+    private String labelledRaw;
+    private String fallbackRaw;
+    private String misreadRaw;
+    private String labelledNormalized;
+    private String fallbackNormalized;
+
+    @Setup
+    public void setup() {
+        labelledRaw = SyntheticTickets.generate(lines, 42L, true);
+        fallbackRaw = SyntheticTickets.generate(lines, 42L, false);
+        misreadRaw = SyntheticTickets.generateMisread(lines, 42L);
+        labelledNormalized = TextNormalizer.normalize(labelledRaw);
+        fallbackNormalized = TextNormalizer.normalize(fallbackRaw);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return TextNormalizer.normalize(fallbackRaw);
+    }
+
+    @Benchmark
+    public String vehicleNumber() {
+        return VehicleNumberExtractor.extract(labelledRaw);
+    }
+
+    @Benchmark
+    public String weighingDate() {
+        return WeighingDateExtractor.extract(labelledRaw);
+    }
+
+    @Benchmark
+    public ParsedTicket weightLabelHit() {
+        ParsedTicket ticket = new ParsedTicket();
+        WeightExtractor.extract(labelledNormalized, ticket);
+        return ticket;
+    }
+
+    @Benchmark
+    public ParsedTicket weightFallback() {
+        ParsedTicket ticket = new ParsedTicket();
+        WeightExtractor.extract(fallbackNormalized, ticket);
+        return ticket;
+    }
+
+    @Benchmark
+    public ParsedTicket parseLabelled() {
+        return WeighingParser.parse(labelledRaw);
+    }
+
+    @Benchmark
+    public ParsedTicket parseFallback() {
+        return WeighingParser.parse(fallbackRaw);
+    }
+
+    @Benchmark
+    public ParsedTicket parseMisread() {
+        return WeighingParser.parse(misreadRaw);
+    }
+}
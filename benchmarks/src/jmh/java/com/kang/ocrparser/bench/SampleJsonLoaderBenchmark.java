@@ -0,0 +1,53 @@
+package com.kang.ocrparser.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.kang.ocrparser.io.SampleJsonLoader;
+
+/*
+ * samples/*.json (100~190KB 제공사 응답)에서 OCR text를 뽑는 비용.
+ * String 입력 / InputStream 입력을 나눠서 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SampleJsonLoaderBenchmark {
+
+    @Param({ "sample_01.json", "sample_02.json", "sample_03.json", "sample_04.json" })
+    public String sample;
+
+    private byte[] bytes;
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = SampleJsonLoaderBenchmark.class.getResourceAsStream("/" + sample)) {
+            if (in == null) throw new IllegalStateException("sample not on classpath: " + sample);
+            bytes = in.readAllBytes();
+        }
+        json = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String extractFromString() {
+        return SampleJsonLoader.extractOcrText(json);
+    }
+
+    @Benchmark
+    public String extractFromStream() throws IOException {
+        return SampleJsonLoader.extractOcrText(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,111 @@
+package com.kang.ocrparser.bench;
+
+import java.util.Locale;
+import java.util.Random;
+
+/*
+ * 벤치마크용 합성 계량표 생성기.
+ * 실제 샘플처럼 시간 토큰, 띄어쓰기 깨짐, 천 단위 쉼표, 주소/연락처 잡음을 섞고
+ * lines로 전체 길이(잡음 줄 수)를 조절한다. seed가 같으면 같은 텍스트가 나온다.
+ */
+public class SyntheticTickets {
+
+    private static final String[] HEADERS = {
+        "계 량 증 명 서", "** 계 량 확 인 서 **", "* 계 그 표 *", "계 량 증 명 표"
+    };
+
+    private static final String[] NOISE = {
+        "거 래 처: 곰욕환경폐기물", "품 명: 식물", "구 분: 입고", "(공급자 보관용)",
+        "경기도 화성시 팔탄면 노하길454번길 23", "Tel) 031-354-7778", "FAX : (031)359-9128",
+        "* 위와 같이 계량하였음을 확인함.", "비 고 취급자", "37.105317, 127.375673"
+    };
+
+    private static final String[] PLATE_HANGUL = { "구", "가", "나", "다", "로", "모", "버", "수" };
+
+    /*
+     * labelled=true  → 총중량/공차중량/실중량 라벨이 살아있는 티켓 (라벨 매칭 경로)
+     * labelled=false → 라벨이 OCR로 깨진 티켓 (kg 후보 전체 탐색 fallback 경로)
+     */
+    public static String generate(int lines, long seed, boolean labelled) {
+        return generate(lines, seed, labelled, false);
+    }
+
+    /*
+     * 라벨은 있지만 OCR이 한 자모씩 잘못 읽은 티켓 (총중랑 / 공차줌량 / 실증량 → FuzzyLabelScanner 경로)
+     */
+    public static String generateMisread(int lines, long seed) {
+        return generate(lines, seed, true, true);
+    }
+
+    private static String generate(int lines, long seed, boolean labelled, boolean misread) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder(lines * 32 + 256);
+
+        int tare = 5_000 + r.nextInt(10_000);
+        int net = 100 + r.nextInt(10_000);
+        int gross = tare + net;
+
+        sb.append(HEADERS[r.nextInt(HEADERS.length)]).append(" \n");
+        sb.append(r.nextBoolean() ? "계량일자: " : "계량 일자: ")
+                .append(date(r)).append(' ').append(time(r)).append(" \n");
+        sb.append(r.nextBoolean() ? "차량번호: " : "차량 No. ")
+                .append(10 + r.nextInt(90)).append(PLATE_HANGUL[r.nextInt(PLATE_HANGUL.length)])
+                .append(String.format(Locale.ROOT, "%04d", r.nextInt(10_000))).append(" \n");
+
+        int weightLine = lines / 2;
+        for (int i = 0; i < lines; i++) {
+            if (i == weightLine) {
+                appendWeights(sb, r, gross, tare, net, labelled, misread);
+            }
+            String noise = NOISE[r.nextInt(NOISE.length)];
+            sb.append(noise);
+            // 가끔 kg 잡음 토큰 (감량 0 kg 같은 것)
+            if (r.nextInt(8) == 0) sb.append(" 감 량 ").append(r.nextInt(50)).append(" kg");
+            sb.append(" \n");
+        }
+        if (lines <= weightLine) {
+            appendWeights(sb, r, gross, tare, net, labelled, misread);
+        }
+
+        sb.append(date(r)).append(' ').append(time(r)).append('\n');
+        return sb.toString();
+    }
+
+    private static void appendWeights(StringBuilder sb, Random r, int gross, int tare, int net, boolean labelled,
+                                      boolean misread) {
+        if (labelled) {
+            sb.append(spaced(r, misread ? "총중랑" : "총중량")).append(" : ").append(time(r)).append(' ').append(kg(r, gross)).append(" \n");
+            sb.append(spaced(r, misread ? "공차줌량" : "공차중량")).append(" : ").append(time(r)).append(' ').append(kg(r, tare)).append(" \n");
+            sb.append(spaced(r, misread ? "실증량" : "실중량")).append(" : ").append(kg(r, net)).append(" \n");
+        } else {
+            sb.append("품종명랑 ").append(time(r)).append(' ').append(kg(r, gross)).append(" \n");
+            sb.append("명: \n중 량: \n");
+            sb.append(time(r)).append(' ').append(kg(r, tare)).append(" \n");
+            sb.append("실 중 랑: ").append(kg(r, net)).append(" \n");
+        }
+    }
+
+    // "총중량" → "총 중 량" 같이 OCR이 글자 사이를 띄우는 경우
+    private static String spaced(Random r, String label) {
+        if (r.nextBoolean()) return label;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < label.length(); i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(label.charAt(i));
+        }
+        return sb.toString();
+    }
+
+    private static String kg(Random r, int v) {
+        String num = r.nextBoolean() ? String.format(Locale.ROOT, "%,d", v) : Integer.toString(v);
+        return num + (r.nextInt(4) == 0 ? " k g" : " kg");
+    }
+
+    private static String date(Random r) {
+        return String.format(Locale.ROOT, "2026-%02d-%02d", 1 + r.nextInt(12), 1 + r.nextInt(28));
+    }
+
+    private static String time(Random r) {
+        return String.format(Locale.ROOT, "%02d:%02d:%02d", r.nextInt(24), r.nextInt(60), r.nextInt(60));
+    }
+}